@@ -15,6 +15,10 @@
  */
 package org.pac4j.cas.client;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.jasig.cas.client.authentication.AttributePrincipal;
 import org.jasig.cas.client.util.CommonUtils;
 import org.jasig.cas.client.validation.Assertion;
@@ -26,11 +30,20 @@ import org.jasig.cas.client.validation.Saml11TicketValidator;
 import org.jasig.cas.client.validation.TicketValidationException;
 import org.jasig.cas.client.validation.TicketValidator;
 import org.pac4j.cas.credentials.CasCredentials;
+import org.pac4j.cas.logout.AsyncLogoutHandler;
 import org.pac4j.cas.logout.CasSingleSignOutHandler;
 import org.pac4j.cas.logout.DefaultLogoutHandler;
 import org.pac4j.cas.logout.LogoutHandler;
+import org.pac4j.cas.logout.RegistryLogoutHandler;
 import org.pac4j.cas.profile.CasProfile;
 import org.pac4j.cas.profile.CasProxyProfile;
+import org.pac4j.cas.proxy.ProxyTicketManager;
+import org.pac4j.cas.validation.BaseCasValidator;
+import org.pac4j.cas.validation.Cas10Validator;
+import org.pac4j.cas.validation.Cas20ProxyValidator;
+import org.pac4j.cas.validation.Cas20Validator;
+import org.pac4j.cas.validation.CasHttpTransport;
+import org.pac4j.cas.validation.Saml11Validator;
 import org.pac4j.core.client.BaseClient;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.exception.ClientException;
@@ -64,15 +77,26 @@ import org.slf4j.LoggerFactory;
  * <li>the <code>gateway</code> parameter can be set by using the {@link #setGateway(boolean)} method.</li>
  * </ul>
  * <p />
+ * The service tickets are validated by the pac4j validators of the {@link org.pac4j.cas.validation} package : they reuse the HTTP
+ * connections to the CAS server (their transport can be defined through the {@link #setCasHttpTransport(CasHttpTransport)} method) and
+ * parse the responses in one pass. The validators of the CAS client can still be used by setting <code>false</code> to the
+ * {@link #setNativeValidation(boolean)} method. A client cloned from an initialized client shares its ticket validator (unless its CAS
+ * configuration is changed before its initialization).
+ * <p />
  * This client handles CAS logout calls from the CAS server, using the {@link LogoutHandler} interface. It's defined by default as the
- * {@link DefaultLogoutHandler} class, but can be set to the {@link CasSingleSignOutHandler} class using the
- * {@link #setLogoutHandler(LogoutHandler)} method.
+ * {@link DefaultLogoutHandler} class, but can be set to the {@link CasSingleSignOutHandler} class (J2E context, with a fallback for the
+ * other contexts) or to the {@link RegistryLogoutHandler} class (any web context, or its asynchronous version : the
+ * {@link AsyncLogoutHandler} class) using the {@link #setLogoutHandler(LogoutHandler)} method. As the {@link RegistryLogoutHandler} class
+ * only revokes the tickets, the {@link #isLoggedOut(WebContext)} method must then be called on each request of the protected application
+ * before using the profile saved in the session.
  * <p />
  * To require a proxy granting ticket, the {@link CasProxyReceptor} class must be used and referenced in this class through the
  * {@link #setCasProxyReceptor(CasProxyReceptor)} method.
  * <p />
  * It returns a {@link org.pac4j.cas.profile.CasProfile} or a {@link org.pac4j.cas.profile.CasProxyProfile} if the
- * <code>casProxyReceptor</code> is defined (this CAS client acts as a proxy).
+ * <code>casProxyReceptor</code> is defined (this CAS client acts as a proxy). In that case, a {@link ProxyTicketManager} can be defined
+ * through the {@link #setProxyTicketManager(ProxyTicketManager)} method to acquire in advance the proxy tickets of the hot services right
+ * after the login.
  * 
  * @see org.pac4j.cas.profile.CasProfile
  * @author Jerome Leleu
@@ -97,6 +121,9 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
     
     protected TicketValidator ticketValidator;
     
+    // the configuration the ticket validator was built from
+    private List<Object> ticketValidatorConfiguration;
+    
     protected String casLoginUrl;
     
     protected String casPrefixUrl;
@@ -113,6 +140,12 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
     
     protected CasProxyReceptor casProxyReceptor;
     
+    protected ProxyTicketManager proxyTicketManager;
+    
+    protected boolean nativeValidation = true;
+    
+    protected CasHttpTransport casHttpTransport = new CasHttpTransport();
+    
     /**
      * Get the redirection url.
      * 
@@ -139,6 +172,10 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
         casClient.setAcceptAnyProxy(this.acceptAnyProxy);
         casClient.setAllowedProxyChains(this.allowedProxyChains);
         casClient.setCasProxyReceptor(this.casProxyReceptor);
+        casClient.setLogoutHandler(this.logoutHandler);
+        casClient.setProxyTicketManager(this.proxyTicketManager);
+        casClient.setNativeValidation(this.nativeValidation);
+        casClient.setCasHttpTransport(this.casHttpTransport);
         return casClient;
     }
     
@@ -157,7 +194,19 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
         } else if (CommonHelper.isBlank(this.casLoginUrl)) {
             this.casLoginUrl = this.casPrefixUrl + "login";
         }
-        if (this.casProtocol == CasProtocol.CAS10) {
+        final List<Object> configuration = Arrays.asList(this.casPrefixUrl, this.casProtocol, this.renew,
+                                                         this.acceptAnyProxy, this.allowedProxyChains,
+                                                         this.casProxyReceptor, this.casProxyReceptor == null ? null
+                                                             : this.casProxyReceptor.getCallbackUrl(),
+                                                         this.nativeValidation, this.casHttpTransport);
+        if (this.ticketValidator != null && configuration.equals(this.ticketValidatorConfiguration)) {
+            logger.debug("reuse ticket validator : {}", this.ticketValidator);
+            return;
+        }
+        this.ticketValidatorConfiguration = configuration;
+        if (this.nativeValidation) {
+            initNativeValidator();
+        } else if (this.casProtocol == CasProtocol.CAS10) {
             this.ticketValidator = new Cas10TicketValidator(this.casPrefixUrl);
         } else if (this.casProtocol == CasProtocol.CAS20) {
             this.ticketValidator = new Cas20ServiceTicketValidator(this.casPrefixUrl);
@@ -182,6 +231,48 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
         }
     }
     
+    private void initNativeValidator() throws ClientException {
+        CommonHelper.assertNotNull("casHttpTransport", this.casHttpTransport);
+        final BaseCasValidator validator;
+        if (this.casProtocol == CasProtocol.CAS10) {
+            validator = new Cas10Validator(this.casPrefixUrl);
+        } else if (this.casProtocol == CasProtocol.SAML) {
+            validator = new Saml11Validator(this.casPrefixUrl);
+        } else {
+            final Cas20Validator cas20Validator;
+            if (this.casProtocol == CasProtocol.CAS20_PROXY) {
+                final Cas20ProxyValidator cas20ProxyValidator = new Cas20ProxyValidator(this.casPrefixUrl);
+                cas20ProxyValidator.setAcceptAnyProxy(this.acceptAnyProxy);
+                cas20ProxyValidator.setAllowedProxyChains(this.allowedProxyChains);
+                cas20Validator = cas20ProxyValidator;
+            } else {
+                cas20Validator = new Cas20Validator(this.casPrefixUrl);
+            }
+            if (this.casProxyReceptor != null) {
+                cas20Validator.setProxyCallbackUrl(this.casProxyReceptor.getCallbackUrl());
+                cas20Validator.setProxyGrantingTicketStorage(this.casProxyReceptor.getProxyGrantingTicketStorage());
+            }
+            validator = cas20Validator;
+        }
+        validator.setRenew(this.renew);
+        validator.setTransport(this.casHttpTransport);
+        this.ticketValidator = validator;
+    }
+    
+    @Override
+    protected void shareInitializedObjects(final BaseClient<CasCredentials, CasProfile> newClient) {
+        final CasClient casClient = (CasClient) newClient;
+        casClient.ticketValidator = this.ticketValidator;
+        casClient.ticketValidatorConfiguration = this.ticketValidatorConfiguration;
+    }
+    
+    @Override
+    protected List<String> getWarmUpUrls() {
+        final List<String> urls = new ArrayList<String>();
+        urls.add(this.casPrefixUrl);
+        return urls;
+    }
+    
     /**
      * Get the credentials from the web context.
      * 
@@ -238,6 +329,13 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
             casProfile.addAttributes(principal.getAttributes());
             if (this.casProxyReceptor != null) {
                 ((CasProxyProfile) casProfile).setPrincipal(principal);
+                if (this.proxyTicketManager != null) {
+                    this.proxyTicketManager.prefetch((CasProxyProfile) casProfile);
+                }
+            }
+            final RegistryLogoutHandler registryLogoutHandler = getRegistryLogoutHandler();
+            if (registryLogoutHandler != null) {
+                registryLogoutHandler.bindPrincipal(ticket, principal.getName());
             }
             logger.debug("casProfile : {}", casProfile);
             return casProfile;
@@ -287,10 +385,42 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
         this.gateway = gateway;
     }
     
+    /**
+     * Return whether the session of the web context has been logged out by the CAS server, invalidating it if so. It must be called on
+     * each request of the protected application, before using the profile saved in the session, when the logout handler is a
+     * {@link RegistryLogoutHandler} or a {@link CasSingleSignOutHandler} falling back to it (the other handlers invalidate the sessions
+     * themselves : <code>false</code> is always returned).
+     * 
+     * @param context
+     * @return whether the session has been logged out
+     */
+    public boolean isLoggedOut(final WebContext context) {
+        final RegistryLogoutHandler registryLogoutHandler = getRegistryLogoutHandler();
+        if (registryLogoutHandler != null) {
+            return registryLogoutHandler.isLoggedOut(context);
+        }
+        return false;
+    }
+    
+    private RegistryLogoutHandler getRegistryLogoutHandler() {
+        if (this.logoutHandler instanceof RegistryLogoutHandler) {
+            return (RegistryLogoutHandler) this.logoutHandler;
+        } else if (this.logoutHandler instanceof CasSingleSignOutHandler) {
+            return ((CasSingleSignOutHandler) this.logoutHandler).getFallbackHandler();
+        }
+        return null;
+    }
+    
     public LogoutHandler getLogoutHandler() {
         return this.logoutHandler;
     }
     
+    /**
+     * Define the logout handler. With a {@link RegistryLogoutHandler}, the logouts are only effective if the
+     * {@link #isLoggedOut(WebContext)} method is called on each request of the protected application.
+     * 
+     * @param logoutHandler
+     */
     public void setLogoutHandler(final LogoutHandler logoutHandler) {
         this.logoutHandler = logoutHandler;
     }
@@ -319,12 +449,37 @@ public class CasClient extends BaseClient<CasCredentials, CasProfile> {
         this.casProxyReceptor = casProxyReceptor;
     }
     
+    public ProxyTicketManager getProxyTicketManager() {
+        return this.proxyTicketManager;
+    }
+    
+    public void setProxyTicketManager(final ProxyTicketManager proxyTicketManager) {
+        this.proxyTicketManager = proxyTicketManager;
+    }
+    
+    public boolean isNativeValidation() {
+        return this.nativeValidation;
+    }
+    
+    public void setNativeValidation(final boolean nativeValidation) {
+        this.nativeValidation = nativeValidation;
+    }
+    
+    public CasHttpTransport getCasHttpTransport() {
+        return this.casHttpTransport;
+    }
+    
+    public void setCasHttpTransport(final CasHttpTransport casHttpTransport) {
+        this.casHttpTransport = casHttpTransport;
+    }
+    
     @Override
     public String toString() {
         return CommonHelper.toString(this.getClass(), "callbackUrl", this.callbackUrl, "casLoginUrl", this.casLoginUrl,
                                      "casPrefixUrl", this.casPrefixUrl, "casProtocol", this.casProtocol, "renew",
                                      this.renew, "gateway", this.gateway, "logoutHandler", this.logoutHandler,
                                      "acceptAnyProxy", this.acceptAnyProxy, "allowedProxyChains",
-                                     this.allowedProxyChains, "casProxyReceptor", this.casProxyReceptor);
+                                     this.allowedProxyChains, "casProxyReceptor", this.casProxyReceptor, "proxyTicketManager",
+                                     this.proxyTicketManager, "nativeValidation", this.nativeValidation);
     }
 }
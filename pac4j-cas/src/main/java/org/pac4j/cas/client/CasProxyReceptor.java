@@ -46,6 +46,9 @@ import org.slf4j.LoggerFactory;
  * By default, the tickets and associations are cleaned every minute. The <code>millisBetweenCleanUps</code> property can be defined through
  * the {@link #setMillisBetweenCleanUps(int)} method (0 means no cleanup, greater than 0 means a cleanup every
  * <code>millisBetweenCleanUps</code> milli-seconds).
+ * <p />
+ * It only relies on the {@link WebContext} (the request parameters and one response write) : it works in J2E context as well as in the
+ * {@link org.pac4j.core.context.AsyncWebContext} of event-loop servers.
  * 
  * @author Jerome Leleu
  * @since 1.4.0
@@ -60,6 +63,9 @@ public final class CasProxyReceptor extends BaseCredentialsReceptor<CasCredentia
     
     public static final String PARAM_PROXY_GRANTING_TICKET = "pgtId";
     
+    private static final String PROXY_SUCCESS_RESPONSE = "<?xml version=\"1.0\"?>"
+                                                         + "<casClient:proxySuccess xmlns:casClient=\"http://www.yale.edu/tp/casClient\" />";
+    
     private int millisBetweenCleanUps = 60000;
     
     private Timer timer;
@@ -115,8 +121,8 @@ public final class CasProxyReceptor extends BaseCredentialsReceptor<CasCredentia
             
             this.proxyGrantingTicketStorage.save(proxyGrantingTicketIou, proxyGrantingTicket);
             
-            context.WriteResponse("<?xml version=\"1.0\"?>");
-            context.WriteResponse("<casClient:proxySuccess xmlns:casClient=\"http://www.yale.edu/tp/casClient\" />");
+            // one single write (not blocking in an asynchronous web context)
+            context.WriteResponse(PROXY_SUCCESS_RESPONSE);
         } catch (final IOException e) {
             throw new HttpCommunicationException(e);
         }
@@ -0,0 +1,258 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.logout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.DaemonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a {@link RegistryLogoutHandler} which processes the logout requests of the CAS server asynchronously : the ticket is
+ * extracted and put in a bounded queue, the request is acknowledged right away and a background worker revokes the queued tickets in
+ * batches.
+ * <p />
+ * The worker is started on the first logout request and stopped by the {@link #destroy()} method. When the queue is full, the ticket is
+ * revoked synchronously (no logout is lost). The queue depth, the processing lag (age of the oldest queued ticket) and the counters are
+ * available for monitoring.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class AsyncLogoutHandler extends RegistryLogoutHandler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLogoutHandler.class);
+    
+    public static final int DEFAULT_QUEUE_CAPACITY = 100000;
+    
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    private static final long POLL_TIMEOUT = 1000;
+    
+    private final BlockingQueue<PendingLogout> queue;
+    
+    private final int batchSize;
+    
+    private final AtomicLong nbProcessed = new AtomicLong();
+    
+    private final AtomicLong nbBatches = new AtomicLong();
+    
+    private final AtomicLong nbOverflows = new AtomicLong();
+    
+    private ExecutorService worker;
+    
+    private volatile boolean started = false;
+    
+    /**
+     * Construct an instance with a new registry and the default queue capacity and batch size.
+     */
+    public AsyncLogoutHandler() {
+        this(new SingleSignOutRegistry());
+    }
+    
+    /**
+     * Construct an instance with a given registry and the default queue capacity and batch size.
+     * 
+     * @param registry
+     */
+    public AsyncLogoutHandler(final SingleSignOutRegistry registry) {
+        this(registry, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * Construct an instance with a given registry, queue capacity and batch size.
+     * 
+     * @param registry
+     * @param queueCapacity
+     * @param batchSize
+     */
+    public AsyncLogoutHandler(final SingleSignOutRegistry registry, final int queueCapacity, final int batchSize) {
+        super(registry);
+        this.queue = new LinkedBlockingQueue<PendingLogout>(queueCapacity > 0 ? queueCapacity : DEFAULT_QUEUE_CAPACITY);
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+    
+    @Override
+    public void destroySession(final WebContext context) {
+        final String ticket = getLogoutTicket(context.getRequestParameter(LOGOUT_REQUEST_PARAMETER));
+        logger.debug("logout ticket : {}", ticket);
+        if (ticket == null) {
+            return;
+        }
+        if (!this.started) {
+            start();
+        }
+        if (!this.queue.offer(new PendingLogout(ticket, System.currentTimeMillis()))) {
+            this.nbOverflows.incrementAndGet();
+            logger.warn("Logout queue full : ticket revoked synchronously");
+            getRegistry().revoke(ticket);
+        }
+    }
+    
+    private synchronized void start() {
+        if (this.started) {
+            return;
+        }
+        this.worker = Executors.newSingleThreadExecutor(new DaemonThreadFactory("pac4j-cas-logout"));
+        this.worker.execute(new Runnable() {
+            
+            public void run() {
+                final List<PendingLogout> batch = new ArrayList<PendingLogout>(AsyncLogoutHandler.this.batchSize);
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        final PendingLogout first = AsyncLogoutHandler.this.queue.poll(POLL_TIMEOUT,
+                                                                                         TimeUnit.MILLISECONDS);
+                        if (first != null) {
+                            batch.add(first);
+                            AsyncLogoutHandler.this.queue.drainTo(batch, AsyncLogoutHandler.this.batchSize - 1);
+                            process(batch);
+                            batch.clear();
+                        }
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (final RuntimeException e) {
+                        logger.error("Cannot process logout batch", e);
+                        batch.clear();
+                    }
+                }
+            }
+        });
+        this.started = true;
+    }
+    
+    private void process(final List<PendingLogout> batch) {
+        final List<String> tickets = new ArrayList<String>(batch.size());
+        for (final PendingLogout pendingLogout : batch) {
+            tickets.add(pendingLogout.ticket);
+        }
+        getRegistry().revokeAll(tickets);
+        this.nbProcessed.addAndGet(batch.size());
+        this.nbBatches.incrementAndGet();
+        logger.debug("{} tickets revoked", batch.size());
+    }
+    
+    /**
+     * Revoke the queued tickets in the calling thread.
+     * 
+     * @return the number of tickets revoked
+     */
+    public int processPending() {
+        final List<PendingLogout> batch = new ArrayList<PendingLogout>();
+        this.queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            process(batch);
+        }
+        return batch.size();
+    }
+    
+    /**
+     * Stop the worker and revoke the queued tickets.
+     */
+    public synchronized void destroy() {
+        if (this.worker != null) {
+            this.worker.shutdownNow();
+            try {
+                this.worker.awaitTermination(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.worker = null;
+        }
+        this.started = false;
+        processPending();
+    }
+    
+    /**
+     * Return the number of queued tickets.
+     * 
+     * @return the number of queued tickets
+     */
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+    
+    /**
+     * Return the processing lag : the age in milliseconds of the oldest queued ticket (0 if the queue is empty).
+     * 
+     * @return the processing lag
+     */
+    public long getLag() {
+        final PendingLogout oldest = this.queue.peek();
+        if (oldest == null) {
+            return 0;
+        }
+        return System.currentTimeMillis() - oldest.enqueueTime;
+    }
+    
+    /**
+     * Return the number of tickets revoked by batch.
+     * 
+     * @return the number of tickets revoked by batch
+     */
+    public long getNbProcessed() {
+        return this.nbProcessed.get();
+    }
+    
+    /**
+     * Return the number of batches processed.
+     * 
+     * @return the number of batches processed
+     */
+    public long getNbBatches() {
+        return this.nbBatches.get();
+    }
+    
+    /**
+     * Return the number of tickets revoked synchronously because the queue was full.
+     * 
+     * @return the number of overflows
+     */
+    public long getNbOverflows() {
+        return this.nbOverflows.get();
+    }
+    
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "registry", getRegistry(), "batchSize", this.batchSize,
+                                     "queueDepth", this.queue.size(), "nbProcessed", this.nbProcessed.get());
+    }
+    
+    private static final class PendingLogout {
+        
+        private final String ticket;
+        
+        private final long enqueueTime;
+        
+        private PendingLogout(final String ticket, final long enqueueTime) {
+            this.ticket = ticket;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+}
@@ -17,13 +17,18 @@ package org.pac4j.cas.logout;
 
 import org.jasig.cas.client.session.SingleSignOutHandler;
 import org.pac4j.cas.client.CasClient;
+import org.pac4j.core.context.BufferedSessionContext;
 import org.pac4j.core.context.J2EContext;
+import org.pac4j.core.context.SessionStoreContext;
 import org.pac4j.core.context.WebContext;
 
 /**
  * This class is the logout handler for the {@link CasClient} class based on the {@link SingleSignOutHandler} class of the Jasig CAS
  * client.<br />
- * It should only be used in J2E context.
+ * As the Jasig handler requires the servlet request, it's only used in J2E context (possibly wrapped) : other web contexts (like the
+ * {@link org.pac4j.core.context.AsyncWebContext} of event-loop servers) are handled by a fallback {@link RegistryLogoutHandler} : the
+ * {@link CasClient} binds the principals through it and its {@link CasClient#isLoggedOut(WebContext)} method checks the sessions of
+ * these contexts.
  * 
  * @author Jerome Leleu
  * @since 1.4.0
@@ -32,11 +37,13 @@ public class CasSingleSignOutHandler implements LogoutHandler {
     
     private final SingleSignOutHandler singleSignOutHandler;
     
+    private final RegistryLogoutHandler fallbackHandler;
+    
     /**
      * Construct an instance from the default {@link SingleSignOutHandler} class.
      */
     public CasSingleSignOutHandler() {
-        this.singleSignOutHandler = new SingleSignOutHandler();
+        this(new SingleSignOutHandler());
     }
     
     /**
@@ -45,26 +52,66 @@ public class CasSingleSignOutHandler implements LogoutHandler {
      * @param singleSignOutHandler
      */
     public CasSingleSignOutHandler(final SingleSignOutHandler singleSignOutHandler) {
+        this(singleSignOutHandler, new RegistryLogoutHandler());
+    }
+    
+    /**
+     * Construct an instance from a given {@link SingleSignOutHandler} class and the handler to use for the non J2E contexts.
+     * 
+     * @param singleSignOutHandler
+     * @param fallbackHandler
+     */
+    public CasSingleSignOutHandler(final SingleSignOutHandler singleSignOutHandler, final RegistryLogoutHandler fallbackHandler) {
         this.singleSignOutHandler = singleSignOutHandler;
+        this.fallbackHandler = fallbackHandler;
     }
     
     public boolean isTokenRequest(final WebContext context) {
-        J2EContext j2eContext = (J2EContext) context;
+        final J2EContext j2eContext = toJ2EContext(context);
+        if (j2eContext == null) {
+            return this.fallbackHandler.isTokenRequest(context);
+        }
         return this.singleSignOutHandler.isTokenRequest(j2eContext.getRequest());
     }
     
     public boolean isLogoutRequest(final WebContext context) {
-        J2EContext j2eContext = (J2EContext) context;
+        final J2EContext j2eContext = toJ2EContext(context);
+        if (j2eContext == null) {
+            return this.fallbackHandler.isLogoutRequest(context);
+        }
         return this.singleSignOutHandler.isLogoutRequest(j2eContext.getRequest());
     }
     
     public void recordSession(final WebContext context) {
-        J2EContext j2eContext = (J2EContext) context;
-        this.singleSignOutHandler.recordSession(j2eContext.getRequest());
+        final J2EContext j2eContext = toJ2EContext(context);
+        if (j2eContext == null) {
+            this.fallbackHandler.recordSession(context);
+        } else {
+            this.singleSignOutHandler.recordSession(j2eContext.getRequest());
+        }
     }
     
     public void destroySession(final WebContext context) {
-        J2EContext j2eContext = (J2EContext) context;
-        this.singleSignOutHandler.destroySession(j2eContext.getRequest());
+        final J2EContext j2eContext = toJ2EContext(context);
+        if (j2eContext == null) {
+            this.fallbackHandler.destroySession(context);
+        } else {
+            this.singleSignOutHandler.destroySession(j2eContext.getRequest());
+        }
+    }
+    
+    private J2EContext toJ2EContext(final WebContext context) {
+        if (context instanceof BufferedSessionContext) {
+            return toJ2EContext(((BufferedSessionContext) context).getContext());
+        } else if (context instanceof SessionStoreContext) {
+            return toJ2EContext(((SessionStoreContext) context).getContext());
+        } else if (context instanceof J2EContext) {
+            return (J2EContext) context;
+        }
+        return null;
+    }
+    
+    public RegistryLogoutHandler getFallbackHandler() {
+        return this.fallbackHandler;
     }
 }
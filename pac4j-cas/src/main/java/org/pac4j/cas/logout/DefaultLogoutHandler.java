@@ -26,7 +26,7 @@ import org.pac4j.core.context.WebContext;
  */
 public class DefaultLogoutHandler implements LogoutHandler {
     
-    private static final String LOGOUT_REQUEST_PARAMETER = "logoutRequest";
+    protected static final String LOGOUT_REQUEST_PARAMETER = "logoutRequest";
     
     public boolean isTokenRequest(final WebContext context) {
         return context.getRequestParameter(CasClient.SERVICE_TICKET_PARAMETER) != null;
@@ -0,0 +1,135 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.logout;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.pac4j.cas.client.CasClient;
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a logout handler for the {@link CasClient} working with any {@link WebContext}, based on a
+ * {@link SingleSignOutRegistry}.
+ * <p />
+ * The service ticket of a new session is recorded in the registry and saved in the session. A logout request from the CAS server only
+ * revokes the ticket in the registry : the session is invalidated on its next request by the {@link #isLoggedOut(WebContext)} method,
+ * which must be called on each request of the protected application. The registry can be shared by several handlers (and clients) and
+ * used directly for bulk logouts.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class RegistryLogoutHandler extends DefaultLogoutHandler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RegistryLogoutHandler.class);
+    
+    public static final String TICKET_SESSION_ATTRIBUTE = "casServiceTicket";
+    
+    private static final Pattern SESSION_INDEX_PATTERN = Pattern
+        .compile("<(?:[\\w-]+:)?SessionIndex[^>]*>\\s*([^<\\s]+)\\s*</");
+    
+    private final SingleSignOutRegistry registry;
+    
+    /**
+     * Construct an instance with a new registry.
+     */
+    public RegistryLogoutHandler() {
+        this(new SingleSignOutRegistry());
+    }
+    
+    /**
+     * Construct an instance with a given registry.
+     * 
+     * @param registry
+     */
+    public RegistryLogoutHandler(final SingleSignOutRegistry registry) {
+        this.registry = registry;
+    }
+    
+    @Override
+    public void recordSession(final WebContext context) {
+        final String ticket = context.getRequestParameter(CasClient.SERVICE_TICKET_PARAMETER);
+        if (this.registry.record(ticket)) {
+            context.setSessionAttribute(TICKET_SESSION_ATTRIBUTE, ticket);
+        }
+    }
+    
+    @Override
+    public void destroySession(final WebContext context) {
+        final String ticket = getLogoutTicket(context.getRequestParameter(LOGOUT_REQUEST_PARAMETER));
+        logger.debug("logout ticket : {}", ticket);
+        if (ticket != null) {
+            this.registry.revoke(ticket);
+        }
+    }
+    
+    /**
+     * Extract the ticket (session index) from a logout request.
+     * 
+     * @param logoutRequest
+     * @return the ticket
+     */
+    public static String getLogoutTicket(final String logoutRequest) {
+        if (CommonHelper.isBlank(logoutRequest)) {
+            return null;
+        }
+        final Matcher matcher = SESSION_INDEX_PATTERN.matcher(logoutRequest);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        logger.error("No session index in logout request : {}", logoutRequest);
+        return null;
+    }
+    
+    /**
+     * Bind the principal authenticated by a ticket.
+     * 
+     * @param ticket
+     * @param principal
+     */
+    public void bindPrincipal(final String ticket, final String principal) {
+        this.registry.bindPrincipal(ticket, principal);
+    }
+    
+    /**
+     * Return whether the session of the web context has been logged out by the CAS server, invalidating it if so.
+     * 
+     * @param context
+     * @return whether the session has been logged out
+     */
+    public boolean isLoggedOut(final WebContext context) {
+        final String ticket = (String) context.getSessionAttribute(TICKET_SESSION_ATTRIBUTE);
+        if (ticket != null && this.registry.isRevoked(ticket)) {
+            logger.debug("session logged out for ticket : {}", ticket);
+            context.invalidateSession();
+            return true;
+        }
+        return false;
+    }
+    
+    public SingleSignOutRegistry getRegistry() {
+        return this.registry;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "registry", this.registry);
+    }
+}
@@ -0,0 +1,339 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.logout;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pac4j.core.cache.ExpiryBuckets;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a concurrent registry of the CAS service tickets used to open sessions, indexed by ticket and by principal, which
+ * records the tickets revoked by the CAS single sign-out (one by one or in bulk).
+ * <p />
+ * The tickets are kept until their time to live is over (8 hours by default, like the CAS ticket granting tickets) and purged by time
+ * buckets. The number of tickets is bounded (100000 by default) : when the registry is full, the new sessions are not recorded (and cannot
+ * be logged out by the CAS server).
+ * <p />
+ * The revocation of a ticket not recorded on this node (like a logout request received before the end of the login) is kept as a
+ * pending revocation for a short time (5 minutes by default, at most the time to live of the tickets), applied if the ticket is recorded
+ * in the meantime. The number of pending revocations is bounded too (10000 by default) : when they are full, the revocations of unknown
+ * tickets are dropped (and counted), so that a logout storm for the sessions of other nodes cannot exhaust the memory.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class SingleSignOutRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SingleSignOutRegistry.class);
+    
+    // 8 hours
+    public static final long DEFAULT_TIME_TO_LIVE = 28800000;
+    
+    public static final int DEFAULT_MAX_SIZE = 100000;
+    
+    // 5 minutes
+    public static final long DEFAULT_PENDING_REVOCATION_TIME_TO_LIVE = 300000;
+    
+    public static final int DEFAULT_MAX_PENDING_REVOCATIONS = 10000;
+    
+    // 1 minute
+    private static final long BUCKET_DURATION = 60000;
+    
+    // 10 seconds
+    private static final long PENDING_BUCKET_DURATION = 10000;
+    
+    private final ConcurrentMap<String, TicketEntry> tickets = new ConcurrentHashMap<String, TicketEntry>();
+    
+    private final ConcurrentMap<String, ConcurrentMap<String, Boolean>> principals = new ConcurrentHashMap<String, ConcurrentMap<String, Boolean>>();
+    
+    private final ExpiryBuckets<String> buckets = new ExpiryBuckets<String>(BUCKET_DURATION);
+    
+    // the revocations of the tickets not recorded (yet) with their expiration time
+    private final ConcurrentMap<String, Long> pendingRevocations = new ConcurrentHashMap<String, Long>();
+    
+    private final ExpiryBuckets<String> pendingBuckets = new ExpiryBuckets<String>(PENDING_BUCKET_DURATION);
+    
+    private final AtomicLong nbDroppedRevocations = new AtomicLong();
+    
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+    
+    private int maxSize = DEFAULT_MAX_SIZE;
+    
+    private long pendingRevocationTimeToLive = DEFAULT_PENDING_REVOCATION_TIME_TO_LIVE;
+    
+    private int maxPendingRevocations = DEFAULT_MAX_PENDING_REVOCATIONS;
+    
+    /**
+     * Record the ticket of a new session.
+     * 
+     * @param ticket
+     * @return whether the ticket has been recorded
+     */
+    public boolean record(final String ticket) {
+        if (ticket == null) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        purge(now);
+        if (this.tickets.size() >= this.maxSize) {
+            logger.warn("Single sign-out registry full ({} tickets) : ticket not recorded", this.maxSize);
+            return false;
+        }
+        final TicketEntry entry = getOrCreate(ticket, now);
+        // the logout request may have been received before
+        if (this.pendingRevocations.remove(ticket) != null) {
+            entry.revoked = true;
+        }
+        return true;
+    }
+    
+    /**
+     * Bind the principal authenticated by a recorded ticket (for the bulk logout by principal).
+     * 
+     * @param ticket
+     * @param principal
+     */
+    public void bindPrincipal(final String ticket, final String principal) {
+        final TicketEntry entry = ticket == null ? null : this.tickets.get(ticket);
+        if (entry == null || principal == null) {
+            return;
+        }
+        entry.principal = principal;
+        ConcurrentMap<String, Boolean> principalTickets = this.principals.get(principal);
+        if (principalTickets == null) {
+            final ConcurrentMap<String, Boolean> newPrincipalTickets = new ConcurrentHashMap<String, Boolean>();
+            principalTickets = this.principals.putIfAbsent(principal, newPrincipalTickets);
+            if (principalTickets == null) {
+                principalTickets = newPrincipalTickets;
+            }
+        }
+        principalTickets.put(ticket, Boolean.TRUE);
+    }
+    
+    /**
+     * Revoke a ticket (a ticket not recorded on this node gets a pending revocation, unless they are full).
+     * 
+     * @param ticket
+     */
+    public void revoke(final String ticket) {
+        if (ticket == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        purge(now);
+        if (markRevoked(ticket)) {
+            return;
+        }
+        if (this.pendingRevocations.size() >= this.maxPendingRevocations) {
+            this.nbDroppedRevocations.incrementAndGet();
+            logger.debug("Pending revocations full ({}) : revocation of unknown ticket dropped", this.maxPendingRevocations);
+            return;
+        }
+        final Long expirationTime = now + Math.min(this.timeToLive, this.pendingRevocationTimeToLive);
+        if (this.pendingRevocations.putIfAbsent(ticket, expirationTime) == null) {
+            this.pendingBuckets.add(ticket, expirationTime);
+        }
+        // the ticket may have been recorded in the meantime
+        markRevoked(ticket);
+    }
+    
+    private boolean markRevoked(final String ticket) {
+        final TicketEntry entry = this.tickets.get(ticket);
+        if (entry != null) {
+            entry.revoked = true;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Revoke tickets in bulk.
+     * 
+     * @param ticketsToRevoke
+     * @return the number of tickets revoked
+     */
+    public int revokeAll(final Collection<String> ticketsToRevoke) {
+        int nb = 0;
+        for (final String ticket : ticketsToRevoke) {
+            if (ticket != null) {
+                revoke(ticket);
+                nb++;
+            }
+        }
+        return nb;
+    }
+    
+    /**
+     * Revoke all the tickets of a principal.
+     * 
+     * @param principal
+     * @return the number of tickets revoked
+     */
+    public int revokePrincipal(final String principal) {
+        final ConcurrentMap<String, Boolean> principalTickets = principal == null ? null : this.principals.get(principal);
+        if (principalTickets == null) {
+            return 0;
+        }
+        int nb = 0;
+        for (final String ticket : principalTickets.keySet()) {
+            final TicketEntry entry = this.tickets.get(ticket);
+            if (entry != null) {
+                entry.revoked = true;
+                nb++;
+            }
+        }
+        return nb;
+    }
+    
+    /**
+     * Return whether the ticket has been revoked.
+     * 
+     * @param ticket
+     * @return whether the ticket has been revoked
+     */
+    public boolean isRevoked(final String ticket) {
+        if (ticket == null) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        final TicketEntry entry = this.tickets.get(ticket);
+        if (entry != null) {
+            return entry.revoked && entry.expirationTime > now;
+        }
+        final Long expirationTime = this.pendingRevocations.get(ticket);
+        return expirationTime != null && expirationTime > now;
+    }
+    
+    private TicketEntry getOrCreate(final String ticket, final long now) {
+        TicketEntry entry = this.tickets.get(ticket);
+        if (entry == null) {
+            final TicketEntry newEntry = new TicketEntry(now + this.timeToLive);
+            entry = this.tickets.putIfAbsent(ticket, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+                this.buckets.add(ticket, newEntry.expirationTime);
+            }
+        }
+        return entry;
+    }
+    
+    private void purge(final long now) {
+        for (final String ticket : this.buckets.pollExpired(now)) {
+            final TicketEntry entry = this.tickets.get(ticket);
+            if (entry != null && entry.expirationTime <= now && this.tickets.remove(ticket, entry)
+                && entry.principal != null) {
+                final ConcurrentMap<String, Boolean> principalTickets = this.principals.get(entry.principal);
+                if (principalTickets != null) {
+                    principalTickets.remove(ticket);
+                    if (principalTickets.isEmpty()) {
+                        this.principals.remove(entry.principal, principalTickets);
+                    }
+                }
+            }
+        }
+        for (final String ticket : this.pendingBuckets.pollExpired(now)) {
+            final Long expirationTime = this.pendingRevocations.get(ticket);
+            if (expirationTime != null && expirationTime <= now) {
+                this.pendingRevocations.remove(ticket, expirationTime);
+            }
+        }
+    }
+    
+    /**
+     * Return the number of tickets and pending revocations (including the expired ones not yet purged).
+     * 
+     * @return the number of tickets and pending revocations
+     */
+    public int size() {
+        return this.tickets.size() + this.pendingRevocations.size();
+    }
+    
+    /**
+     * Return the number of revocations of unknown tickets dropped because the pending revocations were full.
+     * 
+     * @return the number of dropped revocations
+     */
+    public long getNbDroppedRevocations() {
+        return this.nbDroppedRevocations.get();
+    }
+    
+    /**
+     * Return the number of principals.
+     * 
+     * @return the number of principals
+     */
+    public int getNbPrincipals() {
+        return this.principals.size();
+    }
+    
+    public long getTimeToLive() {
+        return this.timeToLive;
+    }
+    
+    public void setTimeToLive(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+    
+    public void setMaxSize(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    public long getPendingRevocationTimeToLive() {
+        return this.pendingRevocationTimeToLive;
+    }
+    
+    public void setPendingRevocationTimeToLive(final long pendingRevocationTimeToLive) {
+        this.pendingRevocationTimeToLive = pendingRevocationTimeToLive;
+    }
+    
+    public int getMaxPendingRevocations() {
+        return this.maxPendingRevocations;
+    }
+    
+    public void setMaxPendingRevocations(final int maxPendingRevocations) {
+        this.maxPendingRevocations = maxPendingRevocations;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "timeToLive", this.timeToLive, "maxSize", this.maxSize,
+                                     "pendingRevocationTimeToLive", this.pendingRevocationTimeToLive,
+                                     "maxPendingRevocations", this.maxPendingRevocations, "size", size());
+    }
+    
+    private static final class TicketEntry {
+        
+        private final long expirationTime;
+        
+        private volatile String principal;
+        
+        private volatile boolean revoked = false;
+        
+        private TicketEntry(final long expirationTime) {
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.pac4j.cas.profile;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.jasig.cas.client.authentication.AttributePrincipal;
 
 /**
@@ -24,6 +27,9 @@ import org.jasig.cas.client.authentication.AttributePrincipal;
  * <p />
  * After the CAS principal has been set through the {@link #setPrincipal(AttributePrincipal)} method, proxy tickets can be retrieved for
  * various CAS services by using the {@link #getProxyTicketFor(String)} method.
+ * <p />
+ * Proxy tickets acquired in advance (by the {@link org.pac4j.cas.proxy.ProxyTicketManager}) can be attached to the profile : each one is
+ * used once, before its expiration time, otherwise a new proxy ticket is requested to the CAS server. They are not serialized.
  * 
  * @see org.pac4j.cas.client.CasClient
  * @see org.pac4j.cas.client.CasProxyReceptor
@@ -36,6 +42,8 @@ public class CasProxyProfile extends CasProfile {
     
     protected AttributePrincipal attributePrincipal = null;
     
+    private transient volatile ConcurrentMap<String, PrefetchedTicket> prefetchedTickets;
+    
     /**
      * Store the CAS principal.
      * 
@@ -52,9 +60,90 @@ public class CasProxyProfile extends CasProfile {
      * @return the proxy ticket for the given service
      */
     public String getProxyTicketFor(final String service) {
+        final String prefetchedTicket = takePrefetchedTicket(service);
+        if (prefetchedTicket != null) {
+            return prefetchedTicket;
+        }
+        return requestProxyTicketFor(service);
+    }
+    
+    /**
+     * Request a new proxy ticket for a given service to the CAS server.
+     * 
+     * @param service
+     * @return the proxy ticket for the given service
+     */
+    public String requestProxyTicketFor(final String service) {
         if (this.attributePrincipal != null) {
             return this.attributePrincipal.getProxyTicketFor(service);
         }
         return null;
     }
+    
+    /**
+     * Attach a proxy ticket acquired in advance for a given service, replacing the previous one.
+     * 
+     * @param service
+     * @param proxyTicket
+     * @param expirationTime
+     */
+    public void addPrefetchedTicket(final String service, final String proxyTicket, final long expirationTime) {
+        if (service != null && proxyTicket != null) {
+            getPrefetchedTickets().put(service, new PrefetchedTicket(proxyTicket, expirationTime));
+        }
+    }
+    
+    /**
+     * Remove and return the proxy ticket acquired in advance for a given service, if it has not expired.
+     * 
+     * @param service
+     * @return the proxy ticket acquired in advance or <code>null</code>
+     */
+    public String takePrefetchedTicket(final String service) {
+        if (service == null || this.prefetchedTickets == null) {
+            return null;
+        }
+        final PrefetchedTicket prefetchedTicket = this.prefetchedTickets.remove(service);
+        if (prefetchedTicket == null || prefetchedTicket.expirationTime <= System.currentTimeMillis()) {
+            return null;
+        }
+        return prefetchedTicket.proxyTicket;
+    }
+    
+    /**
+     * Return whether a valid proxy ticket acquired in advance is attached for a given service.
+     * 
+     * @param service
+     * @return whether a valid proxy ticket acquired in advance is attached
+     */
+    public boolean hasPrefetchedTicket(final String service) {
+        if (service == null || this.prefetchedTickets == null) {
+            return false;
+        }
+        final PrefetchedTicket prefetchedTicket = this.prefetchedTickets.get(service);
+        return prefetchedTicket != null && prefetchedTicket.expirationTime > System.currentTimeMillis();
+    }
+    
+    private ConcurrentMap<String, PrefetchedTicket> getPrefetchedTickets() {
+        if (this.prefetchedTickets == null) {
+            synchronized (this) {
+                if (this.prefetchedTickets == null) {
+                    this.prefetchedTickets = new ConcurrentHashMap<String, PrefetchedTicket>();
+                }
+            }
+        }
+        return this.prefetchedTickets;
+    }
+    
+    private static final class PrefetchedTicket {
+        
+        private final String proxyTicket;
+        
+        private final long expirationTime;
+        
+        private PrefetchedTicket(final String proxyTicket, final long expirationTime) {
+            this.proxyTicket = proxyTicket;
+            this.expirationTime = expirationTime;
+        }
+    }
 }
@@ -0,0 +1,277 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.proxy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pac4j.cas.profile.CasProxyProfile;
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.DaemonThreadFactory;
+import org.pac4j.core.util.Deadline;
+import org.pac4j.core.util.InitializableObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class acquires the proxy tickets of {@link CasProxyProfile} in parallel, in the background threads of a bounded pool.
+ * <p />
+ * The {@link #getProxyTicketsFor(CasProxyProfile, Collection)} method returns the proxy tickets for several services at once : the CAS
+ * round trips are made concurrently, within a global timeout. The {@link #prefetch(CasProxyProfile)} method acquires in advance the proxy
+ * tickets of the "hot" services defined through the {@link #setHotServices(List)} method (it is called by the
+ * {@link org.pac4j.cas.client.CasClient} right after the login) : they are attached to the profile and returned by its
+ * {@link CasProxyProfile#getProxyTicketFor(String)} method.
+ * <p />
+ * As a proxy ticket can only be validated once and expires quickly on the CAS server (10 seconds by default), a prefetched ticket is used
+ * only once, during its time to live (5 seconds by default, it must be lower than the CAS server one). A hot service ticket consumed
+ * through this manager is not prefetched again, unless the {@link #setRefetch(boolean)} method is called with <code>true</code> : each
+ * consumption then costs a CAS round trip whose ticket may expire unused.
+ * <p />
+ * The {@link #destroy()} method stops the background threads : the proxy tickets are then requested in the current thread and no longer
+ * prefetched (until a re-initialization).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class ProxyTicketManager extends InitializableObject {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProxyTicketManager.class);
+    
+    // 5 seconds
+    public static final long DEFAULT_TICKET_TIME_TO_LIVE = 5000;
+    
+    // 5 seconds
+    public static final long DEFAULT_TIMEOUT = 5000;
+    
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+    
+    private static final AtomicInteger nbManagers = new AtomicInteger();
+    
+    private List<String> hotServices = new ArrayList<String>();
+    
+    private long ticketTimeToLive = DEFAULT_TICKET_TIME_TO_LIVE;
+    
+    private long timeout = DEFAULT_TIMEOUT;
+    
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    
+    private boolean refetch = false;
+    
+    private volatile ExecutorService executor;
+    
+    @Override
+    protected void internalInit() throws ClientException {
+        CommonHelper.assertNotNull("hotServices", this.hotServices);
+        if (this.ticketTimeToLive <= 0 || this.timeout <= 0 || this.maxConcurrency <= 0) {
+            throw new ClientException("ticketTimeToLive, timeout and maxConcurrency must be positive");
+        }
+        destroy();
+        this.executor = Executors.newFixedThreadPool(this.maxConcurrency,
+                                                     new DaemonThreadFactory("pac4j-cas-proxy-"
+                                                                             + nbManagers.incrementAndGet()));
+    }
+    
+    /**
+     * Acquire in the background the proxy tickets of the hot services for the profile.
+     * 
+     * @param profile
+     * @throws ClientException
+     */
+    public void prefetch(final CasProxyProfile profile) throws ClientException {
+        init();
+        for (final String service : this.hotServices) {
+            if (!profile.hasPrefetchedTicket(service)) {
+                prefetch(profile, service);
+            }
+        }
+    }
+    
+    private void prefetch(final CasProxyProfile profile, final String service) {
+        final ExecutorService currentExecutor = this.executor;
+        if (currentExecutor == null) {
+            logger.debug("manager destroyed : no prefetch for {}", service);
+            return;
+        }
+        try {
+            currentExecutor.execute(Deadline.propagate(new Runnable() {
+                
+                public void run() {
+                    try {
+                        final long expirationTime = System.currentTimeMillis() + ProxyTicketManager.this.ticketTimeToLive;
+                        final String proxyTicket = profile.requestProxyTicketFor(service);
+                        logger.debug("prefetched proxy ticket for {} : {}", service, proxyTicket);
+                        profile.addPrefetchedTicket(service, proxyTicket, expirationTime);
+                    } catch (final RuntimeException e) {
+                        logger.error("Cannot prefetch proxy ticket for : " + service, e);
+                    }
+                }
+            }));
+        } catch (final RejectedExecutionException e) {
+            logger.debug("manager destroyed : no prefetch for {}", service);
+        }
+    }
+    
+    /**
+     * Return the proxy tickets for several services, acquired in parallel (or in advance). The services whose proxy ticket cannot be
+     * acquired within the timeout are associated to a <code>null</code> ticket.
+     * 
+     * @param profile
+     * @param services
+     * @return the proxy tickets by service
+     * @throws ClientException
+     */
+    public Map<String, String> getProxyTicketsFor(final CasProxyProfile profile, final Collection<String> services)
+        throws ClientException {
+        init();
+        final Map<String, String> proxyTickets = new LinkedHashMap<String, String>();
+        final Map<String, Future<String>> futures = new LinkedHashMap<String, Future<String>>();
+        final ExecutorService currentExecutor = this.executor;
+        for (final String service : services) {
+            if (proxyTickets.containsKey(service) || futures.containsKey(service)) {
+                continue;
+            }
+            final String prefetchedTicket = profile.takePrefetchedTicket(service);
+            if (prefetchedTicket != null) {
+                proxyTickets.put(service, prefetchedTicket);
+                if (this.refetch && this.hotServices.contains(service)) {
+                    prefetch(profile, service);
+                }
+            } else {
+                final Future<String> future = submit(currentExecutor, profile, service);
+                if (future != null) {
+                    futures.put(service, future);
+                } else {
+                    // destroyed manager : the proxy ticket is requested in the current thread
+                    proxyTickets.put(service, requestProxyTicket(profile, service));
+                }
+            }
+        }
+        final long deadline = System.currentTimeMillis() + this.timeout;
+        for (final Map.Entry<String, Future<String>> entry : futures.entrySet()) {
+            final String service = entry.getKey();
+            final Future<String> future = entry.getValue();
+            String proxyTicket = null;
+            try {
+                proxyTicket = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException e) {
+                logger.error("Timeout while requesting proxy ticket for : {}", service);
+                future.cancel(true);
+            } catch (final ExecutionException e) {
+                logger.error("Cannot request proxy ticket for : " + service, e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+            }
+            proxyTickets.put(service, proxyTicket);
+        }
+        return proxyTickets;
+    }
+    
+    private Future<String> submit(final ExecutorService currentExecutor, final CasProxyProfile profile, final String service) {
+        if (currentExecutor != null) {
+            try {
+                return currentExecutor.submit(Deadline.propagate(new Callable<String>() {
+                    
+                    public String call() {
+                        return profile.requestProxyTicketFor(service);
+                    }
+                }));
+            } catch (final RejectedExecutionException e) {
+                logger.debug("manager destroyed while submitting request for : {}", service);
+            }
+        }
+        return null;
+    }
+    
+    private String requestProxyTicket(final CasProxyProfile profile, final String service) {
+        try {
+            return profile.requestProxyTicketFor(service);
+        } catch (final RuntimeException e) {
+            logger.error("Cannot request proxy ticket for : " + service, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Stop the background threads.
+     */
+    public synchronized void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+    
+    public List<String> getHotServices() {
+        return this.hotServices;
+    }
+    
+    public void setHotServices(final List<String> hotServices) {
+        this.hotServices = hotServices;
+    }
+    
+    public long getTicketTimeToLive() {
+        return this.ticketTimeToLive;
+    }
+    
+    public void setTicketTimeToLive(final long ticketTimeToLive) {
+        this.ticketTimeToLive = ticketTimeToLive;
+    }
+    
+    public long getTimeout() {
+        return this.timeout;
+    }
+    
+    public void setTimeout(final long timeout) {
+        this.timeout = timeout;
+    }
+    
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+    
+    public void setMaxConcurrency(final int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+    
+    public boolean isRefetch() {
+        return this.refetch;
+    }
+    
+    public void setRefetch(final boolean refetch) {
+        this.refetch = refetch;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "hotServices", this.hotServices, "ticketTimeToLive",
+                                     this.ticketTimeToLive, "timeout", this.timeout, "maxConcurrency",
+                                     this.maxConcurrency, "refetch", this.refetch);
+    }
+}
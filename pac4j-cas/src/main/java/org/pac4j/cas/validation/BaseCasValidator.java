@@ -0,0 +1,211 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.validation;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jasig.cas.client.util.CommonUtils;
+import org.jasig.cas.client.validation.Assertion;
+import org.jasig.cas.client.validation.TicketValidationException;
+import org.jasig.cas.client.validation.TicketValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is the base CAS ticket validator : it calls the validation url of the CAS server through a {@link CasHttpTransport} and
+ * parses the response into an {@link Assertion}.
+ * <p />
+ * The XML responses are parsed with StAX in one pass, without building any DOM tree.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public abstract class BaseCasValidator implements TicketValidator {
+    
+    protected static final Logger logger = LoggerFactory.getLogger(BaseCasValidator.class);
+    
+    protected static final String UTF8 = "UTF-8";
+    
+    private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    
+    static {
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+    
+    protected final String casPrefixUrl;
+    
+    protected boolean renew = false;
+    
+    protected CasHttpTransport transport = new CasHttpTransport();
+    
+    protected BaseCasValidator(final String casPrefixUrl) {
+        CommonUtils.assertNotNull(casPrefixUrl, "casPrefixUrl cannot be null");
+        this.casPrefixUrl = casPrefixUrl.endsWith("/") ? casPrefixUrl : casPrefixUrl + "/";
+    }
+    
+    public Assertion validate(final String ticket, final String service) throws TicketValidationException {
+        final String url = buildValidationUrl(ticket, service);
+        logger.debug("validation url : {}", url);
+        final String response;
+        try {
+            response = retrieveResponse(url, ticket);
+        } catch (final IOException e) {
+            throw new TicketValidationException(e);
+        }
+        logger.debug("validation response : {}", response);
+        return parseResponse(response);
+    }
+    
+    /**
+     * Build the validation url.
+     * 
+     * @param ticket
+     * @param service
+     * @return the validation url
+     */
+    protected String buildValidationUrl(final String ticket, final String service) {
+        final Map<String, String> parameters = new LinkedHashMap<String, String>();
+        addParameters(parameters, ticket, service);
+        final StringBuilder sb = new StringBuilder(this.casPrefixUrl).append(getUrlSuffix());
+        boolean first = true;
+        for (final Map.Entry<String, String> parameter : parameters.entrySet()) {
+            sb.append(first ? '?' : '&').append(parameter.getKey()).append('=').append(encode(parameter.getValue()));
+            first = false;
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Add the parameters of the validation url.
+     * 
+     * @param parameters
+     * @param ticket
+     * @param service
+     */
+    protected void addParameters(final Map<String, String> parameters, final String ticket, final String service) {
+        parameters.put("ticket", ticket);
+        parameters.put("service", service);
+        if (this.renew) {
+            parameters.put("renew", "true");
+        }
+    }
+    
+    /**
+     * Call the CAS server and return its response.
+     * 
+     * @param url
+     * @param ticket
+     * @return the response of the CAS server
+     * @throws IOException
+     */
+    protected String retrieveResponse(final String url, final String ticket) throws IOException {
+        return this.transport.get(url);
+    }
+    
+    /**
+     * Return the suffix of the validation url.
+     * 
+     * @return the suffix of the validation url
+     */
+    protected abstract String getUrlSuffix();
+    
+    /**
+     * Parse the response of the CAS server.
+     * 
+     * @param response
+     * @return the assertion
+     * @throws TicketValidationException
+     */
+    protected abstract Assertion parseResponse(String response) throws TicketValidationException;
+    
+    protected static XMLStreamReader createXmlReader(final String response) throws XMLStreamException {
+        return xmlInputFactory.createXMLStreamReader(new StringReader(response));
+    }
+    
+    protected static void closeQuietly(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (final XMLStreamException e) {
+                logger.debug("Cannot close XML reader", e);
+            }
+        }
+    }
+    
+    /**
+     * Add a value to an attribute : an attribute with several values is stored as a list.
+     * 
+     * @param attributes
+     * @param name
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    protected static void addAttributeValue(final Map<String, Object> attributes, final String name, final String value) {
+        final Object existing = attributes.get(name);
+        if (existing == null) {
+            attributes.put(name, value);
+        } else if (existing instanceof List) {
+            ((List<Object>) existing).add(value);
+        } else {
+            final List<Object> values = new ArrayList<Object>();
+            values.add(existing);
+            values.add(value);
+            attributes.put(name, values);
+        }
+    }
+    
+    protected static String encode(final String value) {
+        try {
+            return URLEncoder.encode(value, UTF8);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    public String getCasPrefixUrl() {
+        return this.casPrefixUrl;
+    }
+    
+    public boolean isRenew() {
+        return this.renew;
+    }
+    
+    public void setRenew(final boolean renew) {
+        this.renew = renew;
+    }
+    
+    public CasHttpTransport getTransport() {
+        return this.transport;
+    }
+    
+    public void setTransport(final CasHttpTransport transport) {
+        this.transport = transport;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.validation;
+
+import org.jasig.cas.client.validation.Assertion;
+import org.jasig.cas.client.validation.AssertionImpl;
+import org.jasig.cas.client.validation.TicketValidationException;
+
+/**
+ * This class validates CAS 1.0 service tickets : the response of the <code>/validate</code> url is "yes" and the username on two lines.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class Cas10Validator extends BaseCasValidator {
+    
+    public Cas10Validator(final String casPrefixUrl) {
+        super(casPrefixUrl);
+    }
+    
+    @Override
+    protected String getUrlSuffix() {
+        return "validate";
+    }
+    
+    @Override
+    protected Assertion parseResponse(final String response) throws TicketValidationException {
+        if (response == null || !response.startsWith("yes")) {
+            throw new TicketValidationException("CAS Server could not validate ticket.");
+        }
+        final String[] lines = response.split("\r?\n");
+        if (lines.length < 2 || lines[1].trim().length() == 0) {
+            throw new TicketValidationException("No principal was found in the response from the CAS server.");
+        }
+        return new AssertionImpl(lines[1].trim());
+    }
+}
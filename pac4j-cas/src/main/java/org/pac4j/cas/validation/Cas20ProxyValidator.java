@@ -0,0 +1,72 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.validation;
+
+import java.util.List;
+
+import org.jasig.cas.client.validation.InvalidProxyChainTicketValidationException;
+import org.jasig.cas.client.validation.ProxyList;
+import org.jasig.cas.client.validation.TicketValidationException;
+
+/**
+ * This class validates CAS 2.0 service and proxy tickets through the <code>/proxyValidate</code> url : the proxy chain must be accepted
+ * (any proxy with {@link #setAcceptAnyProxy(boolean)} or the ones defined by {@link #setAllowedProxyChains(ProxyList)}).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class Cas20ProxyValidator extends Cas20Validator {
+    
+    private boolean acceptAnyProxy = false;
+    
+    private ProxyList allowedProxyChains = new ProxyList();
+    
+    public Cas20ProxyValidator(final String casPrefixUrl) {
+        super(casPrefixUrl);
+    }
+    
+    @Override
+    protected String getUrlSuffix() {
+        return "proxyValidate";
+    }
+    
+    @Override
+    protected void validateProxies(final List<String> proxies) throws TicketValidationException {
+        if (proxies.isEmpty() || this.acceptAnyProxy) {
+            return;
+        }
+        final String[] proxiedList = proxies.toArray(new String[proxies.size()]);
+        if (this.allowedProxyChains == null || !this.allowedProxyChains.contains(proxiedList)) {
+            throw new InvalidProxyChainTicketValidationException("Invalid proxy chain: " + proxies);
+        }
+    }
+    
+    public boolean isAcceptAnyProxy() {
+        return this.acceptAnyProxy;
+    }
+    
+    public void setAcceptAnyProxy(final boolean acceptAnyProxy) {
+        this.acceptAnyProxy = acceptAnyProxy;
+    }
+    
+    public ProxyList getAllowedProxyChains() {
+        return this.allowedProxyChains;
+    }
+    
+    public void setAllowedProxyChains(final ProxyList allowedProxyChains) {
+        this.allowedProxyChains = allowedProxyChains;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.validation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jasig.cas.client.authentication.AttributePrincipalImpl;
+import org.jasig.cas.client.proxy.Cas20ProxyRetriever;
+import org.jasig.cas.client.proxy.ProxyGrantingTicketStorage;
+import org.jasig.cas.client.validation.Assertion;
+import org.jasig.cas.client.validation.AssertionImpl;
+import org.jasig.cas.client.validation.TicketValidationException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This class validates CAS 2.0 service tickets through the <code>/serviceValidate</code> url.
+ * <p />
+ * The user, the proxy granting ticket IOU, the proxies and the attributes (<code>&lt;cas:attributes&gt;</code> section, or
+ * <code>&lt;cas:attribute name="..." value="..." /&gt;</code> elements) are read in one pass. If a proxy callback url and a proxy granting
+ * ticket storage are defined, the proxy granting ticket is retrieved from the storage and the principal can request proxy tickets.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class Cas20Validator extends BaseCasValidator {
+    
+    protected String proxyCallbackUrl;
+    
+    protected ProxyGrantingTicketStorage proxyGrantingTicketStorage;
+    
+    public Cas20Validator(final String casPrefixUrl) {
+        super(casPrefixUrl);
+    }
+    
+    @Override
+    protected String getUrlSuffix() {
+        return "serviceValidate";
+    }
+    
+    @Override
+    protected void addParameters(final Map<String, String> parameters, final String ticket, final String service) {
+        super.addParameters(parameters, ticket, service);
+        if (CommonHelper.isNotBlank(this.proxyCallbackUrl)) {
+            parameters.put("pgtUrl", this.proxyCallbackUrl);
+        }
+    }
+    
+    @Override
+    protected Assertion parseResponse(final String response) throws TicketValidationException {
+        String user = null;
+        String proxyGrantingTicketIou = null;
+        final List<String> proxies = new ArrayList<String>();
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        boolean success = false;
+        boolean inAttributes = false;
+        XMLStreamReader reader = null;
+        try {
+            reader = createXmlReader(response);
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final String name = reader.getLocalName();
+                    if ("authenticationFailure".equals(name)) {
+                        final String code = reader.getAttributeValue(null, "code");
+                        throw new TicketValidationException(code + " : " + reader.getElementText().trim());
+                    } else if ("authenticationSuccess".equals(name)) {
+                        success = true;
+                    } else if (!success) {
+                        continue;
+                    } else if ("attributes".equals(name)) {
+                        inAttributes = true;
+                    } else if ("attribute".equals(name) && reader.getAttributeValue(null, "name") != null) {
+                        addAttributeValue(attributes, reader.getAttributeValue(null, "name"),
+                                          reader.getAttributeValue(null, "value"));
+                    } else if (inAttributes) {
+                        addAttributeValue(attributes, name, reader.getElementText().trim());
+                    } else if ("user".equals(name)) {
+                        user = reader.getElementText().trim();
+                    } else if ("proxyGrantingTicket".equals(name)) {
+                        proxyGrantingTicketIou = reader.getElementText().trim();
+                    } else if ("proxy".equals(name)) {
+                        proxies.add(reader.getElementText().trim());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "attributes".equals(reader.getLocalName())) {
+                    inAttributes = false;
+                }
+            }
+        } catch (final XMLStreamException e) {
+            throw new TicketValidationException(e);
+        } finally {
+            closeQuietly(reader);
+        }
+        if (!success || CommonHelper.isBlank(user)) {
+            throw new TicketValidationException("No principal was found in the response from the CAS server.");
+        }
+        validateProxies(proxies);
+        String proxyGrantingTicket = null;
+        if (proxyGrantingTicketIou != null && this.proxyGrantingTicketStorage != null) {
+            proxyGrantingTicket = this.proxyGrantingTicketStorage.retrieve(proxyGrantingTicketIou);
+        }
+        if (CommonHelper.isNotBlank(proxyGrantingTicket)) {
+            return new AssertionImpl(new AttributePrincipalImpl(user, attributes, proxyGrantingTicket,
+                                                                new Cas20ProxyRetriever(this.casPrefixUrl, UTF8)));
+        }
+        return new AssertionImpl(new AttributePrincipalImpl(user, attributes));
+    }
+    
+    /**
+     * Validate the proxies the ticket went through : no check for service tickets.
+     * 
+     * @param proxies
+     * @throws TicketValidationException
+     */
+    protected void validateProxies(final List<String> proxies) throws TicketValidationException {
+    }
+    
+    public String getProxyCallbackUrl() {
+        return this.proxyCallbackUrl;
+    }
+    
+    public void setProxyCallbackUrl(final String proxyCallbackUrl) {
+        this.proxyCallbackUrl = proxyCallbackUrl;
+    }
+    
+    public ProxyGrantingTicketStorage getProxyGrantingTicketStorage() {
+        return this.proxyGrantingTicketStorage;
+    }
+    
+    public void setProxyGrantingTicketStorage(final ProxyGrantingTicketStorage proxyGrantingTicketStorage) {
+        this.proxyGrantingTicketStorage = proxyGrantingTicketStorage;
+    }
+}
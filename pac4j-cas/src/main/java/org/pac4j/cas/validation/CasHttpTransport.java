@@ -0,0 +1,160 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.validation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.Deadline;
+
+/**
+ * This class is the HTTP transport of the CAS validators : it relies on the keep-alive connection pool of the JDK.
+ * <p />
+ * Each response is fully read and its stream closed without disconnecting the {@link HttpURLConnection} : the underlying socket is
+ * returned to the keep-alive cache of the JDK and reused by the next validation on the same CAS server, which avoids a TCP (and TLS)
+ * handshake per ticket validation. The number of idle connections kept per server is defined by the <code>http.maxConnections</code>
+ * system property (5 by default).
+ * <p />
+ * The connect and read timeouts can be defined by the {@link #setConnectTimeout(int)} and {@link #setReadTimeout(int)} methods : they are
+ * bounded by the remaining time of the login {@link Deadline} (if any).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class CasHttpTransport {
+    
+    private static final String UTF8 = "UTF-8";
+    
+    // 5 seconds
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    
+    // 10 seconds
+    public static final int DEFAULT_READ_TIMEOUT = 10000;
+    
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+    
+    /**
+     * Send a GET request and return the response body.
+     * 
+     * @param url
+     * @return the response body
+     * @throws IOException
+     */
+    public String get(final String url) throws IOException {
+        return execute(url, null, null);
+    }
+    
+    /**
+     * Send a POST request and return the response body.
+     * 
+     * @param url
+     * @param body
+     * @param headers
+     * @return the response body
+     * @throws IOException
+     */
+    public String post(final String url, final String body, final Map<String, String> headers) throws IOException {
+        return execute(url, body, headers);
+    }
+    
+    private String execute(final String url, final String body, final Map<String, String> headers) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        // the timeouts are bounded by the login deadline (if any)
+        connection.setConnectTimeout(Deadline.computeTimeout(this.connectTimeout));
+        connection.setReadTimeout(Deadline.computeTimeout(this.readTimeout));
+        connection.setUseCaches(false);
+        if (headers != null) {
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+        if (body != null) {
+            final byte[] bytes = body.getBytes(UTF8);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            final OutputStream out = connection.getOutputStream();
+            try {
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+        }
+        int status;
+        InputStream in;
+        try {
+            status = connection.getResponseCode();
+            in = connection.getInputStream();
+        } catch (final IOException e) {
+            // read the error stream fully so that the connection can still be reused
+            status = connection.getResponseCode();
+            in = connection.getErrorStream();
+            if (in == null) {
+                throw e;
+            }
+        }
+        final String response = read(in);
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IOException("Unexpected HTTP status " + status + " from : " + url);
+        }
+        return response;
+    }
+    
+    private String read(final InputStream in) throws IOException {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int nb;
+            while ((nb = in.read(buffer)) != -1) {
+                out.write(buffer, 0, nb);
+            }
+            return out.toString(UTF8);
+        } finally {
+            // close without disconnect : the connection goes back to the keep-alive cache
+            in.close();
+        }
+    }
+    
+    public int getConnectTimeout() {
+        return this.connectTimeout;
+    }
+    
+    public void setConnectTimeout(final int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+    
+    public int getReadTimeout() {
+        return this.readTimeout;
+    }
+    
+    public void setReadTimeout(final int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "connectTimeout", this.connectTimeout, "readTimeout",
+                                     this.readTimeout);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.validation;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jasig.cas.client.authentication.AttributePrincipalImpl;
+import org.jasig.cas.client.validation.Assertion;
+import org.jasig.cas.client.validation.AssertionImpl;
+import org.jasig.cas.client.validation.TicketValidationException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This class validates service tickets through the SAML 1.1 <code>/samlValidate</code> url : the ticket is posted in a SOAP request and
+ * the SAML response is read in one pass (status, validity conditions, subject and attributes).
+ * <p />
+ * The tolerance on the validity conditions (clock drift between the CAS server and this server) can be defined by the
+ * {@link #setTolerance(long)} method (1 second by default).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class Saml11Validator extends BaseCasValidator {
+    
+    // 1 second
+    public static final long DEFAULT_TOLERANCE = 1000;
+    
+    private static final String SUCCESS = "Success";
+    
+    private long tolerance = DEFAULT_TOLERANCE;
+    
+    public Saml11Validator(final String casPrefixUrl) {
+        super(casPrefixUrl);
+    }
+    
+    @Override
+    protected String getUrlSuffix() {
+        return "samlValidate";
+    }
+    
+    @Override
+    protected void addParameters(final Map<String, String> parameters, final String ticket, final String service) {
+        parameters.put("TARGET", service);
+        if (this.renew) {
+            parameters.put("renew", "true");
+        }
+    }
+    
+    @Override
+    protected String retrieveResponse(final String url, final String ticket) throws IOException {
+        final Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put("Content-Type", "text/xml; charset=UTF-8");
+        headers.put("SOAPAction", "http://www.oasis-open.org/committees/security");
+        return this.transport.post(url, buildRequest(ticket), headers);
+    }
+    
+    /**
+     * Build the SOAP request for the ticket.
+     * 
+     * @param ticket
+     * @return the SOAP request
+     */
+    protected String buildRequest(final String ticket) {
+        return "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\"><SOAP-ENV:Header/><SOAP-ENV:Body>"
+               + "<samlp:Request xmlns:samlp=\"urn:oasis:names:tc:SAML:1.0:protocol\" MajorVersion=\"1\" MinorVersion=\"1\" RequestID=\"_"
+               + UUID.randomUUID().toString() + "\" IssueInstant=\"" + newDateFormat().format(new Date())
+               + "\"><samlp:AssertionArtifact>" + ticket
+               + "</samlp:AssertionArtifact></samlp:Request></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+    }
+    
+    @Override
+    protected Assertion parseResponse(final String response) throws TicketValidationException {
+        String status = null;
+        String statusMessage = null;
+        String user = null;
+        String attributeName = null;
+        Date notBefore = null;
+        Date notOnOrAfter = null;
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        boolean inAuthentication = false;
+        XMLStreamReader reader = null;
+        try {
+            reader = createXmlReader(response);
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final String name = reader.getLocalName();
+                    if ("StatusCode".equals(name)) {
+                        // only the top level status code
+                        if (status == null) {
+                            status = reader.getAttributeValue(null, "Value");
+                        }
+                    } else if ("StatusMessage".equals(name)) {
+                        statusMessage = reader.getElementText().trim();
+                    } else if ("Conditions".equals(name)) {
+                        notBefore = parseDate(reader.getAttributeValue(null, "NotBefore"));
+                        notOnOrAfter = parseDate(reader.getAttributeValue(null, "NotOnOrAfter"));
+                    } else if ("AuthenticationStatement".equals(name)) {
+                        inAuthentication = true;
+                    } else if ("NameIdentifier".equals(name)) {
+                        final String identifier = reader.getElementText().trim();
+                        if (inAuthentication || user == null) {
+                            user = identifier;
+                        }
+                    } else if ("Attribute".equals(name)) {
+                        attributeName = reader.getAttributeValue(null, "AttributeName");
+                    } else if ("AttributeValue".equals(name) && attributeName != null) {
+                        addAttributeValue(attributes, attributeName, reader.getElementText().trim());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    final String name = reader.getLocalName();
+                    if ("AuthenticationStatement".equals(name)) {
+                        inAuthentication = false;
+                    } else if ("Attribute".equals(name)) {
+                        attributeName = null;
+                    }
+                }
+            }
+        } catch (final XMLStreamException e) {
+            throw new TicketValidationException(e);
+        } finally {
+            closeQuietly(reader);
+        }
+        if (status == null || !status.endsWith(SUCCESS)) {
+            throw new TicketValidationException(status + " : " + statusMessage);
+        }
+        if (CommonHelper.isBlank(user)) {
+            throw new TicketValidationException("No principal was found in the response from the CAS server.");
+        }
+        final long now = System.currentTimeMillis();
+        if ((notBefore != null && now + this.tolerance < notBefore.getTime())
+            || (notOnOrAfter != null && now - this.tolerance >= notOnOrAfter.getTime())) {
+            throw new TicketValidationException("SAML assertion is not valid at this time : " + notBefore + " / " + notOnOrAfter);
+        }
+        return new AssertionImpl(new AttributePrincipalImpl(user, attributes), notBefore, notOnOrAfter,
+                                 new HashMap<String, Object>());
+    }
+    
+    private static SimpleDateFormat newDateFormat() {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+    
+    private static Date parseDate(final String date) throws TicketValidationException {
+        if (date == null) {
+            return null;
+        }
+        try {
+            if (date.indexOf('.') < 0) {
+                final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+                format.setTimeZone(TimeZone.getTimeZone("UTC"));
+                return format.parse(date);
+            }
+            return newDateFormat().parse(date);
+        } catch (final ParseException e) {
+            throw new TicketValidationException(e);
+        }
+    }
+    
+    public long getTolerance() {
+        return this.tolerance;
+    }
+    
+    public void setTolerance(final long tolerance) {
+        this.tolerance = tolerance;
+    }
+}
@@ -20,7 +20,17 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import junit.framework.TestCase;
 
+import org.jasig.cas.client.authentication.AttributePrincipal;
+import org.jasig.cas.client.validation.Assertion;
+import org.jasig.cas.client.validation.TicketValidator;
 import org.pac4j.cas.client.CasClient.CasProtocol;
+import org.pac4j.cas.logout.CasSingleSignOutHandler;
+import org.pac4j.cas.logout.RegistryLogoutHandler;
+import org.pac4j.cas.proxy.ProxyTicketManager;
+import org.pac4j.cas.validation.Cas10Validator;
+import org.pac4j.cas.validation.Cas20ProxyValidator;
+import org.pac4j.cas.validation.Cas20Validator;
+import org.pac4j.cas.validation.Saml11Validator;
 import org.pac4j.core.context.MockWebContext;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.exception.ClientException;
@@ -79,11 +89,55 @@ public final class TestCasClient extends TestCase implements TestsConstants {
         oldClient.setCasLoginUrl(LOGIN_URL);
         oldClient.setCasPrefixUrl(PREFIX_URL);
         oldClient.setCasProtocol(PROTOCOL);
+        oldClient.setProxyTicketManager(new ProxyTicketManager());
         final CasClient newClient = (CasClient) oldClient.clone();
         assertEquals(oldClient.getCallbackUrl(), newClient.getCallbackUrl());
         assertEquals(oldClient.getCasLoginUrl(), newClient.getCasLoginUrl());
         assertEquals(oldClient.getCasPrefixUrl(), newClient.getCasPrefixUrl());
         assertEquals(oldClient.getCasProtocol(), newClient.getCasProtocol());
+        assertSame(oldClient.getLogoutHandler(), newClient.getLogoutHandler());
+        assertSame(oldClient.getProxyTicketManager(), newClient.getProxyTicketManager());
+        assertEquals(oldClient.isNativeValidation(), newClient.isNativeValidation());
+        assertSame(oldClient.getCasHttpTransport(), newClient.getCasHttpTransport());
+    }
+    
+    public void testCloneInitializedClient() throws ClientException {
+        final CasClient oldClient = new CasClient();
+        oldClient.setCallbackUrl(CALLBACK_URL);
+        oldClient.setCasPrefixUrl(PREFIX_URL);
+        oldClient.init();
+        final CasClient newClient = (CasClient) oldClient.clone();
+        newClient.setCallbackUrl(CALLBACK_URL + "?tenant=" + VALUE);
+        newClient.init();
+        assertSame(oldClient.ticketValidator, newClient.ticketValidator);
+        final CasClient otherClient = (CasClient) oldClient.clone();
+        otherClient.setCasProtocol(CasProtocol.CAS10);
+        otherClient.init();
+        assertTrue(otherClient.ticketValidator instanceof Cas10Validator);
+        assertFalse(oldClient.ticketValidator instanceof Cas10Validator);
+    }
+    
+    public void testNativeValidators() throws ClientException {
+        final CasClient casClient = new CasClient();
+        casClient.setCallbackUrl(CALLBACK_URL);
+        casClient.setCasPrefixUrl(PREFIX_URL);
+        casClient.init();
+        assertEquals(Cas20Validator.class, casClient.ticketValidator.getClass());
+        assertSame(casClient.getCasHttpTransport(), ((Cas20Validator) casClient.ticketValidator).getTransport());
+        casClient.setCasProtocol(CasProtocol.CAS10);
+        casClient.reinit();
+        assertTrue(casClient.ticketValidator instanceof Cas10Validator);
+        casClient.setCasProtocol(CasProtocol.CAS20_PROXY);
+        casClient.setAcceptAnyProxy(true);
+        casClient.reinit();
+        assertTrue(((Cas20ProxyValidator) casClient.ticketValidator).isAcceptAnyProxy());
+        casClient.setCasProtocol(CasProtocol.SAML);
+        casClient.setRenew(true);
+        casClient.reinit();
+        assertTrue(((Saml11Validator) casClient.ticketValidator).isRenew());
+        casClient.setNativeValidation(false);
+        casClient.reinit();
+        assertFalse(casClient.ticketValidator instanceof Saml11Validator);
     }
     
     public void testRenew() throws ClientException {
@@ -126,4 +180,43 @@ public final class TestCasClient extends TestCase implements TestsConstants {
         assertNull(casClient.getCredentials(context));
         verify(context).invalidateSession();
     }
+    
+    public void testRegistryLogout() throws ClientException {
+        final String ticket = "ST-1-FUUhL26EgrkcD6I2Mry9-cas01.example.org";
+        final String logoutRequest = "<samlp:LogoutRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\"><samlp:SessionIndex>" + ticket
+                                     + "</samlp:SessionIndex></samlp:LogoutRequest>";
+        final CasClient casClient = new CasClient();
+        casClient.setCallbackUrl(CALLBACK_URL);
+        casClient.setCasLoginUrl(LOGIN_URL);
+        casClient.setLogoutHandler(new RegistryLogoutHandler());
+        final MockWebContext context = MockWebContext.create().addRequestParameter(CasClient.SERVICE_TICKET_PARAMETER, ticket);
+        assertEquals(ticket, casClient.getCredentials(context).getServiceTicket());
+        assertFalse(casClient.isLoggedOut(context));
+        final MockWebContext logoutContext = MockWebContext.create().setRequestMethod("POST")
+            .addRequestParameter("logoutRequest", logoutRequest);
+        assertNull(casClient.getCredentials(logoutContext));
+        assertTrue(casClient.isLoggedOut(context));
+    }
+    
+    public void testSingleSignOutFallback() throws Exception {
+        final String ticket = "ST-1-FUUhL26EgrkcD6I2Mry9-cas01.example.org";
+        final CasSingleSignOutHandler logoutHandler = new CasSingleSignOutHandler();
+        final CasClient casClient = new CasClient();
+        casClient.setCallbackUrl(CALLBACK_URL);
+        casClient.setCasLoginUrl(LOGIN_URL);
+        casClient.setLogoutHandler(logoutHandler);
+        casClient.init();
+        final AttributePrincipal principal = mock(AttributePrincipal.class);
+        when(principal.getName()).thenReturn(USERNAME);
+        final Assertion assertion = mock(Assertion.class);
+        when(assertion.getPrincipal()).thenReturn(principal);
+        casClient.ticketValidator = mock(TicketValidator.class);
+        when(casClient.ticketValidator.validate(ticket, CALLBACK_URL)).thenReturn(assertion);
+        // not a J2E context : the fallback handler is used
+        final MockWebContext context = MockWebContext.create().addRequestParameter(CasClient.SERVICE_TICKET_PARAMETER, ticket);
+        assertEquals(USERNAME, casClient.getUserProfile(casClient.getCredentials(context)).getId());
+        assertFalse(casClient.isLoggedOut(context));
+        assertEquals(1, logoutHandler.getFallbackHandler().getRegistry().revokePrincipal(USERNAME));
+        assertTrue(casClient.isLoggedOut(context));
+    }
 }
@@ -18,6 +18,10 @@ package org.pac4j.cas.client;
 import junit.framework.TestCase;
 
 import org.jasig.cas.client.proxy.ProxyGrantingTicketStorageImpl;
+import org.pac4j.core.context.AsyncWebContext;
+import org.pac4j.core.context.MemorySessionStore;
+import org.pac4j.core.context.MockServerRequest;
+import org.pac4j.core.context.MockServerResponse;
 import org.pac4j.core.context.MockWebContext;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.util.TestsConstants;
@@ -86,4 +90,18 @@ public final class TestCasProxyReceptor extends TestCase implements TestsConstan
         assertNull(client.getCredentials(context));
         assertTrue(context.getWrittenResponse().length() > 0);
     }
+    
+    public void testAsyncWebContext() throws ClientException {
+        final CasProxyReceptor client = new CasProxyReceptor();
+        client.setCallbackUrl(CALLBACK_URL);
+        final MockServerResponse response = new MockServerResponse();
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest()
+            .setQueryString(CasProxyReceptor.PARAM_PROXY_GRANTING_TICKET + "=" + VALUE + "&"
+                            + CasProxyReceptor.PARAM_PROXY_GRANTING_TICKET_IOU + "=" + VALUE), response,
+                                                            new MemorySessionStore());
+        assertNull(client.getCredentials(context));
+        assertEquals(VALUE, client.getProxyGrantingTicketStorage().retrieve(VALUE));
+        response.flush();
+        assertTrue(response.getWritten().endsWith("<casClient:proxySuccess xmlns:casClient=\"http://www.yale.edu/tp/casClient\" />"));
+    }
 }
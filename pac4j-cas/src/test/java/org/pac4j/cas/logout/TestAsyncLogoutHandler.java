@@ -0,0 +1,105 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.logout;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link AsyncLogoutHandler} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestAsyncLogoutHandler extends TestCase implements TestsConstants {
+    
+    private static final class BlockingRegistry extends SingleSignOutRegistry {
+        
+        private final CountDownLatch latch = new CountDownLatch(1);
+        
+        @Override
+        public int revokeAll(final Collection<String> ticketsToRevoke) {
+            try {
+                this.latch.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.revokeAll(ticketsToRevoke);
+        }
+    }
+    
+    private static MockWebContext logoutRequest(final String ticket) {
+        return MockWebContext.create().setRequestMethod("POST")
+            .addRequestParameter("logoutRequest", "<samlp:SessionIndex>" + ticket + "</samlp:SessionIndex>");
+    }
+    
+    private static void waitFor(final AsyncLogoutHandler handler, final long nbProcessed) throws InterruptedException {
+        for (int i = 0; i < 500 && handler.getNbProcessed() < nbProcessed; i++) {
+            Thread.sleep(10);
+        }
+    }
+    
+    public void testAsyncLogout() throws InterruptedException {
+        final AsyncLogoutHandler handler = new AsyncLogoutHandler();
+        handler.recordSession(MockWebContext.create().addRequestParameter("ticket", KEY));
+        handler.destroySession(logoutRequest(KEY));
+        handler.destroySession(logoutRequest(VALUE));
+        handler.destroySession(MockWebContext.create());
+        waitFor(handler, 2);
+        assertEquals(2, handler.getNbProcessed());
+        assertTrue(handler.getRegistry().isRevoked(KEY));
+        assertTrue(handler.getRegistry().isRevoked(VALUE));
+        assertEquals(0, handler.getQueueDepth());
+        assertEquals(0, handler.getLag());
+        handler.destroy();
+    }
+    
+    public void testQueueFull() throws InterruptedException {
+        final BlockingRegistry registry = new BlockingRegistry();
+        final AsyncLogoutHandler handler = new AsyncLogoutHandler(registry, 1, 10);
+        handler.destroySession(logoutRequest(KEY));
+        for (int i = 0; i < 500 && handler.getQueueDepth() > 0; i++) {
+            Thread.sleep(10);
+        }
+        // the worker is blocked on the first ticket
+        handler.destroySession(logoutRequest(VALUE));
+        handler.destroySession(logoutRequest(FAKE_VALUE));
+        assertEquals(1, handler.getQueueDepth());
+        assertEquals(1, handler.getNbOverflows());
+        assertTrue(registry.isRevoked(FAKE_VALUE));
+        assertTrue(handler.getLag() >= 0);
+        registry.latch.countDown();
+        waitFor(handler, 2);
+        assertEquals(2, handler.getNbProcessed());
+        assertTrue(registry.isRevoked(VALUE));
+        handler.destroy();
+    }
+    
+    public void testDestroyProcessesPending() {
+        final BlockingRegistry registry = new BlockingRegistry();
+        registry.latch.countDown();
+        final AsyncLogoutHandler handler = new AsyncLogoutHandler(registry);
+        handler.destroySession(logoutRequest(KEY));
+        handler.destroy();
+        assertTrue(registry.isRevoked(KEY));
+        assertEquals(0, handler.getQueueDepth());
+    }
+}
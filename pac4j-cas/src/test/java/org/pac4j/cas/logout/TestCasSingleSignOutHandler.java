@@ -0,0 +1,57 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.logout;
+
+import junit.framework.TestCase;
+
+import org.pac4j.cas.client.CasClient;
+import org.pac4j.core.context.AsyncWebContext;
+import org.pac4j.core.context.MemorySessionStore;
+import org.pac4j.core.context.MockServerRequest;
+import org.pac4j.core.context.MockServerResponse;
+import org.pac4j.core.context.SessionStoreContext;
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link CasSingleSignOutHandler} class in a non J2E context.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestCasSingleSignOutHandler extends TestCase implements TestsConstants {
+    
+    private static final String TICKET = "ST-1-FUUhL26EgrkcD6I2Mry9-cas01.example.org";
+    
+    public void testAsyncWebContext() {
+        final CasSingleSignOutHandler handler = new CasSingleSignOutHandler();
+        final RegistryLogoutHandler fallbackHandler = handler.getFallbackHandler();
+        final MemorySessionStore sessionStore = new MemorySessionStore();
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest()
+            .setQueryString(CasClient.SERVICE_TICKET_PARAMETER + "=" + TICKET), new MockServerResponse(), sessionStore);
+        assertTrue(handler.isTokenRequest(context));
+        handler.recordSession(context);
+        assertEquals(TICKET, context.getSessionAttribute(RegistryLogoutHandler.TICKET_SESSION_ATTRIBUTE));
+        final AsyncWebContext logoutContext = new AsyncWebContext(new MockServerRequest().setMethod("POST"),
+                                                                  new MockServerResponse(), AsyncWebContext
+                                                                      .parseParameters("logoutRequest=%3CSessionIndex%3E"
+                                                                                       + TICKET + "%3C%2FSessionIndex%3E"),
+                                                                  sessionStore);
+        assertTrue(handler.isLogoutRequest(new SessionStoreContext(logoutContext, sessionStore)));
+        handler.destroySession(logoutContext);
+        assertTrue(fallbackHandler.getRegistry().isRevoked(TICKET));
+        assertTrue(fallbackHandler.isLoggedOut(context));
+    }
+}
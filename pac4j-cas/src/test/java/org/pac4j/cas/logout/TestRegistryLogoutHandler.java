@@ -0,0 +1,121 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.logout;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.pac4j.cas.client.CasClient;
+import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link RegistryLogoutHandler} and {@link SingleSignOutRegistry} classes.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestRegistryLogoutHandler extends TestCase implements TestsConstants {
+    
+    private static final String TICKET = "ST-1-FUUhL26EgrkcD6I2Mry9-cas01.example.org";
+    
+    private static final String TICKET2 = "ST-2-FUUhL26EgrkcD6I2Mry9-cas01.example.org";
+    
+    private static final String LOGOUT_REQUEST = "<samlp:LogoutRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" ID=\"LR-1-B2b0CVRW5eSvPBZPsAVXdNPj7jee4SWjr9y\" Version=\"2.0\" IssueInstant=\"2012-12-19T15:30:55Z\"><saml:NameID xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\">@NOT_USED@</saml:NameID><samlp:SessionIndex>"
+                                                 + TICKET + "</samlp:SessionIndex></samlp:LogoutRequest>";
+    
+    private MockWebContext login(final RegistryLogoutHandler handler, final String ticket) {
+        final MockWebContext context = MockWebContext.create()
+            .addRequestParameter(CasClient.SERVICE_TICKET_PARAMETER, ticket);
+        assertTrue(handler.isTokenRequest(context));
+        handler.recordSession(context);
+        return context;
+    }
+    
+    public void testGetLogoutTicket() {
+        assertEquals(TICKET, RegistryLogoutHandler.getLogoutTicket(LOGOUT_REQUEST));
+        assertEquals(TICKET, RegistryLogoutHandler.getLogoutTicket("<SessionIndex> " + TICKET + " </SessionIndex>"));
+        assertNull(RegistryLogoutHandler.getLogoutTicket("<LogoutRequest/>"));
+        assertNull(RegistryLogoutHandler.getLogoutTicket(null));
+    }
+    
+    public void testLogout() {
+        final RegistryLogoutHandler handler = new RegistryLogoutHandler();
+        final MockWebContext context = login(handler, TICKET);
+        final MockWebContext otherContext = login(handler, TICKET2);
+        assertEquals(TICKET, context.getSessionAttribute(RegistryLogoutHandler.TICKET_SESSION_ATTRIBUTE));
+        assertFalse(handler.isLoggedOut(context));
+        final MockWebContext logoutContext = MockWebContext.create().setRequestMethod("POST")
+            .addRequestParameter("logoutRequest", LOGOUT_REQUEST);
+        assertTrue(handler.isLogoutRequest(logoutContext));
+        handler.destroySession(logoutContext);
+        assertTrue(handler.isLoggedOut(context));
+        assertNull(context.getSessionAttribute(RegistryLogoutHandler.TICKET_SESSION_ATTRIBUTE));
+        assertFalse(handler.isLoggedOut(otherContext));
+    }
+    
+    public void testBulkLogout() {
+        final SingleSignOutRegistry registry = new SingleSignOutRegistry();
+        final RegistryLogoutHandler handler = new RegistryLogoutHandler(registry);
+        final MockWebContext context = login(handler, TICKET);
+        final MockWebContext otherContext = login(handler, TICKET2);
+        handler.bindPrincipal(TICKET, USERNAME);
+        handler.bindPrincipal(TICKET2, USERNAME);
+        assertEquals(1, registry.getNbPrincipals());
+        assertEquals(2, registry.revokePrincipal(USERNAME));
+        assertTrue(handler.isLoggedOut(context));
+        assertTrue(handler.isLoggedOut(otherContext));
+        assertEquals(0, registry.revokePrincipal(FAKE_VALUE));
+        assertEquals(2, registry.revokeAll(Arrays.asList(VALUE, FAKE_VALUE)));
+        assertTrue(registry.isRevoked(VALUE));
+    }
+    
+    public void testBoundedRegistry() throws InterruptedException {
+        final SingleSignOutRegistry registry = new SingleSignOutRegistry();
+        registry.setMaxSize(1);
+        assertTrue(registry.record(TICKET));
+        assertFalse(registry.record(TICKET2));
+        registry.revoke(TICKET2);
+        assertTrue(registry.isRevoked(TICKET2));
+        final SingleSignOutRegistry shortRegistry = new SingleSignOutRegistry();
+        shortRegistry.setTimeToLive(1);
+        shortRegistry.revoke(TICKET);
+        Thread.sleep(5);
+        assertFalse(shortRegistry.isRevoked(TICKET));
+    }
+    
+    public void testBoundedPendingRevocations() {
+        final SingleSignOutRegistry registry = new SingleSignOutRegistry();
+        registry.setMaxSize(10);
+        registry.setMaxPendingRevocations(5);
+        for (int i = 0; i < 100; i++) {
+            registry.revoke(TICKET + i);
+        }
+        assertEquals(5, registry.size());
+        assertEquals(95, registry.getNbDroppedRevocations());
+        assertTrue(registry.isRevoked(TICKET + 0));
+        assertFalse(registry.isRevoked(TICKET + 99));
+        // a pending revocation is applied when its ticket is recorded
+        assertTrue(registry.record(TICKET + 0));
+        assertTrue(registry.isRevoked(TICKET + 0));
+        assertEquals(5, registry.size());
+        // the revocation of a recorded ticket is never dropped
+        assertTrue(registry.record(TICKET2));
+        registry.revoke(TICKET2);
+        assertTrue(registry.isRevoked(TICKET2));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.proxy;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.jasig.cas.client.authentication.AttributePrincipal;
+import org.jasig.cas.client.authentication.AttributePrincipalImpl;
+import org.pac4j.cas.profile.CasProxyProfile;
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.core.util.TestsHelper;
+
+/**
+ * This class tests the {@link ProxyTicketManager} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestProxyTicketManager extends TestCase implements TestsConstants {
+    
+    private static final String SERVICE1 = "http://service1";
+    
+    private static final String SERVICE2 = "http://service2";
+    
+    private static final class CountingPrincipal extends AttributePrincipalImpl {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final AtomicInteger nbRequests = new AtomicInteger();
+        
+        private CountingPrincipal() {
+            super(USERNAME);
+        }
+        
+        @Override
+        public String getProxyTicketFor(final String service) {
+            return "PT-" + this.nbRequests.incrementAndGet() + "-" + service;
+        }
+    }
+    
+    private ProxyTicketManager manager;
+    
+    private CountingPrincipal principal;
+    
+    private CasProxyProfile profile;
+    
+    @Override
+    protected void setUp() {
+        this.manager = new ProxyTicketManager();
+        this.principal = new CountingPrincipal();
+        this.profile = new CasProxyProfile();
+        this.profile.setPrincipal(this.principal);
+    }
+    
+    @Override
+    protected void tearDown() {
+        this.manager.destroy();
+    }
+    
+    private void waitForPrefetch(final String service) throws InterruptedException {
+        for (int i = 0; i < 500 && !this.profile.hasPrefetchedTicket(service); i++) {
+            Thread.sleep(10);
+        }
+    }
+    
+    public void testBulkAcquisition() throws ClientException {
+        final Map<String, String> tickets = this.manager.getProxyTicketsFor(this.profile,
+                                                                            Arrays.asList(SERVICE1, SERVICE2, SERVICE1));
+        assertEquals(2, tickets.size());
+        assertTrue(tickets.get(SERVICE1).endsWith(SERVICE1));
+        assertTrue(tickets.get(SERVICE2).endsWith(SERVICE2));
+        assertEquals(2, this.principal.nbRequests.get());
+    }
+    
+    public void testPrefetchUsedOnce() throws Exception {
+        this.manager.setHotServices(Arrays.asList(SERVICE1));
+        this.manager.prefetch(this.profile);
+        waitForPrefetch(SERVICE1);
+        assertEquals("PT-1-" + SERVICE1, this.profile.getProxyTicketFor(SERVICE1));
+        assertEquals("PT-2-" + SERVICE1, this.profile.getProxyTicketFor(SERVICE1));
+        assertEquals(2, this.principal.nbRequests.get());
+    }
+    
+    public void testPrefetchNotRefilledByDefault() throws Exception {
+        this.manager.setHotServices(Arrays.asList(SERVICE1));
+        this.manager.prefetch(this.profile);
+        waitForPrefetch(SERVICE1);
+        final Map<String, String> tickets = this.manager.getProxyTicketsFor(this.profile, Arrays.asList(SERVICE1));
+        assertEquals("PT-1-" + SERVICE1, tickets.get(SERVICE1));
+        Thread.sleep(50);
+        assertFalse(this.profile.hasPrefetchedTicket(SERVICE1));
+        assertEquals(1, this.principal.nbRequests.get());
+    }
+    
+    public void testPrefetchRefilledByBulk() throws Exception {
+        this.manager.setHotServices(Arrays.asList(SERVICE1));
+        this.manager.setRefetch(true);
+        this.manager.prefetch(this.profile);
+        waitForPrefetch(SERVICE1);
+        final Map<String, String> tickets = this.manager.getProxyTicketsFor(this.profile, Arrays.asList(SERVICE1));
+        assertEquals("PT-1-" + SERVICE1, tickets.get(SERVICE1));
+        waitForPrefetch(SERVICE1);
+        assertEquals("PT-2-" + SERVICE1, this.profile.takePrefetchedTicket(SERVICE1));
+    }
+    
+    public void testDestroyed() throws Exception {
+        this.manager.setHotServices(Arrays.asList(SERVICE1));
+        this.manager.init();
+        this.manager.destroy();
+        // no prefetch anymore...
+        this.manager.prefetch(this.profile);
+        Thread.sleep(50);
+        assertFalse(this.profile.hasPrefetchedTicket(SERVICE1));
+        // ... and the proxy tickets are requested in the current thread
+        final Map<String, String> tickets = this.manager.getProxyTicketsFor(this.profile, Arrays.asList(SERVICE1, SERVICE2));
+        assertEquals("PT-1-" + SERVICE1, tickets.get(SERVICE1));
+        assertEquals("PT-2-" + SERVICE2, tickets.get(SERVICE2));
+        // until a re-initialization
+        this.manager.reinit();
+        this.manager.prefetch(this.profile);
+        waitForPrefetch(SERVICE1);
+        assertTrue(this.profile.hasPrefetchedTicket(SERVICE1));
+    }
+    
+    public void testExpiredPrefetchedTicket() {
+        this.profile.addPrefetchedTicket(SERVICE1, VALUE, System.currentTimeMillis() - 1);
+        assertFalse(this.profile.hasPrefetchedTicket(SERVICE1));
+        assertEquals("PT-1-" + SERVICE1, this.profile.getProxyTicketFor(SERVICE1));
+    }
+    
+    public void testBadConfiguration() {
+        this.manager.setTimeout(0);
+        TestsHelper.initShouldFail(this.manager, "ticketTimeToLive, timeout and maxConcurrency must be positive");
+    }
+    
+    public void testNoPrincipal() throws ClientException {
+        final CasProxyProfile emptyProfile = new CasProxyProfile();
+        assertNull(this.manager.getProxyTicketsFor(emptyProfile, Arrays.asList(SERVICE1)).get(SERVICE1));
+        final AttributePrincipal nullPrincipal = null;
+        emptyProfile.setPrincipal(nullPrincipal);
+        assertNull(emptyProfile.getProxyTicketFor(SERVICE1));
+    }
+}
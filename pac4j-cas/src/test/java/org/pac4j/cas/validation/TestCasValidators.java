@@ -0,0 +1,256 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.cas.validation;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jasig.cas.client.authentication.AttributePrincipal;
+import org.jasig.cas.client.proxy.ProxyGrantingTicketStorageImpl;
+import org.jasig.cas.client.validation.Assertion;
+import org.jasig.cas.client.validation.InvalidProxyChainTicketValidationException;
+import org.jasig.cas.client.validation.ProxyList;
+import org.jasig.cas.client.validation.TicketValidationException;
+import org.pac4j.core.util.Deadline;
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the CAS validators of the {@link org.pac4j.cas.validation} package on canned responses.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestCasValidators extends TestCase implements TestsConstants {
+    
+    private static final String PREFIX_URL = "http://myserver/cas";
+    
+    private static final String TICKET = "ST-1-abc";
+    
+    private static final String PGT_IOU = "PGTIOU-1-xyz";
+    
+    private static final String PGT = "PGT-1-xyz";
+    
+    private static final String PROXY = "https://proxy/callback";
+    
+    private static final String EMAIL = "test@pac4j.org";
+    
+    private static final String CAS20_SUCCESS = "<cas:serviceResponse xmlns:cas='http://www.yale.edu/tp/cas'>\n"
+                                                + "  <cas:authenticationSuccess>\n" + "    <cas:user>" + USERNAME
+                                                + "</cas:user>\n" + "    <cas:attributes>\n" + "      <cas:email>" + EMAIL
+                                                + "</cas:email>\n" + "      <cas:group>admin</cas:group>\n"
+                                                + "      <cas:group>users</cas:group>\n" + "    </cas:attributes>\n"
+                                                + "    <cas:attribute name=\"" + KEY + "\" value=\"" + VALUE + "\"/>\n"
+                                                + "    <cas:proxyGrantingTicket>" + PGT_IOU + "</cas:proxyGrantingTicket>\n"
+                                                + "  </cas:authenticationSuccess>\n" + "</cas:serviceResponse>";
+    
+    private static final String CAS20_PROXY_SUCCESS = "<cas:serviceResponse xmlns:cas='http://www.yale.edu/tp/cas'>"
+                                                      + "<cas:authenticationSuccess><cas:user>" + USERNAME + "</cas:user>"
+                                                      + "<cas:proxies><cas:proxy>" + PROXY + "</cas:proxy></cas:proxies>"
+                                                      + "</cas:authenticationSuccess></cas:serviceResponse>";
+    
+    private static final String CAS20_FAILURE = "<cas:serviceResponse xmlns:cas='http://www.yale.edu/tp/cas'>"
+                                                + "<cas:authenticationFailure code=\"INVALID_TICKET\">Ticket " + TICKET
+                                                + " not recognized</cas:authenticationFailure></cas:serviceResponse>";
+    
+    private static final String SAML_SUCCESS = "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                                               + "<SOAP-ENV:Body><Response xmlns=\"urn:oasis:names:tc:SAML:1.0:protocol\" "
+                                               + "xmlns:saml1=\"urn:oasis:names:tc:SAML:1.0:assertion\">"
+                                               + "<Status><StatusCode Value=\"samlp:Success\"/></Status>"
+                                               + "<saml1:Assertion><saml1:Conditions NotBefore=\"2000-01-01T00:00:00.000Z\" "
+                                               + "NotOnOrAfter=\"2100-01-01T00:00:00Z\"/>"
+                                               + "<saml1:AttributeStatement><saml1:Subject><saml1:NameIdentifier>" + USERNAME
+                                               + "</saml1:NameIdentifier></saml1:Subject>"
+                                               + "<saml1:Attribute AttributeName=\"group\"><saml1:AttributeValue>admin"
+                                               + "</saml1:AttributeValue><saml1:AttributeValue>users</saml1:AttributeValue>"
+                                               + "</saml1:Attribute></saml1:AttributeStatement>"
+                                               + "<saml1:AuthenticationStatement><saml1:Subject><saml1:NameIdentifier>"
+                                               + USERNAME + "</saml1:NameIdentifier></saml1:Subject>"
+                                               + "</saml1:AuthenticationStatement></saml1:Assertion>"
+                                               + "</Response></SOAP-ENV:Body></SOAP-ENV:Envelope>";
+    
+    private static final class CannedTransport extends CasHttpTransport {
+        
+        private final String response;
+        
+        private String url;
+        
+        private String body;
+        
+        private CannedTransport(final String response) {
+            this.response = response;
+        }
+        
+        @Override
+        public String get(final String url) {
+            this.url = url;
+            return this.response;
+        }
+        
+        @Override
+        public String post(final String url, final String body, final Map<String, String> headers) {
+            this.url = url;
+            this.body = body;
+            return this.response;
+        }
+    }
+    
+    private Assertion validate(final BaseCasValidator validator, final String response) throws TicketValidationException {
+        validator.setTransport(new CannedTransport(response));
+        return validator.validate(TICKET, CALLBACK_URL);
+    }
+    
+    public void testCas10() throws TicketValidationException {
+        final Cas10Validator validator = new Cas10Validator(PREFIX_URL);
+        validator.setRenew(true);
+        assertEquals(USERNAME, validate(validator, "yes\n" + USERNAME + "\n").getPrincipal().getName());
+        assertEquals(PREFIX_URL + "/validate?ticket=" + TICKET + "&service=" + BaseCasValidator.encode(CALLBACK_URL)
+                     + "&renew=true", ((CannedTransport) validator.getTransport()).url);
+        try {
+            validate(validator, "no\n\n");
+            fail("should fail");
+        } catch (final TicketValidationException e) {
+            assertEquals("CAS Server could not validate ticket.", e.getMessage());
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    public void testCas20() throws TicketValidationException {
+        final Cas20Validator validator = new Cas20Validator(PREFIX_URL);
+        final ProxyGrantingTicketStorageImpl storage = new ProxyGrantingTicketStorageImpl();
+        storage.save(PGT_IOU, PGT);
+        validator.setProxyCallbackUrl(PROXY);
+        validator.setProxyGrantingTicketStorage(storage);
+        final AttributePrincipal principal = validate(validator, CAS20_SUCCESS).getPrincipal();
+        final String url = ((CannedTransport) validator.getTransport()).url;
+        assertTrue(url.startsWith(PREFIX_URL + "/serviceValidate?"));
+        assertTrue(url.endsWith("&pgtUrl=" + BaseCasValidator.encode(PROXY)));
+        assertEquals(USERNAME, principal.getName());
+        final Map<String, Object> attributes = principal.getAttributes();
+        assertEquals(3, attributes.size());
+        assertEquals(EMAIL, attributes.get("email"));
+        assertEquals(VALUE, attributes.get(KEY));
+        final List<Object> groups = (List<Object>) attributes.get("group");
+        assertEquals(2, groups.size());
+        assertEquals("admin", groups.get(0));
+        assertEquals("users", groups.get(1));
+        // the proxy granting ticket has been retrieved from the storage
+        assertNull(storage.retrieve(PGT_IOU));
+    }
+    
+    public void testCas20Failure() {
+        try {
+            validate(new Cas20Validator(PREFIX_URL), CAS20_FAILURE);
+            fail("should fail");
+        } catch (final TicketValidationException e) {
+            assertEquals("INVALID_TICKET : Ticket " + TICKET + " not recognized", e.getMessage());
+        }
+    }
+    
+    public void testCas20InvalidXml() {
+        try {
+            validate(new Cas20Validator(PREFIX_URL), "<cas:serviceResponse");
+            fail("should fail");
+        } catch (final TicketValidationException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+    
+    public void testCas20Proxy() throws TicketValidationException {
+        final Cas20ProxyValidator validator = new Cas20ProxyValidator(PREFIX_URL);
+        try {
+            validate(validator, CAS20_PROXY_SUCCESS);
+            fail("should fail");
+        } catch (final InvalidProxyChainTicketValidationException e) {
+            assertTrue(((CannedTransport) validator.getTransport()).url.startsWith(PREFIX_URL + "/proxyValidate?"));
+        }
+        final List<String[]> chains = new ArrayList<String[]>();
+        chains.add(new String[] {
+            PROXY
+        });
+        validator.setAllowedProxyChains(new ProxyList(chains));
+        assertEquals(USERNAME, validate(validator, CAS20_PROXY_SUCCESS).getPrincipal().getName());
+        validator.setAllowedProxyChains(new ProxyList());
+        validator.setAcceptAnyProxy(true);
+        assertEquals(USERNAME, validate(validator, CAS20_PROXY_SUCCESS).getPrincipal().getName());
+    }
+    
+    @SuppressWarnings("unchecked")
+    public void testSaml() throws TicketValidationException {
+        final Saml11Validator validator = new Saml11Validator(PREFIX_URL);
+        final Assertion assertion = validate(validator, SAML_SUCCESS);
+        final CannedTransport transport = (CannedTransport) validator.getTransport();
+        assertEquals(PREFIX_URL + "/samlValidate?TARGET=" + BaseCasValidator.encode(CALLBACK_URL), transport.url);
+        assertTrue(transport.body.indexOf("<samlp:AssertionArtifact>" + TICKET + "</samlp:AssertionArtifact>") > 0);
+        assertEquals(USERNAME, assertion.getPrincipal().getName());
+        assertNotNull(assertion.getValidFromDate());
+        assertNotNull(assertion.getValidUntilDate());
+        assertEquals(2, ((List<Object>) assertion.getPrincipal().getAttributes().get("group")).size());
+    }
+    
+    public void testSamlFailure() {
+        try {
+            validate(new Saml11Validator(PREFIX_URL), SAML_SUCCESS.replace("samlp:Success", "samlp:Responder"));
+            fail("should fail");
+        } catch (final TicketValidationException e) {
+            assertTrue(e.getMessage().startsWith("samlp:Responder"));
+        }
+    }
+    
+    public void testSamlExpired() {
+        try {
+            validate(new Saml11Validator(PREFIX_URL), SAML_SUCCESS.replace("2100-01-01T00:00:00Z", "2001-01-01T00:00:00Z"));
+            fail("should fail");
+        } catch (final TicketValidationException e) {
+            assertTrue(e.getMessage().startsWith("SAML assertion is not valid at this time"));
+        }
+    }
+    
+    public void testTransportError() {
+        final CasHttpTransport transport = new CasHttpTransport() {
+            
+            @Override
+            public String get(final String url) throws IOException {
+                throw new IOException("Connection refused");
+            }
+        };
+        final Cas20Validator validator = new Cas20Validator(PREFIX_URL);
+        validator.setTransport(transport);
+        try {
+            validator.validate(TICKET, CALLBACK_URL);
+            fail("should fail");
+        } catch (final TicketValidationException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+    
+    public void testExpiredDeadline() {
+        final Cas20Validator validator = new Cas20Validator("http://localhost:1/cas");
+        Deadline.start(-1);
+        try {
+            validator.validate(TICKET, CALLBACK_URL);
+            fail("should fail");
+        } catch (final TicketValidationException e) {
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+        } finally {
+            Deadline.clear();
+        }
+    }
+}
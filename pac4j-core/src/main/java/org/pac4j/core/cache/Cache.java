@@ -0,0 +1,50 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.cache;
+
+/**
+ * This interface represents a cache of values, which can be plugged in clients to avoid repeated calls to the providers.
+ * <p />
+ * Implementations must be thread-safe.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public interface Cache<K, V> {
+    
+    /**
+     * Return the value cached for the key or <code>null</code> if no (valid) value exists.
+     * 
+     * @param key
+     * @return the cached value
+     */
+    public V get(K key);
+    
+    /**
+     * Cache the value for the key.
+     * 
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value);
+    
+    /**
+     * Remove the value cached for the key.
+     * 
+     * @param key
+     */
+    public void remove(K key);
+}
@@ -0,0 +1,98 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class groups keys by expiration time slices (buckets) : the expired keys are retrieved a whole bucket at a time, at most once
+ * per bucket duration, without scanning the keys which are still alive.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class ExpiryBuckets<K> {
+    
+    private final long bucketDuration;
+    
+    private final ConcurrentMap<Long, Queue<K>> buckets = new ConcurrentHashMap<Long, Queue<K>>();
+    
+    private final AtomicLong nextPurgeTime = new AtomicLong();
+    
+    public ExpiryBuckets(final long bucketDuration) {
+        this.bucketDuration = bucketDuration > 0 ? bucketDuration : 1;
+    }
+    
+    /**
+     * Add a key expiring at the given time.
+     * 
+     * @param key
+     * @param expirationTime
+     */
+    public void add(final K key, final long expirationTime) {
+        final Long index = Long.valueOf(expirationTime / this.bucketDuration);
+        Queue<K> bucket = this.buckets.get(index);
+        if (bucket == null) {
+            final Queue<K> newBucket = new ConcurrentLinkedQueue<K>();
+            bucket = this.buckets.putIfAbsent(index, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+        bucket.add(key);
+    }
+    
+    /**
+     * Remove and return the keys of the buckets fully expired, if no other thread did it during the current bucket duration.
+     * 
+     * @param now
+     * @return the expired keys (they may have been renewed since)
+     */
+    public List<K> pollExpired(final long now) {
+        final List<K> keys = new ArrayList<K>();
+        final long nextPurge = this.nextPurgeTime.get();
+        if (now < nextPurge || !this.nextPurgeTime.compareAndSet(nextPurge, now + this.bucketDuration)) {
+            return keys;
+        }
+        final long currentIndex = now / this.bucketDuration;
+        final Iterator<Map.Entry<Long, Queue<K>>> iterator = this.buckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Long, Queue<K>> entry = iterator.next();
+            if (entry.getKey().longValue() < currentIndex) {
+                iterator.remove();
+                keys.addAll(entry.getValue());
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * Return the number of buckets.
+     * 
+     * @return the number of buckets
+     */
+    public int size() {
+        return this.buckets.size();
+    }
+}
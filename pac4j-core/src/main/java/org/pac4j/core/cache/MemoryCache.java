@@ -0,0 +1,191 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This class is an in-memory {@link Cache} with a time to live for the values and a maximum size.
+ * <p />
+ * Expired values are removed when they are read and all of them are purged when the maximum size is reached. If the cache is still above
+ * its low-water mark (90% of the maximum size) after the purge, arbitrary values are evicted down to it : the next purge (a full scan of
+ * the cache) only happens after a tenth of the maximum size of new values, not on each put.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MemoryCache<K, V> implements Cache<K, V> {
+    
+    // 1 hour
+    public static final long DEFAULT_TIME_TO_LIVE = 3600000;
+    
+    public static final int DEFAULT_MAX_SIZE = 10000;
+    
+    private final ConcurrentMap<K, CachedValue<V>> values = new ConcurrentHashMap<K, CachedValue<V>>();
+    
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+    
+    private int maxSize = DEFAULT_MAX_SIZE;
+    
+    // only one thread purges at a time
+    private final AtomicBoolean purging = new AtomicBoolean();
+    
+    public MemoryCache() {
+    }
+    
+    public MemoryCache(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public MemoryCache(final long timeToLive, final int maxSize) {
+        this.timeToLive = timeToLive;
+        this.maxSize = maxSize;
+    }
+    
+    public V get(final K key) {
+        if (key == null) {
+            return null;
+        }
+        final CachedValue<V> cachedValue = this.values.get(key);
+        if (cachedValue == null) {
+            return null;
+        }
+        if (cachedValue.isExpired(System.currentTimeMillis())) {
+            this.values.remove(key, cachedValue);
+            return null;
+        }
+        return cachedValue.value;
+    }
+    
+    public void put(final K key, final V value) {
+        put(key, value, this.timeToLive);
+    }
+    
+    /**
+     * Cache the value for the key with a specific time to live.
+     * 
+     * @param key
+     * @param value
+     * @param timeToLive
+     */
+    public void put(final K key, final V value, final long timeToLive) {
+        if (key == null || value == null) {
+            return;
+        }
+        if (this.maxSize > 0 && this.values.size() >= this.maxSize) {
+            purge();
+        }
+        this.values.put(key, new CachedValue<V>(value, expirationTime(timeToLive)));
+    }
+    
+    public void remove(final K key) {
+        if (key != null) {
+            this.values.remove(key);
+        }
+    }
+    
+    /**
+     * Remove the expired values and evict values if the cache is still above its low-water mark.
+     */
+    public void purge() {
+        if (!this.purging.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            purgeValues();
+        } finally {
+            this.purging.set(false);
+        }
+    }
+    
+    private void purgeValues() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Map.Entry<K, CachedValue<V>>> iterator = this.values.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+        if (this.maxSize > 0) {
+            final int lowWaterMark = this.maxSize - Math.max(1, this.maxSize / 10);
+            final Iterator<K> keys = this.values.keySet().iterator();
+            while (this.values.size() > lowWaterMark && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+    
+    /**
+     * Return the number of cached values (including the expired ones not yet purged).
+     * 
+     * @return the number of cached values
+     */
+    public int size() {
+        return this.values.size();
+    }
+    
+    private long expirationTime(final long timeToLive) {
+        if (timeToLive <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return System.currentTimeMillis() + timeToLive;
+    }
+    
+    public long getTimeToLive() {
+        return this.timeToLive;
+    }
+    
+    public void setTimeToLive(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+    
+    public void setMaxSize(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "timeToLive", this.timeToLive, "maxSize", this.maxSize, "size",
+                                     this.values.size());
+    }
+    
+    private static final class CachedValue<V> {
+        
+        private final V value;
+        
+        private final long expirationTime;
+        
+        private CachedValue(final V value, final long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+        
+        private boolean isExpired(final long now) {
+            return now >= this.expirationTime;
+        }
+    }
+}
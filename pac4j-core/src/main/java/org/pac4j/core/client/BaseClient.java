@@ -15,6 +15,9 @@
  */
 package org.pac4j.core.client;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.pac4j.core.credentials.Credentials;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.profile.CommonProfile;
@@ -54,7 +57,9 @@ public abstract class BaseClient<C extends Credentials, U extends CommonProfile>
     private String failureUrl;
     
     /**
-     * Clone the current client.
+     * Clone the current client. If the current client is initialized, the new client shares its thread-safe built objects (see
+     * {@link #shareInitializedObjects(BaseClient)}) : deriving a client (with another callback url for example) does not cost a full
+     * initialization.
      * 
      * @return the cloned client
      */
@@ -64,9 +69,22 @@ public abstract class BaseClient<C extends Credentials, U extends CommonProfile>
         newClient.setCallbackUrl(this.callbackUrl);
         newClient.setType(this.type);
         newClient.setFailureUrl(this.failureUrl);
+        if (isInitialized()) {
+            shareInitializedObjects(newClient);
+        }
         return newClient;
     }
     
+    /**
+     * Give to the new (cloned) client the thread-safe objects built by the initialization of this client (nothing by default). They must
+     * never be modified afterwards : the new client reuses them at its initialization only if the configuration they were built from is
+     * unchanged, otherwise it builds its own ones.
+     * 
+     * @param newClient
+     */
+    protected void shareInitializedObjects(final BaseClient<C, U> newClient) {
+    }
+    
     /**
      * Create a new instance of the client.
      * 
@@ -74,6 +92,16 @@ public abstract class BaseClient<C extends Credentials, U extends CommonProfile>
      */
     protected abstract BaseClient<C, U> newClient();
     
+    /**
+     * Return the urls of the provider called by this client (once initialized) : their hosts are resolved during the warm-up of the
+     * {@link ClientsGroup}.
+     * 
+     * @return the urls of the provider
+     */
+    protected List<String> getWarmUpUrls() {
+        return new ArrayList<String>();
+    }
+    
     public void setCallbackUrl(final String callbackUrl) {
         this.callbackUrl = callbackUrl;
     }
@@ -15,13 +15,31 @@
  */
 package org.pac4j.core.client;
 
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.URLDecoder;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.pac4j.core.context.SessionStore;
+import org.pac4j.core.context.SessionStoreContext;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.DaemonThreadFactory;
 import org.pac4j.core.util.InitializableObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class is made to group multiple clients on one callback url (using a specific parameter to distinguish them).
@@ -33,6 +51,25 @@ import org.pac4j.core.util.InitializableObject;
  * <p />
  * The {@link #findClient(WebContext)} or {@link #findClient(String)} methods must be called to find the right client according to the input
  * context or type. The {@link #findAllClients()} method returns all the clients.
+ * <p />
+ * The client is found in the web context according to the routing strategy (see {@link #setRoutingStrategy(RoutingStrategy)}) :
+ * <ul>
+ * <li>{@link RoutingStrategy#PARAMETER} (default) : the client type is the request parameter (which may parse the body of a POST
+ * request)</li>
+ * <li>{@link RoutingStrategy#QUERY_STRING} : the client type is the parameter of the raw query string (the body is never read)</li>
+ * <li>{@link RoutingStrategy#PATH} : the client type is the last segment of the request path (the callback urls are the callback url of
+ * the group + <code>/</code> + the client type)</li>
+ * <li>{@link RoutingStrategy#HEADER} : the client type is the request header (see {@link #setClientTypeHeader(String)}), or the parameter
+ * of the raw query string if the header is missing.</li>
+ * </ul>
+ * <p />
+ * A {@link SessionStore} can be defined to save the transient login state of the clients elsewhere than in the session of the web
+ * context : the {@link #buildContext(WebContext)} method must then be used to wrap the web context given to the clients.
+ * <p />
+ * The clients are initialized lazily, by the first request using them. The {@link #warmUp()} method can be called at startup to initialize
+ * them eagerly and in parallel (in at most 8 threads by default, see {@link #setWarmUpThreads(int)}, and within 30 seconds by default, see
+ * {@link #setWarmUpTimeout(long)}) : it returns the warm-up time of each client. The hosts of the providers can also be resolved during the
+ * warm-up by using the {@link #setPreResolveHosts(boolean)} method.
  * 
  * @author Jerome Leleu
  * @since 1.3.0
@@ -40,16 +77,47 @@ import org.pac4j.core.util.InitializableObject;
 @SuppressWarnings("rawtypes")
 public final class ClientsGroup extends InitializableObject {
     
+    private static final Logger logger = LoggerFactory.getLogger(ClientsGroup.class);
+    
+    /**
+     * The strategies to find the client from the web context.
+     */
+    public static enum RoutingStrategy {
+        PARAMETER,
+        QUERY_STRING,
+        PATH,
+        HEADER
+    }
+    
     public final static String DEFAULT_CLIENT_TYPE_PARAMETER = "client_type";
     
+    public final static String DEFAULT_CLIENT_TYPE_HEADER = "X-Client-Type";
+    
+    public final static int DEFAULT_WARM_UP_THREADS = 8;
+    
+    // 30 seconds
+    public final static long DEFAULT_WARM_UP_TIMEOUT = 30000;
+    
     private String clientTypeParameter = DEFAULT_CLIENT_TYPE_PARAMETER;
     
+    private String clientTypeHeader = DEFAULT_CLIENT_TYPE_HEADER;
+    
+    private RoutingStrategy routingStrategy = RoutingStrategy.PARAMETER;
+    
     private List<Client> clients;
     
     private String callbackUrl;
     
     private String failureUrl;
     
+    private SessionStore sessionStore;
+    
+    private int warmUpThreads = DEFAULT_WARM_UP_THREADS;
+    
+    private long warmUpTimeout = DEFAULT_WARM_UP_TIMEOUT;
+    
+    private boolean preResolveHosts = false;
+    
     public ClientsGroup() {
     }
     
@@ -82,10 +150,16 @@ public final class ClientsGroup extends InitializableObject {
     protected void internalInit() throws ClientException {
         CommonHelper.assertNotBlank("callbackUrl", this.callbackUrl);
         CommonHelper.assertNotNull("clients", this.clients);
+        CommonHelper.assertNotNull("routingStrategy", this.routingStrategy);
         for (final Client client : this.clients) {
             final BaseClient baseClient = (BaseClient) client;
             final String clientCallbackUrl = baseClient.getCallbackUrl();
-            if (clientCallbackUrl == null || clientCallbackUrl.indexOf(this.clientTypeParameter + "=") < 0) {
+            if (this.routingStrategy == RoutingStrategy.PATH) {
+                final String pathCallbackUrl = addPathSegment(this.callbackUrl, baseClient.getType());
+                if (clientCallbackUrl == null || !clientCallbackUrl.startsWith(removeQueryString(pathCallbackUrl))) {
+                    baseClient.setCallbackUrl(pathCallbackUrl);
+                }
+            } else if (clientCallbackUrl == null || clientCallbackUrl.indexOf(this.clientTypeParameter + "=") < 0) {
                 baseClient.setCallbackUrl(CommonHelper.addParameter(this.callbackUrl, this.clientTypeParameter,
                                                                     baseClient.getType()));
             }
@@ -100,6 +174,72 @@ public final class ClientsGroup extends InitializableObject {
         }
     }
     
+    /**
+     * Initialize eagerly and in parallel all the clients (and resolve the hosts of their providers if required).
+     * 
+     * @return the warm-up time (in milliseconds) of each client by type
+     * @throws ClientException
+     */
+    public Map<String, Long> warmUp() throws ClientException {
+        init();
+        if (this.warmUpThreads <= 0 || this.warmUpTimeout <= 0) {
+            throw new ClientException("warmUpThreads and warmUpTimeout must be positive");
+        }
+        final int nbThreads = Math.max(1, Math.min(this.warmUpThreads, this.clients.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(nbThreads, new DaemonThreadFactory("pac4j-warmup"));
+        try {
+            final Map<String, Future<Long>> futures = new LinkedHashMap<String, Future<Long>>();
+            for (final Client client : this.clients) {
+                futures.put(client.getType(), executor.submit(new Callable<Long>() {
+                    
+                    public Long call() throws ClientException {
+                        return warmUp((BaseClient) client);
+                    }
+                }));
+            }
+            final long deadline = System.currentTimeMillis() + this.warmUpTimeout;
+            final Map<String, Long> times = new LinkedHashMap<String, Long>();
+            for (final Map.Entry<String, Future<Long>> entry : futures.entrySet()) {
+                final String type = entry.getKey();
+                try {
+                    final long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                    times.put(type, entry.getValue().get(remaining, TimeUnit.MILLISECONDS));
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof ClientException) {
+                        throw (ClientException) cause;
+                    }
+                    throw new ClientException(cause);
+                } catch (final TimeoutException e) {
+                    throw new ClientException("Warm-up timeout for client : " + type);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ClientException(e);
+                }
+            }
+            logger.info("warm-up times (ms) : {}", times);
+            return times;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private long warmUp(final BaseClient client) throws ClientException {
+        final long start = System.nanoTime();
+        client.init();
+        if (this.preResolveHosts) {
+            for (final Object url : client.getWarmUpUrls()) {
+                try {
+                    final String host = new URL((String) url).getHost();
+                    logger.debug("host {} resolved : {}", host, InetAddress.getAllByName(host));
+                } catch (final Exception e) {
+                    logger.warn("Cannot resolve host of : {} / {}", url, e.toString());
+                }
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+    
     /**
      * Return the right client according to the web context.
      * 
@@ -108,13 +248,85 @@ public final class ClientsGroup extends InitializableObject {
      * @throws ClientException
      */
     public Client findClient(final WebContext context) throws ClientException {
-        final String type = context.getRequestParameter(this.clientTypeParameter);
+        final String type;
+        if (this.routingStrategy == RoutingStrategy.QUERY_STRING) {
+            type = getQueryStringParameter(context.getRequestQueryString(), this.clientTypeParameter);
+        } else if (this.routingStrategy == RoutingStrategy.PATH) {
+            type = getLastPathSegment(context.getRequestPath());
+        } else if (this.routingStrategy == RoutingStrategy.HEADER) {
+            final String header = context.getRequestHeader(this.clientTypeHeader);
+            type = header != null ? header : getQueryStringParameter(context.getRequestQueryString(),
+                                                                      this.clientTypeParameter);
+        } else {
+            type = context.getRequestParameter(this.clientTypeParameter);
+        }
         if (type != null) {
             return findClient(type);
         }
         return null;
     }
     
+    /**
+     * Return the (decoded) value of a parameter of a raw query string.
+     * 
+     * @param queryString
+     * @param name
+     * @return the value of the parameter or <code>null</code> if not found
+     */
+    static String getQueryStringParameter(final String queryString, final String name) {
+        if (queryString == null) {
+            return null;
+        }
+        try {
+            for (final String pair : queryString.split("&")) {
+                final int pos = pair.indexOf('=');
+                final String key = URLDecoder.decode(pos >= 0 ? pair.substring(0, pos) : pair, "UTF-8");
+                if (name.equals(key)) {
+                    return pos >= 0 ? URLDecoder.decode(pair.substring(pos + 1), "UTF-8") : "";
+                }
+            }
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (final IllegalArgumentException e) {
+            logger.warn("Cannot decode query string : {}", queryString);
+        }
+        return null;
+    }
+    
+    /**
+     * Return the last segment of a path (ignoring a trailing slash).
+     * 
+     * @param path
+     * @return the last segment or <code>null</code> if none
+     */
+    static String getLastPathSegment(final String path) {
+        if (path == null) {
+            return null;
+        }
+        String segment = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        segment = segment.substring(segment.lastIndexOf('/') + 1);
+        return segment.length() > 0 ? segment : null;
+    }
+    
+    /**
+     * Add a segment at the end of the path of an url (before its query string).
+     * 
+     * @param url
+     * @param segment
+     * @return the url with the added segment
+     */
+    static String addPathSegment(final String url, final String segment) {
+        final int pos = url.indexOf('?');
+        final String path = pos >= 0 ? url.substring(0, pos) : url;
+        final String query = pos >= 0 ? url.substring(pos) : "";
+        return (path.endsWith("/") ? path : path + "/") + segment + query;
+    }
+    
+    private static String removeQueryString(final String url) {
+        final int pos = url.indexOf('?');
+        return pos >= 0 ? url.substring(0, pos) : url;
+    }
+    
     /**
      * Return the right client according to the specific type.
      * 
@@ -143,6 +355,20 @@ public final class ClientsGroup extends InitializableObject {
         return this.clients;
     }
     
+    /**
+     * Build the web context to give to the clients : the context using the session store if one is defined, the input context
+     * otherwise.
+     * 
+     * @param context
+     * @return the web context to use
+     */
+    public WebContext buildContext(final WebContext context) {
+        if (this.sessionStore == null || context instanceof SessionStoreContext) {
+            return context;
+        }
+        return new SessionStoreContext(context, this.sessionStore);
+    }
+    
     /**
      * This method built the group from just one client (copying the callback and failure urls).
      * 
@@ -164,6 +390,22 @@ public final class ClientsGroup extends InitializableObject {
         return this.clientTypeParameter;
     }
     
+    public String getClientTypeHeader() {
+        return this.clientTypeHeader;
+    }
+    
+    public void setClientTypeHeader(final String clientTypeHeader) {
+        this.clientTypeHeader = clientTypeHeader;
+    }
+    
+    public RoutingStrategy getRoutingStrategy() {
+        return this.routingStrategy;
+    }
+    
+    public void setRoutingStrategy(final RoutingStrategy routingStrategy) {
+        this.routingStrategy = routingStrategy;
+    }
+    
     public String getCallbackUrl() {
         return this.callbackUrl;
     }
@@ -180,6 +422,38 @@ public final class ClientsGroup extends InitializableObject {
         this.failureUrl = failureUrl;
     }
     
+    public SessionStore getSessionStore() {
+        return this.sessionStore;
+    }
+    
+    public void setSessionStore(final SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+    
+    public int getWarmUpThreads() {
+        return this.warmUpThreads;
+    }
+    
+    public void setWarmUpThreads(final int warmUpThreads) {
+        this.warmUpThreads = warmUpThreads;
+    }
+    
+    public long getWarmUpTimeout() {
+        return this.warmUpTimeout;
+    }
+    
+    public void setWarmUpTimeout(final long warmUpTimeout) {
+        this.warmUpTimeout = warmUpTimeout;
+    }
+    
+    public boolean isPreResolveHosts() {
+        return this.preResolveHosts;
+    }
+    
+    public void setPreResolveHosts(final boolean preResolveHosts) {
+        this.preResolveHosts = preResolveHosts;
+    }
+    
     public void setClients(final List<Client> clients) {
         this.clients = clients;
     }
@@ -194,6 +468,8 @@ public final class ClientsGroup extends InitializableObject {
     @Override
     public String toString() {
         return CommonHelper.toString(this.getClass(), "callbackUrl", this.callbackUrl, "failureUrl", this.failureUrl,
-                                     "clientTypeParameter", this.clientTypeParameter, "clients", this.clients);
+                                     "clientTypeParameter", this.clientTypeParameter, "clientTypeHeader", this.clientTypeHeader,
+                                     "routingStrategy", this.routingStrategy, "sessionStore", this.sessionStore, "clients",
+                                     this.clients);
     }
 }
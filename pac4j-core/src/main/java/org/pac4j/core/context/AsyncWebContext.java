@@ -0,0 +1,241 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * This class is a web context for servers not based on servlets (like event-loop servers) : it uses a minimal {@link ServerRequest} and
+ * {@link ServerResponse} and never blocks.
+ * <p />
+ * The request parameters are given pre-parsed (the server decodes the body of a POST request without blocking, before building the
+ * context) or are parsed from the query string. The session attributes are saved in a {@link SessionStore} (a {@link MemorySessionStore}
+ * or a {@link CookieSessionStore}, but not a {@link ContextSessionStore} as there is no native session). The data are written
+ * asynchronously : the {@link #getLastWriteFuture()} method returns the future of the last write.
+ * <p />
+ * The cookies added to the response are also visible as request cookies for the rest of the request, so that a store based on cookies
+ * reads what it has just written.
+ * <p />
+ * This class is not thread-safe : it must only be used for one request.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class AsyncWebContext implements WebContext {
+    
+    private final ServerRequest request;
+    
+    private final ServerResponse response;
+    
+    private final Map<String, String[]> parameters;
+    
+    private final SessionStore sessionStore;
+    
+    // the cookies added during the request (null value if removed)
+    private final Map<String, String> responseCookies = new HashMap<String, String>();
+    
+    private Future<?> lastWriteFuture;
+    
+    /**
+     * Build a context from the request and response of the server and the session store to use : the request parameters are parsed
+     * from the query string.
+     * 
+     * @param request
+     * @param response
+     * @param sessionStore
+     */
+    public AsyncWebContext(final ServerRequest request, final ServerResponse response, final SessionStore sessionStore) {
+        this(request, response, parseParameters(request.getQueryString()), sessionStore);
+    }
+    
+    /**
+     * Build a context from the request and response of the server, the pre-parsed request parameters and the session store to use.
+     * 
+     * @param request
+     * @param response
+     * @param parameters
+     * @param sessionStore
+     */
+    public AsyncWebContext(final ServerRequest request, final ServerResponse response,
+                           final Map<String, String[]> parameters, final SessionStore sessionStore) {
+        if (sessionStore == null || sessionStore instanceof ContextSessionStore) {
+            throw new IllegalArgumentException("A session store (other than the ContextSessionStore) is required");
+        }
+        this.request = request;
+        this.response = response;
+        this.parameters = parameters != null ? parameters : new HashMap<String, String[]>();
+        this.sessionStore = sessionStore;
+    }
+    
+    /**
+     * Parse url-encoded parameters (a query string or a form body).
+     * 
+     * @param encoded
+     * @return the parameters
+     */
+    public static Map<String, String[]> parseParameters(final String encoded) {
+        final Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        if (encoded == null || encoded.length() == 0) {
+            return parameters;
+        }
+        try {
+            for (final String pair : encoded.split("&")) {
+                if (pair.length() == 0) {
+                    continue;
+                }
+                final int pos = pair.indexOf('=');
+                final String name = URLDecoder.decode(pos >= 0 ? pair.substring(0, pos) : pair, "UTF-8");
+                final String value = pos >= 0 ? URLDecoder.decode(pair.substring(pos + 1), "UTF-8") : "";
+                final String[] values = parameters.get(name);
+                if (values == null) {
+                    parameters.put(name, new String[] {
+                        value
+                    });
+                } else {
+                    final String[] newValues = new String[values.length + 1];
+                    System.arraycopy(values, 0, newValues, 0, values.length);
+                    newValues[values.length] = value;
+                    parameters.put(name, newValues);
+                }
+            }
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return parameters;
+    }
+    
+    public String getRequestParameter(final String name) {
+        final String[] values = this.parameters.get(name);
+        return values != null && values.length > 0 ? values[0] : null;
+    }
+    
+    public Map<String, String[]> getRequestParameters() {
+        return this.parameters;
+    }
+    
+    public String getRequestHeader(final String name) {
+        return this.request.getHeader(name);
+    }
+    
+    /**
+     * Return the value of a request cookie or of a cookie added to the response during this request.
+     * 
+     * @param name
+     * @return the cookie value
+     */
+    public String getRequestCookie(final String name) {
+        if (this.responseCookies.containsKey(name)) {
+            return this.responseCookies.get(name);
+        }
+        final String header = this.request.getHeader("Cookie");
+        if (header != null) {
+            for (final String cookie : header.split(";")) {
+                final int pos = cookie.indexOf('=');
+                if (pos > 0 && name.equals(cookie.substring(0, pos).trim())) {
+                    String value = cookie.substring(pos + 1).trim();
+                    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+    
+    public void addResponseCookie(final String name, final String value, final String path, final int maxAge) {
+        final boolean removed = value == null || maxAge == 0;
+        final StringBuilder cookie = new StringBuilder(name).append('=').append(removed ? "" : value);
+        if (path != null) {
+            cookie.append("; Path=").append(path);
+        }
+        if (removed) {
+            cookie.append("; Max-Age=0");
+        } else if (maxAge > 0) {
+            cookie.append("; Max-Age=").append(maxAge);
+        }
+        if (this.request.isSecure()) {
+            cookie.append("; Secure");
+        }
+        cookie.append("; HttpOnly");
+        this.response.addHeader("Set-Cookie", cookie.toString());
+        this.responseCookies.put(name, removed ? null : value);
+    }
+    
+    public void setSessionAttribute(final String name, final Object value) {
+        this.sessionStore.set(this, name, value);
+    }
+    
+    public Object getSessionAttribute(final String name) {
+        return this.sessionStore.get(this, name);
+    }
+    
+    public String getRequestMethod() {
+        return this.request.getMethod();
+    }
+    
+    public String getRequestPath() {
+        return this.request.getPath();
+    }
+    
+    public String getRequestQueryString() {
+        return this.request.getQueryString();
+    }
+    
+    /**
+     * Invalidate the attributes of the session store.
+     */
+    public void invalidateSession() {
+        this.sessionStore.invalidate(this);
+    }
+    
+    /**
+     * Write some data in the response asynchronously (this method doesn't block and never throws an {@link IOException} : the write
+     * errors are reported by the future of the write).
+     * 
+     * @param data
+     */
+    public void WriteResponse(final String data) {
+        this.lastWriteFuture = this.response.write(data);
+    }
+    
+    /**
+     * Return the future of the last write in the response.
+     * 
+     * @return the future of the last write or <code>null</code> if nothing has been written
+     */
+    public Future<?> getLastWriteFuture() {
+        return this.lastWriteFuture;
+    }
+    
+    public ServerRequest getRequest() {
+        return this.request;
+    }
+    
+    public ServerResponse getResponse() {
+        return this.response;
+    }
+    
+    public SessionStore getSessionStore() {
+        return this.sessionStore;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class is a web context which buffers the session accesses of another web context for the duration of a request.
+ * <p />
+ * The session attributes are read once from the wrapped context and the writes are kept in memory until the {@link #flush()} method is
+ * called (typically at the end of the request) : only the attributes whose value has changed are then saved, each one once. If
+ * nothing is written, the wrapped context is never asked to save anything in session (and does not have to create it).
+ * <p />
+ * An attribute is considered unchanged when its new value equals its current value in session : an object modified in place must be
+ * saved again with a different (not equal) value to be flushed.
+ * <p />
+ * This class is not thread-safe : it must only be used for one request.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class BufferedSessionContext implements WebContext {
+    
+    private static final Object NULL = new Object();
+    
+    private final WebContext context;
+    
+    // the values in session, as read or flushed
+    private final Map<String, Object> sessionValues = new HashMap<String, Object>();
+    
+    // the values written during the request, not flushed yet
+    private final Map<String, Object> pendingValues = new LinkedHashMap<String, Object>();
+    
+    /**
+     * Build a buffered context from the context of the current request.
+     * 
+     * @param context
+     */
+    public BufferedSessionContext(final WebContext context) {
+        this.context = context;
+    }
+    
+    public String getRequestParameter(final String name) {
+        return this.context.getRequestParameter(name);
+    }
+    
+    public Map<String, String[]> getRequestParameters() {
+        return this.context.getRequestParameters();
+    }
+    
+    public String getRequestHeader(final String name) {
+        return this.context.getRequestHeader(name);
+    }
+    
+    public String getRequestCookie(final String name) {
+        return this.context.getRequestCookie(name);
+    }
+    
+    public void addResponseCookie(final String name, final String value, final String path, final int maxAge) {
+        this.context.addResponseCookie(name, value, path, maxAge);
+    }
+    
+    /**
+     * Save an attribute in session : the write is buffered until the next flush.
+     * 
+     * @param name
+     * @param value
+     */
+    public void setSessionAttribute(final String name, final Object value) {
+        this.pendingValues.put(name, value == null ? NULL : value);
+    }
+    
+    /**
+     * Get an attribute from session : the pending write or the session value, read from the wrapped context once.
+     * 
+     * @param name
+     * @return the session attribute
+     */
+    public Object getSessionAttribute(final String name) {
+        Object value = this.pendingValues.get(name);
+        if (value == null) {
+            value = readSessionValue(name);
+        }
+        return value == NULL ? null : value;
+    }
+    
+    private Object readSessionValue(final String name) {
+        Object value = this.sessionValues.get(name);
+        if (value == null) {
+            value = this.context.getSessionAttribute(name);
+            if (value == null) {
+                value = NULL;
+            }
+            this.sessionValues.put(name, value);
+        }
+        return value;
+    }
+    
+    public String getRequestMethod() {
+        return this.context.getRequestMethod();
+    }
+    
+    public String getRequestPath() {
+        return this.context.getRequestPath();
+    }
+    
+    public String getRequestQueryString() {
+        return this.context.getRequestQueryString();
+    }
+    
+    /**
+     * Invalidate the session : the pending writes are discarded.
+     */
+    public void invalidateSession() {
+        this.pendingValues.clear();
+        this.sessionValues.clear();
+        this.context.invalidateSession();
+    }
+    
+    public void WriteResponse(final String data) throws IOException {
+        this.context.WriteResponse(data);
+    }
+    
+    /**
+     * Save the changed attributes in the session of the wrapped context.
+     * 
+     * @return the number of attributes saved
+     */
+    public int flush() {
+        int nb = 0;
+        for (final Map.Entry<String, Object> entry : this.pendingValues.entrySet()) {
+            final String name = entry.getKey();
+            final Object value = entry.getValue();
+            if (!value.equals(readSessionValue(name))) {
+                this.context.setSessionAttribute(name, value == NULL ? null : value);
+                this.sessionValues.put(name, value);
+                nb++;
+            }
+        }
+        this.pendingValues.clear();
+        return nb;
+    }
+    
+    /**
+     * Return whether some writes are pending.
+     * 
+     * @return whether some writes are pending
+     */
+    public boolean hasPendingWrites() {
+        return !this.pendingValues.isEmpty();
+    }
+    
+    /**
+     * Return the wrapped context.
+     * 
+     * @return the wrapped context
+     */
+    public WebContext getContext() {
+        return this.context;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This session store uses the session of the web context itself (the HTTP session for the {@link J2EContext}), unwrapped from the
+ * {@link SessionStoreContext} if necessary.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class ContextSessionStore implements SessionStore {
+    
+    public Object get(final WebContext context, final String name) {
+        return unwrap(context).getSessionAttribute(name);
+    }
+    
+    public void set(final WebContext context, final String name, final Object value) {
+        unwrap(context).setSessionAttribute(name, value);
+    }
+    
+    public void invalidate(final WebContext context) {
+        unwrap(context).invalidateSession();
+    }
+    
+    private WebContext unwrap(final WebContext context) {
+        if (context instanceof SessionStoreContext) {
+            return ((SessionStoreContext) context).getContext();
+        }
+        return context;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass());
+    }
+}
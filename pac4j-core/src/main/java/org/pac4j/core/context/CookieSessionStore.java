@@ -0,0 +1,353 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.InitializableObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This session store keeps all the attributes in one cookie, encrypted (AES) and signed (HMAC-SHA256) with keys derived from a secret
+ * shared by all the nodes : no state is kept on the server side.
+ * <p />
+ * It is made for small login state (request tokens, states, discovery information...) : the attributes must be serializable and the
+ * cookie cannot exceed the maximum length (4000 characters by default). The content expires after the time to live since the last write,
+ * whatever the browser sends. A tampered, expired or unreadable cookie is ignored.
+ * <p />
+ * The {@link #setSecret(String)} method must be called before using the store.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class CookieSessionStore extends InitializableObject implements SessionStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CookieSessionStore.class);
+    
+    public static final String DEFAULT_COOKIE_NAME = "pac4jSession";
+    
+    // 10 minutes
+    public static final long DEFAULT_TIME_TO_LIVE = 600000;
+    
+    public static final int DEFAULT_MAX_LENGTH = 4000;
+    
+    private static final int IV_LENGTH = 16;
+    
+    private static final int MAC_LENGTH = 32;
+    
+    private static final char[] BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+        .toCharArray();
+    
+    private static final SecureRandom random = new SecureRandom();
+    
+    private String secret;
+    
+    private String cookieName = DEFAULT_COOKIE_NAME;
+    
+    private String cookiePath = "/";
+    
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+    
+    private int maxLength = DEFAULT_MAX_LENGTH;
+    
+    private SecretKeySpec encryptionKey;
+    
+    private SecretKeySpec signingKey;
+    
+    public CookieSessionStore() {
+    }
+    
+    public CookieSessionStore(final String secret) {
+        setSecret(secret);
+    }
+    
+    @Override
+    protected void internalInit() throws ClientException {
+        CommonHelper.assertNotBlank("secret", this.secret);
+        CommonHelper.assertNotBlank("cookieName", this.cookieName);
+        try {
+            final byte[] secretBytes = this.secret.getBytes("UTF-8");
+            this.encryptionKey = new SecretKeySpec(deriveKey("encryption", secretBytes, 16), "AES");
+            this.signingKey = new SecretKeySpec(deriveKey("signing", secretBytes, 32), "HmacSHA256");
+        } catch (final Exception e) {
+            throw new ClientException("Cannot derive the keys of the cookie session store", e);
+        }
+    }
+    
+    private byte[] deriveKey(final String usage, final byte[] secretBytes, final int length) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(usage.getBytes("UTF-8"));
+        digest.update((byte) 0);
+        digest.update(secretBytes);
+        final byte[] key = new byte[length];
+        System.arraycopy(digest.digest(), 0, key, 0, length);
+        return key;
+    }
+    
+    public Object get(final WebContext context, final String name) {
+        final Map<String, Object> attributes = readAttributes(context);
+        if (attributes == null) {
+            return null;
+        }
+        return attributes.get(name);
+    }
+    
+    public void set(final WebContext context, final String name, final Object value) {
+        Map<String, Object> attributes = readAttributes(context);
+        if (attributes == null) {
+            if (value == null) {
+                return;
+            }
+            attributes = new HashMap<String, Object>();
+        }
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+        if (attributes.isEmpty()) {
+            context.addResponseCookie(this.cookieName, null, this.cookiePath, 0);
+        } else {
+            final String cookie = encode(System.currentTimeMillis() + this.timeToLive, attributes);
+            if (cookie.length() > this.maxLength) {
+                logger.error("Session cookie too long : {} > {} characters", cookie.length(), this.maxLength);
+                throw new RuntimeException("Session cookie too long : " + cookie.length() + " > " + this.maxLength
+                                           + " characters");
+            }
+            context.addResponseCookie(this.cookieName, cookie, this.cookiePath, -1);
+        }
+    }
+    
+    public void invalidate(final WebContext context) {
+        if (context.getRequestCookie(this.cookieName) != null) {
+            context.addResponseCookie(this.cookieName, null, this.cookiePath, 0);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readAttributes(final WebContext context) {
+        final String cookie = context.getRequestCookie(this.cookieName);
+        if (CommonHelper.isBlank(cookie)) {
+            return null;
+        }
+        initKeys();
+        try {
+            final byte[] data = decodeBase64(cookie);
+            if (data == null || data.length <= IV_LENGTH + MAC_LENGTH) {
+                logger.warn("Invalid session cookie length");
+                return null;
+            }
+            final int macOffset = data.length - MAC_LENGTH;
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(this.signingKey);
+            mac.update(data, 0, macOffset);
+            final byte[] expectedSignature = mac.doFinal();
+            final byte[] signature = new byte[MAC_LENGTH];
+            System.arraycopy(data, macOffset, signature, 0, MAC_LENGTH);
+            if (!MessageDigest.isEqual(expectedSignature, signature)) {
+                logger.warn("Invalid session cookie signature");
+                return null;
+            }
+            final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.DECRYPT_MODE, this.encryptionKey, new IvParameterSpec(data, 0, IV_LENGTH));
+            final byte[] plain = cipher.doFinal(data, IV_LENGTH, macOffset - IV_LENGTH);
+            final ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(plain));
+            try {
+                final long expirationTime = input.readLong();
+                if (System.currentTimeMillis() >= expirationTime) {
+                    logger.debug("Expired session cookie");
+                    return null;
+                }
+                return (Map<String, Object>) input.readObject();
+            } finally {
+                input.close();
+            }
+        } catch (final Exception e) {
+            logger.warn("Cannot read session cookie", e);
+            return null;
+        }
+    }
+    
+    private String encode(final long expirationTime, final Map<String, Object> attributes) {
+        initKeys();
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream output = new ObjectOutputStream(bytes);
+            output.writeLong(expirationTime);
+            output.writeObject(attributes);
+            output.close();
+            final byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, this.encryptionKey, new IvParameterSpec(iv));
+            final byte[] encrypted = cipher.doFinal(bytes.toByteArray());
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(this.signingKey);
+            mac.update(iv);
+            mac.update(encrypted);
+            final byte[] signature = mac.doFinal();
+            final byte[] data = new byte[IV_LENGTH + encrypted.length + MAC_LENGTH];
+            System.arraycopy(iv, 0, data, 0, IV_LENGTH);
+            System.arraycopy(encrypted, 0, data, IV_LENGTH, encrypted.length);
+            System.arraycopy(signature, 0, data, IV_LENGTH + encrypted.length, MAC_LENGTH);
+            return encodeBase64(data);
+        } catch (final GeneralSecurityException e) {
+            logger.error("Cannot encrypt session cookie", e);
+            throw new RuntimeException(e);
+        } catch (final IOException e) {
+            logger.error("Cannot serialize session attributes", e);
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private void initKeys() {
+        try {
+            init();
+        } catch (final ClientException e) {
+            logger.error("Cannot initialize the cookie session store", e);
+            throw new RuntimeException(e);
+        }
+    }
+    
+    // URL-safe base64 without padding
+    static String encodeBase64(final byte[] data) {
+        final StringBuilder sb = new StringBuilder((data.length * 4 + 2) / 3);
+        int i = 0;
+        while (i + 2 < data.length) {
+            final int n = ((data[i] & 0xFF) << 16) | ((data[i + 1] & 0xFF) << 8) | (data[i + 2] & 0xFF);
+            sb.append(BASE64_CHARS[(n >> 18) & 0x3F]);
+            sb.append(BASE64_CHARS[(n >> 12) & 0x3F]);
+            sb.append(BASE64_CHARS[(n >> 6) & 0x3F]);
+            sb.append(BASE64_CHARS[n & 0x3F]);
+            i += 3;
+        }
+        final int remaining = data.length - i;
+        if (remaining > 0) {
+            int n = (data[i] & 0xFF) << 16;
+            if (remaining == 2) {
+                n |= (data[i + 1] & 0xFF) << 8;
+            }
+            sb.append(BASE64_CHARS[(n >> 18) & 0x3F]);
+            sb.append(BASE64_CHARS[(n >> 12) & 0x3F]);
+            if (remaining == 2) {
+                sb.append(BASE64_CHARS[(n >> 6) & 0x3F]);
+            }
+        }
+        return sb.toString();
+    }
+    
+    static byte[] decodeBase64(final String text) {
+        final int length = text.length();
+        if (length % 4 == 1) {
+            return null;
+        }
+        final byte[] data = new byte[length * 3 / 4];
+        int n = 0;
+        int bits = 0;
+        int j = 0;
+        for (int i = 0; i < length; i++) {
+            final int value = decodeBase64Char(text.charAt(i));
+            if (value < 0) {
+                return null;
+            }
+            n = (n << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                data[j++] = (byte) (n >> bits);
+            }
+        }
+        return data;
+    }
+    
+    private static int decodeBase64Char(final char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        } else if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        } else if (c == '-') {
+            return 62;
+        } else if (c == '_') {
+            return 63;
+        }
+        return -1;
+    }
+    
+    public String getSecret() {
+        return this.secret;
+    }
+    
+    public void setSecret(final String secret) {
+        this.secret = secret;
+    }
+    
+    public String getCookieName() {
+        return this.cookieName;
+    }
+    
+    public void setCookieName(final String cookieName) {
+        this.cookieName = cookieName;
+    }
+    
+    public String getCookiePath() {
+        return this.cookiePath;
+    }
+    
+    public void setCookiePath(final String cookiePath) {
+        this.cookiePath = cookiePath;
+    }
+    
+    public long getTimeToLive() {
+        return this.timeToLive;
+    }
+    
+    public void setTimeToLive(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+    
+    public void setMaxLength(final int maxLength) {
+        this.maxLength = maxLength;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "cookieName", this.cookieName, "cookiePath", this.cookiePath,
+                                     "timeToLive", this.timeToLive, "maxLength", this.maxLength);
+    }
+}
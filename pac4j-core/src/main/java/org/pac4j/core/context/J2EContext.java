@@ -18,8 +18,10 @@ package org.pac4j.core.context;
 import java.io.IOException;
 import java.util.Map;
 
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 
 /**
  * This implementation uses the J2E request and session.
@@ -73,6 +75,51 @@ public class J2EContext implements WebContext {
         return this.request.getHeader(name);
     }
     
+    /**
+     * Return the value of a request cookie.
+     * 
+     * @param name
+     * @return the request cookie value
+     */
+    public String getRequestCookie(final String name) {
+        final Cookie[] cookies = this.request.getCookies();
+        if (cookies != null) {
+            for (final Cookie cookie : cookies) {
+                if (name.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Add a cookie to the response (secure if the request is). The cookie is written as a raw <code>Set-Cookie</code> header to
+     * be HttpOnly (the Servlet 2.5 API has no <code>setHttpOnly</code>).
+     * 
+     * @param name
+     * @param value
+     * @param path
+     * @param maxAge
+     */
+    public void addResponseCookie(final String name, final String value, final String path, final int maxAge) {
+        final boolean removed = value == null || maxAge == 0;
+        final StringBuilder cookie = new StringBuilder(name).append('=').append(removed ? "" : value);
+        if (path != null) {
+            cookie.append("; Path=").append(path);
+        }
+        if (removed) {
+            cookie.append("; Max-Age=0");
+        } else if (maxAge > 0) {
+            cookie.append("; Max-Age=").append(maxAge);
+        }
+        if (this.request.isSecure()) {
+            cookie.append("; Secure");
+        }
+        cookie.append("; HttpOnly");
+        this.response.addHeader("Set-Cookie", cookie.toString());
+    }
+    
     /**
      * Save an attribute in session.
      * 
@@ -80,17 +127,25 @@ public class J2EContext implements WebContext {
      * @param value
      */
     public void setSessionAttribute(final String name, final Object value) {
-        this.request.getSession().setAttribute(name, value);
+        // no session creation to remove an attribute
+        final HttpSession session = this.request.getSession(value != null);
+        if (session != null) {
+            session.setAttribute(name, value);
+        }
     }
     
     /**
-     * Get an attribute from session.
+     * Get an attribute from session (without creating the session).
      * 
      * @param name
      * @return the session attribute
      */
     public Object getSessionAttribute(final String name) {
-        return this.request.getSession().getAttribute(name);
+        final HttpSession session = this.request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        return session.getAttribute(name);
     }
     
     /**
@@ -102,11 +157,32 @@ public class J2EContext implements WebContext {
         return this.request.getMethod();
     }
     
+    /**
+     * Return the path of the request (without the query string).
+     * 
+     * @return the request path
+     */
+    public String getRequestPath() {
+        return this.request.getRequestURI();
+    }
+    
+    /**
+     * Return the raw query string of the request.
+     * 
+     * @return the query string
+     */
+    public String getRequestQueryString() {
+        return this.request.getQueryString();
+    }
+    
     /**
      * Invalidate the session.
      */
     public void invalidateSession() {
-        this.request.getSession().invalidate();
+        final HttpSession session = this.request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
     }
     
     /**
@@ -0,0 +1,214 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.pac4j.core.cache.MemoryCache;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This session store keeps the attributes in memory, identified by a random session identifier saved in a cookie.
+ * <p />
+ * The sessions are spread over several stripes (each one being a {@link MemoryCache}) to limit the contention and the cost of the purges.
+ * A session expires after the time to live since its last write. An unknown or expired session identifier sent by the browser is never
+ * reused : a new one is generated on the next write.
+ * <p />
+ * When the maximum number of sessions is reached, the expired sessions are purged and, if the store is still full, the new sessions are
+ * rejected (a <code>RuntimeException</code> is thrown) : the live sessions are never evicted, so that a flood of anonymous requests
+ * cannot log out the authenticated users, at the cost of refusing the new logins until some sessions expire.
+ * <p />
+ * As the attributes stay on one node, this store is suited for a single login node or a sticky routing : see the
+ * {@link CookieSessionStore} for a state shared by all the nodes.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MemorySessionStore implements SessionStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MemorySessionStore.class);
+    
+    public static final String DEFAULT_COOKIE_NAME = "pac4jSessionId";
+    
+    // 10 minutes
+    public static final long DEFAULT_TIME_TO_LIVE = 600000;
+    
+    public static final int DEFAULT_NB_STRIPES = 16;
+    
+    private static final SecureRandom random = new SecureRandom();
+    
+    private final List<MemoryCache<String, Map<String, Object>>> stripes;
+    
+    private String cookieName = DEFAULT_COOKIE_NAME;
+    
+    private String cookiePath = "/";
+    
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+    
+    private int maxSize = MemoryCache.DEFAULT_MAX_SIZE;
+    
+    public MemorySessionStore() {
+        this(DEFAULT_NB_STRIPES);
+    }
+    
+    public MemorySessionStore(final int nbStripes) {
+        final int nb = nbStripes > 0 ? nbStripes : 1;
+        this.stripes = new ArrayList<MemoryCache<String, Map<String, Object>>>(nb);
+        for (int i = 0; i < nb; i++) {
+            // not bounded : the store checks its maximum size itself not to evict live sessions
+            this.stripes.add(new MemoryCache<String, Map<String, Object>>(this.timeToLive, 0));
+        }
+    }
+    
+    public Object get(final WebContext context, final String name) {
+        final Map<String, Object> attributes = getAttributes(context.getRequestCookie(this.cookieName));
+        if (attributes == null) {
+            return null;
+        }
+        return attributes.get(name);
+    }
+    
+    public void set(final WebContext context, final String name, final Object value) {
+        String id = context.getRequestCookie(this.cookieName);
+        Map<String, Object> attributes = getAttributes(id);
+        if (attributes == null) {
+            if (value == null) {
+                return;
+            }
+            id = generateId();
+            checkCapacity(getStripe(id));
+            attributes = new ConcurrentHashMap<String, Object>();
+            context.addResponseCookie(this.cookieName, id, this.cookiePath, -1);
+        }
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+        // renew the time to live
+        getStripe(id).put(id, attributes);
+    }
+    
+    public void invalidate(final WebContext context) {
+        final String id = context.getRequestCookie(this.cookieName);
+        if (id != null) {
+            getStripe(id).remove(id);
+            context.addResponseCookie(this.cookieName, null, this.cookiePath, 0);
+        }
+    }
+    
+    private void checkCapacity(final MemoryCache<String, Map<String, Object>> stripe) {
+        final int stripeMaxSize = stripeMaxSize(this.stripes.size());
+        if (stripeMaxSize > 0 && stripe.size() >= stripeMaxSize) {
+            // only the expired sessions are purged (the stripe is not bounded)
+            stripe.purge();
+            if (stripe.size() >= stripeMaxSize) {
+                logger.error("Session store full : {} sessions", this.maxSize);
+                throw new RuntimeException("Session store full : " + this.maxSize + " sessions");
+            }
+        }
+    }
+    
+    private Map<String, Object> getAttributes(final String id) {
+        if (id == null) {
+            return null;
+        }
+        return getStripe(id).get(id);
+    }
+    
+    private MemoryCache<String, Map<String, Object>> getStripe(final String id) {
+        return this.stripes.get((id.hashCode() & Integer.MAX_VALUE) % this.stripes.size());
+    }
+    
+    private String generateId() {
+        final byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        final StringBuilder sb = new StringBuilder(32);
+        for (final byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+    
+    private int stripeMaxSize(final int nb) {
+        if (this.maxSize <= 0) {
+            return this.maxSize;
+        }
+        return (this.maxSize + nb - 1) / nb;
+    }
+    
+    /**
+     * Return the number of sessions in memory (including the expired ones not yet purged).
+     * 
+     * @return the number of sessions
+     */
+    public int size() {
+        int size = 0;
+        for (final MemoryCache<String, Map<String, Object>> stripe : this.stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+    
+    public String getCookieName() {
+        return this.cookieName;
+    }
+    
+    public void setCookieName(final String cookieName) {
+        this.cookieName = cookieName;
+    }
+    
+    public String getCookiePath() {
+        return this.cookiePath;
+    }
+    
+    public void setCookiePath(final String cookiePath) {
+        this.cookiePath = cookiePath;
+    }
+    
+    public long getTimeToLive() {
+        return this.timeToLive;
+    }
+    
+    public void setTimeToLive(final long timeToLive) {
+        this.timeToLive = timeToLive;
+        for (final MemoryCache<String, Map<String, Object>> stripe : this.stripes) {
+            stripe.setTimeToLive(timeToLive);
+        }
+    }
+    
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+    
+    public void setMaxSize(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "cookieName", this.cookieName, "cookiePath", this.cookiePath,
+                                     "timeToLive", this.timeToLive, "maxSize", this.maxSize, "nbStripes",
+                                     this.stripes.size());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+/**
+ * This interface is a minimal HTTP request of a server not based on servlets (like an event-loop server) : it's used by the
+ * {@link AsyncWebContext} class.
+ * <p />
+ * Its methods must not block (the request body is never read through it).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public interface ServerRequest {
+    
+    /**
+     * Return the method of the request.
+     * 
+     * @return the request method
+     */
+    public String getMethod();
+    
+    /**
+     * Return the path of the request (without the query string).
+     * 
+     * @return the request path
+     */
+    public String getPath();
+    
+    /**
+     * Return the raw (not decoded) query string of the request.
+     * 
+     * @return the query string or <code>null</code> if none
+     */
+    public String getQueryString();
+    
+    /**
+     * Return a header of the request.
+     * 
+     * @param name
+     * @return the request header or <code>null</code> if missing
+     */
+    public String getHeader(String name);
+    
+    /**
+     * Return whether the request has been received over TLS (directly or through a trusted proxy).
+     * 
+     * @return whether the request is secure
+     */
+    public boolean isSecure();
+}
@@ -0,0 +1,46 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.util.concurrent.Future;
+
+/**
+ * This interface is a minimal HTTP response of a server not based on servlets (like an event-loop server) : it's used by the
+ * {@link AsyncWebContext} class.
+ * <p />
+ * Its methods must not block : the data are written asynchronously and in order.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public interface ServerResponse {
+    
+    /**
+     * Add a header to the response.
+     * 
+     * @param name
+     * @param value
+     */
+    public void addHeader(String name, String value);
+    
+    /**
+     * Write some data in the response without waiting for them to be sent.
+     * 
+     * @param data
+     * @return the future of the write
+     */
+    public Future<?> write(String data);
+}
@@ -0,0 +1,52 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+/**
+ * This interface represents where the session attributes of a web context are stored : the transient login state of the clients (OAuth
+ * 1.0a request token, Facebook state, OpenID discovery information...) is saved through it when the web context is wrapped in a
+ * {@link SessionStoreContext}.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public interface SessionStore {
+    
+    /**
+     * Get an attribute from the store.
+     * 
+     * @param context
+     * @param name
+     * @return the attribute
+     */
+    public Object get(WebContext context, String name);
+    
+    /**
+     * Save an attribute in the store (a <code>null</code> value removes it).
+     * 
+     * @param context
+     * @param name
+     * @param value
+     */
+    public void set(WebContext context, String name, Object value);
+    
+    /**
+     * Remove all the attributes of the current user from the store.
+     * 
+     * @param context
+     */
+    public void invalidate(WebContext context);
+}
@@ -0,0 +1,144 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is a web context whose session attributes are saved in a {@link SessionStore} instead of the session of the wrapped
+ * context.
+ * <p />
+ * The cookies added to the response are also visible as request cookies for the rest of the request, so that a store based on cookies
+ * reads what it has just written.
+ * <p />
+ * This class is not thread-safe : it must only be used for one request.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class SessionStoreContext implements WebContext {
+    
+    private final WebContext context;
+    
+    private final SessionStore sessionStore;
+    
+    // the cookies added during the request (null value if removed)
+    private final Map<String, String> responseCookies = new HashMap<String, String>();
+    
+    /**
+     * Build a context from the context of the current request and the session store to use.
+     * 
+     * @param context
+     * @param sessionStore
+     */
+    public SessionStoreContext(final WebContext context, final SessionStore sessionStore) {
+        this.context = context;
+        this.sessionStore = sessionStore;
+    }
+    
+    public String getRequestParameter(final String name) {
+        return this.context.getRequestParameter(name);
+    }
+    
+    public Map<String, String[]> getRequestParameters() {
+        return this.context.getRequestParameters();
+    }
+    
+    public String getRequestHeader(final String name) {
+        return this.context.getRequestHeader(name);
+    }
+    
+    /**
+     * Return the value of a request cookie or of a cookie added to the response during this request.
+     * 
+     * @param name
+     * @return the cookie value
+     */
+    public String getRequestCookie(final String name) {
+        if (this.responseCookies.containsKey(name)) {
+            return this.responseCookies.get(name);
+        }
+        return this.context.getRequestCookie(name);
+    }
+    
+    public void addResponseCookie(final String name, final String value, final String path, final int maxAge) {
+        this.responseCookies.put(name, maxAge == 0 ? null : value);
+        this.context.addResponseCookie(name, value, path, maxAge);
+    }
+    
+    /**
+     * Save an attribute in the session store.
+     * 
+     * @param name
+     * @param value
+     */
+    public void setSessionAttribute(final String name, final Object value) {
+        this.sessionStore.set(this, name, value);
+    }
+    
+    /**
+     * Get an attribute from the session store.
+     * 
+     * @param name
+     * @return the session attribute
+     */
+    public Object getSessionAttribute(final String name) {
+        return this.sessionStore.get(this, name);
+    }
+    
+    public String getRequestMethod() {
+        return this.context.getRequestMethod();
+    }
+    
+    public String getRequestPath() {
+        return this.context.getRequestPath();
+    }
+    
+    public String getRequestQueryString() {
+        return this.context.getRequestQueryString();
+    }
+    
+    /**
+     * Invalidate the attributes of the session store.
+     */
+    public void invalidateSession() {
+        this.sessionStore.invalidate(this);
+    }
+    
+    public void WriteResponse(final String data) throws IOException {
+        this.context.WriteResponse(data);
+    }
+    
+    /**
+     * Return the wrapped context.
+     * 
+     * @return the wrapped context
+     */
+    public WebContext getContext() {
+        return this.context;
+    }
+    
+    /**
+     * Return the session store.
+     * 
+     * @return the session store
+     */
+    public SessionStore getSessionStore() {
+        return this.sessionStore;
+    }
+}
@@ -20,6 +20,9 @@ import java.util.Map;
 
 /**
  * This interface represents the web context to use HTTP request and session.
+ * <p />
+ * The cookie methods are required by the session stores ({@link SessionStore}) and the path and query string methods by the
+ * body-free routing of the {@link org.pac4j.core.client.ClientsGroup} : all of them must be implemented by custom contexts.
  * 
  * @author Jerome Leleu
  * @since 1.4.0
@@ -49,6 +52,24 @@ public interface WebContext {
      */
     public String getRequestHeader(String name);
     
+    /**
+     * Return the value of a request cookie.
+     * 
+     * @param name
+     * @return the request cookie value
+     */
+    public String getRequestCookie(String name);
+    
+    /**
+     * Add a cookie to the response : a <code>null</code> value or a zero max age removes the cookie in the browser.
+     * 
+     * @param name
+     * @param value
+     * @param path
+     * @param maxAge in seconds (a negative value means until the browser is closed)
+     */
+    public void addResponseCookie(String name, String value, String path, int maxAge);
+    
     /**
      * Save an attribute in session.
      * 
@@ -72,6 +93,20 @@ public interface WebContext {
      */
     public String getRequestMethod();
     
+    /**
+     * Return the path of the request (without the query string).
+     * 
+     * @return the request path
+     */
+    public String getRequestPath();
+    
+    /**
+     * Return the raw (not decoded) query string of the request, without reading the request body.
+     * 
+     * @return the query string or <code>null</code> if none
+     */
+    public String getRequestQueryString();
+    
     /**
      * Invalidate the session.
      */
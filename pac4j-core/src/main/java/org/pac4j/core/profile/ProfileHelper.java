@@ -96,4 +96,13 @@ public final class ProfileHelper {
     public static void setKeepRawData(final boolean keepRawData) {
         RawDataObject.setKeepRawData(keepRawData);
     }
+    
+    /**
+     * Return whether the raw data are kept.
+     * 
+     * @return whether the raw data are kept
+     */
+    public static boolean isKeepRawData() {
+        return RawDataObject.keepRawData;
+    }
 }
@@ -17,8 +17,8 @@ package org.pac4j.core.profile;
 
 import java.io.Serializable;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.pac4j.core.util.CommonHelper;
 import org.slf4j.Logger;
@@ -39,7 +39,8 @@ public class UserProfile implements Serializable {
     
     private String id;
     
-    private final Map<String, Object> attributes = new HashMap<String, Object>();
+    // concurrent : attributes are updated in background (token refreshes, two-phase loading)
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
     
     public transient static final String SEPARATOR = "#";
     
@@ -17,6 +17,8 @@ package org.pac4j.core.util;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.pac4j.core.exception.ClientException;
 import org.slf4j.Logger;
@@ -32,6 +34,8 @@ public final class CommonHelper {
     
     private static final Logger logger = LoggerFactory.getLogger(CommonHelper.class);
     
+    private static final char[] HEXA_CHARS = "0123456789abcdef".toCharArray();
+    
     /**
      * Return if the String is not blank.
      * 
@@ -147,6 +151,50 @@ public final class CommonHelper {
         }
     }
     
+    /**
+     * Compute the SHA-256 digest of the values (UTF-8 encoded, separated by a zero byte, the <code>null</code> values being skipped).
+     * 
+     * @param values
+     * @return the digest
+     */
+    public static byte[] sha256(final String... values) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            boolean first = true;
+            for (final String value : values) {
+                if (value != null) {
+                    if (!first) {
+                        digest.update((byte) 0);
+                    }
+                    digest.update(value.getBytes("UTF-8"));
+                    first = false;
+                }
+            }
+            return digest.digest();
+        } catch (final NoSuchAlgorithmException e) {
+            // required on every Java platform
+            throw new IllegalStateException(e);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Compute the SHA-256 digest of the values (see {@link #sha256(String...)}) as a lowercase hexadecimal string.
+     * 
+     * @param values
+     * @return the hexadecimal digest
+     */
+    public static String sha256Hex(final String... values) {
+        final byte[] hash = sha256(values);
+        final char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[2 * i] = HEXA_CHARS[(hash[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = HEXA_CHARS[hash[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+    
     /**
      * Build a normalized "toString" text for an object.
      * 
@@ -0,0 +1,42 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class creates named daemon threads (which do not prevent the JVM from stopping) for the background tasks of the library.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+    
+    private final String name;
+    
+    private final AtomicInteger nbThreads = new AtomicInteger();
+    
+    public DaemonThreadFactory(final String name) {
+        this.name = name;
+    }
+    
+    public Thread newThread(final Runnable r) {
+        final Thread thread = new Thread(r, this.name + "-" + this.nbThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
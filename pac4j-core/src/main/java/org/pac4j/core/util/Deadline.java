@@ -0,0 +1,181 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.util;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Callable;
+
+/**
+ * This class is the deadline of a login : the network calls made by the clients for the current thread (OAuth requests, CAS
+ * validations, OpenID discoveries and verifications) use the remaining time of the deadline as their connect and read timeouts (bounded
+ * by their own timeouts), so that the login never takes longer than the deadline, whatever the number of calls.
+ * <p />
+ * The deadline is started for the current thread before calling the clients and cleared afterwards :
+ * <pre>
+ * Deadline.start(5000);
+ * try {
+ *     final Credentials credentials = client.getCredentials(context);
+ *     final UserProfile profile = client.getUserProfile(credentials);
+ * } finally {
+ *     Deadline.clear();
+ * }
+ * </pre>
+ * As the deadline is bound to the current thread, the tasks executed in other threads on behalf of the login must be wrapped by the
+ * {@link #propagate(Callable)} or {@link #propagate(Runnable)} methods to run under the same deadline.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class Deadline {
+    
+    private static final ThreadLocal<Deadline> currentDeadline = new ThreadLocal<Deadline>();
+    
+    private final long expirationTime;
+    
+    public Deadline(final long timeout) {
+        this.expirationTime = System.currentTimeMillis() + timeout;
+    }
+    
+    /**
+     * Start a deadline for the current thread.
+     * 
+     * @param timeout in milliseconds
+     * @return the deadline
+     */
+    public static Deadline start(final long timeout) {
+        final Deadline deadline = new Deadline(timeout);
+        currentDeadline.set(deadline);
+        return deadline;
+    }
+    
+    /**
+     * Return the deadline of the current thread.
+     * 
+     * @return the deadline of the current thread (<code>null</code> if none)
+     */
+    public static Deadline current() {
+        return currentDeadline.get();
+    }
+    
+    /**
+     * Clear the deadline of the current thread.
+     */
+    public static void clear() {
+        currentDeadline.remove();
+    }
+    
+    /**
+     * Wrap a task so that it runs under the deadline of the current thread (captured now), whatever the thread executing it.
+     * 
+     * @param task
+     * @return the wrapped task (the task itself if there is no deadline)
+     */
+    public static <T> Callable<T> propagate(final Callable<T> task) {
+        final Deadline deadline = currentDeadline.get();
+        if (deadline == null) {
+            return task;
+        }
+        return new Callable<T>() {
+            
+            public T call() throws Exception {
+                final Deadline previous = currentDeadline.get();
+                currentDeadline.set(deadline);
+                try {
+                    return task.call();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Wrap a task so that it runs under the deadline of the current thread (captured now), whatever the thread executing it.
+     * 
+     * @param task
+     * @return the wrapped task (the task itself if there is no deadline)
+     */
+    public static Runnable propagate(final Runnable task) {
+        final Deadline deadline = currentDeadline.get();
+        if (deadline == null) {
+            return task;
+        }
+        return new Runnable() {
+            
+            public void run() {
+                final Deadline previous = currentDeadline.get();
+                currentDeadline.set(deadline);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+    
+    private static void restore(final Deadline previous) {
+        if (previous == null) {
+            currentDeadline.remove();
+        } else {
+            currentDeadline.set(previous);
+        }
+    }
+    
+    /**
+     * Compute the timeout of a network call : the given timeout bounded by the remaining time of the deadline of the current thread.
+     * 
+     * @param timeout in milliseconds (0 for no timeout)
+     * @return the timeout to use (0 for no timeout)
+     * @throws SocketTimeoutException if the deadline of the current thread has expired
+     */
+    public static int computeTimeout(final int timeout) throws SocketTimeoutException {
+        final Deadline deadline = currentDeadline.get();
+        if (deadline == null) {
+            return timeout;
+        }
+        final long remaining = deadline.getRemaining();
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("Login deadline exceeded");
+        }
+        if (timeout > 0 && timeout < remaining) {
+            return timeout;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+    
+    /**
+     * Return the remaining time before the deadline.
+     * 
+     * @return the remaining time in milliseconds (negative if expired)
+     */
+    public long getRemaining() {
+        return this.expirationTime - System.currentTimeMillis();
+    }
+    
+    public boolean isExpired() {
+        return getRemaining() <= 0;
+    }
+    
+    public long getExpirationTime() {
+        return this.expirationTime;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "expirationTime", this.expirationTime);
+    }
+}
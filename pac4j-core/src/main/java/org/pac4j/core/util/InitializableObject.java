@@ -20,13 +20,16 @@ import org.pac4j.core.exception.ClientException;
 /**
  * This class is an object that can be (re-)initialized through the {@link #init()} and the {@link #reinit()} methods, the
  * {@link #internalInit()} must be implemented in sub-classes.
+ * <p />
+ * The initialization state is volatile : once the object is initialized, the {@link #init()} method is a lock-free read and the fields
+ * set by the {@link #internalInit()} method are safely published to all threads.
  * 
  * @author Jerome Leleu
  * @since 1.4.0
  */
 public abstract class InitializableObject {
     
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
     
     /**
      * Initialize the object.
@@ -54,6 +57,15 @@ public abstract class InitializableObject {
         this.initialized = true;
     }
     
+    /**
+     * Return whether the object is initialized.
+     * 
+     * @return whether the object is initialized
+     */
+    public boolean isInitialized() {
+        return this.initialized;
+    }
+    
     /**
      * Internal initialization of the object.
      * 
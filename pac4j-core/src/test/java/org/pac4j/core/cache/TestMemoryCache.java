@@ -0,0 +1,85 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.cache;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link MemoryCache} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestMemoryCache extends TestCase implements TestsConstants {
+    
+    public void testPutGet() {
+        final MemoryCache<String, String> cache = new MemoryCache<String, String>();
+        cache.put(KEY, VALUE);
+        assertEquals(VALUE, cache.get(KEY));
+        assertNull(cache.get(NAME));
+    }
+    
+    public void testNullKeyOrValue() {
+        final MemoryCache<String, String> cache = new MemoryCache<String, String>();
+        cache.put(null, VALUE);
+        cache.put(KEY, null);
+        assertEquals(0, cache.size());
+        assertNull(cache.get(null));
+    }
+    
+    public void testRemove() {
+        final MemoryCache<String, String> cache = new MemoryCache<String, String>();
+        cache.put(KEY, VALUE);
+        cache.remove(KEY);
+        assertNull(cache.get(KEY));
+    }
+    
+    public void testExpiration() throws InterruptedException {
+        final MemoryCache<String, String> cache = new MemoryCache<String, String>(10);
+        cache.put(KEY, VALUE);
+        Thread.sleep(50);
+        assertNull(cache.get(KEY));
+        assertEquals(0, cache.size());
+    }
+    
+    public void testMaxSize() {
+        final MemoryCache<String, String> cache = new MemoryCache<String, String>(0, 2);
+        cache.put(KEY, VALUE);
+        cache.put(NAME, VALUE);
+        cache.put(STRING_ID, VALUE);
+        assertEquals(2, cache.size());
+        assertEquals(VALUE, cache.get(STRING_ID));
+    }
+    
+    public void testLowWaterMark() {
+        final MemoryCache<String, String> cache = new MemoryCache<String, String>(0, 100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(KEY + i, VALUE);
+        }
+        assertEquals(100, cache.size());
+        // evicted down to 90 values
+        cache.put(NAME, VALUE);
+        assertEquals(91, cache.size());
+        assertEquals(VALUE, cache.get(NAME));
+        // no eviction until the maximum size is reached again
+        for (int i = 0; i < 9; i++) {
+            cache.put(NAME + i, VALUE);
+        }
+        assertEquals(100, cache.size());
+    }
+}
@@ -17,10 +17,14 @@ package org.pac4j.core.client;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
+import org.pac4j.core.context.MemorySessionStore;
 import org.pac4j.core.context.MockWebContext;
+import org.pac4j.core.context.SessionStoreContext;
+import org.pac4j.core.context.WebContext;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.util.TestsConstants;
 import org.pac4j.core.util.TestsHelper;
@@ -89,6 +93,57 @@ public final class TestClientsGroup extends TestCase implements TestsConstants {
         assertEquals(yahooClient, clientsGroup.findClient(yahooClient.getType()));
     }
     
+    private ClientsGroup newTwoClientsGroup(final ClientsGroup.RoutingStrategy routingStrategy, final Client... clients) {
+        final ClientsGroup clientsGroup = new ClientsGroup(CALLBACK_URL, clients);
+        clientsGroup.setRoutingStrategy(routingStrategy);
+        return clientsGroup;
+    }
+    
+    public void testQueryStringRouting() throws ClientException {
+        final MockBaseClient facebookClient = newFacebookClient();
+        final MockBaseClient yahooClient = newYahooClient();
+        final ClientsGroup clientsGroup = newTwoClientsGroup(ClientsGroup.RoutingStrategy.QUERY_STRING, facebookClient,
+                                                             yahooClient);
+        clientsGroup.init();
+        assertEquals(CALLBACK_URL + "?" + ClientsGroup.DEFAULT_CLIENT_TYPE_PARAMETER + "=" + yahooClient.getType(),
+                     yahooClient.getCallbackUrl());
+        // the (body) parameters are ignored
+        final MockWebContext context = MockWebContext.create()
+            .addRequestParameter(ClientsGroup.DEFAULT_CLIENT_TYPE_PARAMETER, facebookClient.getType())
+            .setRequestQueryString("a=1&" + ClientsGroup.DEFAULT_CLIENT_TYPE_PARAMETER + "=Yahoo%43lient&b");
+        assertEquals(yahooClient, clientsGroup.findClient(context));
+        assertNull(clientsGroup.findClient(MockWebContext.create().addRequestParameter(
+                                                                                       ClientsGroup.DEFAULT_CLIENT_TYPE_PARAMETER,
+                                                                                       facebookClient.getType())));
+    }
+    
+    public void testPathRouting() throws ClientException {
+        final MockBaseClient facebookClient = newFacebookClient();
+        final MockBaseClient yahooClient = newYahooClient();
+        final ClientsGroup clientsGroup = newTwoClientsGroup(ClientsGroup.RoutingStrategy.PATH, facebookClient, yahooClient);
+        clientsGroup.setCallbackUrl(CALLBACK_URL + "?a=1");
+        clientsGroup.init();
+        clientsGroup.reinit();
+        assertEquals(CALLBACK_URL + "/" + facebookClient.getType() + "?a=1", facebookClient.getCallbackUrl());
+        assertEquals(CALLBACK_URL + "/" + yahooClient.getType() + "?a=1", yahooClient.getCallbackUrl());
+        assertEquals(facebookClient,
+                     clientsGroup.findClient(MockWebContext.create().setRequestPath("/callback/" + facebookClient.getType())));
+        assertEquals(yahooClient,
+                     clientsGroup.findClient(MockWebContext.create().setRequestPath("/callback/" + yahooClient.getType() + "/")));
+        assertNull(clientsGroup.findClient(MockWebContext.create().setRequestPath("/callback")));
+    }
+    
+    public void testHeaderRouting() throws ClientException {
+        final MockBaseClient facebookClient = newFacebookClient();
+        final MockBaseClient yahooClient = newYahooClient();
+        final ClientsGroup clientsGroup = newTwoClientsGroup(ClientsGroup.RoutingStrategy.HEADER, facebookClient, yahooClient);
+        assertEquals(yahooClient, clientsGroup.findClient(MockWebContext.create()
+            .addRequestHeader(ClientsGroup.DEFAULT_CLIENT_TYPE_HEADER, yahooClient.getType())
+            .setRequestQueryString(ClientsGroup.DEFAULT_CLIENT_TYPE_PARAMETER + "=" + facebookClient.getType())));
+        assertEquals(facebookClient, clientsGroup.findClient(MockWebContext.create()
+            .setRequestQueryString(ClientsGroup.DEFAULT_CLIENT_TYPE_PARAMETER + "=" + facebookClient.getType())));
+    }
+    
     public void testDoubleInit() throws ClientException {
         final MockBaseClient facebookClient = newFacebookClient();
         facebookClient.setCallbackUrl(CALLBACK_URL);
@@ -130,4 +185,46 @@ public final class TestClientsGroup extends TestCase implements TestsConstants {
         clientsGroup.init();
         assertEquals(FAILURE_URL2, facebookClient.getFailureUrl());
     }
+    
+    public void testBuildContext() {
+        final ClientsGroup clientsGroup = new ClientsGroup();
+        final WebContext context = MockWebContext.create();
+        assertSame(context, clientsGroup.buildContext(context));
+        clientsGroup.setSessionStore(new MemorySessionStore());
+        final WebContext storeContext = clientsGroup.buildContext(context);
+        assertTrue(storeContext instanceof SessionStoreContext);
+        assertSame(context, ((SessionStoreContext) storeContext).getContext());
+        assertSame(storeContext, clientsGroup.buildContext(storeContext));
+    }
+    
+    public void testWarmUp() throws ClientException {
+        final MockBaseClient facebookClient = newFacebookClient();
+        final MockBaseClient yahooClient = newYahooClient();
+        final ClientsGroup clientsGroup = new ClientsGroup(CALLBACK_URL, facebookClient, yahooClient);
+        clientsGroup.setPreResolveHosts(true);
+        assertFalse(facebookClient.isInitialized());
+        final Map<String, Long> times = clientsGroup.warmUp();
+        assertTrue(facebookClient.isInitialized());
+        assertTrue(yahooClient.isInitialized());
+        assertEquals(2, times.size());
+        assertTrue(times.get(facebookClient.getType()) >= 0);
+        assertTrue(times.get(yahooClient.getType()) >= 0);
+    }
+    
+    public void testWarmUpFailure() {
+        final MockBaseClient failingClient = new MockBaseClient("FailingClient") {
+            
+            @Override
+            protected void internalInit() {
+                throw new IllegalStateException(VALUE);
+            }
+        };
+        final ClientsGroup clientsGroup = new ClientsGroup(CALLBACK_URL, newFacebookClient(), failingClient);
+        try {
+            clientsGroup.warmUp();
+            fail("warm-up should fail");
+        } catch (final ClientException e) {
+            assertEquals(VALUE, e.getCause().getMessage());
+        }
+    }
 }
@@ -0,0 +1,114 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This is a mocked server request with settable method/path/query string/headers/security (for tests purpose).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MockServerRequest implements ServerRequest {
+    
+    protected final Map<String, String> headers = new HashMap<String, String>();
+    
+    protected String method = "GET";
+    
+    protected String path = "/";
+    
+    protected String queryString = null;
+    
+    protected boolean secure = false;
+    
+    /**
+     * Set the request method for mock purpose.
+     * 
+     * @param method
+     * @return this mock server request
+     */
+    public MockServerRequest setMethod(final String method) {
+        this.method = method;
+        return this;
+    }
+    
+    /**
+     * Set the request path for mock purpose.
+     * 
+     * @param path
+     * @return this mock server request
+     */
+    public MockServerRequest setPath(final String path) {
+        this.path = path;
+        return this;
+    }
+    
+    /**
+     * Set the query string for mock purpose.
+     * 
+     * @param queryString
+     * @return this mock server request
+     */
+    public MockServerRequest setQueryString(final String queryString) {
+        this.queryString = queryString;
+        return this;
+    }
+    
+    /**
+     * Add a request header for mock purpose.
+     * 
+     * @param name
+     * @param value
+     * @return this mock server request
+     */
+    public MockServerRequest addHeader(final String name, final String value) {
+        this.headers.put(name, value);
+        return this;
+    }
+    
+    /**
+     * Set whether the request is secure for mock purpose.
+     * 
+     * @param secure
+     * @return this mock server request
+     */
+    public MockServerRequest setSecure(final boolean secure) {
+        this.secure = secure;
+        return this;
+    }
+    
+    public String getMethod() {
+        return this.method;
+    }
+    
+    public String getPath() {
+        return this.path;
+    }
+    
+    public String getQueryString() {
+        return this.queryString;
+    }
+    
+    public String getHeader(final String name) {
+        return this.headers.get(name);
+    }
+    
+    public boolean isSecure() {
+        return this.secure;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * This is a mocked server response which records the headers and the data written (for tests purpose) : the writes are only done when
+ * the {@link #flush()} method is called, like in an event loop.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MockServerResponse implements ServerResponse {
+    
+    protected final List<String[]> headers = new ArrayList<String[]>();
+    
+    protected final StringBuilder written = new StringBuilder();
+    
+    protected final List<FutureTask<Void>> pendingWrites = new ArrayList<FutureTask<Void>>();
+    
+    public void addHeader(final String name, final String value) {
+        this.headers.add(new String[] {
+            name, value
+        });
+    }
+    
+    public Future<?> write(final String data) {
+        final FutureTask<Void> write = new FutureTask<Void>(new Callable<Void>() {
+            
+            public Void call() {
+                MockServerResponse.this.written.append(data);
+                return null;
+            }
+        });
+        this.pendingWrites.add(write);
+        return write;
+    }
+    
+    /**
+     * Execute the pending writes.
+     */
+    public void flush() {
+        for (final FutureTask<Void> write : this.pendingWrites) {
+            write.run();
+        }
+        this.pendingWrites.clear();
+    }
+    
+    /**
+     * Return the values of a response header.
+     * 
+     * @param name
+     * @return the values of the header
+     */
+    public List<String> getHeaders(final String name) {
+        final List<String> values = new ArrayList<String>();
+        for (final String[] header : this.headers) {
+            if (header[0].equals(name)) {
+                values.add(header[1]);
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Return the written data.
+     * 
+     * @return the written data
+     */
+    public String getWritten() {
+        return this.written.toString();
+    }
+}
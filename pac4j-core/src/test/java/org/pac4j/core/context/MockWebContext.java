@@ -33,8 +33,16 @@ public class MockWebContext implements WebContext {
     
     protected final Map<String, Object> session = new HashMap<String, Object>();
     
+    protected final Map<String, String> requestCookies = new HashMap<String, String>();
+    
+    protected final Map<String, String> responseCookies = new HashMap<String, String>();
+    
     protected String method = "GET";
     
+    protected String path = "/";
+    
+    protected String queryString = null;
+    
     protected String writtenResponse = null;
     
     protected MockWebContext() {
@@ -84,6 +92,28 @@ public class MockWebContext implements WebContext {
         return this;
     }
     
+    /**
+     * Add a request cookie for mock purpose.
+     * 
+     * @param name
+     * @param value
+     * @return this mock web context
+     */
+    public MockWebContext addRequestCookie(final String name, final String value) {
+        this.requestCookies.put(name, value);
+        return this;
+    }
+    
+    /**
+     * Return the value of a cookie added to the response (<code>null</code> if removed or not added).
+     * 
+     * @param name
+     * @return the response cookie value
+     */
+    public String getResponseCookie(final String name) {
+        return this.responseCookies.get(name);
+    }
+    
     /**
      * Add a session attribute for mock purpose.
      * 
@@ -107,6 +137,28 @@ public class MockWebContext implements WebContext {
         return this;
     }
     
+    /**
+     * Set the request path for mock purpose.
+     * 
+     * @param path
+     * @return this mock web context
+     */
+    public MockWebContext setRequestPath(final String path) {
+        this.path = path;
+        return this;
+    }
+    
+    /**
+     * Set the raw query string for mock purpose.
+     * 
+     * @param queryString
+     * @return this mock web context
+     */
+    public MockWebContext setRequestQueryString(final String queryString) {
+        this.queryString = queryString;
+        return this;
+    }
+    
     /**
      * Return the written response.
      * 
@@ -124,6 +176,14 @@ public class MockWebContext implements WebContext {
         return this.headers.get(name);
     }
     
+    public String getRequestCookie(final String name) {
+        return this.requestCookies.get(name);
+    }
+    
+    public void addResponseCookie(final String name, final String value, final String path, final int maxAge) {
+        this.responseCookies.put(name, maxAge == 0 ? null : value);
+    }
+    
     public void setSessionAttribute(final String name, final Object value) {
         this.session.put(name, value);
     }
@@ -136,6 +196,14 @@ public class MockWebContext implements WebContext {
         return this.method;
     }
     
+    public String getRequestPath() {
+        return this.path;
+    }
+    
+    public String getRequestQueryString() {
+        return this.queryString;
+    }
+    
     public void invalidateSession() {
         this.session.clear();
     }
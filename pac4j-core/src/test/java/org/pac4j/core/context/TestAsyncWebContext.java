@@ -0,0 +1,117 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link AsyncWebContext} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestAsyncWebContext extends TestCase implements TestsConstants {
+    
+    public void testParameters() {
+        final Map<String, String[]> parameters = AsyncWebContext.parseParameters("a=1&b=x%20y&a=2&c&=&d=");
+        assertEquals(2, parameters.get("a").length);
+        assertEquals("2", parameters.get("a")[1]);
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest().setQueryString("a=1&b=x%20y&a=2&c"),
+                                                            new MockServerResponse(), new MemorySessionStore());
+        assertEquals("1", context.getRequestParameter("a"));
+        assertEquals("x y", context.getRequestParameter("b"));
+        assertEquals("", context.getRequestParameter("c"));
+        assertNull(context.getRequestParameter(KEY));
+    }
+    
+    public void testPreParsedParameters() {
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest().setQueryString(KEY + "=query")
+            .setMethod("POST"), new MockServerResponse(), AsyncWebContext.parseParameters(KEY + "=" + VALUE),
+                                                            new MemorySessionStore());
+        assertEquals(VALUE, context.getRequestParameter(KEY));
+        assertEquals("POST", context.getRequestMethod());
+        assertEquals(KEY + "=query", context.getRequestQueryString());
+    }
+    
+    public void testCookies() {
+        final MockServerResponse response = new MockServerResponse();
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest().addHeader("Cookie", "a=1; " + KEY
+                                                                                                         + "=\"" + VALUE
+                                                                                                         + "\""),
+                                                            response, new MemorySessionStore());
+        assertEquals("1", context.getRequestCookie("a"));
+        assertEquals(VALUE, context.getRequestCookie(KEY));
+        context.addResponseCookie(NAME, VALUE, "/", 60);
+        context.addResponseCookie("a", null, "/", -1);
+        assertEquals(VALUE, context.getRequestCookie(NAME));
+        assertNull(context.getRequestCookie("a"));
+        assertEquals(NAME + "=" + VALUE + "; Path=/; Max-Age=60; HttpOnly", response.getHeaders("Set-Cookie").get(0));
+        assertEquals("a=; Path=/; Max-Age=0; HttpOnly", response.getHeaders("Set-Cookie").get(1));
+    }
+    
+    public void testSecureCookie() {
+        final MockServerResponse response = new MockServerResponse();
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest().setSecure(true), response,
+                                                            new MemorySessionStore());
+        context.addResponseCookie(NAME, VALUE, "/", -1);
+        assertEquals(NAME + "=" + VALUE + "; Path=/; Secure; HttpOnly", response.getHeaders("Set-Cookie").get(0));
+    }
+    
+    public void testSession() {
+        final MemorySessionStore sessionStore = new MemorySessionStore();
+        final MockServerResponse response = new MockServerResponse();
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest(), response, sessionStore);
+        context.setSessionAttribute(KEY, VALUE);
+        assertEquals(VALUE, context.getSessionAttribute(KEY));
+        final String cookie = response.getHeaders("Set-Cookie").get(0);
+        // next request with the session cookie
+        final AsyncWebContext context2 = new AsyncWebContext(new MockServerRequest().addHeader("Cookie",
+                                                                                              cookie.substring(0, cookie
+                                                                                                  .indexOf(';'))),
+                                                             new MockServerResponse(), sessionStore);
+        assertEquals(VALUE, context2.getSessionAttribute(KEY));
+        context2.invalidateSession();
+        assertNull(context2.getSessionAttribute(KEY));
+    }
+    
+    public void testAsyncWrite() throws Exception {
+        final MockServerResponse response = new MockServerResponse();
+        final AsyncWebContext context = new AsyncWebContext(new MockServerRequest(), response, new MemorySessionStore());
+        assertNull(context.getLastWriteFuture());
+        context.WriteResponse(KEY);
+        context.WriteResponse(VALUE);
+        final Future<?> future = context.getLastWriteFuture();
+        assertFalse(future.isDone());
+        assertEquals("", response.getWritten());
+        response.flush();
+        future.get();
+        assertEquals(KEY + VALUE, response.getWritten());
+    }
+    
+    public void testContextSessionStore() {
+        try {
+            new AsyncWebContext(new MockServerRequest(), new MockServerResponse(), new ContextSessionStore());
+            fail("should fail");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("A session store (other than the ContextSessionStore) is required", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link BufferedSessionContext} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestBufferedSessionContext extends TestCase implements TestsConstants {
+    
+    private static final class CountingWebContext extends MockWebContext {
+        
+        private int nbReads = 0;
+        
+        private int nbWrites = 0;
+        
+        @Override
+        public Object getSessionAttribute(final String name) {
+            this.nbReads++;
+            return super.getSessionAttribute(name);
+        }
+        
+        @Override
+        public void setSessionAttribute(final String name, final Object value) {
+            this.nbWrites++;
+            super.setSessionAttribute(name, value);
+        }
+    }
+    
+    private CountingWebContext mockContext;
+    
+    private BufferedSessionContext context;
+    
+    @Override
+    protected void setUp() {
+        this.mockContext = new CountingWebContext();
+        this.mockContext.addSessionAttribute(KEY, VALUE);
+        this.mockContext.nbWrites = 0;
+        this.context = new BufferedSessionContext(this.mockContext);
+    }
+    
+    public void testReadOnce() {
+        assertEquals(VALUE, this.context.getSessionAttribute(KEY));
+        assertEquals(VALUE, this.context.getSessionAttribute(KEY));
+        assertNull(this.context.getSessionAttribute(NAME));
+        assertNull(this.context.getSessionAttribute(NAME));
+        assertEquals(2, this.mockContext.nbReads);
+        assertEquals(0, this.context.flush());
+        assertEquals(0, this.mockContext.nbWrites);
+    }
+    
+    public void testBufferedWrites() {
+        this.context.setSessionAttribute(NAME, VALUE);
+        this.context.setSessionAttribute(NAME, FAKE_VALUE);
+        assertEquals(FAKE_VALUE, this.context.getSessionAttribute(NAME));
+        assertTrue(this.context.hasPendingWrites());
+        assertEquals(0, this.mockContext.nbWrites);
+        assertEquals(1, this.context.flush());
+        assertFalse(this.context.hasPendingWrites());
+        assertEquals(1, this.mockContext.nbWrites);
+        assertEquals(FAKE_VALUE, this.mockContext.getSessionAttribute(NAME));
+    }
+    
+    public void testUnchangedValue() {
+        this.context.setSessionAttribute(KEY, new String(VALUE));
+        assertEquals(0, this.context.flush());
+        assertEquals(0, this.mockContext.nbWrites);
+    }
+    
+    public void testRemove() {
+        this.context.setSessionAttribute(KEY, null);
+        assertNull(this.context.getSessionAttribute(KEY));
+        assertEquals(1, this.context.flush());
+        assertNull(this.mockContext.getSessionAttribute(KEY));
+        this.context.setSessionAttribute(KEY, null);
+        assertEquals(0, this.context.flush());
+    }
+    
+    public void testInvalidate() {
+        this.context.setSessionAttribute(NAME, VALUE);
+        this.context.invalidateSession();
+        assertEquals(0, this.context.flush());
+        assertNull(this.context.getSessionAttribute(KEY));
+    }
+}
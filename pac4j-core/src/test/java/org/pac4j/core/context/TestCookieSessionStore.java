@@ -0,0 +1,121 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link CookieSessionStore} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestCookieSessionStore extends TestCase implements TestsConstants {
+    
+    private CookieSessionStore store;
+    
+    @Override
+    protected void setUp() {
+        this.store = new CookieSessionStore(SECRET);
+    }
+    
+    private MockWebContext nextRequest(final MockWebContext previous) {
+        return MockWebContext.create().addRequestCookie(CookieSessionStore.DEFAULT_COOKIE_NAME,
+                                                        previous.getResponseCookie(CookieSessionStore.DEFAULT_COOKIE_NAME));
+    }
+    
+    public void testBase64() {
+        for (int length = 0; length < 10; length++) {
+            final byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (i * 37 - 100);
+            }
+            final byte[] decoded = CookieSessionStore.decodeBase64(CookieSessionStore.encodeBase64(data));
+            assertEquals(length, decoded.length);
+            for (int i = 0; i < length; i++) {
+                assertEquals(data[i], decoded[i]);
+            }
+        }
+    }
+    
+    public void testSetGetAcrossRequests() {
+        final MockWebContext context = MockWebContext.create();
+        final SessionStoreContext storeContext = new SessionStoreContext(context, this.store);
+        storeContext.setSessionAttribute(KEY, VALUE);
+        storeContext.setSessionAttribute(NAME, TOKEN);
+        assertEquals(VALUE, storeContext.getSessionAttribute(KEY));
+        assertTrue(context.session.isEmpty());
+        final String cookie = context.getResponseCookie(CookieSessionStore.DEFAULT_COOKIE_NAME);
+        assertNotNull(cookie);
+        assertFalse(cookie.contains(VALUE));
+        final MockWebContext next = nextRequest(context);
+        assertEquals(VALUE, this.store.get(next, KEY));
+        assertEquals(TOKEN, this.store.get(next, NAME));
+        assertNull(new CookieSessionStore(FAKE_VALUE).get(next, KEY));
+    }
+    
+    public void testTamperedCookie() {
+        final MockWebContext context = MockWebContext.create();
+        this.store.set(context, KEY, VALUE);
+        final String cookie = context.getResponseCookie(CookieSessionStore.DEFAULT_COOKIE_NAME);
+        final char c = cookie.charAt(cookie.length() / 2) == 'A' ? 'B' : 'A';
+        final String tampered = cookie.substring(0, cookie.length() / 2) + c + cookie.substring(cookie.length() / 2 + 1);
+        assertNull(this.store.get(MockWebContext.create()
+            .addRequestCookie(CookieSessionStore.DEFAULT_COOKIE_NAME, tampered), KEY));
+        assertNull(this.store.get(MockWebContext.create().addRequestCookie(CookieSessionStore.DEFAULT_COOKIE_NAME, "%%"),
+                                  KEY));
+    }
+    
+    public void testExpiredCookie() {
+        this.store.setTimeToLive(-1);
+        final MockWebContext context = MockWebContext.create();
+        this.store.set(context, KEY, VALUE);
+        assertNull(this.store.get(nextRequest(context), KEY));
+    }
+    
+    public void testRemoveAndInvalidate() {
+        final MockWebContext context = MockWebContext.create();
+        this.store.set(context, KEY, VALUE);
+        final MockWebContext next = nextRequest(context);
+        this.store.set(next, KEY, null);
+        assertNull(next.getResponseCookie(CookieSessionStore.DEFAULT_COOKIE_NAME));
+        final MockWebContext other = nextRequest(context);
+        this.store.invalidate(other);
+        assertTrue(other.responseCookies.containsKey(CookieSessionStore.DEFAULT_COOKIE_NAME));
+        assertNull(other.getResponseCookie(CookieSessionStore.DEFAULT_COOKIE_NAME));
+    }
+    
+    public void testTooLongCookie() {
+        this.store.setMaxLength(100);
+        try {
+            this.store.set(MockWebContext.create(), KEY, VALUE);
+            fail("should fail");
+        } catch (final RuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Session cookie too long"));
+        }
+    }
+    
+    public void testMissingSecret() {
+        try {
+            new CookieSessionStore().set(MockWebContext.create(), KEY, VALUE);
+            fail("should fail");
+        } catch (final RuntimeException e) {
+            assertEquals("secret cannot be blank", e.getCause().getMessage());
+        }
+    }
+}
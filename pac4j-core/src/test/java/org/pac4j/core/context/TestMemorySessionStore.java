@@ -0,0 +1,112 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.context;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link MemorySessionStore} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestMemorySessionStore extends TestCase implements TestsConstants {
+    
+    private MemorySessionStore store;
+    
+    @Override
+    protected void setUp() {
+        this.store = new MemorySessionStore(4);
+    }
+    
+    public void testSetGetAcrossRequests() {
+        final MockWebContext context = MockWebContext.create();
+        final SessionStoreContext storeContext = new SessionStoreContext(context, this.store);
+        storeContext.setSessionAttribute(KEY, VALUE);
+        storeContext.setSessionAttribute(NAME, TOKEN);
+        assertEquals(VALUE, storeContext.getSessionAttribute(KEY));
+        assertEquals(1, this.store.size());
+        final String id = context.getResponseCookie(MemorySessionStore.DEFAULT_COOKIE_NAME);
+        assertEquals(32, id.length());
+        final MockWebContext next = MockWebContext.create().addRequestCookie(MemorySessionStore.DEFAULT_COOKIE_NAME, id);
+        assertEquals(TOKEN, this.store.get(next, NAME));
+        this.store.set(next, KEY, null);
+        assertNull(this.store.get(next, KEY));
+        assertNull(next.getResponseCookie(MemorySessionStore.DEFAULT_COOKIE_NAME));
+    }
+    
+    public void testUnknownIdNotReused() {
+        final MockWebContext context = MockWebContext.create().addRequestCookie(MemorySessionStore.DEFAULT_COOKIE_NAME,
+                                                                                FAKE_VALUE);
+        assertNull(this.store.get(context, KEY));
+        this.store.set(context, KEY, VALUE);
+        final String id = context.getResponseCookie(MemorySessionStore.DEFAULT_COOKIE_NAME);
+        assertNotNull(id);
+        assertFalse(FAKE_VALUE.equals(id));
+    }
+    
+    public void testExpiration() {
+        this.store.setTimeToLive(1);
+        final MockWebContext context = MockWebContext.create();
+        this.store.set(context, KEY, VALUE);
+        try {
+            Thread.sleep(10);
+        } catch (final InterruptedException e) {
+            fail();
+        }
+        final MockWebContext next = MockWebContext.create()
+            .addRequestCookie(MemorySessionStore.DEFAULT_COOKIE_NAME,
+                              context.getResponseCookie(MemorySessionStore.DEFAULT_COOKIE_NAME));
+        assertNull(this.store.get(next, KEY));
+    }
+    
+    public void testInvalidate() {
+        final MockWebContext context = MockWebContext.create();
+        this.store.set(context, KEY, VALUE);
+        final MockWebContext next = MockWebContext.create()
+            .addRequestCookie(MemorySessionStore.DEFAULT_COOKIE_NAME,
+                              context.getResponseCookie(MemorySessionStore.DEFAULT_COOKIE_NAME));
+        this.store.invalidate(next);
+        assertEquals(0, this.store.size());
+        assertNull(this.store.get(next, KEY));
+    }
+    
+    public void testFullStore() throws InterruptedException {
+        final MemorySessionStore fullStore = new MemorySessionStore(1);
+        fullStore.setMaxSize(2);
+        fullStore.setTimeToLive(100);
+        final MockWebContext context = MockWebContext.create();
+        fullStore.set(context, KEY, VALUE);
+        fullStore.set(MockWebContext.create(), KEY, VALUE);
+        try {
+            fullStore.set(MockWebContext.create(), KEY, VALUE);
+            fail("should fail");
+        } catch (final RuntimeException e) {
+            assertEquals("Session store full : 2 sessions", e.getMessage());
+        }
+        // the live sessions are kept
+        final MockWebContext next = MockWebContext.create()
+            .addRequestCookie(MemorySessionStore.DEFAULT_COOKIE_NAME,
+                              context.getResponseCookie(MemorySessionStore.DEFAULT_COOKIE_NAME));
+        assertEquals(VALUE, fullStore.get(next, KEY));
+        // the expired sessions are purged for the new ones
+        Thread.sleep(150);
+        fullStore.set(MockWebContext.create(), KEY, VALUE);
+        assertEquals(1, fullStore.size());
+    }
+}
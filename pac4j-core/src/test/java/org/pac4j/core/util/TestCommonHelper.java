@@ -133,4 +133,11 @@ public final class TestCommonHelper extends TestCase {
     public void testAreEqualsSameValue() {
         assertTrue(CommonHelper.areEquals(VALUE, VALUE));
     }
+    
+    public void testSha256Hex() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", CommonHelper.sha256Hex());
+        assertEquals(64, CommonHelper.sha256Hex(VALUE).length());
+        assertEquals(CommonHelper.sha256Hex(VALUE), CommonHelper.sha256Hex(VALUE, null));
+        assertFalse(CommonHelper.sha256Hex(NAME + VALUE).equals(CommonHelper.sha256Hex(NAME, VALUE)));
+    }
 }
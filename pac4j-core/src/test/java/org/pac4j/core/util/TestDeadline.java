@@ -0,0 +1,85 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.core.util;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+/**
+ * This class tests the {@link Deadline} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestDeadline extends TestCase {
+    
+    @Override
+    protected void tearDown() {
+        Deadline.clear();
+    }
+    
+    public void testNoDeadline() throws SocketTimeoutException {
+        assertNull(Deadline.current());
+        assertEquals(0, Deadline.computeTimeout(0));
+        assertEquals(500, Deadline.computeTimeout(500));
+    }
+    
+    public void testRemainingTime() throws SocketTimeoutException {
+        final Deadline deadline = Deadline.start(10000);
+        assertSame(deadline, Deadline.current());
+        assertFalse(deadline.isExpired());
+        assertEquals(500, Deadline.computeTimeout(500));
+        final int timeout = Deadline.computeTimeout(0);
+        assertTrue(timeout > 9000 && timeout <= 10000);
+        assertTrue(Deadline.computeTimeout(60000) <= 10000);
+        Deadline.clear();
+        assertNull(Deadline.current());
+    }
+    
+    public void testExpired() {
+        assertTrue(Deadline.start(-1).isExpired());
+        try {
+            Deadline.computeTimeout(500);
+            fail("should fail");
+        } catch (final SocketTimeoutException e) {
+            assertEquals("Login deadline exceeded", e.getMessage());
+        }
+    }
+    
+    public void testPropagate() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Callable<Deadline> task = new Callable<Deadline>() {
+                
+                public Deadline call() {
+                    return Deadline.current();
+                }
+            };
+            assertNull(executor.submit(Deadline.propagate(task)).get());
+            final Deadline deadline = Deadline.start(5000);
+            assertSame(deadline, executor.submit(Deadline.propagate(task)).get());
+            // the deadline is cleared in the thread after the task
+            Deadline.clear();
+            assertNull(executor.submit(task).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -30,8 +30,10 @@ public final class TestInitializableObject extends TestCase {
     public void testInit() throws ClientException {
         CounterInitializableObject counterInitializableObject = new CounterInitializableObject();
         assertEquals(0, counterInitializableObject.getCounter());
+        assertFalse(counterInitializableObject.isInitialized());
         counterInitializableObject.init();
         assertEquals(1, counterInitializableObject.getCounter());
+        assertTrue(counterInitializableObject.isInitialized());
         counterInitializableObject.init();
         assertEquals(1, counterInitializableObject.getCounter());
     }
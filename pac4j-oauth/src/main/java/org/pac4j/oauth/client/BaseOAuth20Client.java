@@ -16,17 +16,28 @@
 package org.pac4j.oauth.client;
 
 import org.pac4j.core.context.WebContext;
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
 import org.pac4j.oauth.client.exception.OAuthCredentialsException;
 import org.pac4j.oauth.credentials.OAuthCredentials;
 import org.pac4j.oauth.profile.OAuthProfile;
+import org.pac4j.oauth.ratelimit.RateLimiter.Priority;
+import org.scribe.exceptions.OAuthException;
+import org.scribe.extractors.OAuth20TokenExtractor;
+import org.scribe.model.OAuth20Token;
 import org.scribe.model.Token;
 import org.scribe.model.Verifier;
+import org.scribe.oauth.ProxyOAuth20ServiceImpl;
 import org.scribe.utils.OAuthEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This class is the base implementation for client supporting OAuth protocol version 2.0.
+ * <p />
+ * The access tokens are {@link OAuth20Token} : their refresh token and expiration time are added to the user profile. For providers
+ * returning refresh tokens, the access token of a profile can be renewed without redirecting the user by the
+ * {@link #refreshAccessToken(OAuthProfile)} method (see {@link org.pac4j.oauth.refresh.TokenRefreshScheduler} to do it in background).
  * 
  * @author Jerome Leleu
  * @since 1.0.0
@@ -37,6 +48,8 @@ public abstract class BaseOAuth20Client<U extends OAuthProfile> extends BaseOAut
     
     public static final String OAUTH_CODE = "code";
     
+    private static final OAuth20TokenExtractor tokenExtractor = new OAuth20TokenExtractor();
+    
     /**
      * Retrieve the redirection url.
      * 
@@ -85,8 +98,90 @@ public abstract class BaseOAuth20Client<U extends OAuthProfile> extends BaseOAut
         final String verifier = credentials.getVerifier();
         logger.debug("verifier : {}", verifier);
         final Verifier clientVerifier = new Verifier(verifier);
-        final Token accessToken = this.service.getAccessToken(null, clientVerifier);
+        final Token accessToken = toOAuth20Token(this.service.getAccessToken(null, clientVerifier));
         logger.debug("accessToken : {}", accessToken);
         return accessToken;
     }
+    
+    /**
+     * Convert an access token returned by a service which is not aware of the OAuth 2.0 token metadata into an {@link OAuth20Token} by
+     * parsing its raw response.
+     * 
+     * @param accessToken
+     * @return the OAuth 2.0 access token or the original token if its raw response cannot be parsed
+     */
+    protected Token toOAuth20Token(final Token accessToken) {
+        if (accessToken == null || accessToken instanceof OAuth20Token) {
+            return accessToken;
+        }
+        try {
+            // throws an IllegalStateException if the token has not been built from a response
+            final OAuth20Token token = tokenExtractor.extract(accessToken.getRawResponse());
+            if (accessToken.getToken().equals(token.getToken())) {
+                return token;
+            }
+        } catch (final IllegalStateException e) {
+            logger.debug("No raw response for access token");
+        } catch (final OAuthException e) {
+            logger.debug("Cannot parse raw response of access token", e);
+        }
+        return accessToken;
+    }
+    
+    /**
+     * Add the access token, its refresh token and its expiration time to the profile.
+     * 
+     * @param profile
+     * @param accessToken
+     */
+    @Override
+    protected void addAccessTokenToProfile(final U profile, final Token accessToken) {
+        super.addAccessTokenToProfile(profile, accessToken);
+        if (profile != null && accessToken instanceof OAuth20Token) {
+            final OAuth20Token token = (OAuth20Token) accessToken;
+            profile.setRefreshToken(token.getRefreshToken());
+            profile.setAccessTokenExpiration(token.getExpirationTime());
+        }
+    }
+    
+    /**
+     * Get a new access token from a refresh token.
+     * 
+     * @param refreshToken
+     * @return the new access token
+     * @throws ClientException
+     */
+    public OAuth20Token refreshAccessToken(final String refreshToken) throws ClientException {
+        init();
+        CommonHelper.assertNotBlank("refreshToken", refreshToken);
+        if (!(this.service instanceof ProxyOAuth20ServiceImpl)) {
+            throw new ClientException("Refresh token not supported by service : " + this.service);
+        }
+        acquirePermit(Priority.BACKGROUND, "refresh token");
+        try {
+            final OAuth20Token accessToken = ((ProxyOAuth20ServiceImpl) this.service).refreshAccessToken(refreshToken);
+            logger.debug("refreshed accessToken : {}", accessToken);
+            return accessToken;
+        } catch (final OAuthException e) {
+            throw new ClientException(e);
+        }
+    }
+    
+    /**
+     * Renew the access token of the profile from its refresh token : the access token, its expiration time and the refresh token (if
+     * a new one is returned) are updated in the profile.
+     * 
+     * @param profile
+     * @return whether the access token has been renewed (<code>false</code> if the profile has no refresh token)
+     * @throws ClientException
+     */
+    public boolean refreshAccessToken(final U profile) throws ClientException {
+        CommonHelper.assertNotNull("profile", profile);
+        final String refreshToken = profile.getRefreshToken();
+        if (CommonHelper.isNotBlank(refreshToken)) {
+            addAccessTokenToProfile(profile, refreshAccessToken(refreshToken));
+            return true;
+        }
+        return false;
+    }
 }
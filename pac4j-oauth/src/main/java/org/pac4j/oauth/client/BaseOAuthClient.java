@@ -15,16 +15,30 @@
  */
 package org.pac4j.oauth.client;
 
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.pac4j.core.cache.Cache;
 import org.pac4j.core.client.BaseClient;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.exception.HttpCommunicationException;
 import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.Deadline;
 import org.pac4j.oauth.client.exception.OAuthCredentialsException;
 import org.pac4j.oauth.credentials.OAuthCredentials;
+import org.pac4j.oauth.hedging.RequestHedger;
+import org.pac4j.oauth.profile.CachedProfile;
 import org.pac4j.oauth.profile.OAuthProfile;
+import org.pac4j.oauth.ratelimit.RateLimiter;
+import org.pac4j.oauth.ratelimit.RateLimiter.Priority;
+import org.pac4j.oauth.timeout.AdaptiveTimeouts;
 import org.scribe.exceptions.OAuthException;
 import org.scribe.model.ProxyOAuthRequest;
 import org.scribe.model.Response;
@@ -37,6 +51,17 @@ import org.slf4j.LoggerFactory;
 /**
  * This class is a base implementation for an OAuth protocol client based on the Scribe library. It should work for all OAuth clients. In
  * subclasses, some methods are to be implemented / customized for specific needs depending on the client.
+ * <p />
+ * A {@link RateLimiter} can be defined through the {@link #setRateLimiter(RateLimiter)} method to keep the requests for user data under
+ * the quota of the provider and a {@link RequestHedger} through the {@link #setRequestHedger(RequestHedger)} method to hedge the slow
+ * requests for user data. The static connect and read timeouts can be replaced by timeouts computed from the observed latencies of the
+ * provider by defining an {@link AdaptiveTimeouts} through the {@link #setAdaptiveTimeouts(AdaptiveTimeouts)} method (they are all
+ * shared by the cloned clients).
+ * <p />
+ * If a profile cache is defined through the {@link #setProfileCache(Cache)} method, the bodies of the profile responses are cached (under
+ * a hash of the access token and the url of the profile) with their <code>ETag</code> and <code>Last-Modified</code> headers : the next
+ * retrievals for the same access token are conditional requests and, on a <code>304</code> response, a new profile is extracted from the
+ * cached body (the profiles are mutable : they are never shared between retrievals).
  * 
  * @author Jerome Leleu
  * @since 1.0.0
@@ -61,11 +86,22 @@ public abstract class BaseOAuthClient<U extends OAuthProfile> extends BaseClient
     
     protected int proxyPort = 8080;
     
+    protected RateLimiter rateLimiter;
+    
+    protected RequestHedger requestHedger;
+    
+    protected AdaptiveTimeouts adaptiveTimeouts;
+    
+    protected Cache<String, CachedProfile> profileCache;
+    
     @Override
     protected void internalInit() throws ClientException {
         CommonHelper.assertNotBlank("key", this.key);
         CommonHelper.assertNotBlank("secret", this.secret);
         CommonHelper.assertNotBlank("callbackUrl", this.callbackUrl);
+        if (this.adaptiveTimeouts != null) {
+            this.adaptiveTimeouts.init();
+        }
     }
     
     @Override
@@ -77,6 +113,10 @@ public abstract class BaseOAuthClient<U extends OAuthProfile> extends BaseClient
         newClient.setReadTimeout(this.readTimeout);
         newClient.setProxyHost(this.proxyHost);
         newClient.setProxyPort(this.proxyPort);
+        newClient.setRateLimiter(this.rateLimiter);
+        newClient.setRequestHedger(this.requestHedger);
+        newClient.setAdaptiveTimeouts(this.adaptiveTimeouts);
+        newClient.setProfileCache(this.profileCache);
         return newClient;
     }
     
@@ -208,9 +248,51 @@ public abstract class BaseOAuthClient<U extends OAuthProfile> extends BaseClient
      * @throws ClientException
      */
     protected U retrieveUserProfileFromToken(final Token accessToken) throws ClientException {
-        final String body = sendRequestForData(accessToken, getProfileUrl());
-        if (body == null) {
-            throw new HttpCommunicationException("Not data found for accessToken : " + accessToken);
+        return retrieveUserProfile(accessToken, getProfileUrl());
+    }
+    
+    /**
+     * Retrieve the user profile from the access token and the url of the profile : if a profile response is cached for the access token
+     * and the url, it is revalidated by a conditional request.
+     * 
+     * @param accessToken
+     * @param profileUrl
+     * @return the user profile
+     * @throws ClientException
+     */
+    protected U retrieveUserProfile(final Token accessToken, final String profileUrl) throws ClientException {
+        final Cache<String, CachedProfile> cache = this.profileCache;
+        final String cacheKey = cache != null ? getProfileCacheKey(accessToken, profileUrl) : null;
+        final CachedProfile cachedProfile = cacheKey != null ? cache.get(cacheKey) : null;
+        final Map<String, String> headers = new HashMap<String, String>();
+        if (cachedProfile != null) {
+            if (cachedProfile.getEtag() != null) {
+                headers.put("If-None-Match", cachedProfile.getEtag());
+            }
+            if (cachedProfile.getLastModified() != null) {
+                headers.put("If-Modified-Since", cachedProfile.getLastModified());
+            }
+        }
+        final Response response = sendRequestForResponse(accessToken, profileUrl, Priority.INTERACTIVE, headers);
+        final int code = response.getCode();
+        final String body;
+        if (code == 304 && cachedProfile != null) {
+            logger.debug("profile not modified for accessToken : {}", accessToken);
+            body = cachedProfile.getBody();
+        } else {
+            body = checkResponse(response);
+            if (body == null) {
+                throw new HttpCommunicationException("Not data found for accessToken : " + accessToken);
+            }
+            if (cacheKey != null) {
+                final String etag = getHeader(response, "ETag");
+                final String lastModified = getHeader(response, "Last-Modified");
+                if (etag != null || lastModified != null) {
+                    cache.put(cacheKey, new CachedProfile(body, etag, lastModified));
+                } else if (cachedProfile != null) {
+                    cache.remove(cacheKey);
+                }
+            }
         }
         final U profile = extractUserProfile(body);
         addAccessTokenToProfile(profile, accessToken);
@@ -224,6 +306,13 @@ public abstract class BaseOAuthClient<U extends OAuthProfile> extends BaseClient
      */
     protected abstract String getProfileUrl();
     
+    @Override
+    protected List<String> getWarmUpUrls() {
+        final List<String> urls = new ArrayList<String>();
+        urls.add(getProfileUrl());
+        return urls;
+    }
+    
     /**
      * Make a request to get the data of the authenticated user for the provider.
      * 
@@ -234,14 +323,122 @@ public abstract class BaseOAuthClient<U extends OAuthProfile> extends BaseClient
      */
     protected String sendRequestForData(final Token accessToken, final String dataUrl)
         throws HttpCommunicationException {
+        return sendRequestForData(accessToken, dataUrl, Priority.INTERACTIVE);
+    }
+    
+    /**
+     * Make a request to get the data of the authenticated user for the provider, with a priority for the rate limiter.
+     * 
+     * @param accessToken
+     * @param dataUrl
+     * @param priority
+     * @return the user data response
+     * @throws HttpCommunicationException
+     */
+    protected String sendRequestForData(final Token accessToken, final String dataUrl, final Priority priority)
+        throws HttpCommunicationException {
+        return checkResponse(sendRequestForResponse(accessToken, dataUrl, priority, null));
+    }
+    
+    /**
+     * Make a request to get the data of the authenticated user for the provider, with a priority for the rate limiter and additional
+     * headers, and return the response whatever its status code.
+     * 
+     * @param accessToken
+     * @param dataUrl
+     * @param priority
+     * @param headers additional headers (may be <code>null</code>)
+     * @return the response (with its body read)
+     * @throws HttpCommunicationException
+     */
+    protected Response sendRequestForResponse(final Token accessToken, final String dataUrl, final Priority priority,
+                                              final Map<String, String> headers) throws HttpCommunicationException {
         logger.debug("accessToken : {} / dataUrl : {}", accessToken, dataUrl);
+        acquirePermit(priority, dataUrl);
         final long t0 = System.currentTimeMillis();
+        final Response response;
+        if (this.requestHedger != null) {
+            final AtomicBoolean firstRequest = new AtomicBoolean(true);
+            try {
+                // the hedged requests run in the threads of the hedger : they must keep the login deadline
+                response = this.requestHedger.execute(Deadline.propagate(new Callable<Response>() {
+                    
+                    public Response call() throws HttpCommunicationException {
+                        // the permit of the first request is already acquired : the second one needs its own
+                        if (!firstRequest.compareAndSet(true, false)) {
+                            acquirePermit(Priority.BACKGROUND, dataUrl);
+                        }
+                        return sendReportedRequest(accessToken, dataUrl, headers);
+                    }
+                }));
+            } catch (final HttpCommunicationException e) {
+                throw e;
+            } catch (final ClientException e) {
+                throw new HttpCommunicationException(e);
+            }
+        } else {
+            response = sendReportedRequest(accessToken, dataUrl, headers);
+        }
+        final long t1 = System.currentTimeMillis();
+        logger.debug("Request took : " + (t1 - t0) + " ms for : " + dataUrl);
+        return response;
+    }
+    
+    // send the request and report its response (of the first or second hedged request) to the rate limiter
+    private Response sendReportedRequest(final Token accessToken, final String dataUrl, final Map<String, String> headers) {
+        final Response response = sendRequest(accessToken, dataUrl, headers);
+        if (this.rateLimiter != null) {
+            this.rateLimiter.onResponse(response.getCode(), response.getHeaders());
+        }
+        return response;
+    }
+    
+    /**
+     * Check that the response of the provider is successful and return its body.
+     * 
+     * @param response
+     * @return the body of the response
+     * @throws HttpCommunicationException
+     */
+    protected String checkResponse(final Response response) throws HttpCommunicationException {
+        final int code = response.getCode();
+        final String body = response.getBody();
+        logger.debug("response code : {} / response body : {}", code, body);
+        if (code != 200) {
+            logger.error("Failed to get user data, code : " + code + " / body : " + body);
+            throw new HttpCommunicationException(code, body);
+        }
+        return body;
+    }
+    
+    /**
+     * Send a signed GET request to the provider and read its response.
+     * 
+     * @param accessToken
+     * @param dataUrl
+     * @return the response (with its body read)
+     */
+    protected Response sendRequest(final Token accessToken, final String dataUrl) {
+        return sendRequest(accessToken, dataUrl, null);
+    }
+    
+    /**
+     * Send a signed GET request with additional headers to the provider and read its response.
+     * 
+     * @param accessToken
+     * @param dataUrl
+     * @param headers additional headers (may be <code>null</code>)
+     * @return the response (with its body read)
+     */
+    protected Response sendRequest(final Token accessToken, final String dataUrl, final Map<String, String> headers) {
         final ProxyOAuthRequest request = new ProxyOAuthRequest(Verb.GET, dataUrl, this.proxyHost, this.proxyPort);
-        if (this.connectTimeout != 0) {
-            request.setConnectTimeout(this.connectTimeout, TimeUnit.MILLISECONDS);
+        final int connectTimeoutValue = getEffectiveConnectTimeout();
+        if (connectTimeoutValue != 0) {
+            request.setConnectTimeout(connectTimeoutValue, TimeUnit.MILLISECONDS);
         }
-        if (this.readTimeout != 0) {
-            request.setReadTimeout(this.readTimeout, TimeUnit.MILLISECONDS);
+        final int readTimeoutValue = getEffectiveReadTimeout();
+        if (readTimeoutValue != 0) {
+            request.setReadTimeout(readTimeoutValue, TimeUnit.MILLISECONDS);
         }
         this.service.signRequest(accessToken, request);
         // for Google
@@ -250,17 +447,118 @@ public abstract class BaseOAuthClient<U extends OAuthProfile> extends BaseClient
         } else if (this instanceof WordPressClient) {
             request.addHeader("Authorization", "Bearer " + accessToken.getToken());
         }
-        final Response response = request.send();
-        final int code = response.getCode();
-        final String body = response.getBody();
-        final long t1 = System.currentTimeMillis();
-        logger.debug("Request took : " + (t1 - t0) + " ms for : " + dataUrl);
-        logger.debug("response code : {} / response body : {}", code, body);
-        if (code != 200) {
-            logger.error("Failed to get user data, code : " + code + " / body : " + body);
-            throw new HttpCommunicationException(code, body);
+        if (headers != null) {
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+                request.addHeader(header.getKey(), header.getValue());
+            }
+        }
+        final long t0 = System.currentTimeMillis();
+        final Response response;
+        try {
+            response = request.send();
+            // read the body in the current thread (for hedged requests)
+            response.getBody();
+        } catch (final RuntimeException e) {
+            // a request timed out by the provider (not by the login deadline) is recorded with its timeout as latency
+            final Deadline deadline = Deadline.current();
+            if (this.adaptiveTimeouts != null && isTimeout(e) && (deadline == null || !deadline.isExpired())) {
+                this.adaptiveTimeouts.record(System.currentTimeMillis() - t0);
+            }
+            throw e;
+        }
+        if (this.adaptiveTimeouts != null) {
+            this.adaptiveTimeouts.record(System.currentTimeMillis() - t0);
+        }
+        return response;
+    }
+    
+    private static String getHeader(final Response response, final String name) {
+        final Map<String, String> headers = response.getHeaders();
+        if (headers != null) {
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey())) {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+    
+    // the same access token may be used for several profile urls (like the two phases of the Facebook profile)
+    private String getProfileCacheKey(final Token accessToken, final String profileUrl) {
+        final String hash = getAccessTokenHash(accessToken);
+        return hash != null ? hash + " " + profileUrl : null;
+    }
+    
+    /**
+     * Return a SHA-256 hash of the access token (and its secret) to be used as cache key, so that the credentials are not kept in
+     * clear in the caches.
+     * 
+     * @param accessToken
+     * @return the hash or <code>null</code> if there is no access token
+     */
+    protected String getAccessTokenHash(final Token accessToken) {
+        if (accessToken == null || accessToken.getToken() == null) {
+            return null;
+        }
+        return CommonHelper.sha256Hex(accessToken.getToken(), accessToken.getSecret());
+    }
+    
+    private static boolean isTimeout(final Throwable e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof SocketTimeoutException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+    
+    /**
+     * Return the connect timeout used for the requests to the provider : the adaptive one if defined, the static one otherwise.
+     * 
+     * @return the current connect timeout
+     */
+    public int getEffectiveConnectTimeout() {
+        if (this.adaptiveTimeouts != null) {
+            return this.adaptiveTimeouts.getConnectTimeout(this.connectTimeout);
+        }
+        return this.connectTimeout;
+    }
+    
+    /**
+     * Return the read timeout used for the requests to the provider : the adaptive one if defined, the static one otherwise.
+     * 
+     * @return the current read timeout
+     */
+    public int getEffectiveReadTimeout() {
+        if (this.adaptiveTimeouts != null) {
+            return this.adaptiveTimeouts.getReadTimeout(this.readTimeout);
+        }
+        return this.readTimeout;
+    }
+    
+    /**
+     * Acquire a permit from the rate limiter (if defined) for a request to the provider.
+     * 
+     * @param priority
+     * @param url
+     * @throws HttpCommunicationException
+     */
+    protected void acquirePermit(final Priority priority, final String url) throws HttpCommunicationException {
+        if (this.rateLimiter != null) {
+            final boolean acquired;
+            try {
+                acquired = this.rateLimiter.acquire(priority);
+            } catch (final ClientException e) {
+                throw new HttpCommunicationException(e);
+            }
+            if (!acquired) {
+                logger.error("Rate limit of the provider reached for : {}", url);
+                throw new HttpCommunicationException("Rate limit of the provider reached for : " + url);
+            }
         }
-        return body;
     }
     
     /**
@@ -332,4 +630,36 @@ public abstract class BaseOAuthClient<U extends OAuthProfile> extends BaseClient
     public void setProxyPort(final int proxyPort) {
         this.proxyPort = proxyPort;
     }
+    
+    public RequestHedger getRequestHedger() {
+        return this.requestHedger;
+    }
+    
+    public void setRequestHedger(final RequestHedger requestHedger) {
+        this.requestHedger = requestHedger;
+    }
+    
+    public RateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+    
+    public void setRateLimiter(final RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+    
+    public AdaptiveTimeouts getAdaptiveTimeouts() {
+        return this.adaptiveTimeouts;
+    }
+    
+    public void setAdaptiveTimeouts(final AdaptiveTimeouts adaptiveTimeouts) {
+        this.adaptiveTimeouts = adaptiveTimeouts;
+    }
+    
+    public Cache<String, CachedProfile> getProfileCache() {
+        return this.profileCache;
+    }
+    
+    public void setProfileCache(final Cache<String, CachedProfile> profileCache) {
+        this.profileCache = profileCache;
+    }
 }
@@ -15,6 +15,14 @@
  */
 package org.pac4j.oauth.client;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.pac4j.core.context.WebContext;
@@ -24,11 +32,15 @@ import org.pac4j.oauth.client.exception.OAuthCredentialsException;
 import org.pac4j.oauth.credentials.OAuthCredentials;
 import org.pac4j.oauth.profile.JsonHelper;
 import org.pac4j.oauth.profile.OAuthAttributesDefinitions;
+import org.pac4j.oauth.profile.PageFetcher;
+import org.pac4j.oauth.profile.PagedJsonList;
 import org.pac4j.oauth.profile.facebook.FacebookAttributesDefinition;
 import org.pac4j.oauth.profile.facebook.FacebookProfile;
+import org.pac4j.oauth.ratelimit.RateLimiter.Priority;
 import org.scribe.builder.api.ExtendedFacebookApi;
 import org.scribe.model.OAuthConfig;
 import org.scribe.model.SignatureType;
+import org.scribe.model.Token;
 import org.scribe.oauth.FacebookOAuth20ServiceImpl;
 import org.scribe.utils.OAuthEncoder;
 
@@ -49,6 +61,17 @@ import com.fasterxml.jackson.databind.JsonNode;
  * <p />
  * The number of results can be limited by using the {@link #setLimit(int)} method.
  * <p />
+ * The connections (friends, movies, music, books, likes, albums, events, groups and music.listens) are returned as
+ * {@link PagedJsonList} : only the first page (sized by the limit) is loaded at login, the following pages are fetched on demand when
+ * iterating through the {@link PagedJsonList#pagedIterator()} method. They can be prefetched in background by defining an executor
+ * through the {@link #setPagingExecutor(ExecutorService)} method.
+ * <p />
+ * The profile can be loaded in two phases by defining a (bounded) executor through the
+ * {@link #setExtendedAttributesExecutor(ExecutorService)} method : the profile is returned as soon as the <i>identity fields</i> (id, name,
+ * first_name, last_name and email by default, defined by the {@link #setIdentityFields(String)} method) are fetched, the other fields are
+ * fetched in background and added to the profile (see {@link org.pac4j.oauth.profile.OAuthProfile#getExtendedAttributesFuture()}). If the
+ * executor rejects the task, the other fields are fetched synchronously.
+ * <p />
  * It returns a {@link org.pac4j.oauth.profile.facebook.FacebookProfile}.
  * <p />
  * More information at http://developers.facebook.com/docs/reference/api/user/
@@ -64,6 +87,10 @@ public class FacebookClient extends BaseOAuth20Client<FacebookProfile> {
     
     protected String fields = DEFAULT_FIELDS;
     
+    public final static String DEFAULT_IDENTITY_FIELDS = "id,name,first_name,last_name,email";
+    
+    protected String identityFields = DEFAULT_IDENTITY_FIELDS;
+    
     protected final static String BASE_URL = "https://graph.facebook.com/me";
     
     // Used as UserSession attribute and request parameter attribute for the the returned callbackUrl
@@ -79,6 +106,10 @@ public class FacebookClient extends BaseOAuth20Client<FacebookProfile> {
     
     protected int limit = DEFAULT_LIMIT;
     
+    protected ExecutorService pagingExecutor;
+    
+    protected ExecutorService extendedAttributesExecutor;
+    
     public FacebookClient() {
     }
     
@@ -93,6 +124,9 @@ public class FacebookClient extends BaseOAuth20Client<FacebookProfile> {
         newClient.setScope(this.scope);
         newClient.setFields(this.fields);
         newClient.setLimit(this.limit);
+        newClient.setPagingExecutor(this.pagingExecutor);
+        newClient.setIdentityFields(this.identityFields);
+        newClient.setExtendedAttributesExecutor(this.extendedAttributesExecutor);
         return newClient;
     }
     
@@ -100,6 +134,9 @@ public class FacebookClient extends BaseOAuth20Client<FacebookProfile> {
     protected void internalInit() throws ClientException {
         super.internalInit();
         CommonHelper.assertNotBlank("fields", this.fields);
+        if (this.extendedAttributesExecutor != null) {
+            CommonHelper.assertNotBlank("identityFields", this.identityFields);
+        }
         if (StringUtils.isNotBlank(this.scope)) {
             this.service = new FacebookOAuth20ServiceImpl(new ExtendedFacebookApi(),
                                                           new OAuthConfig(this.key, this.secret, this.callbackUrl,
@@ -115,34 +152,103 @@ public class FacebookClient extends BaseOAuth20Client<FacebookProfile> {
     
     @Override
     protected String getProfileUrl() {
-        String url = BASE_URL + "?fields=" + this.fields;
+        return getFieldsUrl(this.fields);
+    }
+    
+    /**
+     * Return the url to request some fields of the user.
+     * 
+     * @param requestedFields
+     * @return the url to request the fields
+     */
+    protected String getFieldsUrl(final String requestedFields) {
+        String url = BASE_URL + "?fields=" + requestedFields;
         if (this.limit > DEFAULT_LIMIT) {
             url += "&limit=" + this.limit;
         }
         return url;
     }
     
+    /**
+     * Retrieve the user profile from the access token : in two phases if an executor is defined for the extended attributes.
+     * 
+     * @param accessToken
+     * @return the user profile
+     * @throws ClientException
+     */
+    @Override
+    protected FacebookProfile retrieveUserProfileFromToken(final Token accessToken) throws ClientException {
+        final ExecutorService executor = this.extendedAttributesExecutor;
+        final String extendedFields = getExtendedFields();
+        if (executor == null || extendedFields.length() == 0) {
+            return super.retrieveUserProfileFromToken(accessToken);
+        }
+        final FacebookProfile profile = retrieveUserProfile(accessToken, BASE_URL + "?fields=" + this.identityFields);
+        final FutureTask<Void> future = new FutureTask<Void>(new Callable<Void>() {
+            
+            public Void call() throws ClientException {
+                try {
+                    final String body = sendRequestForData(accessToken, getFieldsUrl(extendedFields), Priority.BACKGROUND);
+                    extractAttributes(profile, body);
+                    addAccessTokenToProfile(profile, accessToken);
+                    return null;
+                } catch (final ClientException e) {
+                    logger.error("Cannot load extended attributes for user : " + profile.getId(), e);
+                    throw e;
+                }
+            }
+        });
+        profile.setExtendedAttributesFuture(future);
+        try {
+            executor.execute(future);
+        } catch (final RejectedExecutionException e) {
+            logger.warn("Extended attributes loading rejected by executor, loading them synchronously");
+            future.run();
+        }
+        return profile;
+    }
+    
+    /**
+     * Return the fields which are not identity fields (comma separated).
+     * 
+     * @return the extended fields
+     */
+    protected String getExtendedFields() {
+        final List<String> identity = Arrays.asList(StringUtils.split(this.identityFields, ','));
+        final List<String> extended = new ArrayList<String>();
+        for (final String field : StringUtils.split(this.fields, ',')) {
+            if (!identity.contains(field)) {
+                extended.add(field);
+            }
+        }
+        return StringUtils.join(extended, ',');
+    }
+    
     @Override
     protected FacebookProfile extractUserProfile(final String body) {
         final FacebookProfile profile = new FacebookProfile();
+        extractAttributes(profile, body);
+        return profile;
+    }
+    
+    /**
+     * Extract the attributes of the body into the profile.
+     * 
+     * @param profile
+     * @param body
+     */
+    protected void extractAttributes(final FacebookProfile profile, final String body) {
         final JsonNode json = JsonHelper.getFirstNode(body);
         if (json != null) {
             profile.setId(JsonHelper.get(json, "id"));
             for (final String attribute : OAuthAttributesDefinitions.facebookDefinition.getAllAttributes()) {
                 profile.addAttribute(attribute, JsonHelper.get(json, attribute));
             }
-            extractData(profile, json, FacebookAttributesDefinition.FRIENDS);
-            extractData(profile, json, FacebookAttributesDefinition.MOVIES);
-            extractData(profile, json, FacebookAttributesDefinition.MUSIC);
-            extractData(profile, json, FacebookAttributesDefinition.BOOKS);
-            extractData(profile, json, FacebookAttributesDefinition.LIKES);
-            extractData(profile, json, FacebookAttributesDefinition.ALBUMS);
-            extractData(profile, json, FacebookAttributesDefinition.EVENTS);
-            extractData(profile, json, FacebookAttributesDefinition.GROUPS);
-            extractData(profile, json, FacebookAttributesDefinition.MUSIC_LISTENS);
+            for (final String connection : FacebookAttributesDefinition.CONNECTIONS) {
+                extractConnection(profile, json, connection);
+            }
             extractData(profile, json, FacebookAttributesDefinition.PICTURE);
         }
-        return profile;
     }
     
     protected void extractData(final FacebookProfile profile, final JsonNode json, final String name) {
@@ -152,6 +258,44 @@ public class FacebookClient extends BaseOAuth20Client<FacebookProfile> {
         }
     }
     
+    /**
+     * Extract a paginated connection (data and paging cursor).
+     * 
+     * @param profile
+     * @param json
+     * @param name
+     */
+    protected void extractConnection(final FacebookProfile profile, final JsonNode json, final String name) {
+        final JsonNode connection = (JsonNode) JsonHelper.get(json, name);
+        if (connection != null) {
+            profile.addAttribute(name, connection);
+        }
+    }
+    
+    /**
+     * Add the access token to the profile (as an attribute) and use it to fetch the next pages of the connections.
+     * 
+     * @param profile
+     * @param accessToken
+     */
+    @Override
+    protected void addAccessTokenToProfile(final FacebookProfile profile, final Token accessToken) {
+        super.addAccessTokenToProfile(profile, accessToken);
+        if (profile != null) {
+            final PageFetcher pageFetcher = new PageFetcher() {
+                public String fetchPage(final String url) throws ClientException {
+                    return sendRequestForData(accessToken, url, Priority.BACKGROUND);
+                }
+            };
+            for (final String connection : FacebookAttributesDefinition.CONNECTIONS) {
+                final Object value = profile.getAttribute(connection);
+                if (value instanceof PagedJsonList) {
+                    ((PagedJsonList<?>) value).setPageFetcher(pageFetcher, this.pagingExecutor);
+                }
+            }
+        }
+    }
+    
     /**
      * Retrieve the redirection url.
      * 
@@ -217,4 +361,28 @@ public class FacebookClient extends BaseOAuth20Client<FacebookProfile> {
     public void setLimit(final int limit) {
         this.limit = limit;
     }
+    
+    public ExecutorService getPagingExecutor() {
+        return this.pagingExecutor;
+    }
+    
+    public void setPagingExecutor(final ExecutorService pagingExecutor) {
+        this.pagingExecutor = pagingExecutor;
+    }
+    
+    public String getIdentityFields() {
+        return this.identityFields;
+    }
+    
+    public void setIdentityFields(final String identityFields) {
+        this.identityFields = identityFields;
+    }
+    
+    public ExecutorService getExtendedAttributesExecutor() {
+        return this.extendedAttributesExecutor;
+    }
+    
+    public void setExtendedAttributesExecutor(final ExecutorService extendedAttributesExecutor) {
+        this.extendedAttributesExecutor = extendedAttributesExecutor;
+    }
 }
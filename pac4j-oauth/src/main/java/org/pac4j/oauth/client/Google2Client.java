@@ -57,6 +57,8 @@ public class Google2Client extends BaseOAuth20Client<Google2Profile> {
     
     protected String scopeValue;
     
+    protected boolean offline = false;
+    
     public Google2Client() {
     }
     
@@ -69,6 +71,7 @@ public class Google2Client extends BaseOAuth20Client<Google2Profile> {
     protected Google2Client newClient() {
         final Google2Client newClient = new Google2Client();
         newClient.setScope(this.scope);
+        newClient.setOffline(this.offline);
         return newClient;
     }
     
@@ -83,10 +86,9 @@ public class Google2Client extends BaseOAuth20Client<Google2Profile> {
         } else {
             this.scopeValue = this.PROFILE_SCOPE + " " + this.EMAIL_SCOPE;
         }
-        this.service = new ExtendedOAuth20ServiceImpl(new GoogleApi20(), new OAuthConfig(this.key, this.secret,
-                                                                                         this.callbackUrl,
-                                                                                         SignatureType.Header,
-                                                                                         this.scopeValue, null),
+        this.service = new ExtendedOAuth20ServiceImpl(new GoogleApi20(this.offline),
+                                                      new OAuthConfig(this.key, this.secret, this.callbackUrl,
+                                                                      SignatureType.Header, this.scopeValue, null),
                                                       this.proxyHost, this.proxyPort);
     }
     
@@ -115,4 +117,17 @@ public class Google2Client extends BaseOAuth20Client<Google2Profile> {
     public void setScope(final Google2Scope scope) {
         this.scope = scope;
     }
+    
+    public boolean isOffline() {
+        return this.offline;
+    }
+    
+    /**
+     * Define whether an offline access is requested : Google then returns a refresh token along with the access token.
+     * 
+     * @param offline
+     */
+    public void setOffline(final boolean offline) {
+        this.offline = offline;
+    }
 }
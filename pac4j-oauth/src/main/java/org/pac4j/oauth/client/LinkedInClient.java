@@ -18,6 +18,7 @@ package org.pac4j.oauth.client;
 import org.apache.commons.lang3.StringUtils;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.oauth.profile.OAuthAttributesDefinitions;
+import org.pac4j.oauth.profile.XmlProfileExtractor;
 import org.pac4j.oauth.profile.linkedin.LinkedInAttributesDefinition;
 import org.pac4j.oauth.profile.linkedin.LinkedInProfile;
 import org.scribe.builder.api.LinkedInApi;
@@ -38,6 +39,9 @@ import org.scribe.oauth.ProxyOAuth10aServiceImpl;
  */
 public class LinkedInClient extends BaseOAuth10Client<LinkedInProfile> {
     
+    private static final XmlProfileExtractor extractor = new XmlProfileExtractor(OAuthAttributesDefinitions.linkedinDefinition
+        .getAllAttributes());
+    
     public LinkedInClient() {
     }
     
@@ -68,14 +72,8 @@ public class LinkedInClient extends BaseOAuth10Client<LinkedInProfile> {
     @Override
     protected LinkedInProfile extractUserProfile(final String body) {
         final LinkedInProfile profile = new LinkedInProfile();
-        for (final String attribute : OAuthAttributesDefinitions.linkedinDefinition.getAllAttributes()) {
-            final String value = StringUtils.substringBetween(body, "<" + attribute + ">", "</" + attribute + ">");
-            profile.addAttribute(attribute, value);
-            if (LinkedInAttributesDefinition.URL.equals(attribute)) {
-                final String id = StringUtils.substringBetween(value, "&amp;key=", "&amp;authToken=");
-                profile.setId(id);
-            }
-        }
+        final String url = extractor.extract(body, profile).get(LinkedInAttributesDefinition.URL);
+        profile.setId(StringUtils.substringBetween(url, "&key=", "&authToken="));
         return profile;
     }
 }
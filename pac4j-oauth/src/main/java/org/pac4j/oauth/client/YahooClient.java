@@ -16,10 +16,13 @@
 package org.pac4j.oauth.client;
 
 import org.apache.commons.lang3.StringUtils;
+import org.pac4j.core.cache.Cache;
+import org.pac4j.core.cache.MemoryCache;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.exception.HttpCommunicationException;
 import org.pac4j.oauth.profile.JsonHelper;
 import org.pac4j.oauth.profile.OAuthAttributesDefinitions;
+import org.pac4j.oauth.profile.XmlHelper;
 import org.pac4j.oauth.profile.yahoo.YahooProfile;
 import org.scribe.builder.api.YahooApi;
 import org.scribe.model.OAuthConfig;
@@ -35,6 +38,9 @@ import com.fasterxml.jackson.databind.JsonNode;
  * It returns a {@link org.pac4j.oauth.profile.yahoo.YahooProfile}.
  * <p />
  * More information at http://developer.yahoo.com/social/rest_api_guide/extended-profile-resource.html
+ * <p />
+ * The guid of the user is cached (by default in memory for one hour) under a hash of the access token to save the guid request on
+ * subsequent profile retrievals : the cache can be changed by the {@link #setGuidCache(Cache)} method (<code>null</code> to disable it).
  * 
  * @see org.pac4j.oauth.profile.yahoo.YahooProfile
  * @author Jerome Leleu
@@ -42,6 +48,8 @@ import com.fasterxml.jackson.databind.JsonNode;
  */
 public class YahooClient extends BaseOAuth10Client<YahooProfile> {
     
+    protected Cache<String, String> guidCache = new MemoryCache<String, String>();
+    
     public YahooClient() {
     }
     
@@ -52,7 +60,9 @@ public class YahooClient extends BaseOAuth10Client<YahooProfile> {
     
     @Override
     protected YahooClient newClient() {
-        return new YahooClient();
+        final YahooClient newClient = new YahooClient();
+        newClient.setGuidCache(this.guidCache);
+        return newClient;
     }
     
     @Override
@@ -78,19 +88,49 @@ public class YahooClient extends BaseOAuth10Client<YahooProfile> {
      */
     @Override
     protected YahooProfile retrieveUserProfileFromToken(final Token accessToken) throws ClientException {
+        final String guid = retrieveGuid(accessToken);
+        return retrieveUserProfile(accessToken, "http://social.yahooapis.com/v1/user/" + guid + "/profile?format=json");
+    }
+    
+    /**
+     * Retrieve the guid of the user from the cache or from Yahoo if it is not cached.
+     * 
+     * @param accessToken
+     * @return the guid of the user
+     * @throws ClientException
+     */
+    protected String retrieveGuid(final Token accessToken) throws ClientException {
+        final Cache<String, String> cache = this.guidCache;
+        final String cacheKey = cache != null ? getGuidCacheKey(accessToken) : null;
+        String guid = cacheKey != null ? cache.get(cacheKey) : null;
+        if (guid != null) {
+            logger.debug("cached guid : {}", guid);
+            return guid;
+        }
         // get the guid : http://developer.yahoo.com/social/rest_api_guide/introspective-guid-resource.html
-        String body = sendRequestForData(accessToken, getProfileUrl());
-        final String guid = StringUtils.substringBetween(body, "<value>", "</value>");
+        final String body = sendRequestForData(accessToken, getProfileUrl());
+        guid = XmlHelper.getFirstText(body, "value");
         logger.debug("guid : {}", guid);
         if (StringUtils.isBlank(guid)) {
             final String message = "Cannot find guid from body : " + body;
             logger.error(message);
             throw new HttpCommunicationException(message);
         }
-        body = sendRequestForData(accessToken, "http://social.yahooapis.com/v1/user/" + guid + "/profile?format=json");
-        final YahooProfile profile = extractUserProfile(body);
-        addAccessTokenToProfile(profile, accessToken);
-        return profile;
+        guid = guid.trim();
+        if (cacheKey != null) {
+            cache.put(cacheKey, guid);
+        }
+        return guid;
+    }
+    
+    /**
+     * Return the key used to cache the guid for the access token : a hash of the access token.
+     * 
+     * @param accessToken
+     * @return the cache key or <code>null</code> if it cannot be computed
+     */
+    protected String getGuidCacheKey(final Token accessToken) {
+        return getAccessTokenHash(accessToken);
     }
     
     @Override
@@ -108,4 +148,12 @@ public class YahooClient extends BaseOAuth10Client<YahooProfile> {
         }
         return profile;
     }
+    
+    public Cache<String, String> getGuidCache() {
+        return this.guidCache;
+    }
+    
+    public void setGuidCache(final Cache<String, String> guidCache) {
+        this.guidCache = guidCache;
+    }
 }
@@ -0,0 +1,358 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.DaemonThreadFactory;
+import org.pac4j.core.util.InitializableObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class hedges idempotent requests : if the request does not answer within the observed <code>percentile</code> (95% by default)
+ * of the latencies, a second identical request is sent and the first successful answer of both requests is returned.
+ * <p />
+ * As the I/O of an <code>HttpURLConnection</code> cannot be interrupted, no request is ever cancelled : the losing request completes in
+ * its thread and its answer is ignored. The failure of a request is only thrown if the other one fails too (or is not sent).
+ * <p />
+ * The latencies of the last <code>windowSize</code> answers are observed : no request is hedged before <code>minSamples</code> answers
+ * and the hedging delay is <code>minDelay</code> milliseconds at least. The hedges are limited to <code>maxHedgeRatio</code> of the
+ * requests (5% by default) so that a slow provider is not flooded.
+ * <p />
+ * Once the hedging delay is known, both requests are executed in a pool of <code>maxThreads</code> daemon threads, the caller thread
+ * waiting for their answers : when the pool is full, the request is executed in the caller thread without hedging.
+ * The {@link #destroy()} method stops the threads.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class RequestHedger extends InitializableObject {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+    
+    private static final AtomicInteger nbHedgers = new AtomicInteger();
+    
+    // the hedge budget can be saved for a few hedges in a row
+    private static final double MAX_CREDITS = 10;
+    
+    // the hedging delay is recomputed every RECOMPUTE_INTERVAL answers
+    private static final int RECOMPUTE_INTERVAL = 16;
+    
+    private int windowSize = 200;
+    
+    private int minSamples = 20;
+    
+    private double percentile = 0.95;
+    
+    private long minDelay = 10;
+    
+    private double maxHedgeRatio = 0.05;
+    
+    private int maxThreads = 64;
+    
+    private volatile ThreadPoolExecutor executor;
+    
+    // the latencies (in milliseconds) and the budget are guarded by this
+    
+    private long[] latencies;
+    
+    private int nbLatencies;
+    
+    private int nextLatency;
+    
+    private double credits;
+    
+    private volatile long hedgeDelay = -1;
+    
+    private final AtomicLong nbRequests = new AtomicLong();
+    
+    private final AtomicLong nbHedges = new AtomicLong();
+    
+    private final AtomicLong nbHedgeWins = new AtomicLong();
+    
+    @Override
+    protected void internalInit() throws ClientException {
+        if (this.windowSize <= 0 || this.minSamples <= 0 || this.minSamples > this.windowSize || this.percentile <= 0
+            || this.percentile >= 1 || this.minDelay < 0 || this.maxHedgeRatio < 0 || this.maxThreads < 2) {
+            throw new ClientException("Invalid request hedger configuration : " + this);
+        }
+        destroy();
+        synchronized (this) {
+            this.latencies = new long[this.windowSize];
+            this.nbLatencies = 0;
+            this.nextLatency = 0;
+            this.credits = 1;
+            this.hedgeDelay = -1;
+        }
+        this.executor = new ThreadPoolExecutor(0, this.maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                                               new DaemonThreadFactory("pac4j-hedging-" + nbHedgers.incrementAndGet()));
+    }
+    
+    /**
+     * Execute the (idempotent) request, hedging it if it is slow.
+     * 
+     * @param request
+     * @return the first answer
+     * @throws ClientException
+     */
+    public <T> T execute(final Callable<T> request) throws ClientException {
+        init();
+        CommonHelper.assertNotNull("request", request);
+        this.nbRequests.incrementAndGet();
+        synchronized (this) {
+            this.credits = Math.min(MAX_CREDITS, this.credits + this.maxHedgeRatio);
+        }
+        final Callable<T> timedRequest = new Callable<T>() {
+            
+            public T call() throws Exception {
+                final long start = System.nanoTime();
+                final T result = request.call();
+                recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return result;
+            }
+        };
+        final ThreadPoolExecutor currentExecutor = this.executor;
+        final long delay = this.hedgeDelay;
+        if (currentExecutor == null || delay < 0) {
+            return call(timedRequest);
+        }
+        // both requests complete into the queue : the first successful answer is returned
+        final BlockingQueue<Answer<T>> answers = new ArrayBlockingQueue<Answer<T>>(2);
+        if (!submit(currentExecutor, timedRequest, answers, false)) {
+            logger.debug("no thread available : request executed without hedging");
+            return call(timedRequest);
+        }
+        try {
+            int nbPending = 1;
+            Answer<T> answer = answers.poll(delay, TimeUnit.MILLISECONDS);
+            if (answer == null) {
+                // the second request, sent if the first one has not answered within the hedging delay
+                if (acquireHedge()) {
+                    if (submit(currentExecutor, timedRequest, answers, true)) {
+                        this.nbHedges.incrementAndGet();
+                        nbPending++;
+                        logger.debug("request hedged after {} ms", delay);
+                    } else {
+                        logger.debug("no thread available for hedging");
+                    }
+                }
+                answer = answers.take();
+            }
+            Exception error = null;
+            while (true) {
+                nbPending--;
+                if (answer.error == null) {
+                    if (answer.hedge) {
+                        this.nbHedgeWins.incrementAndGet();
+                    }
+                    // the losing request completes in its thread
+                    return answer.result;
+                }
+                logger.debug("{} request failed", answer.hedge ? "second" : "first", answer.error);
+                if (error == null || !answer.hedge) {
+                    error = answer.error;
+                }
+                if (nbPending == 0) {
+                    break;
+                }
+                answer = answers.take();
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof ClientException) {
+                throw (ClientException) error;
+            }
+            throw new ClientException(error);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException(e);
+        }
+    }
+    
+    // execute the request in a thread of the pool, its answer is put in the queue
+    private <T> boolean submit(final ThreadPoolExecutor currentExecutor, final Callable<T> request,
+                               final BlockingQueue<Answer<T>> answers, final boolean hedge) {
+        try {
+            currentExecutor.execute(new Runnable() {
+                
+                public void run() {
+                    try {
+                        answers.add(new Answer<T>(request.call(), null, hedge));
+                    } catch (final Exception e) {
+                        answers.add(new Answer<T>(null, e, hedge));
+                    }
+                }
+            });
+            return true;
+        } catch (final RejectedExecutionException e) {
+            return false;
+        }
+    }
+    
+    private <T> T call(final Callable<T> request) throws ClientException {
+        try {
+            return request.call();
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new ClientException(e);
+        }
+    }
+    
+    private synchronized boolean acquireHedge() {
+        if (this.credits >= 1) {
+            this.credits--;
+            return true;
+        }
+        logger.debug("hedge budget exhausted");
+        return false;
+    }
+    
+    private synchronized void recordLatency(final long latency) {
+        this.latencies[this.nextLatency] = latency;
+        this.nextLatency = (this.nextLatency + 1) % this.latencies.length;
+        if (this.nbLatencies < this.latencies.length) {
+            this.nbLatencies++;
+        }
+        if (this.nbLatencies >= this.minSamples
+            && (this.nbLatencies < this.latencies.length || this.nextLatency % RECOMPUTE_INTERVAL == 0)) {
+            final long[] sorted = new long[this.nbLatencies];
+            System.arraycopy(this.latencies, 0, sorted, 0, this.nbLatencies);
+            Arrays.sort(sorted);
+            final int index = Math.min(sorted.length - 1, (int) Math.ceil(this.percentile * sorted.length) - 1);
+            this.hedgeDelay = Math.max(this.minDelay, sorted[index]);
+        }
+    }
+    
+    /**
+     * Stop the background threads.
+     */
+    public synchronized void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+    
+    /**
+     * Return the current hedging delay in milliseconds (-1 if not enough answers have been observed).
+     * 
+     * @return the current hedging delay
+     */
+    public long getHedgeDelay() {
+        return this.hedgeDelay;
+    }
+    
+    public long getNbRequests() {
+        return this.nbRequests.get();
+    }
+    
+    public long getNbHedges() {
+        return this.nbHedges.get();
+    }
+    
+    /**
+     * Return the number of requests answered by their second request (faster than the first one or the first one having failed).
+     * 
+     * @return the number of requests answered by their second request
+     */
+    public long getNbHedgeWins() {
+        return this.nbHedgeWins.get();
+    }
+    
+    public int getWindowSize() {
+        return this.windowSize;
+    }
+    
+    public void setWindowSize(final int windowSize) {
+        this.windowSize = windowSize;
+    }
+    
+    public int getMinSamples() {
+        return this.minSamples;
+    }
+    
+    public void setMinSamples(final int minSamples) {
+        this.minSamples = minSamples;
+    }
+    
+    public double getPercentile() {
+        return this.percentile;
+    }
+    
+    public void setPercentile(final double percentile) {
+        this.percentile = percentile;
+    }
+    
+    public long getMinDelay() {
+        return this.minDelay;
+    }
+    
+    public void setMinDelay(final long minDelay) {
+        this.minDelay = minDelay;
+    }
+    
+    public double getMaxHedgeRatio() {
+        return this.maxHedgeRatio;
+    }
+    
+    public void setMaxHedgeRatio(final double maxHedgeRatio) {
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+    
+    public int getMaxThreads() {
+        return this.maxThreads;
+    }
+    
+    public void setMaxThreads(final int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "windowSize", this.windowSize, "minSamples", this.minSamples,
+                                     "percentile", this.percentile, "minDelay", this.minDelay, "maxHedgeRatio",
+                                     this.maxHedgeRatio, "maxThreads", this.maxThreads);
+    }
+    
+    // the result or the error of a request
+    private static final class Answer<T> {
+        
+        private final T result;
+        
+        private final Exception error;
+        
+        private final boolean hedge;
+        
+        private Answer(final T result, final Exception error, final boolean hedge) {
+            this.result = result;
+            this.error = error;
+            this.hedge = hedge;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.io.Serializable;
+
+/**
+ * This class is the body of a user profile response cached with its validators (<code>ETag</code> and <code>Last-Modified</code>
+ * headers), to revalidate it by a conditional request. The body is cached rather than the extracted profile, which is mutable : a new
+ * profile is extracted from the body for each retrieval.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class CachedProfile implements Serializable {
+    
+    private static final long serialVersionUID = -3146522740826839176L;
+    
+    private final String body;
+    
+    private final String etag;
+    
+    private final String lastModified;
+    
+    public CachedProfile(final String body, final String etag, final String lastModified) {
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+    
+    public String getBody() {
+        return this.body;
+    }
+    
+    public String getEtag() {
+        return this.etag;
+    }
+    
+    public String getLastModified() {
+        return this.lastModified;
+    }
+}
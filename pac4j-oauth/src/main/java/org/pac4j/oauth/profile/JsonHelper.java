@@ -17,6 +17,7 @@ package org.pac4j.oauth.profile;
 
 import java.io.IOException;
 
+import org.pac4j.core.profile.ProfileHelper;
 import org.pac4j.core.profile.converter.AttributeConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +47,10 @@ public final class JsonHelper {
      */
     public static JsonNode getFirstNode(final String text) {
         try {
+            if (ProfileHelper.isKeepRawData()) {
+                // objects and arrays keep their slice of the text as raw data
+                return RawJsonTreeReader.read(text);
+            }
             return mapper.readValue(text, JsonNode.class);
         } catch (final JsonParseException e) {
             logger.error("JsonParseException", e);
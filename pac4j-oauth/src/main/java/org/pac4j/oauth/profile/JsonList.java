@@ -15,7 +15,6 @@
  */
 package org.pac4j.oauth.profile;
 
-import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -34,7 +33,7 @@ import com.fasterxml.jackson.databind.JsonNode;
  * @since 1.1.0
  */
 @SuppressWarnings("unchecked")
-public final class JsonList<T> extends JsonObject implements List<T> {
+public class JsonList<T> extends JsonObject implements List<T> {
     
     private static final long serialVersionUID = -6244332281326848508L;
     
@@ -44,6 +43,9 @@ public final class JsonList<T> extends JsonObject implements List<T> {
     
     private Class<T> clazz;
     
+    // resolved on first use
+    private transient JsonObjectFactory<T> factory;
+    
     public JsonList() {
     }
     
@@ -53,6 +55,15 @@ public final class JsonList<T> extends JsonObject implements List<T> {
     
     public void setClazz(final Class<T> clazz) {
         this.clazz = clazz;
+        this.factory = null;
+    }
+    
+    public Class<T> getClazz() {
+        return this.clazz;
+    }
+    
+    public void setFactory(final JsonObjectFactory<T> factory) {
+        this.factory = factory;
     }
     
     /**
@@ -61,8 +72,20 @@ public final class JsonList<T> extends JsonObject implements List<T> {
      * @param o
      * @param clazz
      */
-    public JsonList(Object o, final Class<T> clazz) {
+    public JsonList(final Object o, final Class<T> clazz) {
+        this(o, clazz, null);
+    }
+    
+    /**
+     * Create a list of JsonObject from various inputs, with the factory of the elements.
+     * 
+     * @param o
+     * @param clazz
+     * @param factory
+     */
+    public JsonList(Object o, final Class<T> clazz, final JsonObjectFactory<T> factory) {
         this.clazz = clazz;
+        this.factory = factory;
         if (o instanceof List) {
             final List<String> elements = (List<String>) o;
             for (String element : elements) {
@@ -116,18 +139,32 @@ public final class JsonList<T> extends JsonObject implements List<T> {
     private void buildSingleNode(final JsonNode node) {
         if (this.clazz == String.class) {
             this.list.add((T) node.textValue());
-        } else if (JsonObject.class.isAssignableFrom(this.clazz)) {
-            try {
-                final Constructor<T> constructor = this.clazz.getDeclaredConstructor();
-                final T object = constructor.newInstance();
-                ((JsonObject) object).buildFrom(node);
-                this.list.add(object);
-            } catch (final Exception e) {
-                logger.error("Cannot build object", e);
+        } else {
+            final JsonObjectFactory<T> objectFactory = getFactory();
+            if (objectFactory != null) {
+                try {
+                    final T object = objectFactory.newInstance();
+                    ((JsonObject) object).buildFrom(node);
+                    this.list.add(object);
+                } catch (final Exception e) {
+                    logger.error("Cannot build object", e);
+                }
             }
         }
     }
     
+    /**
+     * Return the factory of the elements (only for JsonObject elements).
+     * 
+     * @return the factory of the elements
+     */
+    protected JsonObjectFactory<T> getFactory() {
+        if (this.factory == null && this.clazz != null && JsonObject.class.isAssignableFrom(this.clazz)) {
+            this.factory = JsonObjectFactories.getFactory(this.clazz);
+        }
+        return this.factory;
+    }
+    
     public boolean add(final T e) {
         return this.list.add(e);
     }
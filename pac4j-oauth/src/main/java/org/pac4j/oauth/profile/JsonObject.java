@@ -18,11 +18,15 @@ package org.pac4j.oauth.profile;
 import java.io.Serializable;
 
 import org.pac4j.core.profile.RawDataObject;
+import org.pac4j.oauth.profile.RawJsonTreeReader.RawJsonNode;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
 /**
  * This class is an object which can be built from JSON.
+ * <p />
+ * When raw data are kept and the JSON node has been read by the {@link JsonHelper}, the raw JSON is a slice of the shared response
+ * (no copy) and its string is only built by the {@link #toString()} method.
  * 
  * @author Jerome Leleu
  * @since 1.1.0
@@ -33,6 +37,8 @@ public abstract class JsonObject extends RawDataObject implements Serializable {
     
     protected String json = "";
     
+    private RawJson rawJson;
+    
     /**
      * Build an object from JSON (String or JsonNode).
      * 
@@ -46,7 +52,11 @@ public abstract class JsonObject extends RawDataObject implements Serializable {
             } else if (json instanceof JsonNode) {
                 final JsonNode jsonNode = (JsonNode) json;
                 if (keepRawData) {
-                    this.json = jsonNode.toString();
+                    if (jsonNode instanceof RawJsonNode) {
+                        this.rawJson = ((RawJsonNode) jsonNode).getRawJson();
+                    } else {
+                        this.json = jsonNode.toString();
+                    }
                 }
                 buildFromJson(jsonNode);
             } else {
@@ -64,6 +74,9 @@ public abstract class JsonObject extends RawDataObject implements Serializable {
     
     @Override
     public String toString() {
+        if (this.rawJson != null) {
+            return this.rawJson.toString();
+        }
         return this.json;
     }
 }
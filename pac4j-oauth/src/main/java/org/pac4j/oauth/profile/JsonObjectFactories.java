@@ -0,0 +1,100 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is the registry of the {@link JsonObjectFactory} used to create the objects buildable from JSON.
+ * <p />
+ * The factory of a class is resolved once and cached : by default, it calls the no-arg constructor of the class, looked up and made
+ * accessible only once. A factory without reflection can be registered for a class by the
+ * {@link #register(Class, JsonObjectFactory)} method, before the first profile is built.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class JsonObjectFactories {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JsonObjectFactories.class);
+    
+    private static final ConcurrentMap<Class<?>, JsonObjectFactory<?>> factories = new ConcurrentHashMap<Class<?>, JsonObjectFactory<?>>();
+    
+    /**
+     * Register the factory of a class.
+     * 
+     * @param clazz
+     * @param factory
+     */
+    public static <T> void register(final Class<T> clazz, final JsonObjectFactory<T> factory) {
+        if (clazz != null && factory != null) {
+            factories.put(clazz, factory);
+        }
+    }
+    
+    /**
+     * Return the factory of a class, created from its no-arg constructor if no factory is registered for it.
+     * 
+     * @param clazz
+     * @return the factory of the class or <code>null</code> if the class has no no-arg constructor
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonObjectFactory<T> getFactory(final Class<T> clazz) {
+        if (clazz == null) {
+            return null;
+        }
+        JsonObjectFactory<T> factory = (JsonObjectFactory<T>) factories.get(clazz);
+        if (factory == null) {
+            try {
+                factory = new ConstructorFactory<T>(clazz.getDeclaredConstructor());
+            } catch (final NoSuchMethodException e) {
+                logger.error("No constructor without arguments for " + clazz, e);
+                return null;
+            }
+            final JsonObjectFactory<T> previous = (JsonObjectFactory<T>) factories.putIfAbsent(clazz, factory);
+            if (previous != null) {
+                factory = previous;
+            }
+        }
+        return factory;
+    }
+    
+    /**
+     * This factory calls a constructor without arguments.
+     */
+    private static final class ConstructorFactory<T> implements JsonObjectFactory<T> {
+        
+        private final Constructor<T> constructor;
+        
+        private ConstructorFactory(final Constructor<T> constructor) {
+            constructor.setAccessible(true);
+            this.constructor = constructor;
+        }
+        
+        public T newInstance() {
+            try {
+                return this.constructor.newInstance();
+            } catch (final Exception e) {
+                throw new IllegalStateException("Cannot build instance of " + this.constructor.getDeclaringClass(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+/**
+ * This interface creates the (empty) instances of an object buildable from JSON, before they are built by the
+ * {@link JsonObject#buildFrom(Object)} method.
+ * 
+ * @see JsonObjectFactories
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public interface JsonObjectFactory<T> {
+    
+    /**
+     * Create a new instance.
+     * 
+     * @return a new instance
+     */
+    public T newInstance();
+}
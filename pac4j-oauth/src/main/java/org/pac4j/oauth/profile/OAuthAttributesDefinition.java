@@ -19,7 +19,8 @@ import org.pac4j.core.profile.AttributesDefinition;
 import org.pac4j.core.profile.converter.Converters;
 
 /**
- * This class is the definition of the attributes for an OAuth profile (just the access token).
+ * This class is the definition of the attributes for an OAuth profile : the access token and, for OAuth 2.0, its refresh token and
+ * expiration time.
  * 
  * @author Jerome Leleu
  * @since 1.3.0
@@ -28,7 +29,13 @@ public class OAuthAttributesDefinition extends AttributesDefinition {
     
     public transient static final String ACCESS_TOKEN = "access_token";
     
+    public transient static final String REFRESH_TOKEN = "refresh_token";
+    
+    public transient static final String ACCESS_TOKEN_EXPIRATION = "access_token_expiration";
+    
     public OAuthAttributesDefinition() {
         addAttribute(ACCESS_TOKEN, Converters.stringConverter, false);
+        addAttribute(REFRESH_TOKEN, Converters.stringConverter, false);
+        addAttribute(ACCESS_TOKEN_EXPIRATION, Converters.longConverter, false);
     }
 }
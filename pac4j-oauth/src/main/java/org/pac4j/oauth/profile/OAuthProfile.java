@@ -15,11 +15,17 @@
  */
 package org.pac4j.oauth.profile;
 
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
 import org.pac4j.core.profile.CommonProfile;
 
 /**
  * This class is the base OAuth profile, extending from the base {@link org.pac4j.core.profile.CommonProfile}. It deals with the OAuth
- * access token.
+ * access token (and its refresh token and expiration time for OAuth 2.0).
+ * <p />
+ * When the profile is loaded in two phases, the extended attributes are added in background after the profile is returned : their
+ * loading can be awaited through the {@link #getExtendedAttributesFuture()} method.
  * 
  * @author Jerome Leleu
  * @since 1.3.0
@@ -28,6 +34,40 @@ public abstract class OAuthProfile extends CommonProfile {
     
     private static final long serialVersionUID = 5936903744523656143L;
     
+    private static final Future<Void> LOADED;
+    
+    static {
+        final FutureTask<Void> loaded = new FutureTask<Void>(new Runnable() {
+            
+            public void run() {
+            }
+        }, null);
+        loaded.run();
+        LOADED = loaded;
+    }
+    
+    private transient Future<Void> extendedAttributesFuture;
+    
+    /**
+     * Set the future of the extended attributes loaded in background.
+     * 
+     * @param extendedAttributesFuture
+     */
+    public void setExtendedAttributesFuture(final Future<Void> extendedAttributesFuture) {
+        this.extendedAttributesFuture = extendedAttributesFuture;
+    }
+    
+    /**
+     * Return the future of the extended attributes loaded in background : it is already done if all the attributes have been loaded
+     * with the profile (or if the profile has been deserialized).
+     * 
+     * @return the future of the extended attributes
+     */
+    public Future<Void> getExtendedAttributesFuture() {
+        final Future<Void> future = this.extendedAttributesFuture;
+        return future != null ? future : LOADED;
+    }
+    
     /**
      * Set the access token
      * 
@@ -45,4 +85,51 @@ public abstract class OAuthProfile extends CommonProfile {
     public String getAccessToken() {
         return (String) getAttribute(OAuthAttributesDefinition.ACCESS_TOKEN);
     }
+    
+    /**
+     * Set the refresh token
+     * 
+     * @param refreshToken
+     */
+    public void setRefreshToken(final String refreshToken) {
+        addAttribute(OAuthAttributesDefinition.REFRESH_TOKEN, refreshToken);
+    }
+    
+    /**
+     * Return the refresh token.
+     * 
+     * @return the refresh token
+     */
+    public String getRefreshToken() {
+        return (String) getAttribute(OAuthAttributesDefinition.REFRESH_TOKEN);
+    }
+    
+    /**
+     * Set the expiration time of the access token (in milliseconds since epoch).
+     * 
+     * @param expirationTime
+     */
+    public void setAccessTokenExpiration(final Long expirationTime) {
+        addAttribute(OAuthAttributesDefinition.ACCESS_TOKEN_EXPIRATION, expirationTime);
+    }
+    
+    /**
+     * Return the expiration time of the access token (in milliseconds since epoch).
+     * 
+     * @return the expiration time of the access token or <code>null</code> if unknown
+     */
+    public Long getAccessTokenExpiration() {
+        return (Long) getAttribute(OAuthAttributesDefinition.ACCESS_TOKEN_EXPIRATION);
+    }
+    
+    /**
+     * Return whether the access token is expired (or will be in the given number of milliseconds).
+     * 
+     * @param marginInMillis
+     * @return whether the access token is expired, <code>false</code> if its expiration time is unknown
+     */
+    public boolean isAccessTokenExpired(final long marginInMillis) {
+        final Long expirationTime = getAccessTokenExpiration();
+        return expirationTime != null && System.currentTimeMillis() + marginInMillis >= expirationTime;
+    }
 }
@@ -0,0 +1,226 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.profile.converter.Converters;
+import org.pac4j.core.util.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This class is a list of objects (buildable from JSON) holding the first page of a paginated connection.
+ * <p />
+ * It's built from a JSON like : <code>{ "data" : [ ... ], "paging" : { "next" : "..." } }</code>. The list itself only contains the
+ * elements of the first page, but the url of the next page is kept so that the whole connection can be iterated through the
+ * {@link #pagedIterator()} method : the following pages are fetched on demand by the {@link PageFetcher} defined by the
+ * {@link #setPageFetcher(PageFetcher, ExecutorService)} method. If an executor is also defined, the next page is prefetched in background
+ * while the current one is iterated.
+ * <p />
+ * The page fetcher is not serialized : after deserialization, only the first page is available.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class PagedJsonList<T> extends JsonList<T> {
+    
+    private static final long serialVersionUID = 2941253437604311423L;
+    
+    private static final Logger logger = LoggerFactory.getLogger(PagedJsonList.class);
+    
+    public static final String DATA = "data";
+    
+    public static final String PAGING = "paging";
+    
+    public static final String NEXT = "next";
+    
+    private String nextPageUrl;
+    
+    private transient PageFetcher pageFetcher;
+    
+    private transient ExecutorService executor;
+    
+    public PagedJsonList() {
+    }
+    
+    /**
+     * Create a paged list of objects from a JSON (String or JsonNode).
+     * 
+     * @param json
+     * @param clazz
+     */
+    public PagedJsonList(final Object json, final Class<T> clazz) {
+        this(json, clazz, null);
+    }
+    
+    /**
+     * Create a paged list of objects from a JSON (String or JsonNode), with the factory of the elements.
+     * 
+     * @param json
+     * @param clazz
+     * @param factory
+     */
+    public PagedJsonList(final Object json, final Class<T> clazz, final JsonObjectFactory<T> factory) {
+        setClazz(clazz);
+        setFactory(factory);
+        buildFrom(json);
+    }
+    
+    @Override
+    protected void buildFromJson(final JsonNode json) {
+        if (json != null && json.isObject()) {
+            super.buildFromJson(json.get(DATA));
+            final JsonNode paging = json.get(PAGING);
+            if (paging != null) {
+                this.nextPageUrl = (String) JsonHelper.convert(Converters.stringConverter, paging, NEXT);
+            }
+        } else {
+            super.buildFromJson(json);
+        }
+    }
+    
+    /**
+     * Define how the next pages are fetched and the (optional) executor used to prefetch them.
+     * 
+     * @param pageFetcher
+     * @param executor
+     */
+    public void setPageFetcher(final PageFetcher pageFetcher, final ExecutorService executor) {
+        this.pageFetcher = pageFetcher;
+        this.executor = executor;
+    }
+    
+    /**
+     * Return if more pages are available after this first one.
+     * 
+     * @return if more pages are available
+     */
+    public boolean hasNextPage() {
+        return this.nextPageUrl != null;
+    }
+    
+    public String getNextPageUrl() {
+        return this.nextPageUrl;
+    }
+    
+    /**
+     * Return an iterator on all the elements of the connection, the following pages being fetched on demand.
+     * 
+     * @return an iterator on all the elements
+     */
+    public Iterator<T> pagedIterator() {
+        return new PagedIterator();
+    }
+    
+    /**
+     * Fetch and build the page at the given url.
+     * 
+     * @param url
+     * @return the page
+     * @throws ClientException
+     */
+    protected PagedJsonList<T> fetchPage(final String url) throws ClientException {
+        logger.debug("fetch page : {}", url);
+        final String body = this.pageFetcher.fetchPage(url);
+        return new PagedJsonList<T>(JsonHelper.getFirstNode(body), getClazz());
+    }
+    
+    /**
+     * This iterator goes through the elements of the current page and fetches the next page when needed.
+     */
+    private final class PagedIterator implements Iterator<T> {
+        
+        private Iterator<T> current = PagedJsonList.this.iterator();
+        
+        private String nextUrl = PagedJsonList.this.nextPageUrl;
+        
+        private Future<PagedJsonList<T>> prefetchedPage;
+        
+        private PagedIterator() {
+            prefetch();
+        }
+        
+        private void prefetch() {
+            if (this.nextUrl != null && PagedJsonList.this.pageFetcher != null && PagedJsonList.this.executor != null) {
+                final String url = this.nextUrl;
+                final Callable<PagedJsonList<T>> task = new Callable<PagedJsonList<T>>() {
+                    public PagedJsonList<T> call() throws ClientException {
+                        return fetchPage(url);
+                    }
+                };
+                // prefetched under the deadline of the current thread (if any)
+                this.prefetchedPage = PagedJsonList.this.executor.submit(Deadline.propagate(task));
+            }
+        }
+        
+        private PagedJsonList<T> nextPage() {
+            try {
+                if (this.prefetchedPage != null) {
+                    return this.prefetchedPage.get();
+                } else {
+                    return fetchPage(this.nextUrl);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching page : " + this.nextUrl, e);
+            } catch (final ExecutionException e) {
+                throw new IllegalStateException("Cannot fetch page : " + this.nextUrl, e.getCause());
+            } catch (final ClientException e) {
+                throw new IllegalStateException("Cannot fetch page : " + this.nextUrl, e);
+            } finally {
+                this.prefetchedPage = null;
+            }
+        }
+        
+        public boolean hasNext() {
+            while (!this.current.hasNext()) {
+                if (this.nextUrl == null || PagedJsonList.this.pageFetcher == null) {
+                    return false;
+                }
+                final PagedJsonList<T> page = nextPage();
+                this.current = page.iterator();
+                // avoid looping on the same page
+                if (page.isEmpty() || this.nextUrl.equals(page.getNextPageUrl())) {
+                    this.nextUrl = null;
+                } else {
+                    this.nextUrl = page.getNextPageUrl();
+                }
+                prefetch();
+            }
+            return true;
+        }
+        
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.current.next();
+        }
+        
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove elements of a paged list");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.io.Serializable;
+
+/**
+ * This class is the raw JSON of an object : a slice of the response it has been parsed from. The response is shared by all the
+ * slices and the string of the slice is only built when requested.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class RawJson implements CharSequence, Serializable {
+    
+    private static final long serialVersionUID = 7368447426349858741L;
+    
+    private final String source;
+    
+    private final int start;
+    
+    private final int end;
+    
+    public RawJson(final String source, final int start, final int end) {
+        if (source == null || start < 0 || end > source.length() || start > end) {
+            throw new IllegalArgumentException("Invalid slice [" + start + ", " + end + "[");
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+    
+    public int length() {
+        return this.end - this.start;
+    }
+    
+    public char charAt(final int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index : " + index);
+        }
+        return this.source.charAt(this.start + index);
+    }
+    
+    public CharSequence subSequence(final int from, final int to) {
+        if (from < 0 || to > length() || from > to) {
+            throw new IndexOutOfBoundsException("from : " + from + " / to : " + to);
+        }
+        return new RawJson(this.source, this.start + from, this.start + to);
+    }
+    
+    /**
+     * Return the shared response this slice belongs to.
+     * 
+     * @return the shared response
+     */
+    public String getSource() {
+        return this.source;
+    }
+    
+    @Override
+    public String toString() {
+        return this.source.substring(this.start, this.end);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * This class reads a JSON text into a tree whose objects and arrays know their {@link RawJson} slice of the text (same nodes as the
+ * Jackson <code>ObjectMapper</code> would build otherwise).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+final class RawJsonTreeReader {
+    
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    
+    private static final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+    
+    /**
+     * Read the first value of a JSON text.
+     * 
+     * @param text
+     * @return the first value or <code>null</code> if the text is empty
+     * @throws IOException
+     */
+    static JsonNode read(final String text) throws IOException {
+        final JsonParser parser = jsonFactory.createJsonParser(text);
+        try {
+            final JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            return readValue(parser, token, text);
+        } finally {
+            parser.close();
+        }
+    }
+    
+    private static JsonNode readValue(final JsonParser parser, final JsonToken token, final String text)
+        throws IOException {
+        switch (token) {
+            case START_OBJECT: {
+                final int start = findStart(text, (int) parser.getTokenLocation().getCharOffset(), '{');
+                final RawObjectNode node = new RawObjectNode();
+                JsonToken t = parser.nextToken();
+                while (t == JsonToken.FIELD_NAME) {
+                    final String name = parser.getCurrentName();
+                    node.put(name, readValue(parser, parser.nextToken(), text));
+                    t = parser.nextToken();
+                }
+                checkEnd(parser, t, JsonToken.END_OBJECT);
+                final int end = findEnd(text, (int) parser.getTokenLocation().getCharOffset(), '}');
+                node.rawJson = new RawJson(text, start, end);
+                return node;
+            }
+            case START_ARRAY: {
+                final int start = findStart(text, (int) parser.getTokenLocation().getCharOffset(), '[');
+                final RawArrayNode node = new RawArrayNode();
+                JsonToken t = parser.nextToken();
+                while (t != null && t != JsonToken.END_ARRAY) {
+                    node.add(readValue(parser, t, text));
+                    t = parser.nextToken();
+                }
+                checkEnd(parser, t, JsonToken.END_ARRAY);
+                final int end = findEnd(text, (int) parser.getTokenLocation().getCharOffset(), ']');
+                node.rawJson = new RawJson(text, start, end);
+                return node;
+            }
+            case VALUE_STRING:
+                return nodeFactory.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return nodeFactory.numberNode(parser.getIntValue());
+                    case LONG:
+                        return nodeFactory.numberNode(parser.getLongValue());
+                    default:
+                        return nodeFactory.numberNode(parser.getBigIntegerValue());
+                }
+            case VALUE_NUMBER_FLOAT:
+                return nodeFactory.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return nodeFactory.booleanNode(true);
+            case VALUE_FALSE:
+                return nodeFactory.booleanNode(false);
+            case VALUE_NULL:
+                return nodeFactory.nullNode();
+            default:
+                throw new JsonParseException("Unexpected token : " + token, parser.getCurrentLocation());
+        }
+    }
+    
+    /**
+     * Find the first character of an object or an array : the location of the token may be before the preceding separators and field
+     * name.
+     * 
+     * @param text
+     * @param offset
+     * @param expected
+     * @return the index of the first character
+     */
+    private static int findStart(final String text, final int offset, final char expected) {
+        int i = offset;
+        while (i < text.length()) {
+            final char c = text.charAt(i);
+            if (c == expected) {
+                return i;
+            } else if (c == '"') {
+                // skip the field name
+                i++;
+                while (i < text.length() && text.charAt(i) != '"') {
+                    if (text.charAt(i) == '\\') {
+                        i++;
+                    }
+                    i++;
+                }
+            }
+            i++;
+        }
+        return offset;
+    }
+    
+    /**
+     * Find the end (exclusive) of an object or an array : the location of the closing token may be before the preceding whitespaces.
+     * 
+     * @param text
+     * @param offset
+     * @param expected
+     * @return the index after the last character
+     */
+    private static int findEnd(final String text, final int offset, final char expected) {
+        int i = offset;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i < text.length() && text.charAt(i) == expected) {
+            return i + 1;
+        }
+        return Math.min(offset + 1, text.length());
+    }
+    
+    private static void checkEnd(final JsonParser parser, final JsonToken token, final JsonToken expected)
+        throws JsonParseException {
+        if (token != expected) {
+            throw new JsonParseException("Unexpected end of input, expected : " + expected, parser.getCurrentLocation());
+        }
+    }
+    
+    /**
+     * A node which knows its raw JSON.
+     */
+    interface RawJsonNode {
+        
+        RawJson getRawJson();
+    }
+    
+    /**
+     * An object node which knows its raw JSON : it is equal to the plain object nodes with the same fields.
+     */
+    static final class RawObjectNode extends ObjectNode implements RawJsonNode {
+        
+        private RawJson rawJson;
+        
+        private RawObjectNode() {
+            super(nodeFactory);
+        }
+        
+        public RawJson getRawJson() {
+            return this.rawJson;
+        }
+        
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof ObjectNode)) {
+                return false;
+            }
+            final ObjectNode other = (ObjectNode) o;
+            if (other.size() != size()) {
+                return false;
+            }
+            final Iterator<Map.Entry<String, JsonNode>> fields = fields();
+            while (fields.hasNext()) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().equals(other.get(field.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+    
+    /**
+     * An array node which knows its raw JSON : it is equal to the plain array nodes with the same elements.
+     */
+    static final class RawArrayNode extends ArrayNode implements RawJsonNode {
+        
+        private RawJson rawJson;
+        
+        private RawArrayNode() {
+            super(nodeFactory);
+        }
+        
+        public RawJson getRawJson() {
+            return this.rawJson;
+        }
+        
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof ArrayNode)) {
+                return false;
+            }
+            final ArrayNode other = (ArrayNode) o;
+            if (other.size() != size()) {
+                return false;
+            }
+            for (int i = 0; i < size(); i++) {
+                if (!get(i).equals(other.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+}
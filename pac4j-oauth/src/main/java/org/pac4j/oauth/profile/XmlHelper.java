@@ -0,0 +1,99 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is an helper to work with XML : documents are read in a streaming way (StAX) and the parsing stops as soon as the
+ * expected data is found.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class XmlHelper {
+    
+    private static final Logger logger = LoggerFactory.getLogger(XmlHelper.class);
+    
+    private static final XMLInputFactory factory = XMLInputFactory.newInstance();
+    
+    static {
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+    
+    /**
+     * Create a streaming reader on a XML text.
+     * 
+     * @param text
+     * @return the streaming reader
+     * @throws XMLStreamException
+     */
+    public static XMLStreamReader createReader(final String text) throws XMLStreamException {
+        return factory.createXMLStreamReader(new StringReader(text));
+    }
+    
+    /**
+     * Return the text of the first element with the given local name in a XML text.
+     * 
+     * @param text
+     * @param elementName
+     * @return the text of the first element or null if not found or if exception is thrown
+     */
+    public static String getFirstText(final String text, final String elementName) {
+        if (text == null) {
+            return null;
+        }
+        XMLStreamReader reader = null;
+        try {
+            reader = createReader(text);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && elementName.equals(reader.getLocalName())) {
+                    return reader.getElementText();
+                }
+            }
+        } catch (final XMLStreamException e) {
+            logger.error("XMLStreamException", e);
+        } finally {
+            close(reader);
+        }
+        return null;
+    }
+    
+    /**
+     * Close a streaming reader silently.
+     * 
+     * @param reader
+     */
+    public static void close(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (final XMLStreamException e) {
+                logger.debug("Cannot close reader", e);
+            }
+        }
+    }
+}
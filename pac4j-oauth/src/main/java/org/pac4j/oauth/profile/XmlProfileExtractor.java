@@ -0,0 +1,198 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.pac4j.core.profile.UserProfile;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class extracts the attributes of a profile from a XML response in a single streaming pass (StAX).
+ * <p />
+ * It is built from a map of XML elements to profile attributes. An element is either a local name (<code>first-name</code>), which
+ * matches at any depth, or a path of local names separated by slashes (<code>location/name</code>), which matches the last elements
+ * of the current path. Only the first text-only occurrence of each element is kept, entities are decoded and the parsing stops as
+ * soon as all the elements are found.
+ * <p />
+ * Instances are immutable and thread-safe.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class XmlProfileExtractor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(XmlProfileExtractor.class);
+    
+    private static final String PATH_SEPARATOR = "/";
+    
+    private final Map<String, String> attributesByName = new HashMap<String, String>();
+    
+    private final Map<String[], String> attributesByPath = new LinkedHashMap<String[], String>();
+    
+    private final int nbElements;
+    
+    /**
+     * Define an extractor whose attributes have the same names as the XML elements.
+     * 
+     * @param attributes
+     */
+    public XmlProfileExtractor(final List<String> attributes) {
+        this(identity(attributes));
+    }
+    
+    /**
+     * Define an extractor from a map of XML elements (local names or paths) to profile attributes.
+     * 
+     * @param elementsToAttributes
+     */
+    public XmlProfileExtractor(final Map<String, String> elementsToAttributes) {
+        int nb = 0;
+        for (final Map.Entry<String, String> entry : elementsToAttributes.entrySet()) {
+            final String element = entry.getKey();
+            // blank elements or attributes are ignored
+            if (CommonHelper.isNotBlank(element) && CommonHelper.isNotBlank(entry.getValue())) {
+                if (element.contains(PATH_SEPARATOR)) {
+                    this.attributesByPath.put(element.split(PATH_SEPARATOR), entry.getValue());
+                } else {
+                    this.attributesByName.put(element, entry.getValue());
+                }
+                nb++;
+            }
+        }
+        this.nbElements = nb;
+    }
+    
+    private static Map<String, String> identity(final List<String> attributes) {
+        final Map<String, String> map = new LinkedHashMap<String, String>();
+        for (final String attribute : attributes) {
+            map.put(attribute, attribute);
+        }
+        return map;
+    }
+    
+    /**
+     * Extract the values of the attributes from a XML text.
+     * 
+     * @param text
+     * @return the values of the attributes found (empty if the text is not a valid XML text)
+     */
+    public Map<String, String> extract(final String text) {
+        if (text == null || this.nbElements == 0) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> values = new HashMap<String, String>();
+        final List<String> path = new ArrayList<String>();
+        XMLStreamReader reader = null;
+        try {
+            reader = XmlHelper.createReader(text);
+            int nbFound = 0;
+            String currentAttribute = null;
+            StringBuilder currentText = null;
+            while (nbFound < this.nbElements && reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        // an element with children is not a text value
+                        currentAttribute = null;
+                        currentText = null;
+                        path.add(reader.getLocalName());
+                        final String attribute = findAttribute(path);
+                        if (attribute != null && !values.containsKey(attribute)) {
+                            currentAttribute = attribute;
+                            currentText = new StringBuilder();
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (currentText != null) {
+                            currentText.append(reader.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (currentAttribute != null) {
+                            values.put(currentAttribute, currentText.toString());
+                            nbFound++;
+                            currentAttribute = null;
+                            currentText = null;
+                        }
+                        path.remove(path.size() - 1);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (final XMLStreamException e) {
+            logger.error("XMLStreamException", e);
+        } finally {
+            XmlHelper.close(reader);
+        }
+        return values;
+    }
+    
+    /**
+     * Extract the values of the attributes from a XML text and add them to the profile.
+     * 
+     * @param text
+     * @param profile
+     * @return the values of the attributes found
+     */
+    public Map<String, String> extract(final String text, final UserProfile profile) {
+        final Map<String, String> values = extract(text);
+        for (final Map.Entry<String, String> entry : values.entrySet()) {
+            profile.addAttribute(entry.getKey(), entry.getValue());
+        }
+        return values;
+    }
+    
+    private String findAttribute(final List<String> path) {
+        final int size = path.size();
+        final String attribute = this.attributesByName.get(path.get(size - 1));
+        if (attribute != null) {
+            return attribute;
+        }
+        for (final Map.Entry<String[], String> entry : this.attributesByPath.entrySet()) {
+            final String[] elements = entry.getKey();
+            if (elements.length <= size) {
+                boolean match = true;
+                for (int i = 1; match && i <= elements.length; i++) {
+                    match = elements[elements.length - i].equals(path.get(size - i));
+                }
+                if (match) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "attributesByName", this.attributesByName, "nbElements",
+                                     this.nbElements);
+    }
+}
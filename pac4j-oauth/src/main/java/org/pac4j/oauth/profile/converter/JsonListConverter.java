@@ -19,6 +19,9 @@ import java.util.List;
 
 import org.pac4j.core.profile.converter.AttributeConverter;
 import org.pac4j.oauth.profile.JsonList;
+import org.pac4j.oauth.profile.JsonObject;
+import org.pac4j.oauth.profile.JsonObjectFactories;
+import org.pac4j.oauth.profile.JsonObjectFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -35,14 +38,30 @@ public final class JsonListConverter implements AttributeConverter<JsonList> {
     
     private final Class<? extends Object> clazz;
     
+    private JsonObjectFactory factory;
+    
     public JsonListConverter(final Class<? extends Object> clazz) {
         this.clazz = clazz;
     }
     
+    /**
+     * Return the factory of the elements, resolved once (only for JsonObject elements).
+     * 
+     * @return the factory of the elements
+     */
+    private JsonObjectFactory getFactory() {
+        JsonObjectFactory objectFactory = this.factory;
+        if (objectFactory == null && JsonObject.class.isAssignableFrom(this.clazz)) {
+            objectFactory = JsonObjectFactories.getFactory(this.clazz);
+            this.factory = objectFactory;
+        }
+        return objectFactory;
+    }
+    
     public JsonList convert(final Object attribute) {
         if (attribute != null
             && (attribute instanceof String || attribute instanceof JsonNode || attribute instanceof List<?>)) {
-            return new JsonList(attribute, this.clazz);
+            return new JsonList(attribute, this.clazz, getFactory());
         }
         return null;
     }
@@ -15,10 +15,10 @@
  */
 package org.pac4j.oauth.profile.converter;
 
-import java.lang.reflect.Constructor;
-
 import org.pac4j.core.profile.converter.AttributeConverter;
 import org.pac4j.oauth.profile.JsonObject;
+import org.pac4j.oauth.profile.JsonObjectFactories;
+import org.pac4j.oauth.profile.JsonObjectFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +26,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 
 /**
  * This class converts a JSON (String or JsonNode) into an JSON object.
+ * <p />
+ * The instances are created by the {@link JsonObjectFactory} of the class, resolved on first conversion.
  * 
  * @author Jerome Leleu
  * @since 1.1.0
@@ -36,19 +38,27 @@ public final class JsonObjectConverter implements AttributeConverter<JsonObject>
     
     private final Class<? extends JsonObject> clazz;
     
+    private JsonObjectFactory<? extends JsonObject> factory;
+    
     public JsonObjectConverter(final Class<? extends JsonObject> clazz) {
         this.clazz = clazz;
     }
     
     public JsonObject convert(final Object attribute) {
         if (attribute != null && (attribute instanceof String || attribute instanceof JsonNode)) {
-            try {
-                final Constructor<? extends JsonObject> constructor = this.clazz.getDeclaredConstructor();
-                final JsonObject jsonObject = constructor.newInstance();
-                jsonObject.buildFrom(attribute);
-                return jsonObject;
-            } catch (final Exception e) {
-                logger.error("Cannot build instance", e);
+            JsonObjectFactory<? extends JsonObject> objectFactory = this.factory;
+            if (objectFactory == null) {
+                objectFactory = JsonObjectFactories.getFactory(this.clazz);
+                this.factory = objectFactory;
+            }
+            if (objectFactory != null) {
+                try {
+                    final JsonObject jsonObject = objectFactory.newInstance();
+                    jsonObject.buildFrom(attribute);
+                    return jsonObject;
+                } catch (final Exception e) {
+                    logger.error("Cannot build instance", e);
+                }
             }
         }
         return null;
@@ -0,0 +1,65 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile.converter;
+
+import org.pac4j.core.profile.converter.AttributeConverter;
+import org.pac4j.oauth.profile.JsonObject;
+import org.pac4j.oauth.profile.JsonObjectFactories;
+import org.pac4j.oauth.profile.JsonObjectFactory;
+import org.pac4j.oauth.profile.PagedJsonList;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This class converts a JSON (String or JsonNode) of a paginated connection into a paged list of objects.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+@SuppressWarnings({
+    "unchecked", "rawtypes"
+})
+public final class PagedJsonListConverter implements AttributeConverter<PagedJsonList> {
+    
+    private final Class<? extends Object> clazz;
+    
+    private JsonObjectFactory factory;
+    
+    public PagedJsonListConverter(final Class<? extends Object> clazz) {
+        this.clazz = clazz;
+    }
+    
+    /**
+     * Return the factory of the elements, resolved once (only for JsonObject elements).
+     * 
+     * @return the factory of the elements
+     */
+    private JsonObjectFactory getFactory() {
+        JsonObjectFactory objectFactory = this.factory;
+        if (objectFactory == null && JsonObject.class.isAssignableFrom(this.clazz)) {
+            objectFactory = JsonObjectFactories.getFactory(this.clazz);
+            this.factory = objectFactory;
+        }
+        return objectFactory;
+    }
+    
+    public PagedJsonList convert(final Object attribute) {
+        if (attribute != null && (attribute instanceof String || attribute instanceof JsonNode)) {
+            return new PagedJsonList(attribute, this.clazz, getFactory());
+        }
+        return null;
+    }
+}
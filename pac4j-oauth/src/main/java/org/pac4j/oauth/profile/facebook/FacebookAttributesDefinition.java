@@ -67,6 +67,10 @@ public class FacebookAttributesDefinition extends OAuthAttributesDefinition {
     public static final String MUSIC_LISTENS = "music.listens";
     public static final String PICTURE = "picture";
     
+    public static final String[] CONNECTIONS = new String[] {
+        FRIENDS, MOVIES, MUSIC, BOOKS, LIKES, ALBUMS, EVENTS, GROUPS, MUSIC_LISTENS
+    };
+    
     public FacebookAttributesDefinition() {
         final String[] names = new String[] {
             NAME, FIRST_NAME, MIDDLE_NAME, LAST_NAME, LINK, USERNAME, THIRD_PARTY_ID, BIO, EMAIL, POLITICAL, QUOTES,
@@ -91,15 +95,15 @@ public class FacebookAttributesDefinition extends OAuthAttributesDefinition {
         addAttribute(FAVORITE_TEAMS, FacebookConverters.listObjectConverter);
         addAttribute(SIGNIFICANT_OTHER, FacebookConverters.objectConverter);
         addAttribute(WORK, FacebookConverters.listWorkConverter);
-        addAttribute(FRIENDS, FacebookConverters.listObjectConverter, false);
-        addAttribute(MOVIES, FacebookConverters.listInfoConverter, false);
-        addAttribute(MUSIC, FacebookConverters.listInfoConverter, false);
-        addAttribute(BOOKS, FacebookConverters.listInfoConverter, false);
-        addAttribute(LIKES, FacebookConverters.listInfoConverter, false);
-        addAttribute(ALBUMS, FacebookConverters.listPhotoConverter, false);
-        addAttribute(EVENTS, FacebookConverters.listEventConverter, false);
-        addAttribute(GROUPS, FacebookConverters.listGroupConverter, false);
-        addAttribute(MUSIC_LISTENS, FacebookConverters.listMusicListensConverter, false);
+        addAttribute(FRIENDS, FacebookConverters.pagedListObjectConverter, false);
+        addAttribute(MOVIES, FacebookConverters.pagedListInfoConverter, false);
+        addAttribute(MUSIC, FacebookConverters.pagedListInfoConverter, false);
+        addAttribute(BOOKS, FacebookConverters.pagedListInfoConverter, false);
+        addAttribute(LIKES, FacebookConverters.pagedListInfoConverter, false);
+        addAttribute(ALBUMS, FacebookConverters.pagedListPhotoConverter, false);
+        addAttribute(EVENTS, FacebookConverters.pagedListEventConverter, false);
+        addAttribute(GROUPS, FacebookConverters.pagedListGroupConverter, false);
+        addAttribute(MUSIC_LISTENS, FacebookConverters.pagedListMusicListensConverter, false);
         addAttribute(PICTURE, FacebookConverters.pictureConverter, false);
     }
 }
@@ -19,6 +19,7 @@ import org.pac4j.core.profile.converter.DateConverter;
 import org.pac4j.core.profile.converter.FormattedDateConverter;
 import org.pac4j.oauth.profile.converter.JsonListConverter;
 import org.pac4j.oauth.profile.converter.JsonObjectConverter;
+import org.pac4j.oauth.profile.converter.PagedJsonListConverter;
 import org.pac4j.oauth.profile.facebook.converter.FacebookRelationshipStatusConverter;
 
 /**
@@ -60,4 +61,17 @@ public final class FacebookConverters {
     public final static JsonListConverter listMusicListensConverter = new JsonListConverter(FacebookMusicListen.class);
     
     public final static JsonObjectConverter pictureConverter = new JsonObjectConverter(FacebookPicture.class);
+    
+    public final static PagedJsonListConverter pagedListObjectConverter = new PagedJsonListConverter(FacebookObject.class);
+    
+    public final static PagedJsonListConverter pagedListInfoConverter = new PagedJsonListConverter(FacebookInfo.class);
+    
+    public final static PagedJsonListConverter pagedListPhotoConverter = new PagedJsonListConverter(FacebookPhoto.class);
+    
+    public final static PagedJsonListConverter pagedListEventConverter = new PagedJsonListConverter(FacebookEvent.class);
+    
+    public final static PagedJsonListConverter pagedListGroupConverter = new PagedJsonListConverter(FacebookGroup.class);
+    
+    public final static PagedJsonListConverter pagedListMusicListensConverter = new PagedJsonListConverter(
+                                                                                                         FacebookMusicListen.class);
 }
@@ -0,0 +1,381 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.ratelimit;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.Deadline;
+import org.pac4j.core.util.InitializableObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class limits the rate of the requests sent to a provider with a token bucket whose rate adapts to the responses of the provider.
+ * <p />
+ * The bucket holds at most <code>burst</code> permits, refilled at the current rate (at most <code>maxRate</code> permits per second).
+ * The rate adapts to the responses reported through the {@link #onResponse(int, Map)} method :
+ * <ul>
+ * <li>on a <code>429</code> (or a <code>503</code> with a <code>Retry-After</code> header), the rate is multiplied by
+ * <code>decreaseFactor</code> (but not below <code>minRate</code>) and no permit is given until the <code>Retry-After</code> delay
+ * (1 second by default) has elapsed</li>
+ * <li>on a response with the quota headers defined by <code>remainingHeader</code> and <code>resetHeader</code>, the rate is set to the
+ * sustainable rate : the remaining requests spread until the reset of the quota (the reset is a delay or an epoch time in seconds)</li>
+ * <li>on any other successful response, the rate increases by 5% of <code>maxRate</code> (additive increase).</li>
+ * </ul>
+ * <p />
+ * No quota header is defined by default : they must only be defined if they count the quota of the application. The
+ * <code>X-RateLimit-*</code> headers of GitHub or Twitter on the user data requests count the quota of the access token of the user,
+ * which would throttle all the logins to the quota of one user.
+ * <p />
+ * When no permit is available, the callers wait in a short priority queue (<code>maxQueueSize</code> waiters at most, for
+ * <code>maxWait</code> milliseconds at most) : {@link Priority#INTERACTIVE} requests (logins) are served before
+ * {@link Priority#BACKGROUND} ones (token refreshes, paging), then in arrival order. A caller which cannot get a permit is rejected.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class RateLimiter extends InitializableObject {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    };
+    
+    // 1 second
+    public static final long DEFAULT_RETRY_AFTER = 1000;
+    
+    // reset values greater than this one are epoch seconds, delays in seconds otherwise
+    private static final long EPOCH_THRESHOLD = 1000000000L;
+    
+    private static final class Waiter implements Comparable<Waiter> {
+        
+        private final Priority priority;
+        
+        private final long order;
+        
+        private Waiter(final Priority priority, final long order) {
+            this.priority = priority;
+            this.order = order;
+        }
+        
+        public int compareTo(final Waiter other) {
+            final int result = this.priority.compareTo(other.priority);
+            if (result != 0) {
+                return result;
+            }
+            return this.order < other.order ? -1 : (this.order == other.order ? 0 : 1);
+        }
+    }
+    
+    private double maxRate = 10;
+    
+    private double minRate = 0.1;
+    
+    private int burst = 10;
+    
+    private double decreaseFactor = 0.5;
+    
+    private int maxQueueSize = 32;
+    
+    // 2 seconds
+    private long maxWait = 2000;
+    
+    private String remainingHeader;
+    
+    private String resetHeader;
+    
+    // the state below is guarded by this
+    
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<Waiter>();
+    
+    private long nbWaiters;
+    
+    private double rate;
+    
+    private double permits;
+    
+    private long lastRefillTime;
+    
+    private long blockedUntil;
+    
+    private long nbThrottled;
+    
+    private long nbRejected;
+    
+    @Override
+    protected synchronized void internalInit() throws ClientException {
+        if (this.maxRate <= 0 || this.minRate <= 0 || this.minRate > this.maxRate || this.burst <= 0 || this.maxQueueSize < 0
+            || this.maxWait < 0 || this.decreaseFactor <= 0 || this.decreaseFactor >= 1) {
+            throw new ClientException("Invalid rate limiter configuration : " + this);
+        }
+        this.rate = this.maxRate;
+        this.permits = this.burst;
+        this.lastRefillTime = System.currentTimeMillis();
+        this.blockedUntil = 0;
+    }
+    
+    /**
+     * Acquire a permit to send a request, waiting <code>maxWait</code> milliseconds at most (and never beyond the login
+     * {@link Deadline}).
+     * 
+     * @param priority
+     * @return whether a permit is acquired (<code>false</code> if the request is rejected)
+     * @throws ClientException
+     */
+    public boolean acquire(final Priority priority) throws ClientException {
+        init();
+        CommonHelper.assertNotNull("priority", priority);
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            refill(now);
+            if (this.waiters.isEmpty() && now >= this.blockedUntil && this.permits >= 1) {
+                this.permits--;
+                return true;
+            }
+            if (this.waiters.size() >= this.maxQueueSize) {
+                this.nbRejected++;
+                logger.debug("rate limiter queue full : request rejected");
+                return false;
+            }
+            final Waiter waiter = new Waiter(priority, this.nbWaiters++);
+            this.waiters.add(waiter);
+            long deadline = now + this.maxWait;
+            // never wait beyond the login deadline
+            final Deadline loginDeadline = Deadline.current();
+            if (loginDeadline != null) {
+                deadline = Math.min(deadline, loginDeadline.getExpirationTime());
+            }
+            try {
+                while (true) {
+                    refill(now);
+                    if (this.waiters.peek() == waiter && now >= this.blockedUntil && this.permits >= 1) {
+                        this.permits--;
+                        return true;
+                    }
+                    if (now >= deadline) {
+                        this.nbRejected++;
+                        logger.debug("no permit in time : request rejected");
+                        return false;
+                    }
+                    // wait for the next permit, a reset of the state or the deadline
+                    final long nextPermit = Math.max(this.blockedUntil,
+                                                     now + (long) Math.ceil((1 - this.permits) * 1000 / this.rate));
+                    wait(Math.max(1, Math.min(deadline, nextPermit) - now));
+                    now = System.currentTimeMillis();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.nbRejected++;
+                return false;
+            } finally {
+                this.waiters.remove(waiter);
+                // the next waiter may be served now
+                notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Adapt the rate to the response of the provider.
+     * 
+     * @param code
+     * @param headers
+     */
+    public void onResponse(final int code, final Map<String, String> headers) {
+        if (!isInitialized()) {
+            return;
+        }
+        final String retryAfter = getHeader(headers, "Retry-After");
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            refill(now);
+            if (code == 429 || (code == 503 && retryAfter != null)) {
+                this.nbThrottled++;
+                this.rate = Math.max(this.minRate, this.rate * this.decreaseFactor);
+                this.permits = 0;
+                this.blockedUntil = Math.max(this.blockedUntil, now + parseRetryAfter(retryAfter, now));
+                logger.warn("throttled by the provider (code : {}), rate reduced to {}/s until {}", new Object[] {
+                    code, this.rate, this.blockedUntil
+                });
+            } else {
+                final Long remaining = this.remainingHeader != null ? parseLong(getHeader(headers, this.remainingHeader)) : null;
+                final Long reset = this.resetHeader != null ? parseLong(getHeader(headers, this.resetHeader)) : null;
+                if (remaining != null && reset != null) {
+                    final long resetTime = reset > EPOCH_THRESHOLD ? reset * 1000 : now + reset * 1000;
+                    if (remaining <= 0) {
+                        this.blockedUntil = Math.max(this.blockedUntil, resetTime);
+                        this.permits = 0;
+                    }
+                    final double window = Math.max(1000, resetTime - now) / 1000.0;
+                    this.rate = Math.max(this.minRate, Math.min(this.maxRate, remaining / window));
+                } else if (code >= 200 && code < 300) {
+                    this.rate = Math.min(this.maxRate, this.rate + this.maxRate / 20);
+                }
+            }
+            notifyAll();
+        }
+    }
+    
+    private void refill(final long now) {
+        if (now > this.lastRefillTime) {
+            this.permits = Math.min(this.burst, this.permits + (now - this.lastRefillTime) * this.rate / 1000);
+            this.lastRefillTime = now;
+        }
+    }
+    
+    private static long parseRetryAfter(final String retryAfter, final long now) {
+        if (retryAfter != null) {
+            final Long seconds = parseLong(retryAfter);
+            if (seconds != null) {
+                return Math.max(0, seconds * 1000);
+            }
+            try {
+                final SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+                return Math.max(0, format.parse(retryAfter).getTime() - now);
+            } catch (final ParseException e) {
+                logger.debug("Cannot parse Retry-After header : {}", retryAfter);
+            }
+        }
+        return DEFAULT_RETRY_AFTER;
+    }
+    
+    private static Long parseLong(final String value) {
+        if (value != null) {
+            try {
+                return Long.valueOf(value.trim());
+            } catch (final NumberFormatException e) {
+                logger.debug("Cannot parse header value : {}", value);
+            }
+        }
+        return null;
+    }
+    
+    private static String getHeader(final Map<String, String> headers, final String name) {
+        if (headers != null) {
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey())) {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+    
+    public synchronized double getRate() {
+        return this.rate;
+    }
+    
+    public synchronized int getQueueSize() {
+        return this.waiters.size();
+    }
+    
+    public synchronized long getNbThrottled() {
+        return this.nbThrottled;
+    }
+    
+    public synchronized long getNbRejected() {
+        return this.nbRejected;
+    }
+    
+    public double getMaxRate() {
+        return this.maxRate;
+    }
+    
+    public void setMaxRate(final double maxRate) {
+        this.maxRate = maxRate;
+    }
+    
+    public double getMinRate() {
+        return this.minRate;
+    }
+    
+    public void setMinRate(final double minRate) {
+        this.minRate = minRate;
+    }
+    
+    public int getBurst() {
+        return this.burst;
+    }
+    
+    public void setBurst(final int burst) {
+        this.burst = burst;
+    }
+    
+    public double getDecreaseFactor() {
+        return this.decreaseFactor;
+    }
+    
+    public void setDecreaseFactor(final double decreaseFactor) {
+        this.decreaseFactor = decreaseFactor;
+    }
+    
+    public int getMaxQueueSize() {
+        return this.maxQueueSize;
+    }
+    
+    public void setMaxQueueSize(final int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+    }
+    
+    public long getMaxWait() {
+        return this.maxWait;
+    }
+    
+    public void setMaxWait(final long maxWait) {
+        this.maxWait = maxWait;
+    }
+    
+    public String getRemainingHeader() {
+        return this.remainingHeader;
+    }
+    
+    /**
+     * Define the header of the number of remaining requests in the quota of the application (not of the user access token).
+     * 
+     * @param remainingHeader
+     */
+    public void setRemainingHeader(final String remainingHeader) {
+        this.remainingHeader = remainingHeader;
+    }
+    
+    public String getResetHeader() {
+        return this.resetHeader;
+    }
+    
+    /**
+     * Define the header of the reset time of the quota of the application (not of the user access token).
+     * 
+     * @param resetHeader
+     */
+    public void setResetHeader(final String resetHeader) {
+        this.resetHeader = resetHeader;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "maxRate", this.maxRate, "minRate", this.minRate, "burst", this.burst,
+                                     "decreaseFactor", this.decreaseFactor, "maxQueueSize", this.maxQueueSize, "maxWait",
+                                     this.maxWait, "remainingHeader", this.remainingHeader, "resetHeader", this.resetHeader);
+    }
+}
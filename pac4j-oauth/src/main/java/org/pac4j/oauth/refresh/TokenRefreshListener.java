@@ -0,0 +1,45 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.refresh;
+
+import org.pac4j.oauth.profile.OAuthProfile;
+
+/**
+ * This interface is notified of the results of the background refreshes of the {@link TokenRefreshScheduler}, for example to save
+ * the updated profiles in an external session store.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public interface TokenRefreshListener {
+    
+    /**
+     * The access token of the profile has been renewed.
+     * 
+     * @param key
+     * @param profile
+     */
+    public void onRefresh(String key, OAuthProfile profile);
+    
+    /**
+     * The access token of the profile could not be renewed before its expiration : the profile is no longer scheduled.
+     * 
+     * @param key
+     * @param profile
+     * @param e
+     */
+    public void onFailure(String key, OAuthProfile profile, Exception e);
+}
@@ -0,0 +1,447 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.refresh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.DaemonThreadFactory;
+import org.pac4j.core.util.InitializableObject;
+import org.pac4j.oauth.client.BaseOAuth20Client;
+import org.pac4j.oauth.profile.OAuthProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class renews in background the access tokens of OAuth 2.0 profiles before they expire, using their refresh tokens, so that
+ * long-lived sessions never need a new authentication at the provider.
+ * <p />
+ * The profiles are registered by the {@link #schedule(String, BaseOAuth20Client, OAuthProfile)} method under a key (the session
+ * identifier for example) and unregistered by the {@link #cancel(String)} method. Each access token is refreshed some time
+ * (<code>refreshMargin</code>) before its expiration, plus a random delay (<code>jitter</code>) to spread the refreshes of tokens
+ * created at the same time.
+ * <p />
+ * Registrations are kept in a hashed timing wheel of <code>wheelSize</code> buckets advanced every <code>tickDuration</code>
+ * milliseconds by a single thread : scheduling and cancelling are O(1), whatever the number of registered profiles. The due
+ * refreshes are grouped in batches of <code>batchSize</code> profiles executed by a pool of <code>maxConcurrency</code> threads,
+ * which bounds the load on the providers. A failed refresh is retried every <code>retryDelay</code> milliseconds until the access
+ * token expires : the {@link TokenRefreshListener} is then notified and the profile is unregistered.
+ * <p />
+ * The updated profiles are the registered instances : they must be saved again if the sessions are not stored in memory (see the
+ * {@link TokenRefreshListener}). The {@link #destroy()} method stops the background threads.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class TokenRefreshScheduler extends InitializableObject {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TokenRefreshScheduler.class);
+    
+    private static final AtomicInteger nbSchedulers = new AtomicInteger();
+    
+    private static final long TERMINATION_TIMEOUT = 10000;
+    
+    protected long tickDuration = 1000;
+    
+    protected int wheelSize = 512;
+    
+    // 5 minutes
+    protected long refreshMargin = 300000;
+    
+    // 2 minutes
+    protected long jitter = 120000;
+    
+    protected long retryDelay = 30000;
+    
+    protected int batchSize = 100;
+    
+    protected int maxConcurrency = 4;
+    
+    protected TokenRefreshListener listener;
+    
+    private final ConcurrentMap<String, Entry<?>> entries = new ConcurrentHashMap<String, Entry<?>>();
+    
+    private final Queue<Entry<?>> pendingEntries = new ConcurrentLinkedQueue<Entry<?>>();
+    
+    private final Random random = new Random();
+    
+    // the wheel and the current tick are only accessed by the ticker thread
+    private List<Entry<?>>[] wheel;
+    
+    private long tick;
+    
+    private volatile long startTime;
+    
+    private ScheduledExecutorService ticker;
+    
+    private ExecutorService refresher;
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void internalInit() throws ClientException {
+        if (this.tickDuration <= 0 || this.wheelSize <= 0 || this.batchSize <= 0 || this.maxConcurrency <= 0) {
+            throw new ClientException("tickDuration, wheelSize, batchSize and maxConcurrency must be positive");
+        }
+        final ExecutorService previousTicker = this.ticker;
+        destroy();
+        // an in-flight advance of the previous ticker must not touch the new wheel
+        awaitTermination(previousTicker);
+        this.wheel = new List[this.wheelSize];
+        for (int i = 0; i < this.wheelSize; i++) {
+            this.wheel[i] = new ArrayList<Entry<?>>();
+        }
+        this.tick = 0;
+        this.startTime = System.currentTimeMillis();
+        // registrations made before a re-initialization are kept
+        this.pendingEntries.addAll(this.entries.values());
+        final String name = "pac4j-token-refresh-" + nbSchedulers.incrementAndGet();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory(name + "-ticker"));
+        this.refresher = Executors.newFixedThreadPool(this.maxConcurrency, new DaemonThreadFactory(name));
+        this.ticker.scheduleAtFixedRate(new Runnable() {
+            
+            public void run() {
+                try {
+                    advance();
+                } catch (final RuntimeException e) {
+                    // an exception would cancel the next ticks
+                    logger.error("Cannot advance token refresh wheel", e);
+                }
+            }
+        }, this.tickDuration, this.tickDuration, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Register a profile whose access token must be renewed before it expires. A previous registration with the same key is
+     * replaced.
+     * 
+     * @param key
+     * @param client
+     * @param profile
+     * @return whether the profile is registered (<code>false</code> if it has no refresh token or no expiration time)
+     * @throws ClientException
+     */
+    public <U extends OAuthProfile> boolean schedule(final String key, final BaseOAuth20Client<U> client, final U profile)
+        throws ClientException {
+        init();
+        CommonHelper.assertNotBlank("key", key);
+        CommonHelper.assertNotNull("client", client);
+        CommonHelper.assertNotNull("profile", profile);
+        final Long expirationTime = profile.getAccessTokenExpiration();
+        if (!CommonHelper.isNotBlank(profile.getRefreshToken()) || expirationTime == null) {
+            logger.debug("No refresh token or expiration time for key : {}", key);
+            return false;
+        }
+        final Entry<U> entry = new Entry<U>(key, client, profile);
+        entry.refreshTime = computeRefreshTime(expirationTime, System.currentTimeMillis());
+        final Entry<?> previous = this.entries.put(key, entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        this.pendingEntries.add(entry);
+        logger.debug("Refresh scheduled at {} for key : {}", entry.refreshTime, key);
+        return true;
+    }
+    
+    /**
+     * Unregister the profile registered with the key.
+     * 
+     * @param key
+     */
+    public void cancel(final String key) {
+        if (key != null) {
+            final Entry<?> entry = this.entries.remove(key);
+            if (entry != null) {
+                entry.cancelled = true;
+            }
+        }
+    }
+    
+    /**
+     * Return whether a profile is registered with the key.
+     * 
+     * @param key
+     * @return whether a profile is registered
+     */
+    public boolean isScheduled(final String key) {
+        return key != null && this.entries.containsKey(key);
+    }
+    
+    /**
+     * Return the number of registered profiles.
+     * 
+     * @return the number of registered profiles
+     */
+    public int size() {
+        return this.entries.size();
+    }
+    
+    /**
+     * Stop the background threads (the registrations are kept for a re-initialization).
+     */
+    public synchronized void destroy() {
+        if (this.ticker != null) {
+            this.ticker.shutdownNow();
+            this.ticker = null;
+        }
+        if (this.refresher != null) {
+            this.refresher.shutdownNow();
+            this.refresher = null;
+        }
+    }
+    
+    private void awaitTermination(final ExecutorService executor) throws ClientException {
+        if (executor != null) {
+            try {
+                if (!executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    throw new ClientException("Previous ticker not terminated after " + TERMINATION_TIMEOUT + " ms");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientException(e);
+            }
+        }
+    }
+    
+    /**
+     * Compute when to refresh an access token : <code>refreshMargin</code> plus a random part of <code>jitter</code> before its
+     * expiration, but not before the middle of its remaining lifetime (for short-lived tokens).
+     * 
+     * @param expirationTime
+     * @param now
+     * @return the refresh time
+     */
+    protected long computeRefreshTime(final long expirationTime, final long now) {
+        long refreshTime = expirationTime - this.refreshMargin;
+        if (this.jitter > 0) {
+            refreshTime -= (long) (this.random.nextDouble() * this.jitter);
+        }
+        final long halfLifetime = now + (expirationTime - now) / 2;
+        return Math.max(refreshTime, halfLifetime);
+    }
+    
+    /**
+     * Advance the wheel up to the current time and dispatch the due refreshes (ticker thread only).
+     */
+    protected void advance() {
+        final long currentTick = (System.currentTimeMillis() - this.startTime) / this.tickDuration;
+        Entry<?> entry;
+        while ((entry = this.pendingEntries.poll()) != null) {
+            if (!entry.cancelled) {
+                entry.deadlineTick = Math.max((entry.refreshTime - this.startTime) / this.tickDuration, this.tick);
+                this.wheel[(int) (entry.deadlineTick % this.wheelSize)].add(entry);
+            }
+        }
+        final List<Entry<?>> dueEntries = new ArrayList<Entry<?>>();
+        // a late ticker processes all the elapsed ticks, but a whole revolution at most
+        final long lastTick = Math.min(currentTick, this.tick + this.wheelSize - 1);
+        for (long t = this.tick; t <= lastTick; t++) {
+            final List<Entry<?>> bucket = this.wheel[(int) (t % this.wheelSize)];
+            int i = 0;
+            while (i < bucket.size()) {
+                final Entry<?> e = bucket.get(i);
+                if (e.cancelled || e.deadlineTick <= currentTick) {
+                    // swap with the last one for an O(1) removal
+                    bucket.set(i, bucket.get(bucket.size() - 1));
+                    bucket.remove(bucket.size() - 1);
+                    if (!e.cancelled) {
+                        dueEntries.add(e);
+                    }
+                } else {
+                    i++;
+                }
+            }
+        }
+        this.tick = Math.max(this.tick, currentTick + 1);
+        dispatch(dueEntries);
+    }
+    
+    private void dispatch(final List<Entry<?>> dueEntries) {
+        final ExecutorService executor = this.refresher;
+        for (int from = 0; from < dueEntries.size() && executor != null; from += this.batchSize) {
+            final List<Entry<?>> batch = dueEntries.subList(from, Math.min(from + this.batchSize, dueEntries.size()));
+            logger.debug("Dispatch batch of {} refreshes", batch.size());
+            executor.execute(new Runnable() {
+                
+                public void run() {
+                    for (final Entry<?> e : batch) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        refresh(e);
+                    }
+                }
+            });
+        }
+    }
+    
+    /**
+     * Refresh the access token of a registered profile and schedule its next refresh (refresher threads only).
+     * 
+     * @param entry
+     */
+    protected void refresh(final Entry<?> entry) {
+        if (entry.cancelled) {
+            return;
+        }
+        final long now;
+        try {
+            entry.refresh();
+            now = System.currentTimeMillis();
+            logger.debug("Access token refreshed for key : {}", entry.key);
+            if (this.listener != null) {
+                this.listener.onRefresh(entry.key, entry.profile);
+            }
+        } catch (final ClientException e) {
+            final Long expirationTime = entry.profile.getAccessTokenExpiration();
+            final long retryTime = System.currentTimeMillis() + this.retryDelay;
+            if (expirationTime != null && retryTime < expirationTime) {
+                logger.warn("Cannot refresh access token for key : {}, retry at {}", entry.key, retryTime);
+                entry.refreshTime = retryTime;
+                this.pendingEntries.add(entry);
+            } else {
+                logger.error("Cannot refresh access token for key : " + entry.key, e);
+                unregister(entry, e);
+            }
+            return;
+        }
+        final Long expirationTime = entry.profile.getAccessTokenExpiration();
+        if (expirationTime == null || expirationTime <= now) {
+            logger.error("Refreshed access token has no valid expiration time for key : {}", entry.key);
+            unregister(entry, null);
+        } else {
+            entry.refreshTime = computeRefreshTime(expirationTime, now);
+            this.pendingEntries.add(entry);
+        }
+    }
+    
+    private void unregister(final Entry<?> entry, final Exception e) {
+        if (this.entries.remove(entry.key, entry) && this.listener != null) {
+            this.listener.onFailure(entry.key, entry.profile, e);
+        }
+    }
+    
+    public long getTickDuration() {
+        return this.tickDuration;
+    }
+    
+    public void setTickDuration(final long tickDuration) {
+        this.tickDuration = tickDuration;
+    }
+    
+    public int getWheelSize() {
+        return this.wheelSize;
+    }
+    
+    public void setWheelSize(final int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+    
+    public long getRefreshMargin() {
+        return this.refreshMargin;
+    }
+    
+    public void setRefreshMargin(final long refreshMargin) {
+        this.refreshMargin = refreshMargin;
+    }
+    
+    public long getJitter() {
+        return this.jitter;
+    }
+    
+    public void setJitter(final long jitter) {
+        this.jitter = jitter;
+    }
+    
+    public long getRetryDelay() {
+        return this.retryDelay;
+    }
+    
+    public void setRetryDelay(final long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+    
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+    
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+    
+    public void setMaxConcurrency(final int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+    
+    public TokenRefreshListener getListener() {
+        return this.listener;
+    }
+    
+    public void setListener(final TokenRefreshListener listener) {
+        this.listener = listener;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "tickDuration", this.tickDuration, "wheelSize", this.wheelSize,
+                                     "refreshMargin", this.refreshMargin, "jitter", this.jitter, "retryDelay",
+                                     this.retryDelay, "batchSize", this.batchSize, "maxConcurrency",
+                                     this.maxConcurrency, "size", this.entries.size());
+    }
+    
+    /**
+     * A registered profile.
+     */
+    protected static final class Entry<U extends OAuthProfile> {
+        
+        private final String key;
+        
+        private final BaseOAuth20Client<U> client;
+        
+        private final U profile;
+        
+        private long refreshTime;
+        
+        private long deadlineTick;
+        
+        private volatile boolean cancelled = false;
+        
+        private Entry(final String key, final BaseOAuth20Client<U> client, final U profile) {
+            this.key = key;
+            this.client = client;
+            this.profile = profile;
+        }
+        
+        private void refresh() throws ClientException {
+            this.client.refreshAccessToken(this.profile);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.timeout;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.InitializableObject;
+
+/**
+ * This class computes the timeouts of the requests to a provider from their observed latencies.
+ * <p />
+ * The latencies are recorded in a histogram of logarithmic buckets (25% wide, from 1 millisecond to 2 minutes) whose weights decay
+ * exponentially (they are halved every <code>halfLife</code> milliseconds) : recent latencies prevail, so that the timeouts follow the
+ * slow and fast periods of the provider. A request which times out is recorded with its timeout as latency, so that the timeouts grow
+ * when the provider slows down.
+ * <p />
+ * Once <code>minSamples</code> latencies have been recorded, the connect timeout is the <code>connectPercentile</code> of the latencies
+ * (95% by default) and the read timeout the <code>readPercentile</code> (99% by default), multiplied by <code>multiplier</code> (2 by
+ * default) and clamped to their bounds. As the connection time cannot be observed separately, the connect timeout is derived from the
+ * whole latency. Before, the default timeouts given by the caller are used.
+ * <p />
+ * The current values are returned by the {@link #getCurrentConnectTimeout()} and {@link #getCurrentReadTimeout()} methods.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class AdaptiveTimeouts extends InitializableObject {
+    
+    private static final double BUCKET_RATIO = 1.25;
+    
+    // 2 minutes
+    private static final double MAX_LATENCY = 120000;
+    
+    private static final long[] BOUNDS;
+    
+    static {
+        final int nbBuckets = (int) Math.ceil(Math.log(MAX_LATENCY) / Math.log(BUCKET_RATIO)) + 1;
+        BOUNDS = new long[nbBuckets];
+        for (int i = 0; i < nbBuckets; i++) {
+            BOUNDS[i] = (long) Math.ceil(Math.pow(BUCKET_RATIO, i));
+        }
+    }
+    
+    // 1 minute
+    private long halfLife = 60000;
+    
+    private int minSamples = 20;
+    
+    private double connectPercentile = 0.95;
+    
+    private double readPercentile = 0.99;
+    
+    private double multiplier = 2;
+    
+    private int minConnectTimeout = 100;
+    
+    private int maxConnectTimeout = 5000;
+    
+    private int minReadTimeout = 500;
+    
+    private int maxReadTimeout = 10000;
+    
+    // the histogram is guarded by this
+    
+    private final double[] weights = new double[BOUNDS.length];
+    
+    private double totalWeight;
+    
+    private long nbSamples;
+    
+    private long lastDecayTime;
+    
+    private volatile int currentConnectTimeout = -1;
+    
+    private volatile int currentReadTimeout = -1;
+    
+    @Override
+    protected synchronized void internalInit() throws ClientException {
+        if (this.halfLife <= 0 || this.minSamples <= 0 || this.connectPercentile <= 0 || this.connectPercentile >= 1
+            || this.readPercentile <= 0 || this.readPercentile >= 1 || this.multiplier < 1 || this.minConnectTimeout <= 0
+            || this.minConnectTimeout > this.maxConnectTimeout || this.minReadTimeout <= 0
+            || this.minReadTimeout > this.maxReadTimeout) {
+            throw new ClientException("Invalid adaptive timeouts configuration : " + this);
+        }
+        for (int i = 0; i < this.weights.length; i++) {
+            this.weights[i] = 0;
+        }
+        this.totalWeight = 0;
+        this.nbSamples = 0;
+        this.lastDecayTime = System.currentTimeMillis();
+        this.currentConnectTimeout = -1;
+        this.currentReadTimeout = -1;
+    }
+    
+    /**
+     * Record the latency of a request (or its timeout if it has timed out). Latencies are ignored until the object is initialized.
+     * 
+     * @param latency in milliseconds
+     */
+    public void record(final long latency) {
+        if (!isInitialized()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            decay(now);
+            this.weights[findBucket(latency)]++;
+            this.totalWeight++;
+            this.nbSamples++;
+            if (this.nbSamples >= this.minSamples) {
+                this.currentConnectTimeout = computeTimeout(this.connectPercentile, this.minConnectTimeout,
+                                                            this.maxConnectTimeout);
+                this.currentReadTimeout = computeTimeout(this.readPercentile, this.minReadTimeout, this.maxReadTimeout);
+            }
+        }
+    }
+    
+    /**
+     * Return the connect timeout to use.
+     * 
+     * @param defaultTimeout used while not enough latencies have been recorded
+     * @return the connect timeout to use
+     */
+    public int getConnectTimeout(final int defaultTimeout) {
+        final int timeout = this.currentConnectTimeout;
+        return timeout > 0 ? timeout : defaultTimeout;
+    }
+    
+    /**
+     * Return the read timeout to use.
+     * 
+     * @param defaultTimeout used while not enough latencies have been recorded
+     * @return the read timeout to use
+     */
+    public int getReadTimeout(final int defaultTimeout) {
+        final int timeout = this.currentReadTimeout;
+        return timeout > 0 ? timeout : defaultTimeout;
+    }
+    
+    /**
+     * Return the latency percentile of the recorded latencies (upper bound of its bucket).
+     * 
+     * @param percentile
+     * @return the latency percentile in milliseconds (-1 if no latency has been recorded)
+     */
+    public synchronized long getLatency(final double percentile) {
+        if (this.totalWeight <= 0) {
+            return -1;
+        }
+        final double target = percentile * this.totalWeight;
+        double cumulated = 0;
+        for (int i = 0; i < this.weights.length; i++) {
+            cumulated += this.weights[i];
+            if (cumulated >= target && this.weights[i] > 0) {
+                return BOUNDS[i];
+            }
+        }
+        return BOUNDS[BOUNDS.length - 1];
+    }
+    
+    private int computeTimeout(final double percentile, final int min, final int max) {
+        final double timeout = getLatency(percentile) * this.multiplier;
+        return (int) Math.max(min, Math.min(max, timeout));
+    }
+    
+    private void decay(final long now) {
+        final long elapsed = now - this.lastDecayTime;
+        if (elapsed > 0) {
+            final double factor = Math.pow(0.5, (double) elapsed / this.halfLife);
+            for (int i = 0; i < this.weights.length; i++) {
+                this.weights[i] *= factor;
+            }
+            this.totalWeight *= factor;
+            this.lastDecayTime = now;
+        }
+    }
+    
+    private static int findBucket(final long latency) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (latency <= BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS.length - 1;
+    }
+    
+    /**
+     * Return the current adaptive connect timeout.
+     * 
+     * @return the current adaptive connect timeout (-1 if not enough latencies have been recorded)
+     */
+    public int getCurrentConnectTimeout() {
+        return this.currentConnectTimeout;
+    }
+    
+    /**
+     * Return the current adaptive read timeout.
+     * 
+     * @return the current adaptive read timeout (-1 if not enough latencies have been recorded)
+     */
+    public int getCurrentReadTimeout() {
+        return this.currentReadTimeout;
+    }
+    
+    public synchronized long getNbSamples() {
+        return this.nbSamples;
+    }
+    
+    public long getHalfLife() {
+        return this.halfLife;
+    }
+    
+    public void setHalfLife(final long halfLife) {
+        this.halfLife = halfLife;
+    }
+    
+    public int getMinSamples() {
+        return this.minSamples;
+    }
+    
+    public void setMinSamples(final int minSamples) {
+        this.minSamples = minSamples;
+    }
+    
+    public double getConnectPercentile() {
+        return this.connectPercentile;
+    }
+    
+    public void setConnectPercentile(final double connectPercentile) {
+        this.connectPercentile = connectPercentile;
+    }
+    
+    public double getReadPercentile() {
+        return this.readPercentile;
+    }
+    
+    public void setReadPercentile(final double readPercentile) {
+        this.readPercentile = readPercentile;
+    }
+    
+    public double getMultiplier() {
+        return this.multiplier;
+    }
+    
+    public void setMultiplier(final double multiplier) {
+        this.multiplier = multiplier;
+    }
+    
+    public int getMinConnectTimeout() {
+        return this.minConnectTimeout;
+    }
+    
+    public void setMinConnectTimeout(final int minConnectTimeout) {
+        this.minConnectTimeout = minConnectTimeout;
+    }
+    
+    public int getMaxConnectTimeout() {
+        return this.maxConnectTimeout;
+    }
+    
+    public void setMaxConnectTimeout(final int maxConnectTimeout) {
+        this.maxConnectTimeout = maxConnectTimeout;
+    }
+    
+    public int getMinReadTimeout() {
+        return this.minReadTimeout;
+    }
+    
+    public void setMinReadTimeout(final int minReadTimeout) {
+        this.minReadTimeout = minReadTimeout;
+    }
+    
+    public int getMaxReadTimeout() {
+        return this.maxReadTimeout;
+    }
+    
+    public void setMaxReadTimeout(final int maxReadTimeout) {
+        this.maxReadTimeout = maxReadTimeout;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "halfLife", this.halfLife, "minSamples", this.minSamples,
+                                     "connectPercentile", this.connectPercentile, "readPercentile", this.readPercentile,
+                                     "multiplier", this.multiplier, "minConnectTimeout", this.minConnectTimeout,
+                                     "maxConnectTimeout", this.maxConnectTimeout, "minReadTimeout", this.minReadTimeout,
+                                     "maxReadTimeout", this.maxReadTimeout);
+    }
+}
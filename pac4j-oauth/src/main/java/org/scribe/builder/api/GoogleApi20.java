@@ -17,7 +17,7 @@ package org.scribe.builder.api;
 
 import org.scribe.builder.api.DefaultApi20;
 import org.scribe.extractors.AccessTokenExtractor;
-import org.scribe.extractors.Google2JsonExtractor;
+import org.scribe.extractors.OAuth20TokenExtractor;
 import org.scribe.model.OAuthConfig;
 import org.scribe.model.Verb;
 import org.scribe.utils.OAuthEncoder;
@@ -31,10 +31,23 @@ import org.scribe.utils.OAuthEncoder;
 public class GoogleApi20 extends DefaultApi20 {
     private static final String AUTHORIZATION_URL = "https://accounts.google.com/o/oauth2/auth?client_id=%s&redirect_uri=%s&scope=%s&response_type=code";
     
+    // to get a refresh token
+    private static final String OFFLINE_AUTHORIZATION_URL = AUTHORIZATION_URL + "&access_type=offline&approval_prompt=force";
+    
+    private final boolean offline;
+    
+    public GoogleApi20() {
+        this(false);
+    }
+    
+    public GoogleApi20(final boolean offline) {
+        this.offline = offline;
+    }
+    
     @Override
     public String getAuthorizationUrl(final OAuthConfig config) {
-        return String.format(AUTHORIZATION_URL, config.getApiKey(), OAuthEncoder.encode(config.getCallback()),
-                             OAuthEncoder.encode(config.getScope()));
+        return String.format(this.offline ? OFFLINE_AUTHORIZATION_URL : AUTHORIZATION_URL, config.getApiKey(),
+                             OAuthEncoder.encode(config.getCallback()), OAuthEncoder.encode(config.getScope()));
     }
     
     @Override
@@ -49,6 +62,6 @@ public class GoogleApi20 extends DefaultApi20 {
     
     @Override
     public AccessTokenExtractor getAccessTokenExtractor() {
-        return new Google2JsonExtractor();
+        return new OAuth20TokenExtractor();
     }
 }
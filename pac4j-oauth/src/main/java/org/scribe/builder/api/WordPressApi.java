@@ -17,7 +17,7 @@ package org.scribe.builder.api;
 
 import org.scribe.builder.api.DefaultApi20;
 import org.scribe.extractors.AccessTokenExtractor;
-import org.scribe.extractors.JsonTokenExtractor;
+import org.scribe.extractors.OAuth20TokenExtractor;
 import org.scribe.model.OAuthConfig;
 import org.scribe.model.Verb;
 import org.scribe.utils.OAuthEncoder;
@@ -54,6 +54,6 @@ public final class WordPressApi extends DefaultApi20 {
     
     @Override
     public AccessTokenExtractor getAccessTokenExtractor() {
-        return new JsonTokenExtractor();
+        return new OAuth20TokenExtractor();
     }
 }
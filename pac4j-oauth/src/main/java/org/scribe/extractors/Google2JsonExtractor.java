@@ -28,7 +28,9 @@ import org.scribe.utils.Preconditions;
  * 
  * @author Jerome Leleu
  * @since 1.2.0
+ * @deprecated use {@link OAuth20TokenExtractor} which also extracts the refresh token and the lifetime of the access token
  */
+@Deprecated
 public class Google2JsonExtractor implements AccessTokenExtractor {
     
     private final Pattern accessTokenPattern = Pattern.compile("\"access_token\"\\s*:\\s*\"(\\S*?)\"");
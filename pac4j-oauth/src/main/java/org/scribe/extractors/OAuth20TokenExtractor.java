@@ -0,0 +1,183 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.scribe.extractors;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.scribe.exceptions.OAuthException;
+import org.scribe.model.OAuth20Token;
+import org.scribe.utils.OAuthEncoder;
+import org.scribe.utils.Preconditions;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * This class represents a token extractor for all OAuth 2.0 token responses : JSON (Google, Windows Live, WordPress...) and
+ * form-encoded (Facebook, GitHub, CAS OAuth wrapper...) bodies are both read in a single streaming pass. It returns an
+ * {@link OAuth20Token} with the refresh token, the lifetime, the scope and the type of the access token. It could be part of the Scribe
+ * library.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class OAuth20TokenExtractor implements AccessTokenExtractor {
+    
+    public static final String ACCESS_TOKEN = "access_token";
+    
+    public static final String REFRESH_TOKEN = "refresh_token";
+    
+    public static final String EXPIRES_IN = "expires_in";
+    
+    // Facebook and CAS OAuth wrapper
+    public static final String EXPIRES = "expires";
+    
+    public static final String SCOPE = "scope";
+    
+    public static final String TOKEN_TYPE = "token_type";
+    
+    public static final String ERROR = "error";
+    
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    
+    public OAuth20Token extract(final String response) {
+        Preconditions.checkEmptyString(response, "Cannot extract a token from a null or empty String");
+        final Map<String, String> values;
+        if (isJson(response)) {
+            values = parseJson(response);
+        } else {
+            values = parseForm(response);
+        }
+        final String accessToken = values.get(ACCESS_TOKEN);
+        if (accessToken == null || accessToken.length() == 0) {
+            final String error = values.get(ERROR);
+            if (error != null) {
+                throw new OAuthException("Cannot extract an access token (error : " + error + "). Response was: "
+                                         + response);
+            }
+            throw new OAuthException("Cannot extract an access token. Response was: " + response);
+        }
+        String expires = values.get(EXPIRES_IN);
+        if (expires == null) {
+            expires = values.get(EXPIRES);
+        }
+        return new OAuth20Token(accessToken, response, values.get(REFRESH_TOKEN), parseInteger(expires),
+                                values.get(SCOPE), values.get(TOKEN_TYPE));
+    }
+    
+    private boolean isJson(final String response) {
+        for (int i = 0; i < response.length(); i++) {
+            final char c = response.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{';
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Read the top-level scalar fields of a JSON object, nested structures are skipped.
+     * 
+     * @param response
+     * @return the top-level fields
+     */
+    private Map<String, String> parseJson(final String response) {
+        final Map<String, String> values = new HashMap<String, String>();
+        JsonParser parser = null;
+        try {
+            parser = jsonFactory.createJsonParser(response);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return values;
+            }
+            JsonToken token = parser.nextToken();
+            while (token == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    if (ERROR.equals(name) && token == JsonToken.START_OBJECT) {
+                        values.put(ERROR, readErrorMessage(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else if (token != null && token != JsonToken.VALUE_NULL) {
+                    values.put(name, parser.getText());
+                }
+                token = parser.nextToken();
+            }
+        } catch (final IOException e) {
+            throw new OAuthException("Cannot parse the token response as JSON. Response was: " + response, e);
+        } finally {
+            if (parser != null) {
+                try {
+                    parser.close();
+                } catch (final IOException e) {
+                    // nothing to do
+                }
+            }
+        }
+        return values;
+    }
+    
+    // Facebook Graph API errors : { "error" : { "message" : "...", "type" : "..." } }
+    private String readErrorMessage(final JsonParser parser) throws IOException {
+        String message = null;
+        JsonToken token = parser.nextToken();
+        while (token == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else if ("message".equals(name)) {
+                message = parser.getText();
+            }
+            token = parser.nextToken();
+        }
+        return message != null ? message : "unknown";
+    }
+    
+    private Map<String, String> parseForm(final String response) {
+        final Map<String, String> values = new HashMap<String, String>();
+        final String body = response.trim();
+        int start = 0;
+        while (start < body.length()) {
+            int end = body.indexOf('&', start);
+            if (end < 0) {
+                end = body.length();
+            }
+            final int equal = body.indexOf('=', start);
+            if (equal > start && equal < end) {
+                values.put(OAuthEncoder.decode(body.substring(start, equal)),
+                           OAuthEncoder.decode(body.substring(equal + 1, end)));
+            }
+            start = end + 1;
+        }
+        return values;
+    }
+    
+    private Integer parseInteger(final String value) {
+        if (value != null) {
+            try {
+                return Integer.valueOf(value.trim());
+            } catch (final NumberFormatException e) {
+                // invalid lifetime : ignored
+            }
+        }
+        return null;
+    }
+}
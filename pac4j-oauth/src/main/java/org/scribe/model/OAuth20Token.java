@@ -0,0 +1,115 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.scribe.model;
+
+/**
+ * This class represents an OAuth 2.0 access token with its metadata : refresh token, lifetime, scope and type. It could be part of the
+ * Scribe library.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class OAuth20Token extends Token {
+    
+    private static final long serialVersionUID = -1283478413622960424L;
+    
+    private final String refreshToken;
+    
+    private final Integer expiresIn;
+    
+    private final String scope;
+    
+    private final String tokenType;
+    
+    private final long creationTime;
+    
+    public OAuth20Token(final String token, final String rawResponse, final String refreshToken,
+                        final Integer expiresIn, final String scope, final String tokenType) {
+        this(token, rawResponse, refreshToken, expiresIn, scope, tokenType, System.currentTimeMillis());
+    }
+    
+    public OAuth20Token(final String token, final String rawResponse, final String refreshToken,
+                        final Integer expiresIn, final String scope, final String tokenType, final long creationTime) {
+        super(token, "", rawResponse);
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+        this.scope = scope;
+        this.tokenType = tokenType;
+        this.creationTime = creationTime;
+    }
+    
+    public String getRefreshToken() {
+        return this.refreshToken;
+    }
+    
+    /**
+     * Return the lifetime of the token in seconds.
+     * 
+     * @return the lifetime of the token in seconds or <code>null</code> if unknown
+     */
+    public Integer getExpiresIn() {
+        return this.expiresIn;
+    }
+    
+    public String getScope() {
+        return this.scope;
+    }
+    
+    public String getTokenType() {
+        return this.tokenType;
+    }
+    
+    public long getCreationTime() {
+        return this.creationTime;
+    }
+    
+    /**
+     * Return the expiration time of the token (in milliseconds since epoch).
+     * 
+     * @return the expiration time or <code>null</code> if the lifetime of the token is unknown
+     */
+    public Long getExpirationTime() {
+        if (this.expiresIn == null) {
+            return null;
+        }
+        return this.creationTime + this.expiresIn.longValue() * 1000;
+    }
+    
+    /**
+     * Return whether the token is expired (or will be in the given number of milliseconds). A token without lifetime never expires.
+     * 
+     * @param marginInMillis
+     * @return whether the token is expired
+     */
+    public boolean isExpired(final long marginInMillis) {
+        final Long expirationTime = getExpirationTime();
+        return expirationTime != null && System.currentTimeMillis() + marginInMillis >= expirationTime;
+    }
+    
+    public boolean isExpired() {
+        return isExpired(0);
+    }
+    
+    public boolean hasRefreshToken() {
+        return this.refreshToken != null && this.refreshToken.length() > 0;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("OAuth20Token[%s , expiresIn=%s , refreshToken=%s , scope=%s , tokenType=%s]", getToken(),
+                             this.expiresIn, hasRefreshToken() ? "***" : null, this.scope, this.tokenType);
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
+import org.pac4j.core.util.Deadline;
 import org.scribe.exceptions.OAuthConnectionException;
 import org.scribe.exceptions.OAuthException;
 
@@ -112,11 +113,14 @@ class ProxyRequest {
     
     Response doSend() throws IOException {
         this.connection.setRequestMethod(this.verb.name());
-        if (this.connectTimeout != null) {
-            this.connection.setConnectTimeout(this.connectTimeout.intValue());
+        // the timeouts are bounded by the login deadline (if any)
+        final int connectTimeoutValue = Deadline.computeTimeout(this.connectTimeout == null ? 0 : this.connectTimeout.intValue());
+        if (connectTimeoutValue > 0) {
+            this.connection.setConnectTimeout(connectTimeoutValue);
         }
-        if (this.readTimeout != null) {
-            this.connection.setReadTimeout(this.readTimeout.intValue());
+        final int readTimeoutValue = Deadline.computeTimeout(this.readTimeout == null ? 0 : this.readTimeout.intValue());
+        if (readTimeoutValue > 0) {
+            this.connection.setReadTimeout(readTimeoutValue);
         }
         addHeaders(this.connection);
         if (this.verb.equals(Verb.PUT) || this.verb.equals(Verb.POST)) {
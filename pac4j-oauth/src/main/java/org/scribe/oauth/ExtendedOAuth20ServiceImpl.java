@@ -16,6 +16,7 @@
 package org.scribe.oauth;
 
 import org.scribe.builder.api.DefaultApi20;
+import org.scribe.model.OAuth20Token;
 import org.scribe.model.OAuthConfig;
 import org.scribe.model.OAuthConstants;
 import org.scribe.model.OAuthRequest;
@@ -50,8 +51,22 @@ public class ExtendedOAuth20ServiceImpl extends ProxyOAuth20ServiceImpl {
         if (this.config.hasScope())
             request.addBodyParameter(OAuthConstants.SCOPE, this.config.getScope());
         // PATCH : + grant_type parameter
-        request.addBodyParameter("grant_type", "authorization_code");
+        request.addBodyParameter(GRANT_TYPE, "authorization_code");
         final Response response = request.send();
-        return this.api.getAccessTokenExtractor().extract(response.getBody());
+        return extractAccessToken(response.getBody());
+    }
+    
+    @Override
+    public OAuth20Token refreshAccessToken(final String refreshToken) {
+        final OAuthRequest request = new ProxyOAuthRequest(this.api.getAccessTokenVerb(),
+                                                           this.api.getAccessTokenEndpoint(), this.proxyHost,
+                                                           this.proxyPort);
+        // body parameters instead of request parameters
+        request.addBodyParameter(OAuthConstants.CLIENT_ID, this.config.getApiKey());
+        request.addBodyParameter(OAuthConstants.CLIENT_SECRET, this.config.getApiSecret());
+        request.addBodyParameter(REFRESH_TOKEN, refreshToken);
+        request.addBodyParameter(GRANT_TYPE, REFRESH_TOKEN);
+        final Response response = request.send();
+        return extractAccessToken(response.getBody());
     }
 }
@@ -16,6 +16,11 @@
 package org.scribe.oauth;
 
 import org.scribe.builder.api.DefaultApi20;
+import org.scribe.exceptions.OAuthException;
+import org.scribe.extractors.AccessTokenExtractor;
+import org.scribe.extractors.OAuth20TokenExtractor;
+import org.scribe.extractors.TokenExtractor20Impl;
+import org.scribe.model.OAuth20Token;
 import org.scribe.model.OAuthConfig;
 import org.scribe.model.OAuthConstants;
 import org.scribe.model.OAuthRequest;
@@ -33,6 +38,12 @@ import org.scribe.oauth.OAuth20ServiceImpl;
  */
 public class ProxyOAuth20ServiceImpl extends OAuth20ServiceImpl {
     
+    protected static final String GRANT_TYPE = "grant_type";
+    
+    protected static final String REFRESH_TOKEN = "refresh_token";
+    
+    private static final OAuth20TokenExtractor tokenExtractor = new OAuth20TokenExtractor();
+    
     protected final DefaultApi20 api;
     protected final OAuthConfig config;
     protected final String proxyHost;
@@ -59,6 +70,53 @@ public class ProxyOAuth20ServiceImpl extends OAuth20ServiceImpl {
         if (this.config.hasScope())
             request.addQuerystringParameter(OAuthConstants.SCOPE, this.config.getScope());
         final Response response = request.send();
-        return this.api.getAccessTokenExtractor().extract(response.getBody());
+        return extractAccessToken(response.getBody());
+    }
+    
+    /**
+     * Get a new access token from a refresh token.
+     * 
+     * @param refreshToken
+     * @return the new access token
+     */
+    public OAuth20Token refreshAccessToken(final String refreshToken) {
+        final OAuthRequest request = new ProxyOAuthRequest(this.api.getAccessTokenVerb(),
+                                                           this.api.getAccessTokenEndpoint(), this.proxyHost,
+                                                           this.proxyPort);
+        request.addQuerystringParameter(OAuthConstants.CLIENT_ID, this.config.getApiKey());
+        request.addQuerystringParameter(OAuthConstants.CLIENT_SECRET, this.config.getApiSecret());
+        request.addQuerystringParameter(REFRESH_TOKEN, refreshToken);
+        request.addQuerystringParameter(GRANT_TYPE, REFRESH_TOKEN);
+        final Response response = request.send();
+        return extractAccessToken(response.getBody());
+    }
+    
+    /**
+     * Extract the access token (with its refresh token and lifetime) from the body of the token response with the extractor of the api :
+     * the default extractor of Scribe (form-encoded bodies only) is replaced by the {@link OAuth20TokenExtractor}. If the extractor of
+     * the api is not aware of the OAuth 2.0 token metadata, they are read by the {@link OAuth20TokenExtractor} when it finds the same
+     * access token.
+     * 
+     * @param body
+     * @return the access token
+     */
+    protected OAuth20Token extractAccessToken(final String body) {
+        final AccessTokenExtractor extractor = this.api.getAccessTokenExtractor();
+        if (extractor == null || extractor instanceof TokenExtractor20Impl) {
+            return tokenExtractor.extract(body);
+        }
+        final Token token = extractor.extract(body);
+        if (token instanceof OAuth20Token) {
+            return (OAuth20Token) token;
+        }
+        try {
+            final OAuth20Token oauth20Token = tokenExtractor.extract(body);
+            if (oauth20Token.getToken().equals(token.getToken())) {
+                return oauth20Token;
+            }
+        } catch (final OAuthException e) {
+            // no metadata
+        }
+        return new OAuth20Token(token.getToken(), body, null, null, null, null);
     }
 }
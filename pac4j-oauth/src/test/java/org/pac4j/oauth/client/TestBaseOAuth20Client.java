@@ -21,6 +21,9 @@ import org.pac4j.core.context.MockWebContext;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.util.TestsConstants;
 import org.pac4j.oauth.credentials.OAuthCredentials;
+import org.pac4j.oauth.profile.github.GitHubProfile;
+import org.scribe.model.OAuth20Token;
+import org.scribe.model.Token;
 
 /**
  * This class tests the OAuth credential retrieval in the {@link org.pac4j.oauth.client.BaseOAuth20Client} class.
@@ -54,4 +57,27 @@ public final class TestBaseOAuth20Client extends TestCase implements TestsConsta
         assertNotNull(oauthCredential);
         assertEquals(CODE, oauthCredential.getVerifier());
     }
+    
+    public void testToOAuth20Token() {
+        final Token token = new Token(TOKEN, "", "access_token=" + TOKEN + "&expires=60&refresh_token=" + SECRET);
+        final Token oauth20Token = getClient().toOAuth20Token(token);
+        assertTrue(oauth20Token instanceof OAuth20Token);
+        assertEquals(TOKEN, oauth20Token.getToken());
+        assertEquals(SECRET, ((OAuth20Token) oauth20Token).getRefreshToken());
+    }
+    
+    public void testToOAuth20TokenNoRawResponse() {
+        final Token token = new Token(TOKEN, "");
+        assertSame(token, getClient().toOAuth20Token(token));
+    }
+    
+    public void testAddAccessTokenToProfile() {
+        final GitHubClient client = new GitHubClient();
+        final GitHubProfile profile = new GitHubProfile();
+        client.addAccessTokenToProfile(profile, new OAuth20Token(TOKEN, null, SECRET, 60, null, null, 1000));
+        assertEquals(TOKEN, profile.getAccessToken());
+        assertEquals(SECRET, profile.getRefreshToken());
+        assertEquals(61000L, profile.getAccessTokenExpiration().longValue());
+        assertTrue(profile.isAccessTokenExpired(0));
+    }
 }
@@ -15,13 +15,34 @@
  */
 package org.pac4j.oauth.client;
 
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import junit.framework.TestCase;
 
+import org.pac4j.core.cache.MemoryCache;
 import org.pac4j.core.context.MockWebContext;
 import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.Deadline;
 import org.pac4j.core.util.TestsConstants;
 import org.pac4j.oauth.client.exception.OAuthCredentialsException;
 import org.pac4j.oauth.credentials.OAuthCredentials;
+import org.pac4j.oauth.hedging.RequestHedger;
+import org.pac4j.oauth.profile.CachedProfile;
+import org.pac4j.oauth.profile.github.GitHubProfile;
+import org.pac4j.oauth.ratelimit.RateLimiter;
+import org.pac4j.oauth.ratelimit.RateLimiter.Priority;
+import org.pac4j.oauth.timeout.AdaptiveTimeouts;
+import org.scribe.exceptions.OAuthConnectionException;
+import org.scribe.model.CannedResponse;
+import org.scribe.model.Response;
+import org.scribe.model.Token;
 
 /**
  * This class tests the {@link BaseOAuthClient} class.
@@ -73,4 +94,167 @@ public final class TestBaseOAuthClient extends TestCase implements TestsConstant
             assertEquals("Failed to retrieve OAuth credentials, error parameters found", e.getMessage());
         }
     }
+    
+    private static class CannedGitHubClient extends GitHubClient {
+        
+        private final List<Response> responses = new ArrayList<Response>();
+        
+        private final List<Map<String, String>> sentHeaders = new ArrayList<Map<String, String>>();
+        
+        @Override
+        protected Response sendRequest(final Token accessToken, final String dataUrl, final Map<String, String> headers) {
+            this.sentHeaders.add(headers);
+            return this.responses.remove(0);
+        }
+    }
+    
+    private CannedGitHubClient newCannedClient() throws ClientException {
+        final CannedGitHubClient client = new CannedGitHubClient();
+        client.setKey(KEY);
+        client.setSecret(SECRET);
+        client.setCallbackUrl(CALLBACK_URL);
+        client.setProfileCache(new MemoryCache<String, CachedProfile>());
+        client.init();
+        return client;
+    }
+    
+    private Map<String, String> headers(final String... namesAndValues) {
+        final Map<String, String> headers = new HashMap<String, String>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return headers;
+    }
+    
+    public void testConditionalProfileRetrieval() throws ClientException, IOException {
+        final CannedGitHubClient client = newCannedClient();
+        client.responses.add(new CannedResponse(200, headers("ETag", "\"v1\"", "Last-Modified", "Mon, 01 Jul 2013 10:00:00 GMT"),
+                                                "{\"id\":1,\"login\":\"" + NAME + "\"}"));
+        client.responses.add(new CannedResponse(304, null, null));
+        final GitHubProfile profile = client.getUserProfile(TOKEN);
+        assertEquals(NAME, profile.getUsername());
+        assertTrue(client.sentHeaders.get(0).isEmpty());
+        // a new profile is extracted from the cached body
+        final GitHubProfile cachedProfile = client.getUserProfile(TOKEN);
+        assertNotSame(profile, cachedProfile);
+        assertEquals(NAME, cachedProfile.getUsername());
+        assertEquals("\"v1\"", client.sentHeaders.get(1).get("If-None-Match"));
+        assertEquals("Mon, 01 Jul 2013 10:00:00 GMT", client.sentHeaders.get(1).get("If-Modified-Since"));
+    }
+    
+    public void testModifiedProfileRetrieval() throws ClientException, IOException {
+        final CannedGitHubClient client = newCannedClient();
+        client.responses.add(new CannedResponse(200, headers("etag", "\"v1\""), "{\"id\":1,\"login\":\"" + NAME + "\"}"));
+        client.responses.add(new CannedResponse(200, headers("ETag", "\"v2\""), "{\"id\":1,\"login\":\"" + USERNAME + "\"}"));
+        client.responses.add(new CannedResponse(304, null, null));
+        client.getUserProfile(TOKEN);
+        assertEquals(USERNAME, client.getUserProfile(TOKEN).getUsername());
+        assertEquals(USERNAME, client.getUserProfile(TOKEN).getUsername());
+        assertEquals("\"v2\"", client.sentHeaders.get(2).get("If-None-Match"));
+    }
+    
+    public void testCacheKeyedByUrl() throws ClientException, IOException {
+        final CannedGitHubClient client = newCannedClient();
+        client.responses.add(new CannedResponse(200, headers("ETag", "\"v1\""), "{\"id\":1,\"login\":\"" + NAME + "\"}"));
+        client.responses.add(new CannedResponse(200, null, "{\"id\":1,\"login\":\"" + USERNAME + "\"}"));
+        client.getUserProfile(TOKEN);
+        assertEquals(USERNAME, client.retrieveUserProfile(new Token(TOKEN, ""), GOOGLE_URL).getUsername());
+        // no conditional request for another url
+        assertTrue(client.sentHeaders.get(1).isEmpty());
+    }
+    
+    public void testNoCacheWithoutValidators() throws ClientException, IOException {
+        final CannedGitHubClient client = newCannedClient();
+        client.responses.add(new CannedResponse(200, null, "{\"id\":1,\"login\":\"" + NAME + "\"}"));
+        client.responses.add(new CannedResponse(200, null, "{\"id\":1,\"login\":\"" + NAME + "\"}"));
+        client.getUserProfile(TOKEN);
+        client.getUserProfile(TOKEN);
+        assertTrue(client.sentHeaders.get(1).isEmpty());
+    }
+    
+    public void testHedgingWithExpiredDeadline() throws ClientException {
+        final GitHubClient client = new GitHubClient();
+        client.setKey(KEY);
+        client.setSecret(SECRET);
+        client.setCallbackUrl(CALLBACK_URL);
+        final RequestHedger hedger = new RequestHedger();
+        client.setRequestHedger(hedger);
+        final AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts();
+        adaptiveTimeouts.setMinSamples(1);
+        client.setAdaptiveTimeouts(adaptiveTimeouts);
+        client.init();
+        Deadline.start(0);
+        try {
+            client.getUserProfile(TOKEN);
+            fail("should fail");
+        } catch (final ClientException e) {
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            // the deadline is enforced in the threads of the hedger
+            assertEquals("Login deadline exceeded", cause.getMessage());
+            // and its expiration is not taken for a timeout of the provider
+            assertEquals(0, adaptiveTimeouts.getNbSamples());
+        } finally {
+            Deadline.clear();
+            hedger.destroy();
+        }
+    }
+    
+    public void testHedgedRequestsRateLimited() throws Exception {
+        final AtomicInteger nbRequests = new AtomicInteger();
+        final CannedGitHubClient client = new CannedGitHubClient() {
+            
+            @Override
+            protected Response sendRequest(final Token accessToken, final String dataUrl, final Map<String, String> headers) {
+                if (nbRequests.incrementAndGet() == 1) {
+                    // the first request times out after the second one is sent
+                    try {
+                        Thread.sleep(300);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new OAuthConnectionException(new SocketTimeoutException(VALUE));
+                }
+                return super.sendRequest(accessToken, dataUrl, headers);
+            }
+        };
+        client.setKey(KEY);
+        client.setSecret(SECRET);
+        client.setCallbackUrl(CALLBACK_URL);
+        client.responses.add(new CannedResponse(200, headers("X-RateLimit-Remaining", "0", "X-RateLimit-Reset", "100"),
+                                                "{\"id\":1,\"login\":\"" + NAME + "\"}"));
+        final RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setBurst(2);
+        rateLimiter.setMaxRate(0.1);
+        rateLimiter.setMinRate(0.01);
+        rateLimiter.setMaxWait(0);
+        rateLimiter.setMaxQueueSize(0);
+        rateLimiter.setRemainingHeader("X-RateLimit-Remaining");
+        rateLimiter.setResetHeader("X-RateLimit-Reset");
+        client.setRateLimiter(rateLimiter);
+        final RequestHedger hedger = new RequestHedger();
+        hedger.setMinSamples(1);
+        hedger.setWindowSize(1);
+        hedger.setMinDelay(10);
+        hedger.execute(new Callable<String>() {
+            
+            public String call() {
+                return VALUE;
+            }
+        });
+        client.setRequestHedger(hedger);
+        client.init();
+        try {
+            assertEquals(NAME, client.getUserProfile(TOKEN).getUsername());
+            assertEquals(1, hedger.getNbHedgeWins());
+            // the second request has taken its own permit...
+            assertFalse(rateLimiter.acquire(Priority.INTERACTIVE));
+            // ... and its response has been reported
+            assertEquals(0.01, rateLimiter.getRate(), 0.0001);
+        } finally {
+            hedger.destroy();
+        }
+    }
 }
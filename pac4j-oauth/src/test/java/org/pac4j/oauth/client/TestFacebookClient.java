@@ -15,12 +15,20 @@
  */
 package org.pac4j.oauth.client;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.pac4j.core.client.Client;
+import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.profile.Gender;
 import org.pac4j.core.profile.ProfileHelper;
 import org.pac4j.core.profile.UserProfile;
@@ -36,6 +44,9 @@ import org.pac4j.oauth.profile.facebook.FacebookPicture;
 import org.pac4j.oauth.profile.facebook.FacebookProfile;
 import org.pac4j.oauth.profile.facebook.FacebookRelationshipStatus;
 import org.pac4j.oauth.profile.facebook.FacebookWork;
+import org.scribe.model.CannedResponse;
+import org.scribe.model.Response;
+import org.scribe.model.Token;
 
 import com.gargoylesoftware.htmlunit.html.HtmlForm;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
@@ -57,10 +68,72 @@ public class TestFacebookClient extends TestOAuthClient {
         oldClient.setScope(SCOPE);
         oldClient.setFields(FIELDS);
         oldClient.setLimit(LIMIT);
+        oldClient.setIdentityFields(FIELDS);
+        oldClient.setExtendedAttributesExecutor(Executors.newSingleThreadExecutor());
         final FacebookClient client = (FacebookClient) internalTestClone(oldClient);
         assertEquals(oldClient.getScope(), client.getScope());
         assertEquals(oldClient.getFields(), client.getFields());
         assertEquals(oldClient.getLimit(), client.getLimit());
+        assertEquals(oldClient.getIdentityFields(), client.getIdentityFields());
+        assertSame(oldClient.getExtendedAttributesExecutor(), client.getExtendedAttributesExecutor());
+        oldClient.getExtendedAttributesExecutor().shutdown();
+    }
+    
+    private static final class CannedFacebookClient extends FacebookClient {
+        
+        private final List<String> urls = Collections.synchronizedList(new ArrayList<String>());
+        
+        private final CountDownLatch extendedLatch = new CountDownLatch(1);
+        
+        @Override
+        protected Response sendRequest(final Token accessToken, final String dataUrl, final Map<String, String> headers) {
+            this.urls.add(dataUrl);
+            try {
+                if (dataUrl.contains("work")) {
+                    this.extendedLatch.await();
+                    return new CannedResponse(200, null, "{\"id\":\"1\",\"bio\":\"A propos de moi\"}");
+                }
+                return new CannedResponse(200, null, "{\"id\":\"1\",\"name\":\"Jerome Testscribeup\"}");
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+    
+    public void testTwoPhaseLoading() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CannedFacebookClient client = new CannedFacebookClient();
+            client.setKey(KEY);
+            client.setSecret(SECRET);
+            client.setCallbackUrl(CALLBACK_URL);
+            client.setExtendedAttributesExecutor(executor);
+            final FacebookProfile profile = client.getUserProfile(TOKEN);
+            // identity attributes are returned while the extended ones are still loading
+            assertEquals("1", profile.getId());
+            assertEquals("Jerome Testscribeup", profile.getDisplayName());
+            assertNull(profile.getBio());
+            assertFalse(profile.getExtendedAttributesFuture().isDone());
+            assertEquals("https://graph.facebook.com/me?fields=" + FacebookClient.DEFAULT_IDENTITY_FIELDS, client.urls.get(0));
+            client.extendedLatch.countDown();
+            profile.getExtendedAttributesFuture().get();
+            assertEquals("A propos de moi", profile.getBio());
+            assertFalse(client.urls.get(1).contains("first_name"));
+            assertTrue(client.urls.get(1).contains("bio"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    public void testOnePhaseLoading() throws ClientException, IOException {
+        final CannedFacebookClient client = new CannedFacebookClient();
+        client.setKey(KEY);
+        client.setSecret(SECRET);
+        client.setCallbackUrl(CALLBACK_URL);
+        client.setFields("id,name");
+        final FacebookProfile profile = client.getUserProfile(TOKEN);
+        assertTrue(profile.getExtendedAttributesFuture().isDone());
+        assertEquals(1, client.urls.size());
     }
     
     public void testMissingFields() {
@@ -222,6 +295,6 @@ public class TestFacebookClient extends TestOAuthClient {
         assertEquals("http://profile.ak.fbcdn.net/hprofile-ak-ash3/157632_100003571536393_1742338663_q.jpg",
                      picture.getUrl());
         assertFalse(picture.getIsSilhouette());
-        assertEquals(37, profile.getAttributes().size());
+        assertEquals(38, profile.getAttributes().size());
     }
 }
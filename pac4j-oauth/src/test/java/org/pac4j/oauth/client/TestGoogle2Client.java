@@ -110,6 +110,6 @@ public class TestGoogle2Client extends TestOAuthClient {
                             "https://plus.google.com/113675986756217860428", null);
         assertTrue(profile.getVerifiedEmail());
         assertEquals("0001-03-10", profile.getBirthday().toString());
-        assertEquals(11, profile.getAttributes().size());
+        assertEquals(12, profile.getAttributes().size());
     }
 }
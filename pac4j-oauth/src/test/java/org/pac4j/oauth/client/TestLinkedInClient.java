@@ -77,7 +77,7 @@ public class TestLinkedInClient extends TestOAuthClient {
                             Gender.UNSPECIFIED,
                             null,
                             null,
-                            "http://www.linkedin.com/profile?viewProfile=&amp;key=167439971&amp;authToken=_IWF&amp;authType=name&amp;trk=api*",
+                            "http://www.linkedin.com/profile?viewProfile=&key=167439971&authToken=_IWF&authType=name&trk=api*",
                             null);
         assertEquals("ScribeUP développeur chez OpenSource", profile.getHeadline());
         assertEquals(5, profile.getAttributes().size());
@@ -15,9 +15,13 @@
  */
 package org.pac4j.oauth.client;
 
+import org.pac4j.core.cache.MemoryCache;
 import org.pac4j.core.client.BaseClient;
 import org.pac4j.core.client.TestClient;
 import org.pac4j.core.util.TestsHelper;
+import org.pac4j.oauth.hedging.RequestHedger;
+import org.pac4j.oauth.ratelimit.RateLimiter;
+import org.pac4j.oauth.timeout.AdaptiveTimeouts;
 
 /**
  * This class is the generic test case for OAuth client.
@@ -57,6 +61,10 @@ public abstract class TestOAuthClient extends TestClient {
         oldClient.setReadTimeout(READ_TIMEOUT);
         oldClient.setProxyHost(PROXY_HOST);
         oldClient.setProxyPort(PROXY_PORT);
+        oldClient.setRateLimiter(new RateLimiter());
+        oldClient.setRequestHedger(new RequestHedger());
+        oldClient.setAdaptiveTimeouts(new AdaptiveTimeouts());
+        oldClient.setProfileCache(new MemoryCache());
         BaseOAuthClient client = (BaseOAuthClient) super.internalTestClone(oldClient);
         assertEquals(oldClient.getKey(), client.getKey());
         assertEquals(oldClient.getSecret(), client.getSecret());
@@ -64,6 +72,10 @@ public abstract class TestOAuthClient extends TestClient {
         assertEquals(oldClient.getReadTimeout(), client.getReadTimeout());
         assertEquals(oldClient.getProxyHost(), client.getProxyHost());
         assertEquals(oldClient.getProxyPort(), client.getProxyPort());
+        assertSame(oldClient.getRateLimiter(), client.getRateLimiter());
+        assertSame(oldClient.getRequestHedger(), client.getRequestHedger());
+        assertSame(oldClient.getAdaptiveTimeouts(), client.getAdaptiveTimeouts());
+        assertSame(oldClient.getProfileCache(), client.getProfileCache());
         return client;
     }
     
@@ -79,6 +79,6 @@ public class TestWindowsLiveClient extends TestOAuthClient {
                             Locale.FRANCE, null, "https://profile.live.com/", null);
         assertEquals(TestsHelper.getFormattedDate(1335878042000L, "yyyy-MM-dd'T'HH:mm:ssz", null), profile
             .getUpdatedTime().toString());
-        assertEquals(7, profile.getAttributes().size());
+        assertEquals(8, profile.getAttributes().size());
     }
 }
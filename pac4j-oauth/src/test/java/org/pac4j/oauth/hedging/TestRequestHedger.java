@@ -0,0 +1,179 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.hedging;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.core.util.TestsHelper;
+
+/**
+ * This class tests the {@link RequestHedger} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestRequestHedger extends TestCase implements TestsConstants {
+    
+    private static final long SLOW = 500;
+    
+    private RequestHedger hedger;
+    
+    @Override
+    protected void setUp() {
+        this.hedger = new RequestHedger();
+        this.hedger.setMinSamples(5);
+        this.hedger.setWindowSize(10);
+        this.hedger.setMinDelay(20);
+    }
+    
+    @Override
+    protected void tearDown() {
+        this.hedger.destroy();
+    }
+    
+    // the first call of each request is slow (and fails on a read timeout if required), the following ones are faster
+    private Callable<String> newSlowFirstRequest(final boolean timeout) {
+        final AtomicInteger nbCalls = new AtomicInteger();
+        return new Callable<String>() {
+            
+            public String call() throws Exception {
+                final int call = nbCalls.incrementAndGet();
+                if (call == 1) {
+                    Thread.sleep(SLOW);
+                    if (timeout) {
+                        throw new SocketTimeoutException(VALUE);
+                    }
+                } else {
+                    Thread.sleep(SLOW / 2);
+                }
+                return VALUE + call;
+            }
+        };
+    }
+    
+    private void warmUp() throws ClientException {
+        final Callable<String> fastRequest = new Callable<String>() {
+            
+            public String call() {
+                return VALUE;
+            }
+        };
+        for (int i = 0; i < 5; i++) {
+            assertEquals(VALUE, this.hedger.execute(fastRequest));
+        }
+    }
+    
+    public void testBadConfiguration() {
+        this.hedger.setPercentile(1.5);
+        TestsHelper.initShouldFail(this.hedger, "Invalid request hedger configuration : " + this.hedger);
+    }
+    
+    public void testNoHedgingBeforeMinSamples() throws ClientException {
+        assertEquals(-1, this.hedger.getHedgeDelay());
+        final long start = System.currentTimeMillis();
+        assertEquals(VALUE + 1, this.hedger.execute(newSlowFirstRequest(false)));
+        assertTrue(System.currentTimeMillis() - start >= SLOW);
+        assertEquals(0, this.hedger.getNbHedges());
+    }
+    
+    public void testHedging() throws ClientException {
+        warmUp();
+        assertEquals(20, this.hedger.getHedgeDelay());
+        final long start = System.currentTimeMillis();
+        // the first request times out : the answer of the second one is used without a new round-trip
+        assertEquals(VALUE + 2, this.hedger.execute(newSlowFirstRequest(true)));
+        assertTrue(System.currentTimeMillis() - start < SLOW + SLOW / 2);
+        assertEquals(6, this.hedger.getNbRequests());
+        assertEquals(1, this.hedger.getNbHedges());
+        assertEquals(1, this.hedger.getNbHedgeWins());
+        // hedge budget exhausted
+        try {
+            this.hedger.execute(newSlowFirstRequest(true));
+            fail("should fail");
+        } catch (final ClientException e) {
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+        }
+        assertEquals(1, this.hedger.getNbHedges());
+    }
+    
+    public void testFasterSecondRequest() throws ClientException {
+        warmUp();
+        final long start = System.currentTimeMillis();
+        // the first request succeeds but later than the second one : the first answer is returned
+        assertEquals(VALUE + 2, this.hedger.execute(newSlowFirstRequest(false)));
+        assertTrue(System.currentTimeMillis() - start < SLOW);
+        assertEquals(1, this.hedger.getNbHedges());
+        assertEquals(1, this.hedger.getNbHedgeWins());
+    }
+    
+    public void testFasterFirstRequest() throws ClientException {
+        warmUp();
+        final AtomicInteger nbCalls = new AtomicInteger();
+        assertEquals(VALUE + 1, this.hedger.execute(new Callable<String>() {
+            
+            public String call() throws InterruptedException {
+                final int call = nbCalls.incrementAndGet();
+                Thread.sleep(call == 1 ? SLOW / 2 : SLOW);
+                return VALUE + call;
+            }
+        }));
+        // the second request has been sent but the first answer is kept
+        assertEquals(1, this.hedger.getNbHedges());
+        assertEquals(0, this.hedger.getNbHedgeWins());
+    }
+    
+    public void testBothRequestsFail() throws ClientException {
+        warmUp();
+        final AtomicInteger nbCalls = new AtomicInteger();
+        try {
+            this.hedger.execute(new Callable<String>() {
+                
+                public String call() throws Exception {
+                    final int call = nbCalls.incrementAndGet();
+                    Thread.sleep(call == 1 ? SLOW / 2 : SLOW / 4);
+                    throw new SocketTimeoutException(VALUE + call);
+                }
+            });
+            fail("should fail");
+        } catch (final ClientException e) {
+            // the failure of the first request is thrown
+            assertEquals(VALUE + 1, e.getCause().getMessage());
+        }
+        assertEquals(1, this.hedger.getNbHedges());
+        assertEquals(0, this.hedger.getNbHedgeWins());
+    }
+    
+    public void testFailure() throws ClientException {
+        final Callable<String> failingRequest = new Callable<String>() {
+            
+            public String call() {
+                throw new IllegalStateException(VALUE);
+            }
+        };
+        try {
+            this.hedger.execute(failingRequest);
+            fail("should fail");
+        } catch (final IllegalStateException e) {
+            assertEquals(VALUE, e.getMessage());
+        }
+    }
+}
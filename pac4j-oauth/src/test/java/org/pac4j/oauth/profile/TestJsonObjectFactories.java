@@ -0,0 +1,106 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.oauth.profile.converter.JsonListConverter;
+import org.pac4j.oauth.profile.converter.JsonObjectConverter;
+import org.pac4j.oauth.profile.converter.MockJsonObject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * This class tests the {@link JsonObjectFactories} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestJsonObjectFactories extends TestCase implements TestsConstants {
+    
+    private static final String JSON_LIST = "[\"" + ELEMENT + "\",\"" + ELEMENT2 + "\"]";
+    
+    private static final AtomicInteger nbCreations = new AtomicInteger();
+    
+    public static final class RegisteredJsonObject extends JsonObject {
+        
+        private static final long serialVersionUID = 4087155512930231712L;
+        
+        private String value;
+        
+        @Override
+        protected void buildFromJson(final JsonNode json) {
+            this.value = json.textValue();
+        }
+        
+        public String getValue() {
+            return this.value;
+        }
+    }
+    
+    public static final class NoDefaultConstructorJsonObject extends JsonObject {
+        
+        private static final long serialVersionUID = -2180446853474427914L;
+        
+        public NoDefaultConstructorJsonObject(final String value) {
+        }
+        
+        @Override
+        protected void buildFromJson(final JsonNode json) {
+        }
+    }
+    
+    static {
+        JsonObjectFactories.register(RegisteredJsonObject.class, new JsonObjectFactory<RegisteredJsonObject>() {
+            
+            public RegisteredJsonObject newInstance() {
+                nbCreations.incrementAndGet();
+                return new RegisteredJsonObject();
+            }
+        });
+    }
+    
+    public void testDefaultFactory() {
+        final JsonObjectFactory<MockJsonObject> factory = JsonObjectFactories.getFactory(MockJsonObject.class);
+        assertNotNull(factory);
+        assertSame(factory, JsonObjectFactories.getFactory(MockJsonObject.class));
+        final MockJsonObject object1 = factory.newInstance();
+        final MockJsonObject object2 = factory.newInstance();
+        assertNotNull(object1);
+        assertNotSame(object1, object2);
+    }
+    
+    public void testNoConstructor() {
+        assertNull(JsonObjectFactories.getFactory(NoDefaultConstructorJsonObject.class));
+        assertNull(JsonObjectFactories.getFactory(null));
+    }
+    
+    @SuppressWarnings("unchecked")
+    public void testRegisteredFactoryInConverters() {
+        final int nb = nbCreations.get();
+        final JsonList<RegisteredJsonObject> list = new JsonListConverter(RegisteredJsonObject.class).convert(JSON_LIST);
+        assertEquals(2, list.size());
+        assertEquals(ELEMENT, list.get(0).getValue());
+        assertEquals(ELEMENT2, list.get(1).getValue());
+        final RegisteredJsonObject object = (RegisteredJsonObject) new JsonObjectConverter(RegisteredJsonObject.class)
+            .convert("\"" + VALUE + "\"");
+        assertEquals(VALUE, object.getValue());
+        assertEquals(nb + 3, nbCreations.get());
+    }
+}
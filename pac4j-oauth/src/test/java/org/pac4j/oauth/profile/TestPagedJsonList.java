@@ -0,0 +1,149 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.core.util.TestsHelper;
+
+/**
+ * This class tests the {@link PagedJsonList} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestPagedJsonList extends TestCase implements TestsConstants {
+    
+    private static final String PAGE2_URL = "http://graph/page2";
+    
+    private static final String PAGE3_URL = "http://graph/page3";
+    
+    private static final String PAGE1 = "{\"data\":[\"" + ELEMENT + "\"],\"paging\":{\"next\":\"" + PAGE2_URL + "\"}}";
+    
+    private static final String PAGE2 = "{\"data\":[\"" + ELEMENT2 + "\"],\"paging\":{\"next\":\"" + PAGE3_URL + "\"}}";
+    
+    private static final String PAGE3 = "{\"data\":[\"" + VALUE + "\"]}";
+    
+    private static final String BROKEN_PAGE = "{\"data\":[\"" + VALUE + "\"],\"paging\":{\"next\":\"" + CALLBACK_URL + "\"}}";
+    
+    private static final class MockPageFetcher implements PageFetcher {
+        
+        private final List<String> fetchedUrls = new ArrayList<String>();
+        
+        public synchronized String fetchPage(final String url) throws ClientException {
+            this.fetchedUrls.add(url);
+            if (PAGE2_URL.equals(url)) {
+                return PAGE2;
+            } else if (PAGE3_URL.equals(url)) {
+                return PAGE3;
+            }
+            throw new ClientException("unknown page : " + url);
+        }
+    }
+    
+    private List<String> iterate(final PagedJsonList<String> list) {
+        final List<String> elements = new ArrayList<String>();
+        final Iterator<String> iterator = list.pagedIterator();
+        while (iterator.hasNext()) {
+            elements.add(iterator.next());
+        }
+        return elements;
+    }
+    
+    public void testFirstPage() {
+        final PagedJsonList<String> list = new PagedJsonList<String>(PAGE1, String.class);
+        assertEquals(1, list.size());
+        assertEquals(ELEMENT, list.get(0));
+        assertTrue(list.hasNextPage());
+        assertEquals(PAGE2_URL, list.getNextPageUrl());
+    }
+    
+    public void testArray() {
+        final PagedJsonList<String> list = new PagedJsonList<String>(JsonHelper.getFirstNode("[\"" + ELEMENT + "\"]"),
+                                                                     String.class);
+        assertEquals(1, list.size());
+        assertFalse(list.hasNextPage());
+    }
+    
+    public void testNoFetcher() {
+        final PagedJsonList<String> list = new PagedJsonList<String>(PAGE1, String.class);
+        final List<String> elements = iterate(list);
+        assertEquals(1, elements.size());
+    }
+    
+    public void testFetchOnDemand() {
+        final PagedJsonList<String> list = new PagedJsonList<String>(PAGE1, String.class);
+        final MockPageFetcher fetcher = new MockPageFetcher();
+        list.setPageFetcher(fetcher, null);
+        assertEquals(0, fetcher.fetchedUrls.size());
+        final Iterator<String> iterator = list.pagedIterator();
+        assertEquals(ELEMENT, iterator.next());
+        assertEquals(0, fetcher.fetchedUrls.size());
+        assertEquals(ELEMENT2, iterator.next());
+        assertEquals(1, fetcher.fetchedUrls.size());
+        assertEquals(VALUE, iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(2, fetcher.fetchedUrls.size());
+        assertEquals(1, list.size());
+    }
+    
+    public void testPrefetch() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final PagedJsonList<String> list = new PagedJsonList<String>(PAGE1, String.class);
+            list.setPageFetcher(new MockPageFetcher(), executor);
+            final List<String> elements = iterate(list);
+            assertEquals(3, elements.size());
+            assertEquals(ELEMENT, elements.get(0));
+            assertEquals(ELEMENT2, elements.get(1));
+            assertEquals(VALUE, elements.get(2));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    public void testFetchError() {
+        final PagedJsonList<String> list = new PagedJsonList<String>(BROKEN_PAGE, String.class);
+        list.setPageFetcher(new MockPageFetcher(), null);
+        final Iterator<String> iterator = list.pagedIterator();
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("should fail fetching page");
+        } catch (final IllegalStateException e) {
+            assertEquals("Cannot fetch page : " + CALLBACK_URL, e.getMessage());
+        }
+    }
+    
+    public void testSerialization() {
+        final PagedJsonList<String> list = new PagedJsonList<String>(JsonHelper.getFirstNode(PAGE1), String.class);
+        list.setPageFetcher(new MockPageFetcher(), null);
+        @SuppressWarnings("unchecked")
+        final PagedJsonList<String> list2 = (PagedJsonList<String>) TestsHelper.unserialize(TestsHelper
+            .serialize(list));
+        assertEquals(1, list2.size());
+        assertEquals(PAGE2_URL, list2.getNextPageUrl());
+        assertEquals(1, iterate(list2).size());
+    }
+}
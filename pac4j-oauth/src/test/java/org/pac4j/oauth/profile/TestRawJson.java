@@ -0,0 +1,108 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.profile.ProfileHelper;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.oauth.profile.RawJsonTreeReader.RawJsonNode;
+import org.pac4j.oauth.profile.facebook.FacebookObject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * This class tests the raw JSON kept by the {@link JsonObject} class through the {@link RawJson} slices.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestRawJson extends TestCase implements TestsConstants {
+    
+    private static final String FIRST = "{ \"id\" : \"1\", \"name\" : \"n\\\"{[\" }";
+    
+    private static final String SECOND = "{\"id\":\"2\",\"list\":[ 1, 2.5, true, null ]}";
+    
+    private static final String JSON = "{ \"first\" : " + FIRST + ",\n \"a{\\\"[\" :\t" + SECOND + ", \"count\" : 12345678901 }";
+    
+    public void testSlices() {
+        final JsonNode json = JsonHelper.getFirstNode(JSON);
+        assertEquals(JSON, ((RawJsonNode) json).getRawJson().toString());
+        final RawJson first = ((RawJsonNode) json.get("first")).getRawJson();
+        final RawJson second = ((RawJsonNode) json.get("a{\"[")).getRawJson();
+        assertEquals(FIRST, first.toString());
+        assertEquals(SECOND, second.toString());
+        assertEquals("[ 1, 2.5, true, null ]", ((RawJsonNode) json.get("a{\"[").get("list")).getRawJson().toString());
+        assertSame(first.getSource(), second.getSource());
+        assertEquals("\"id\"", first.subSequence(2, 6).toString());
+    }
+    
+    public void testSameTreeAsMapper() throws Exception {
+        final JsonNode expected = new ObjectMapper().readValue(JSON, JsonNode.class);
+        final JsonNode json = JsonHelper.getFirstNode(JSON);
+        assertEquals(json, expected);
+        assertEquals(expected.get("count"), json.get("count"));
+        assertEquals(expected.get("a{\"[").get("list").get(1), json.get("a{\"[").get("list").get(1));
+        assertEquals(expected.hashCode(), json.hashCode());
+    }
+    
+    public void testJsonObject() {
+        final JsonNode json = JsonHelper.getFirstNode(JSON);
+        final FacebookObject object = new FacebookObject();
+        object.buildFrom(json.get("first"));
+        assertEquals("1", object.getId());
+        assertEquals(FIRST, object.toString());
+    }
+    
+    public void testNoRawData() {
+        ProfileHelper.setKeepRawData(false);
+        try {
+            final JsonNode json = JsonHelper.getFirstNode(JSON);
+            assertFalse(json instanceof RawJsonNode);
+            final FacebookObject object = new FacebookObject();
+            object.buildFrom(json.get("first"));
+            assertEquals("", object.toString());
+        } finally {
+            ProfileHelper.setKeepRawData(true);
+        }
+    }
+    
+    public void testSerialization() throws Exception {
+        final JsonNode json = JsonHelper.getFirstNode(JSON);
+        final FacebookObject object = new FacebookObject();
+        object.buildFrom(json.get("first"));
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+        objectOutputStream.writeObject(object);
+        objectOutputStream.close();
+        final ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream
+            .toByteArray()));
+        final FacebookObject result = (FacebookObject) objectInputStream.readObject();
+        objectInputStream.close();
+        assertEquals(FIRST, result.toString());
+        assertEquals("1", result.getId());
+    }
+    
+    public void testBadJson() {
+        assertNull(JsonHelper.getFirstNode("{ \"id\" : "));
+    }
+}
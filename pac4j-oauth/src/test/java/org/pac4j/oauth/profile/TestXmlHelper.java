@@ -0,0 +1,51 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link XmlHelper} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestXmlHelper extends TestCase implements TestsConstants {
+    
+    private static final String GOOD_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><guid xmlns=\"http://social.yahooapis.com/v1/schema.rng\">"
+                                           + "<value>" + VALUE + "</value><other><value>" + FAKE_VALUE
+                                           + "</value></other></guid>";
+    
+    private static final String BAD_XML = "this_is_definitively_not_a_xml_text";
+    
+    public void testGetFirstText() {
+        assertEquals(VALUE, XmlHelper.getFirstText(GOOD_XML, "value"));
+    }
+    
+    public void testGetFirstTextNotFound() {
+        assertNull(XmlHelper.getFirstText(GOOD_XML, KEY));
+    }
+    
+    public void testGetFirstTextNull() {
+        assertNull(XmlHelper.getFirstText(null, KEY));
+    }
+    
+    public void testGetFirstTextBadXml() {
+        assertNull(XmlHelper.getFirstText(BAD_XML, KEY));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.profile;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.oauth.profile.linkedin.LinkedInAttributesDefinition;
+import org.pac4j.oauth.profile.linkedin.LinkedInProfile;
+
+/**
+ * This class tests the {@link XmlProfileExtractor} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestXmlProfileExtractor extends TestCase implements TestsConstants {
+    
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><person><first-name>Jean &amp; Co</first-name>"
+                                      + "<last-name><![CDATA[<Dupont>]]></last-name><headline></headline><location><name>Paris</name>"
+                                      + "<country><name>France</name></country></location><site-standard-profile-request>"
+                                      + "<url>http://host/profile?key=1&amp;authToken=2</url></site-standard-profile-request>"
+                                      + "<url>http://other</url></person>";
+    
+    public void testExtractSameNames() {
+        final XmlProfileExtractor extractor = new XmlProfileExtractor(Arrays.asList(LinkedInAttributesDefinition.FIRST_NAME,
+                                                                                    LinkedInAttributesDefinition.LAST_NAME,
+                                                                                    LinkedInAttributesDefinition.HEADLINE,
+                                                                                    LinkedInAttributesDefinition.URL, KEY));
+        final Map<String, String> values = extractor.extract(XML);
+        assertEquals(4, values.size());
+        assertEquals("Jean & Co", values.get(LinkedInAttributesDefinition.FIRST_NAME));
+        assertEquals("<Dupont>", values.get(LinkedInAttributesDefinition.LAST_NAME));
+        assertEquals("", values.get(LinkedInAttributesDefinition.HEADLINE));
+        assertEquals("http://host/profile?key=1&authToken=2", values.get(LinkedInAttributesDefinition.URL));
+        assertNull(values.get(KEY));
+    }
+    
+    public void testExtractPaths() {
+        final Map<String, String> mapping = new HashMap<String, String>();
+        mapping.put("location/name", "location");
+        mapping.put("country/name", "country");
+        mapping.put("person/location", NAME);
+        final Map<String, String> values = new XmlProfileExtractor(mapping).extract(XML);
+        assertEquals(2, values.size());
+        assertEquals("Paris", values.get("location"));
+        assertEquals("France", values.get("country"));
+    }
+    
+    public void testExtractProfile() {
+        final XmlProfileExtractor extractor = new XmlProfileExtractor(OAuthAttributesDefinitions.linkedinDefinition
+            .getAllAttributes());
+        final LinkedInProfile profile = new LinkedInProfile();
+        extractor.extract(XML, profile);
+        assertEquals("Jean & Co", profile.getFirstName());
+        assertEquals("<Dupont>", profile.getFamilyName());
+    }
+    
+    public void testExtractBadXml() {
+        final XmlProfileExtractor extractor = new XmlProfileExtractor(Arrays.asList(KEY));
+        assertTrue(extractor.extract("this_is_definitively_not_a_xml_text").isEmpty());
+        assertTrue(extractor.extract(null).isEmpty());
+    }
+}
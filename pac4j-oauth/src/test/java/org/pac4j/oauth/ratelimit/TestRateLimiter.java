@@ -0,0 +1,177 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.core.util.TestsHelper;
+import org.pac4j.oauth.ratelimit.RateLimiter.Priority;
+
+/**
+ * This class tests the {@link RateLimiter} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestRateLimiter extends TestCase implements TestsConstants {
+    
+    private RateLimiter newRateLimiter(final double maxRate, final int burst, final long maxWait) {
+        final RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setMaxRate(maxRate);
+        rateLimiter.setBurst(burst);
+        rateLimiter.setMaxWait(maxWait);
+        return rateLimiter;
+    }
+    
+    private Map<String, String> headers(final String... namesAndValues) {
+        final Map<String, String> headers = new HashMap<String, String>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return headers;
+    }
+    
+    public void testBadConfiguration() {
+        final RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setMinRate(100);
+        TestsHelper.initShouldFail(rateLimiter, "Invalid rate limiter configuration : " + rateLimiter);
+    }
+    
+    public void testBurstThenReject() throws ClientException {
+        final RateLimiter rateLimiter = newRateLimiter(0.5, 2, 0);
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        assertFalse(rateLimiter.acquire(Priority.INTERACTIVE));
+        assertEquals(1, rateLimiter.getNbRejected());
+    }
+    
+    public void testWaitForPermit() throws ClientException {
+        final RateLimiter rateLimiter = newRateLimiter(20, 1, 1000);
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        final long start = System.currentTimeMillis();
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        assertTrue(System.currentTimeMillis() - start >= 30);
+    }
+    
+    public void testQueueFull() throws ClientException {
+        final RateLimiter rateLimiter = newRateLimiter(1, 1, 1000);
+        rateLimiter.setMaxQueueSize(0);
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        assertFalse(rateLimiter.acquire(Priority.INTERACTIVE));
+    }
+    
+    public void testTooManyRequests() throws ClientException {
+        final RateLimiter rateLimiter = newRateLimiter(10, 10, 0);
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        rateLimiter.onResponse(429, headers("Retry-After", "60"));
+        assertEquals(5.0, rateLimiter.getRate(), 0.01);
+        assertEquals(1, rateLimiter.getNbThrottled());
+        assertFalse(rateLimiter.acquire(Priority.INTERACTIVE));
+        // no Retry-After header : blocked for one second
+        final RateLimiter otherRateLimiter = newRateLimiter(10, 10, 0);
+        otherRateLimiter.init();
+        otherRateLimiter.onResponse(429, null);
+        assertFalse(otherRateLimiter.acquire(Priority.INTERACTIVE));
+    }
+    
+    public void testAdditiveIncrease() throws ClientException {
+        final RateLimiter rateLimiter = newRateLimiter(10, 10, 0);
+        rateLimiter.init();
+        rateLimiter.onResponse(429, headers("Retry-After", "0"));
+        rateLimiter.onResponse(200, null);
+        assertEquals(5.5, rateLimiter.getRate(), 0.01);
+        for (int i = 0; i < 20; i++) {
+            rateLimiter.onResponse(200, null);
+        }
+        assertEquals(10.0, rateLimiter.getRate(), 0.01);
+    }
+    
+    public void testRateLimitHeaders() throws ClientException {
+        final RateLimiter rateLimiter = newRateLimiter(10, 10, 0);
+        rateLimiter.setRemainingHeader("X-App-RateLimit-Remaining");
+        rateLimiter.setResetHeader("X-App-RateLimit-Reset");
+        rateLimiter.init();
+        // 100 requests left for 50 seconds (delay)
+        rateLimiter.onResponse(200, headers("x-app-ratelimit-remaining", "100", "x-app-ratelimit-reset", "50"));
+        assertEquals(2.0, rateLimiter.getRate(), 0.1);
+        // quota exhausted until a reset in the future (epoch seconds)
+        final long reset = System.currentTimeMillis() / 1000 + 60;
+        rateLimiter.onResponse(200, headers("X-App-RateLimit-Remaining", "0", "X-App-RateLimit-Reset", String.valueOf(reset)));
+        assertEquals(rateLimiter.getMinRate(), rateLimiter.getRate(), 0.001);
+        assertFalse(rateLimiter.acquire(Priority.INTERACTIVE));
+    }
+    
+    public void testUserQuotaHeadersIgnored() throws ClientException {
+        final RateLimiter rateLimiter = newRateLimiter(10, 2, 0);
+        rateLimiter.init();
+        // quota of the access token of one user : 4999 requests left for one hour
+        rateLimiter.onResponse(200, headers("X-RateLimit-Remaining", "4999", "X-RateLimit-Reset", "3600"));
+        assertEquals(10.0, rateLimiter.getRate(), 0.01);
+        // the other callers are not throttled
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+    }
+    
+    public void testInteractiveBeforeBackground() throws Exception {
+        final RateLimiter rateLimiter = newRateLimiter(10, 1, 5000);
+        assertTrue(rateLimiter.acquire(Priority.INTERACTIVE));
+        final List<Priority> order = Collections.synchronizedList(new ArrayList<Priority>());
+        final CountDownLatch done = new CountDownLatch(2);
+        final Thread background = newAcquirer(rateLimiter, Priority.BACKGROUND, order, done);
+        background.start();
+        waitForQueueSize(rateLimiter, 1);
+        final Thread interactive = newAcquirer(rateLimiter, Priority.INTERACTIVE, order, done);
+        interactive.start();
+        waitForQueueSize(rateLimiter, 2);
+        done.await();
+        assertEquals(Priority.INTERACTIVE, order.get(0));
+        assertEquals(Priority.BACKGROUND, order.get(1));
+    }
+    
+    private void waitForQueueSize(final RateLimiter rateLimiter, final int size) throws InterruptedException {
+        for (int i = 0; i < 500 && rateLimiter.getQueueSize() < size; i++) {
+            Thread.sleep(1);
+        }
+    }
+    
+    private Thread newAcquirer(final RateLimiter rateLimiter, final Priority priority, final List<Priority> order,
+                               final CountDownLatch done) {
+        return new Thread() {
+            
+            @Override
+            public void run() {
+                try {
+                    if (rateLimiter.acquire(priority)) {
+                        order.add(priority);
+                    }
+                } catch (final ClientException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,149 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.refresh;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.oauth.client.GitHubClient;
+import org.pac4j.oauth.profile.OAuthProfile;
+import org.pac4j.oauth.profile.github.GitHubProfile;
+import org.scribe.model.OAuth20Token;
+
+/**
+ * This class tests the {@link TokenRefreshScheduler} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestTokenRefreshScheduler extends TestCase implements TestsConstants {
+    
+    private TokenRefreshScheduler scheduler;
+    
+    private final AtomicInteger nbRefreshes = new AtomicInteger();
+    
+    private final CountDownLatch refreshed = new CountDownLatch(1);
+    
+    private final CountDownLatch failed = new CountDownLatch(1);
+    
+    private volatile boolean failing = false;
+    
+    private final GitHubClient client = new GitHubClient(KEY, SECRET) {
+        
+        @Override
+        public OAuth20Token refreshAccessToken(final String refreshToken) throws ClientException {
+            TestTokenRefreshScheduler.this.nbRefreshes.incrementAndGet();
+            if (TestTokenRefreshScheduler.this.failing) {
+                throw new ClientException("refresh failure");
+            }
+            return new OAuth20Token(VALUE, null, null, 3600, null, null);
+        }
+    };
+    
+    @Override
+    protected void setUp() throws Exception {
+        this.client.setCallbackUrl(CALLBACK_URL);
+        this.scheduler = new TokenRefreshScheduler();
+        this.scheduler.setTickDuration(10);
+        this.scheduler.setWheelSize(16);
+        this.scheduler.setJitter(0);
+        this.scheduler.setRetryDelay(1000);
+        this.scheduler.setListener(new TokenRefreshListener() {
+            
+            public void onRefresh(final String key, final OAuthProfile profile) {
+                TestTokenRefreshScheduler.this.refreshed.countDown();
+            }
+            
+            public void onFailure(final String key, final OAuthProfile profile, final Exception e) {
+                TestTokenRefreshScheduler.this.failed.countDown();
+            }
+        });
+    }
+    
+    @Override
+    protected void tearDown() throws Exception {
+        this.scheduler.destroy();
+    }
+    
+    private GitHubProfile newProfile(final String refreshToken, final long lifetime) {
+        final GitHubProfile profile = new GitHubProfile();
+        profile.setAccessToken(TOKEN);
+        profile.setRefreshToken(refreshToken);
+        profile.setAccessTokenExpiration(System.currentTimeMillis() + lifetime);
+        return profile;
+    }
+    
+    public void testNoRefreshToken() throws ClientException {
+        assertFalse(this.scheduler.schedule(KEY, this.client, newProfile(null, 200)));
+        assertEquals(0, this.scheduler.size());
+    }
+    
+    public void testRefresh() throws Exception {
+        final GitHubProfile profile = newProfile(SECRET, 200);
+        assertTrue(this.scheduler.schedule(KEY, this.client, profile));
+        assertTrue(this.refreshed.await(5, TimeUnit.SECONDS));
+        assertEquals(VALUE, profile.getAccessToken());
+        assertEquals(SECRET, profile.getRefreshToken());
+        assertTrue(profile.getAccessTokenExpiration() > System.currentTimeMillis() + 3500000);
+        assertTrue(this.scheduler.isScheduled(KEY));
+        assertEquals(1, this.nbRefreshes.get());
+    }
+    
+    public void testCancel() throws Exception {
+        final GitHubProfile profile = newProfile(SECRET, 200);
+        assertTrue(this.scheduler.schedule(KEY, this.client, profile));
+        this.scheduler.cancel(KEY);
+        assertFalse(this.scheduler.isScheduled(KEY));
+        assertFalse(this.refreshed.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(TOKEN, profile.getAccessToken());
+        assertEquals(0, this.nbRefreshes.get());
+    }
+    
+    public void testFailure() throws Exception {
+        this.failing = true;
+        final GitHubProfile profile = newProfile(SECRET, 200);
+        assertTrue(this.scheduler.schedule(KEY, this.client, profile));
+        assertTrue(this.failed.await(5, TimeUnit.SECONDS));
+        assertFalse(this.scheduler.isScheduled(KEY));
+        assertEquals(TOKEN, profile.getAccessToken());
+    }
+    
+    public void testReinit() throws Exception {
+        final GitHubProfile profile = newProfile(SECRET, 200);
+        assertTrue(this.scheduler.schedule(KEY, this.client, profile));
+        for (int i = 0; i < 10; i++) {
+            this.scheduler.reinit();
+        }
+        assertTrue(this.scheduler.isScheduled(KEY));
+        assertTrue(this.refreshed.await(5, TimeUnit.SECONDS));
+        assertEquals(VALUE, profile.getAccessToken());
+    }
+    
+    public void testComputeRefreshTime() {
+        this.scheduler.setRefreshMargin(1000);
+        this.scheduler.setJitter(500);
+        for (int i = 0; i < 100; i++) {
+            final long refreshTime = this.scheduler.computeRefreshTime(100000, 0);
+            assertTrue(refreshTime <= 99000 && refreshTime > 98500);
+        }
+        assertEquals(1000, this.scheduler.computeRefreshTime(2000, 0));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.oauth.timeout;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.core.util.TestsHelper;
+
+/**
+ * This class tests the {@link AdaptiveTimeouts} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestAdaptiveTimeouts extends TestCase implements TestsConstants {
+    
+    private AdaptiveTimeouts newAdaptiveTimeouts(final int minSamples) throws ClientException {
+        final AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts();
+        adaptiveTimeouts.setMinSamples(minSamples);
+        adaptiveTimeouts.init();
+        return adaptiveTimeouts;
+    }
+    
+    public void testBadConfiguration() {
+        final AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts();
+        adaptiveTimeouts.setReadPercentile(1.5);
+        TestsHelper.initShouldFail(adaptiveTimeouts, "Invalid adaptive timeouts configuration : " + adaptiveTimeouts);
+    }
+    
+    public void testNotInitialized() {
+        final AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts();
+        adaptiveTimeouts.record(100);
+        assertEquals(0, adaptiveTimeouts.getNbSamples());
+        assertEquals(-1, adaptiveTimeouts.getLatency(0.5));
+    }
+    
+    public void testDefaultTimeoutsBeforeMinSamples() throws ClientException {
+        final AdaptiveTimeouts adaptiveTimeouts = newAdaptiveTimeouts(10);
+        for (int i = 0; i < 9; i++) {
+            adaptiveTimeouts.record(1000);
+        }
+        assertEquals(-1, adaptiveTimeouts.getCurrentConnectTimeout());
+        assertEquals(-1, adaptiveTimeouts.getCurrentReadTimeout());
+        assertEquals(500, adaptiveTimeouts.getConnectTimeout(500));
+        assertEquals(3000, adaptiveTimeouts.getReadTimeout(3000));
+        adaptiveTimeouts.record(1000);
+        assertTrue(adaptiveTimeouts.getConnectTimeout(500) != 500);
+        assertTrue(adaptiveTimeouts.getReadTimeout(3000) != 3000);
+    }
+    
+    public void testPercentiles() throws ClientException {
+        final AdaptiveTimeouts adaptiveTimeouts = newAdaptiveTimeouts(1);
+        for (int i = 0; i < 90; i++) {
+            adaptiveTimeouts.record(100);
+        }
+        for (int i = 0; i < 10; i++) {
+            adaptiveTimeouts.record(1000);
+        }
+        final long p50 = adaptiveTimeouts.getLatency(0.5);
+        assertTrue(p50 >= 100 && p50 < 125);
+        final long p99 = adaptiveTimeouts.getLatency(0.99);
+        assertTrue(p99 >= 1000 && p99 < 1250);
+        // read timeout : 2 * p99
+        assertEquals(2 * p99, adaptiveTimeouts.getCurrentReadTimeout());
+        // connect timeout : 2 * p95
+        assertEquals(2 * adaptiveTimeouts.getLatency(0.95), adaptiveTimeouts.getCurrentConnectTimeout());
+    }
+    
+    public void testClamped() throws ClientException {
+        final AdaptiveTimeouts adaptiveTimeouts = newAdaptiveTimeouts(1);
+        adaptiveTimeouts.record(1);
+        assertEquals(adaptiveTimeouts.getMinConnectTimeout(), adaptiveTimeouts.getCurrentConnectTimeout());
+        assertEquals(adaptiveTimeouts.getMinReadTimeout(), adaptiveTimeouts.getCurrentReadTimeout());
+        for (int i = 0; i < 100; i++) {
+            adaptiveTimeouts.record(60000);
+        }
+        assertEquals(adaptiveTimeouts.getMaxConnectTimeout(), adaptiveTimeouts.getCurrentConnectTimeout());
+        assertEquals(adaptiveTimeouts.getMaxReadTimeout(), adaptiveTimeouts.getCurrentReadTimeout());
+    }
+    
+    public void testDecay() throws ClientException, InterruptedException {
+        final AdaptiveTimeouts adaptiveTimeouts = newAdaptiveTimeouts(1);
+        adaptiveTimeouts.setHalfLife(10);
+        adaptiveTimeouts.reinit();
+        for (int i = 0; i < 100; i++) {
+            adaptiveTimeouts.record(2000);
+        }
+        assertTrue(adaptiveTimeouts.getCurrentReadTimeout() >= 4000);
+        // the slow latencies are forgotten after many half-lives
+        Thread.sleep(300);
+        for (int i = 0; i < 10; i++) {
+            adaptiveTimeouts.record(400);
+        }
+        final int readTimeout = adaptiveTimeouts.getCurrentReadTimeout();
+        assertTrue(readTimeout >= 800 && readTimeout < 1000);
+    }
+}
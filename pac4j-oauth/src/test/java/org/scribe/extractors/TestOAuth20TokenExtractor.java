@@ -0,0 +1,92 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.scribe.extractors;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+import org.scribe.exceptions.OAuthException;
+import org.scribe.model.OAuth20Token;
+
+/**
+ * This class tests the {@link OAuth20TokenExtractor} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestOAuth20TokenExtractor extends TestCase implements TestsConstants {
+    
+    private final OAuth20TokenExtractor extractor = new OAuth20TokenExtractor();
+    
+    public void testJson() {
+        final String response = " { \"access_token\" : \"" + TOKEN + "\", \"token_type\" : \"Bearer\", \"expires_in\" : 3600, "
+                                + "\"id_token\" : { \"nested\" : [ 1, 2 ] }, \"refresh_token\" : \"" + SECRET
+                                + "\", \"scope\" : \"" + SCOPE + "\" }";
+        final long before = System.currentTimeMillis();
+        final OAuth20Token token = this.extractor.extract(response);
+        assertEquals(TOKEN, token.getToken());
+        assertEquals(response, token.getRawResponse());
+        assertEquals("Bearer", token.getTokenType());
+        assertEquals(3600, token.getExpiresIn().intValue());
+        assertEquals(SECRET, token.getRefreshToken());
+        assertEquals(SCOPE, token.getScope());
+        assertTrue(token.getExpirationTime() >= before + 3600000);
+        assertFalse(token.isExpired());
+        assertTrue(token.isExpired(3600000 + 1000));
+    }
+    
+    public void testForm() {
+        final OAuth20Token token = this.extractor.extract("access_token=" + TOKEN + "%2B&expires=5183999&scope=a%20b");
+        assertEquals(TOKEN + "+", token.getToken());
+        assertEquals(5183999, token.getExpiresIn().intValue());
+        assertEquals("a b", token.getScope());
+        assertNull(token.getRefreshToken());
+        assertFalse(token.hasRefreshToken());
+    }
+    
+    public void testNoExpiration() {
+        final OAuth20Token token = this.extractor.extract("access_token=" + TOKEN + "&token_type=bearer");
+        assertNull(token.getExpiresIn());
+        assertNull(token.getExpirationTime());
+        assertFalse(token.isExpired(Long.MAX_VALUE / 2));
+    }
+    
+    public void testJsonError() {
+        try {
+            this.extractor.extract("{ \"error\" : { \"message\" : \"" + VALUE + "\", \"type\" : \"OAuthException\" } }");
+            fail("should fail");
+        } catch (final OAuthException e) {
+            assertTrue(e.getMessage().contains(VALUE));
+        }
+    }
+    
+    public void testFormError() {
+        try {
+            this.extractor.extract("error=" + VALUE);
+            fail("should fail");
+        } catch (final OAuthException e) {
+            assertTrue(e.getMessage().contains(VALUE));
+        }
+    }
+    
+    public void testBadJson() {
+        try {
+            this.extractor.extract("{ \"access_token\" : ");
+            fail("should fail");
+        } catch (final OAuthException e) {
+        }
+    }
+}
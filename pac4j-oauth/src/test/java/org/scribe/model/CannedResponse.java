@@ -0,0 +1,101 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.scribe.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a canned response (without any network call) for tests.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class CannedResponse extends Response {
+    
+    public CannedResponse(final int code, final Map<String, String> headers, final String body) throws IOException {
+        super(new CannedConnection(code, headers, body));
+    }
+    
+    private static final class CannedConnection extends HttpURLConnection {
+        
+        private final int code;
+        
+        private final Map<String, String> headers;
+        
+        private final String body;
+        
+        private CannedConnection(final int code, final Map<String, String> headers, final String body) throws IOException {
+            super(new URL("http://localhost"));
+            this.code = code;
+            this.headers = headers != null ? headers : new HashMap<String, String>();
+            this.body = body != null ? body : "";
+        }
+        
+        @Override
+        public int getResponseCode() {
+            return this.code;
+        }
+        
+        @Override
+        public Map<String, List<String>> getHeaderFields() {
+            final Map<String, List<String>> fields = new HashMap<String, List<String>>();
+            for (final Map.Entry<String, String> header : this.headers.entrySet()) {
+                fields.put(header.getKey(), Collections.singletonList(header.getValue()));
+            }
+            return fields;
+        }
+        
+        @Override
+        public String getHeaderField(final String name) {
+            return this.headers.get(name);
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new ByteArrayInputStream(this.body.getBytes("UTF-8"));
+        }
+        
+        @Override
+        public InputStream getErrorStream() {
+            try {
+                return getInputStream();
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        @Override
+        public void connect() {
+        }
+        
+        @Override
+        public void disconnect() {
+        }
+        
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.scribe.oauth;
+
+import junit.framework.TestCase;
+
+import org.pac4j.core.util.TestsConstants;
+import org.scribe.builder.api.DefaultApi20;
+import org.scribe.extractors.AccessTokenExtractor;
+import org.scribe.extractors.JsonTokenExtractor;
+import org.scribe.model.OAuth20Token;
+import org.scribe.model.OAuthConfig;
+import org.scribe.model.Token;
+
+/**
+ * This class tests the access token extraction of the {@link ProxyOAuth20ServiceImpl} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestProxyOAuth20ServiceImpl extends TestCase implements TestsConstants {
+    
+    private static final String JSON_RESPONSE = "{\"access_token\":\"" + TOKEN + "\",\"refresh_token\":\"" + SECRET
+                                                + "\",\"expires_in\":3600}";
+    
+    private ProxyOAuth20ServiceImpl newService(final AccessTokenExtractor extractor) {
+        final DefaultApi20 api = new DefaultApi20() {
+            
+            @Override
+            public String getAccessTokenEndpoint() {
+                return GOOGLE_URL;
+            }
+            
+            @Override
+            public String getAuthorizationUrl(final OAuthConfig config) {
+                return GOOGLE_URL;
+            }
+            
+            @Override
+            public AccessTokenExtractor getAccessTokenExtractor() {
+                return extractor != null ? extractor : super.getAccessTokenExtractor();
+            }
+        };
+        return new ProxyOAuth20ServiceImpl(api, new OAuthConfig(KEY, SECRET), null, 0);
+    }
+    
+    public void testDefaultExtractor() {
+        final OAuth20Token token = newService(null).extractAccessToken(JSON_RESPONSE);
+        assertEquals(TOKEN, token.getToken());
+        assertEquals(SECRET, token.getRefreshToken());
+    }
+    
+    public void testApiExtractor() {
+        final OAuth20Token token = newService(new AccessTokenExtractor() {
+            
+            public Token extract(final String response) {
+                return new OAuth20Token(VALUE, response, null, null, null, null);
+            }
+        }).extractAccessToken(JSON_RESPONSE);
+        assertEquals(VALUE, token.getToken());
+        assertNull(token.getRefreshToken());
+    }
+    
+    public void testApiExtractorWithoutMetadata() {
+        final OAuth20Token token = newService(new JsonTokenExtractor()).extractAccessToken(JSON_RESPONSE);
+        assertEquals(TOKEN, token.getToken());
+        assertEquals(SECRET, token.getRefreshToken());
+        assertEquals(3600, token.getExpiresIn().intValue());
+    }
+}
@@ -18,25 +18,51 @@ package org.pac4j.openid.client;
 import java.util.List;
 
 import org.openid4java.OpenIDException;
+import org.openid4java.consumer.ConsumerAssociationStore;
 import org.openid4java.consumer.ConsumerManager;
+import org.openid4java.consumer.NonceVerifier;
 import org.openid4java.consumer.VerificationResult;
+import org.openid4java.discovery.Discovery;
 import org.openid4java.discovery.DiscoveryInformation;
+import org.openid4java.discovery.DiscoveryException;
 import org.openid4java.discovery.Identifier;
+import org.openid4java.discovery.html.HtmlResolver;
+import org.openid4java.discovery.yadis.YadisResolver;
 import org.openid4java.message.AuthRequest;
 import org.openid4java.message.AuthSuccess;
 import org.openid4java.message.MessageException;
 import org.openid4java.message.ParameterList;
 import org.openid4java.message.ax.FetchRequest;
+import org.openid4java.server.RealmVerifierFactory;
+import org.openid4java.util.HttpFetcher;
+import org.openid4java.util.HttpFetcherFactory;
+import org.pac4j.core.cache.Cache;
+import org.pac4j.core.cache.MemoryCache;
 import org.pac4j.core.client.BaseClient;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.profile.CommonProfile;
 import org.pac4j.core.util.CommonHelper;
 import org.pac4j.openid.credentials.OpenIdCredentials;
+import org.pac4j.openid.store.MemoryAssociationStore;
+import org.pac4j.openid.store.MemoryNonceVerifier;
+
+import com.google.inject.Provider;
 
 /**
  * This class is a base implementation for an OpenID protocol client based on the openid4java library. It should work for all OpenID
  * clients. In subclasses, some methods are to be implemented / customized for specific needs depending on the client.
+ * <p />
+ * The discoveries are cached by normalized user identifier (for one hour by default, the cache can be changed through the
+ * {@link #setDiscoveryCache(Cache)} method) and the associations with the OpenID providers are reused by the consumer manager until they
+ * expire : a login on a known provider does not perform any discovery or Diffie-Hellman exchange. The fetch request is built once.
+ * <p />
+ * The associations and the nonces are kept in concurrent in-memory stores by default : they can be replaced through the
+ * {@link #setAssociationStore(ConsumerAssociationStore)} and {@link #setNonceVerifier(NonceVerifier)} methods, for example by the
+ * memory-mapped file implementations of the {@link org.pac4j.openid.store} package to share them between the processes of a host.
+ * <p />
+ * A client cloned from an initialized client shares its consumer manager and its fetch request. The HTTP requests of the consumer manager
+ * are bounded by the login {@link org.pac4j.core.util.Deadline} (if any).
  * 
  * @author Jerome Leleu
  * @since 1.4.0
@@ -45,12 +71,62 @@ public abstract class BaseOpenIdClient<U extends CommonProfile> extends BaseClie
     
     public final static String DISCOVERY_INFORMATION = "discoveryInformation";
     
-    private ConsumerManager consumerManager;
+    protected ConsumerManager consumerManager;
+    
+    private FetchRequest fetchRequest;
+    
+    // whether the consumer manager (and the fetch request) has been shared by the client this one is cloned from
+    private boolean sharedConsumerManager;
+    
+    protected Cache<String, List<DiscoveryInformation>> discoveryCache = new MemoryCache<String, List<DiscoveryInformation>>();
+    
+    protected ConsumerAssociationStore associationStore = new MemoryAssociationStore();
+    
+    protected NonceVerifier nonceVerifier = new MemoryNonceVerifier();
     
     @Override
     protected void internalInit() throws ClientException {
         CommonHelper.assertNotBlank("callbackUrl", this.callbackUrl);
-        this.consumerManager = new ConsumerManager();
+        CommonHelper.assertNotNull("discoveryCache", this.discoveryCache);
+        CommonHelper.assertNotNull("associationStore", this.associationStore);
+        CommonHelper.assertNotNull("nonceVerifier", this.nonceVerifier);
+        // the consumer manager (and the fetch request) shared by a cloned client is reused if built on the same stores, only for its
+        // first initialization : a reinitialization rebuilds them
+        final boolean shared = this.sharedConsumerManager;
+        this.sharedConsumerManager = false;
+        if (shared && this.consumerManager != null && this.consumerManager.getAssociations() == this.associationStore
+            && this.consumerManager.getNonceVerifier() == this.nonceVerifier) {
+            logger.debug("reuse consumer manager : {}", this.consumerManager);
+            return;
+        }
+        // all the HTTP requests (discoveries, associations, verifications) are bounded by the login deadline (if any)
+        final HttpFetcherFactory fetcherFactory = new HttpFetcherFactory(new Provider<HttpFetcher>() {
+            
+            public HttpFetcher get() {
+                return new DeadlineHttpFetcher();
+            }
+        });
+        final Discovery discovery = new Discovery(new HtmlResolver(fetcherFactory), new YadisResolver(fetcherFactory),
+                                                  Discovery.getXriResolver());
+        final ConsumerManager newConsumerManager = new ConsumerManager(new RealmVerifierFactory(new YadisResolver(fetcherFactory)),
+                                                                       discovery, fetcherFactory);
+        newConsumerManager.setAssociations(this.associationStore);
+        newConsumerManager.setNonceVerifier(this.nonceVerifier);
+        this.consumerManager = newConsumerManager;
+        try {
+            this.fetchRequest = getFetchRequest();
+        } catch (final MessageException e) {
+            logger.error("Cannot build fetch request", e);
+            throw new ClientException("Cannot build fetch request", e);
+        }
+    }
+    
+    @Override
+    protected void shareInitializedObjects(final BaseClient<OpenIdCredentials, U> newClient) {
+        final BaseOpenIdClient<U> openIdClient = (BaseOpenIdClient<U>) newClient;
+        openIdClient.consumerManager = this.consumerManager;
+        openIdClient.fetchRequest = this.fetchRequest;
+        openIdClient.sharedConsumerManager = true;
     }
     
     /**
@@ -71,23 +147,46 @@ public abstract class BaseOpenIdClient<U extends CommonProfile> extends BaseClie
     }
     
     /**
-     * Get a fetch request for attributes.
+     * Get a fetch request for attributes : it is called once at initialization and the returned request is added to all the
+     * authentication requests (it must not be modified afterwards).
      * 
      * @return a fetch request for attributes
      * @throws MessageException
      */
     protected abstract FetchRequest getFetchRequest() throws MessageException;
     
-    @SuppressWarnings("rawtypes")
+    /**
+     * Return the discoveries for the user identifier, from the cache if possible.
+     * 
+     * @param userIdentifier
+     * @return the discoveries
+     * @throws DiscoveryException
+     */
+    @SuppressWarnings("unchecked")
+    protected List<DiscoveryInformation> discover(final String userIdentifier) throws DiscoveryException {
+        final Identifier identifier = this.consumerManager.getDiscovery().parseIdentifier(userIdentifier);
+        final String key = identifier.getIdentifier();
+        List<DiscoveryInformation> discoveries = this.discoveryCache.get(key);
+        if (discoveries == null) {
+            discoveries = this.consumerManager.getDiscovery().discover(identifier);
+            if (discoveries != null && !discoveries.isEmpty()) {
+                this.discoveryCache.put(key, discoveries);
+            }
+        } else {
+            logger.debug("cached discoveries for : {}", key);
+        }
+        return discoveries;
+    }
+    
     public String getRedirectionUrl(final WebContext context) throws ClientException {
         init();
         final String userIdentifier = getUser(context);
         
         try {
-            // perform discovery on the user-supplied identifier
-            final List discoveries = this.consumerManager.discover(userIdentifier);
+            // perform discovery on the user-supplied identifier (or get it from cache)
+            final List<DiscoveryInformation> discoveries = discover(userIdentifier);
             
-            // attempt to associate with the OpenID provider
+            // attempt to associate with the OpenID provider (or reuse the current association)
             // and retrieve one service endpoint for authentication
             final DiscoveryInformation discoveryInformation = this.consumerManager.associate(discoveries);
             
@@ -97,10 +196,9 @@ public abstract class BaseOpenIdClient<U extends CommonProfile> extends BaseClie
             // create authentication request to be sent to the OpenID provider
             final AuthRequest authRequest = this.consumerManager.authenticate(discoveryInformation, this.callbackUrl);
             
-            // create fetch request for attributes
-            final FetchRequest fetchRequest = getFetchRequest();
-            if (fetchRequest != null) {
-                authRequest.addExtension(fetchRequest);
+            // add the fetch request for attributes
+            if (this.fetchRequest != null) {
+                authRequest.addExtension(this.fetchRequest);
             }
             
             final String redirectionUrl = authRequest.getDestinationUrl(true);
@@ -168,4 +266,28 @@ public abstract class BaseOpenIdClient<U extends CommonProfile> extends BaseClie
         logger.error(message);
         throw new ClientException(message);
     }
+    
+    public Cache<String, List<DiscoveryInformation>> getDiscoveryCache() {
+        return this.discoveryCache;
+    }
+    
+    public void setDiscoveryCache(final Cache<String, List<DiscoveryInformation>> discoveryCache) {
+        this.discoveryCache = discoveryCache;
+    }
+    
+    public ConsumerAssociationStore getAssociationStore() {
+        return this.associationStore;
+    }
+    
+    public void setAssociationStore(final ConsumerAssociationStore associationStore) {
+        this.associationStore = associationStore;
+    }
+    
+    public NonceVerifier getNonceVerifier() {
+        return this.nonceVerifier;
+    }
+    
+    public void setNonceVerifier(final NonceVerifier nonceVerifier) {
+        this.nonceVerifier = nonceVerifier;
+    }
 }
@@ -0,0 +1,61 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.client;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.openid4java.util.HttpCache;
+import org.openid4java.util.HttpRequestOptions;
+import org.openid4java.util.HttpResponse;
+import org.pac4j.core.util.Deadline;
+
+/**
+ * This class is the HTTP fetcher of the OpenID clients : the connect and socket timeouts of each request are bounded by the remaining
+ * time of the login {@link Deadline} (if any).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+final class DeadlineHttpFetcher extends HttpCache {
+    
+    @Override
+    public HttpResponse get(final String url, final HttpRequestOptions requestOptions) throws IOException {
+        return super.get(url, applyDeadline(requestOptions));
+    }
+    
+    @Override
+    public HttpResponse post(final String url, final Map<String, String> parameters, final HttpRequestOptions requestOptions)
+        throws IOException {
+        return super.post(url, parameters, applyDeadline(requestOptions));
+    }
+    
+    @Override
+    public HttpResponse head(final String url, final HttpRequestOptions requestOptions) throws IOException {
+        return super.head(url, applyDeadline(requestOptions));
+    }
+    
+    private HttpRequestOptions applyDeadline(final HttpRequestOptions requestOptions) throws IOException {
+        if (Deadline.current() == null) {
+            return requestOptions;
+        }
+        final HttpRequestOptions options = new HttpRequestOptions(requestOptions != null ? requestOptions
+            : getDefaultRequestOptions());
+        options.setConnTimeout(Deadline.computeTimeout(options.getConnTimeout()));
+        options.setSocketTimeout(Deadline.computeTimeout(options.getSocketTimeout()));
+        return options;
+    }
+}
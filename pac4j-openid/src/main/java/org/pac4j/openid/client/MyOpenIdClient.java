@@ -56,6 +56,9 @@ public class MyOpenIdClient extends BaseOpenIdClient<MyOpenIdProfile> {
     protected BaseClient<OpenIdCredentials, MyOpenIdProfile> newClient() {
         MyOpenIdClient newClient = new MyOpenIdClient();
         newClient.setUserParameterName(this.userParameterName);
+        newClient.setDiscoveryCache(this.discoveryCache);
+        newClient.setAssociationStore(this.associationStore);
+        newClient.setNonceVerifier(this.nonceVerifier);
         return newClient;
     }
     
@@ -0,0 +1,100 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+import org.openid4java.consumer.NonceVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a base implementation for the nonce verifiers : unlike the openid4java ones, the checks are not synchronized, the
+ * subclasses only have to record atomically the nonces seen.
+ * <p />
+ * A nonce is recorded until its timestamp is older than the maximum age (60 seconds by default).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public abstract class BaseNonceVerifier implements NonceVerifier {
+    
+    protected static final Logger logger = LoggerFactory.getLogger(BaseNonceVerifier.class);
+    
+    public static final int DEFAULT_MAX_AGE = 60;
+    
+    // the timestamp at the beginning of the nonce : 2005-05-15T17:11:51Z
+    private static final int TIMESTAMP_LENGTH = 20;
+    
+    private static final ThreadLocal<DateFormat> dateFormat = new ThreadLocal<DateFormat>() {
+        
+        @Override
+        protected DateFormat initialValue() {
+            final DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            format.setLenient(false);
+            return format;
+        }
+    };
+    
+    private volatile int maxAge = DEFAULT_MAX_AGE;
+    
+    public int seen(final String opUrl, final String nonce) {
+        if (nonce == null || nonce.length() < TIMESTAMP_LENGTH) {
+            logger.error("Invalid nonce : {}", nonce);
+            return INVALID_TIMESTAMP;
+        }
+        final long timestamp;
+        try {
+            timestamp = dateFormat.get().parse(nonce.substring(0, TIMESTAMP_LENGTH)).getTime();
+        } catch (final ParseException e) {
+            logger.error("Invalid nonce timestamp : {}", nonce);
+            return INVALID_TIMESTAMP;
+        }
+        final long now = System.currentTimeMillis();
+        final long expirationTime = timestamp + this.maxAge * 1000L;
+        if (expirationTime <= now) {
+            logger.error("Too old nonce : {}", nonce);
+            return TOO_OLD;
+        }
+        if (!markSeen(opUrl + " " + nonce, expirationTime, now)) {
+            logger.error("Nonce already seen : {}", nonce);
+            return SEEN;
+        }
+        return OK;
+    }
+    
+    /**
+     * Record atomically a nonce until its expiration time.
+     * 
+     * @param key
+     * @param expirationTime
+     * @param now
+     * @return <code>false</code> if the nonce was already recorded and not expired, <code>true</code> otherwise
+     */
+    protected abstract boolean markSeen(String key, long expirationTime, long now);
+    
+    public int getMaxAge() {
+        return this.maxAge;
+    }
+    
+    public void setMaxAge(final int maxAge) {
+        this.maxAge = maxAge;
+    }
+}
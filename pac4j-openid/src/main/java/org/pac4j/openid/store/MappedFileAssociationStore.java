@@ -0,0 +1,162 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.openid4java.association.Association;
+import org.openid4java.consumer.ConsumerAssociationStore;
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This association store keeps the associations in a memory-mapped file, so that all the processes of the same host using the same file
+ * share the associations with the OpenID providers.
+ * <p />
+ * The file holds a fixed number of records (16384 by default, two per association) : when it is full, the associations expiring first
+ * are forgotten (and renegotiated when needed). The association keys are stored in clear in the file, which must only be readable by
+ * the application.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MappedFileAssociationStore implements ConsumerAssociationStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileAssociationStore.class);
+    
+    public static final int DEFAULT_NB_SLOTS = 16384;
+    
+    // handle (255 characters max) + type + expiry + key (32 bytes max)
+    private static final int PAYLOAD_SIZE = 384;
+    
+    private final String fileName;
+    
+    private final MappedFileTable table;
+    
+    public MappedFileAssociationStore(final String fileName) throws ClientException {
+        this(fileName, DEFAULT_NB_SLOTS);
+    }
+    
+    public MappedFileAssociationStore(final String fileName, final int nbSlots) throws ClientException {
+        CommonHelper.assertNotBlank("fileName", fileName);
+        this.fileName = fileName;
+        try {
+            this.table = new MappedFileTable(new File(fileName), nbSlots, PAYLOAD_SIZE);
+        } catch (final IOException e) {
+            throw new ClientException("Cannot open associations file : " + fileName, e);
+        }
+    }
+    
+    public void save(final String opUrl, final Association association) {
+        try {
+            final byte[] payload = toBytes(association);
+            final long expirationTime = association.getExpiry().getTime();
+            final long now = System.currentTimeMillis();
+            this.table.put(opUrl + "\n" + association.getHandle(), payload, expirationTime, now, false);
+            // the latest association of the OpenID provider
+            this.table.put(opUrl, payload, expirationTime, now, false);
+        } catch (final IOException e) {
+            logger.error("Cannot save association in : " + this.fileName, e);
+        }
+    }
+    
+    public Association load(final String opUrl, final String handle) {
+        final Association association = read(opUrl + "\n" + handle);
+        if (association != null && CommonHelper.areEquals(handle, association.getHandle())) {
+            return association;
+        }
+        return null;
+    }
+    
+    public Association load(final String opUrl) {
+        return read(opUrl);
+    }
+    
+    public void remove(final String opUrl, final String handle) {
+        try {
+            this.table.remove(opUrl + "\n" + handle);
+            final Association latest = read(opUrl);
+            if (latest != null && CommonHelper.areEquals(handle, latest.getHandle())) {
+                this.table.remove(opUrl);
+            }
+        } catch (final IOException e) {
+            logger.error("Cannot remove association from : " + this.fileName, e);
+        }
+    }
+    
+    private Association read(final String key) {
+        try {
+            final byte[] payload = this.table.get(key, System.currentTimeMillis());
+            if (payload == null) {
+                return null;
+            }
+            return fromBytes(payload);
+        } catch (final IOException e) {
+            logger.error("Cannot read association from : " + this.fileName, e);
+            return null;
+        }
+    }
+    
+    private byte[] toBytes(final Association association) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeUTF(association.getHandle());
+        output.writeUTF(association.getType() == null ? "" : association.getType());
+        output.writeLong(association.getExpiry().getTime());
+        final byte[] key = association.getMacKey() == null ? new byte[0] : association.getMacKey().getEncoded();
+        output.writeShort(key.length);
+        output.write(key);
+        output.close();
+        return bytes.toByteArray();
+    }
+    
+    private Association fromBytes(final byte[] payload) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        final String handle = input.readUTF();
+        final String type = input.readUTF();
+        final Date expiry = new Date(input.readLong());
+        final byte[] key = new byte[input.readShort()];
+        input.readFully(key);
+        if (Association.FAILED_ASSOC_HANDLE.equals(handle)) {
+            return Association.getFailedAssociation(expiry);
+        } else if (Association.TYPE_HMAC_SHA256.equals(type)) {
+            return Association.createHmacSha256(handle, key, expiry);
+        }
+        return Association.createHmacSha1(handle, key, expiry);
+    }
+    
+    /**
+     * Close the file.
+     * 
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        this.table.close();
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "fileName", this.fileName);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This nonce verifier records the nonces in a memory-mapped file, so that all the processes of the same host using the same file detect
+ * the replays.
+ * <p />
+ * The file holds a fixed number of nonces (65536 by default) : when it is full, the new nonces are rejected until the recorded ones
+ * expire (failing closed rather than forgetting nonces which could then be replayed).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MappedFileNonceVerifier extends BaseNonceVerifier {
+    
+    public static final int DEFAULT_NB_SLOTS = 65536;
+    
+    private static final byte[] EMPTY = new byte[0];
+    
+    private final String fileName;
+    
+    private final MappedFileTable table;
+    
+    public MappedFileNonceVerifier(final String fileName) throws ClientException {
+        this(fileName, DEFAULT_NB_SLOTS);
+    }
+    
+    public MappedFileNonceVerifier(final String fileName, final int nbSlots) throws ClientException {
+        CommonHelper.assertNotBlank("fileName", fileName);
+        this.fileName = fileName;
+        try {
+            this.table = new MappedFileTable(new File(fileName), nbSlots, 0);
+        } catch (final IOException e) {
+            throw new ClientException("Cannot open nonces file : " + fileName, e);
+        }
+    }
+    
+    @Override
+    protected boolean markSeen(final String key, final long expirationTime, final long now) {
+        try {
+            return this.table.put(key, EMPTY, expirationTime, now, true);
+        } catch (final IOException e) {
+            // fail closed : the nonce cannot be checked
+            logger.error("Cannot record nonce in : " + this.fileName, e);
+            return false;
+        }
+    }
+    
+    /**
+     * Close the file.
+     * 
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        this.table.close();
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "maxAge", getMaxAge(), "fileName", this.fileName);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This class is a fixed-size hash table of expiring records stored in a memory-mapped file, so that several processes of the same host
+ * share it.
+ * <p />
+ * A record is located by the 64 bits fingerprint of its key, identified by the SHA-256 digest of its key (so that two keys sharing a
+ * fingerprint never match) and holds a payload of bounded size. The slots of the expired records are
+ * reused and, when all the probed slots are alive, the record expiring first is evicted, unless the record must only be saved if absent :
+ * it is then rejected, not to forget an alive record (a nonce could be replayed). Each operation holds an exclusive lock on the file :
+ * only one table must be opened per file in a JVM.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+final class MappedFileTable {
+    
+    private static final int MAGIC = 0x7034A003;
+    
+    private static final int HEADER_SIZE = 16;
+    
+    private static final int MAX_PROBES = 16;
+    
+    // record layout : fingerprint, expiration time, digest of the key, payload length and payload
+    private static final int EXPIRATION_TIME = 8;
+    
+    private static final int DIGEST = 16;
+    
+    private static final int DIGEST_SIZE = 32;
+    
+    private static final int LENGTH = DIGEST + DIGEST_SIZE;
+    
+    private static final int PAYLOAD = LENGTH + 4;
+    
+    private final int nbSlots;
+    
+    private final int payloadSize;
+    
+    private final int recordSize;
+    
+    private final FileChannel channel;
+    
+    private final MappedByteBuffer buffer;
+    
+    MappedFileTable(final File file, final int nbSlots, final int payloadSize) throws IOException {
+        if (nbSlots <= 0 || payloadSize < 0) {
+            throw new IOException("Invalid layout : " + nbSlots + " slots of " + payloadSize + " bytes");
+        }
+        this.nbSlots = nbSlots;
+        this.payloadSize = payloadSize;
+        this.recordSize = PAYLOAD + payloadSize;
+        final long size = HEADER_SIZE + (long) nbSlots * this.recordSize;
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+        final FileLock lock = this.channel.lock();
+        try {
+            final boolean created = randomAccessFile.length() == 0;
+            if (!created && randomAccessFile.length() != size) {
+                throw new IOException("Unexpected size for " + file + " : " + randomAccessFile.length() + " instead of " + size);
+            }
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (created) {
+                this.buffer.putInt(0, MAGIC);
+                this.buffer.putInt(4, nbSlots);
+                this.buffer.putInt(8, payloadSize);
+            } else if (this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != nbSlots
+                       || this.buffer.getInt(8) != payloadSize) {
+                throw new IOException("Unexpected layout for " + file);
+            }
+        } catch (final IOException e) {
+            lock.release();
+            this.channel.close();
+            throw e;
+        }
+        lock.release();
+    }
+    
+    /**
+     * Return the payload of the alive record for the key (<code>null</code> if none).
+     * 
+     * @param key
+     * @param now
+     * @return the payload
+     * @throws IOException
+     */
+    synchronized byte[] get(final String key, final long now) throws IOException {
+        final long fingerprint = fingerprint(key);
+        final byte[] digest = CommonHelper.sha256(key);
+        final FileLock lock = this.channel.lock();
+        try {
+            final int slot = find(fingerprint, digest, now);
+            if (slot < 0) {
+                return null;
+            }
+            final int offset = offset(slot);
+            final byte[] payload = new byte[this.buffer.getInt(offset + LENGTH)];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = this.buffer.get(offset + PAYLOAD + i);
+            }
+            return payload;
+        } finally {
+            lock.release();
+        }
+    }
+    
+    /**
+     * Save a record for the key.
+     * 
+     * @param key
+     * @param payload
+     * @param expirationTime
+     * @param now
+     * @param onlyIfAbsent whether an alive record must be kept (no alive record is evicted then)
+     * @return whether the record has been saved
+     * @throws IOException
+     */
+    synchronized boolean put(final String key, final byte[] payload, final long expirationTime, final long now,
+                             final boolean onlyIfAbsent) throws IOException {
+        if (payload.length > this.payloadSize) {
+            throw new IOException("Payload too large : " + payload.length + " > " + this.payloadSize);
+        }
+        final long fingerprint = fingerprint(key);
+        final byte[] digest = CommonHelper.sha256(key);
+        final FileLock lock = this.channel.lock();
+        try {
+            int slot = find(fingerprint, digest, now);
+            if (slot >= 0 && onlyIfAbsent) {
+                return false;
+            }
+            if (slot < 0) {
+                slot = findFreeSlot(fingerprint, now, !onlyIfAbsent);
+                if (slot < 0) {
+                    return false;
+                }
+            }
+            final int offset = offset(slot);
+            this.buffer.putLong(offset, fingerprint);
+            this.buffer.putLong(offset + EXPIRATION_TIME, expirationTime);
+            for (int i = 0; i < DIGEST_SIZE; i++) {
+                this.buffer.put(offset + DIGEST + i, digest[i]);
+            }
+            this.buffer.putInt(offset + LENGTH, payload.length);
+            for (int i = 0; i < payload.length; i++) {
+                this.buffer.put(offset + PAYLOAD + i, payload[i]);
+            }
+            return true;
+        } finally {
+            lock.release();
+        }
+    }
+    
+    /**
+     * Remove the record for the key.
+     * 
+     * @param key
+     * @throws IOException
+     */
+    synchronized void remove(final String key) throws IOException {
+        final long fingerprint = fingerprint(key);
+        final byte[] digest = CommonHelper.sha256(key);
+        final FileLock lock = this.channel.lock();
+        try {
+            final int slot = find(fingerprint, digest, Long.MIN_VALUE);
+            if (slot >= 0) {
+                this.buffer.putLong(offset(slot), 0L);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+    
+    /**
+     * Close the file.
+     * 
+     * @throws IOException
+     */
+    synchronized void close() throws IOException {
+        this.buffer.force();
+        this.channel.close();
+    }
+    
+    private int find(final long fingerprint, final byte[] digest, final long now) {
+        final int start = start(fingerprint);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            final int slot = (start + i) % this.nbSlots;
+            final int offset = offset(slot);
+            if (this.buffer.getLong(offset) == fingerprint && this.buffer.getLong(offset + EXPIRATION_TIME) > now
+                && hasDigest(offset, digest)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    private boolean hasDigest(final int offset, final byte[] digest) {
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            if (this.buffer.get(offset + DIGEST + i) != digest[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int findFreeSlot(final long fingerprint, final long now, final boolean evict) {
+        final int start = start(fingerprint);
+        int victim = -1;
+        long victimExpirationTime = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            final int slot = (start + i) % this.nbSlots;
+            final int offset = offset(slot);
+            final long expirationTime = this.buffer.getLong(offset + EXPIRATION_TIME);
+            if (this.buffer.getLong(offset) == 0L || expirationTime <= now) {
+                return slot;
+            }
+            if (evict && expirationTime < victimExpirationTime) {
+                victim = slot;
+                victimExpirationTime = expirationTime;
+            }
+        }
+        return victim;
+    }
+    
+    private int start(final long fingerprint) {
+        return (int) ((fingerprint & Long.MAX_VALUE) % this.nbSlots);
+    }
+    
+    private int offset(final int slot) {
+        return HEADER_SIZE + slot * this.recordSize;
+    }
+    
+    // FNV-1a 64 bits, 0 being reserved for the empty slots
+    static long fingerprint(final String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            hash ^= c & 0xFF;
+            hash *= 0x100000001b3L;
+            hash ^= c >>> 8;
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0L ? 1L : hash;
+    }
+}
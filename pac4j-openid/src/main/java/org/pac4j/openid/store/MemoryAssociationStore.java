@@ -0,0 +1,145 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.openid4java.association.Association;
+import org.openid4java.consumer.ConsumerAssociationStore;
+import org.pac4j.core.cache.ExpiryBuckets;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This association store keeps the associations in concurrent maps (by OpenID provider and handle) : the expired associations are purged
+ * by time buckets.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MemoryAssociationStore implements ConsumerAssociationStore {
+    
+    // 1 minute
+    public static final long DEFAULT_BUCKET_DURATION = 60000;
+    
+    private final ConcurrentMap<String, ConcurrentMap<String, Association>> associations = new ConcurrentHashMap<String, ConcurrentMap<String, Association>>();
+    
+    private final ExpiryBuckets<AssociationKey> buckets;
+    
+    public MemoryAssociationStore() {
+        this(DEFAULT_BUCKET_DURATION);
+    }
+    
+    public MemoryAssociationStore(final long bucketDuration) {
+        this.buckets = new ExpiryBuckets<AssociationKey>(bucketDuration);
+    }
+    
+    public void save(final String opUrl, final Association association) {
+        purge();
+        ConcurrentMap<String, Association> opAssociations = this.associations.get(opUrl);
+        if (opAssociations == null) {
+            final ConcurrentMap<String, Association> newOpAssociations = new ConcurrentHashMap<String, Association>();
+            opAssociations = this.associations.putIfAbsent(opUrl, newOpAssociations);
+            if (opAssociations == null) {
+                opAssociations = newOpAssociations;
+            }
+        }
+        opAssociations.put(association.getHandle(), association);
+        this.buckets.add(new AssociationKey(opUrl, association.getHandle()), association.getExpiry().getTime());
+    }
+    
+    public Association load(final String opUrl, final String handle) {
+        final ConcurrentMap<String, Association> opAssociations = this.associations.get(opUrl);
+        if (opAssociations == null) {
+            return null;
+        }
+        final Association association = opAssociations.get(handle);
+        if (association == null || association.hasExpired()) {
+            return null;
+        }
+        return association;
+    }
+    
+    /**
+     * Load the association expiring last for the OpenID provider.
+     * 
+     * @param opUrl
+     * @return the association
+     */
+    public Association load(final String opUrl) {
+        final ConcurrentMap<String, Association> opAssociations = this.associations.get(opUrl);
+        if (opAssociations == null) {
+            return null;
+        }
+        Association latest = null;
+        for (final Association association : opAssociations.values()) {
+            if (!association.hasExpired()
+                && (latest == null || association.getExpiry().after(latest.getExpiry()))) {
+                latest = association;
+            }
+        }
+        return latest;
+    }
+    
+    public void remove(final String opUrl, final String handle) {
+        final ConcurrentMap<String, Association> opAssociations = this.associations.get(opUrl);
+        if (opAssociations != null) {
+            opAssociations.remove(handle);
+        }
+    }
+    
+    private void purge() {
+        for (final AssociationKey key : this.buckets.pollExpired(System.currentTimeMillis())) {
+            final ConcurrentMap<String, Association> opAssociations = this.associations.get(key.opUrl);
+            if (opAssociations != null) {
+                final Association association = opAssociations.get(key.handle);
+                if (association != null && association.hasExpired()) {
+                    opAssociations.remove(key.handle, association);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Return the number of associations (including the expired ones not yet purged).
+     * 
+     * @return the number of associations
+     */
+    public int size() {
+        int size = 0;
+        for (final ConcurrentMap<String, Association> opAssociations : this.associations.values()) {
+            size += opAssociations.size();
+        }
+        return size;
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "size", size());
+    }
+    
+    private static final class AssociationKey {
+        
+        private final String opUrl;
+        
+        private final String handle;
+        
+        private AssociationKey(final String opUrl, final String handle) {
+            this.opUrl = opUrl;
+            this.handle = handle;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.pac4j.core.cache.ExpiryBuckets;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * This nonce verifier records the nonces in a concurrent map : the expired nonces are purged by time buckets.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public class MemoryNonceVerifier extends BaseNonceVerifier {
+    
+    // 10 seconds
+    public static final long DEFAULT_BUCKET_DURATION = 10000;
+    
+    private final ConcurrentMap<String, Long> nonces = new ConcurrentHashMap<String, Long>();
+    
+    private final ExpiryBuckets<String> buckets;
+    
+    public MemoryNonceVerifier() {
+        this(DEFAULT_BUCKET_DURATION);
+    }
+    
+    public MemoryNonceVerifier(final long bucketDuration) {
+        this.buckets = new ExpiryBuckets<String>(bucketDuration);
+    }
+    
+    @Override
+    protected boolean markSeen(final String key, final long expirationTime, final long now) {
+        purge(now);
+        final Long newExpirationTime = Long.valueOf(expirationTime);
+        final Long currentExpirationTime = this.nonces.putIfAbsent(key, newExpirationTime);
+        if (currentExpirationTime != null) {
+            if (currentExpirationTime.longValue() > now
+                || !this.nonces.replace(key, currentExpirationTime, newExpirationTime)) {
+                return false;
+            }
+        }
+        this.buckets.add(key, expirationTime);
+        return true;
+    }
+    
+    private void purge(final long now) {
+        for (final String key : this.buckets.pollExpired(now)) {
+            final Long expirationTime = this.nonces.get(key);
+            if (expirationTime != null && expirationTime.longValue() <= now) {
+                this.nonces.remove(key, expirationTime);
+            }
+        }
+    }
+    
+    /**
+     * Return the number of recorded nonces (including the expired ones not yet purged).
+     * 
+     * @return the number of recorded nonces
+     */
+    public int size() {
+        return this.nonces.size();
+    }
+    
+    @Override
+    public String toString() {
+        return CommonHelper.toString(this.getClass(), "maxAge", getMaxAge(), "size", this.nonces.size());
+    }
+}
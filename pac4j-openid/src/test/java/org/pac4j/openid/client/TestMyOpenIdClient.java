@@ -16,16 +16,25 @@
  */
 package org.pac4j.openid.client;
 
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openid4java.consumer.ConsumerManager;
+import org.openid4java.discovery.DiscoveryInformation;
+import org.openid4java.discovery.UrlIdentifier;
 import org.pac4j.core.client.Client;
 import org.pac4j.core.client.TestClient;
 import org.pac4j.core.context.MockWebContext;
 import org.pac4j.core.context.WebContext;
+import org.pac4j.core.exception.ClientException;
 import org.pac4j.core.profile.Gender;
 import org.pac4j.core.profile.ProfileHelper;
 import org.pac4j.core.profile.UserProfile;
 import org.pac4j.core.util.TestsConstants;
 import org.pac4j.core.util.TestsHelper;
 import org.pac4j.openid.profile.myopenid.MyOpenIdProfile;
+import org.pac4j.openid.store.MemoryNonceVerifier;
 
 import com.gargoylesoftware.htmlunit.WebClient;
 import com.gargoylesoftware.htmlunit.html.HtmlForm;
@@ -47,6 +56,59 @@ public class TestMyOpenIdClient extends TestClient implements TestsConstants {
         oldClient.setUserParameterName(PARAMETER_NAME);
         final MyOpenIdClient client = (MyOpenIdClient) internalTestClone(oldClient);
         assertEquals(oldClient.getUserParameterName(), client.getUserParameterName());
+        assertSame(oldClient.getDiscoveryCache(), client.getDiscoveryCache());
+        assertSame(oldClient.getAssociationStore(), client.getAssociationStore());
+        assertSame(oldClient.getNonceVerifier(), client.getNonceVerifier());
+    }
+    
+    public void testCloneInitializedClient() throws ClientException {
+        final MyOpenIdClient oldClient = (MyOpenIdClient) getClient();
+        oldClient.init();
+        final MyOpenIdClient client = (MyOpenIdClient) oldClient.clone();
+        client.setCallbackUrl(CALLBACK_URL + "?tenant=" + VALUE);
+        client.init();
+        assertSame(oldClient.consumerManager, client.consumerManager);
+        final MyOpenIdClient otherClient = (MyOpenIdClient) oldClient.clone();
+        otherClient.setNonceVerifier(new MemoryNonceVerifier());
+        otherClient.init();
+        assertNotSame(oldClient.consumerManager, otherClient.consumerManager);
+        assertSame(otherClient.getNonceVerifier(), otherClient.consumerManager.getNonceVerifier());
+    }
+    
+    public void testReinit() throws ClientException {
+        final MyOpenIdClient oldClient = (MyOpenIdClient) getClient();
+        oldClient.init();
+        final MyOpenIdClient client = (MyOpenIdClient) oldClient.clone();
+        client.init();
+        assertSame(oldClient.consumerManager, client.consumerManager);
+        // a reinitialization rebuilds the consumer manager
+        client.reinit();
+        assertNotSame(oldClient.consumerManager, client.consumerManager);
+        final ConsumerManager consumerManager = oldClient.consumerManager;
+        oldClient.reinit();
+        assertNotSame(consumerManager, oldClient.consumerManager);
+    }
+    
+    public void testMissingDiscoveryCache() {
+        final MyOpenIdClient client = (MyOpenIdClient) getClient();
+        client.setDiscoveryCache(null);
+        TestsHelper.initShouldFail(client, "discoveryCache cannot be null");
+    }
+    
+    public void testCachedDiscovery() throws Exception {
+        final MyOpenIdClient client = (MyOpenIdClient) getClient();
+        final List<DiscoveryInformation> discoveries = new ArrayList<DiscoveryInformation>();
+        discoveries.add(new DiscoveryInformation(new URL("http://localhost:1/openid"),
+                                                 new UrlIdentifier("http://testpac4j.myopenid.com/"), null,
+                                                 DiscoveryInformation.OPENID2));
+        client.getDiscoveryCache().put("http://testpac4j.myopenid.com/", discoveries);
+        final MockWebContext context = MockWebContext.create()
+            .addRequestParameter(MyOpenIdClient.DEFAULT_USER_PARAMETER_NAME, "testpac4j.myopenid.com");
+        final String redirectionUrl = client.getRedirectionUrl(context);
+        assertTrue(redirectionUrl.startsWith("http://localhost:1/openid?"));
+        assertTrue(redirectionUrl.contains(".type.fullname="));
+        assertSame(discoveries.get(0),
+                   context.getSessionAttribute(client.getDiscoveryInformationSessionAttributeName()));
     }
     
     public void testMissingUserParameterName() {
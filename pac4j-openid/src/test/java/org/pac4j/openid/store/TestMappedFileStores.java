@@ -0,0 +1,135 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.openid4java.association.Association;
+import org.openid4java.consumer.NonceVerifier;
+import org.pac4j.core.exception.ClientException;
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link MappedFileNonceVerifier} and {@link MappedFileAssociationStore} classes (two instances on the same file
+ * simulating two processes).
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestMappedFileStores extends TestCase implements TestsConstants {
+    
+    private File file;
+    
+    @Override
+    protected void setUp() throws Exception {
+        this.file = File.createTempFile("pac4j", ".map");
+        this.file.delete();
+    }
+    
+    @Override
+    protected void tearDown() {
+        this.file.delete();
+    }
+    
+    public void testSharedNonces() throws Exception {
+        final MappedFileNonceVerifier verifier1 = new MappedFileNonceVerifier(this.file.getPath(), 64);
+        final MappedFileNonceVerifier verifier2 = new MappedFileNonceVerifier(this.file.getPath(), 64);
+        final String nonce = TestMemoryNonceVerifier.nonce(System.currentTimeMillis(), VALUE);
+        assertEquals(NonceVerifier.OK, verifier1.seen(GOOGLE_URL, nonce));
+        assertEquals(NonceVerifier.SEEN, verifier2.seen(GOOGLE_URL, nonce));
+        assertEquals(NonceVerifier.OK, verifier2.seen(CALLBACK_URL, nonce));
+        verifier1.close();
+        verifier2.close();
+    }
+    
+    public void testFullNonces() throws Exception {
+        // 16 slots : all of them are probed
+        final MappedFileNonceVerifier verifier = new MappedFileNonceVerifier(this.file.getPath(), 16);
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 16; i++) {
+            assertEquals(NonceVerifier.OK, verifier.seen(GOOGLE_URL, TestMemoryNonceVerifier.nonce(now, VALUE + i)));
+        }
+        // no alive nonce is forgotten : the new ones are rejected
+        assertEquals(NonceVerifier.SEEN, verifier.seen(GOOGLE_URL, TestMemoryNonceVerifier.nonce(now, VALUE + 16)));
+        assertEquals(NonceVerifier.SEEN, verifier.seen(GOOGLE_URL, TestMemoryNonceVerifier.nonce(now, VALUE + 0)));
+        verifier.close();
+    }
+    
+    public void testSameFingerprintOtherKey() throws Exception {
+        final MappedFileTable table = new MappedFileTable(this.file, 1, 4);
+        final long now = System.currentTimeMillis();
+        assertTrue(table.put(KEY, new byte[] { 1, 2 }, now + 60000, now, false));
+        assertEquals(2, table.get(KEY, now).length);
+        // another process alters the digest of the key (header : 16 bytes, fingerprint and expiration time : 16 bytes)
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(this.file, "rw");
+        randomAccessFile.seek(32);
+        final int b = randomAccessFile.read();
+        randomAccessFile.seek(32);
+        randomAccessFile.write(b ^ 0xFF);
+        randomAccessFile.close();
+        // same fingerprint, but not the same key
+        assertNull(table.get(KEY, now));
+        table.close();
+    }
+    
+    public void testLargePayload() throws Exception {
+        final MappedFileTable table = new MappedFileTable(this.file, 1, 40000);
+        final long now = System.currentTimeMillis();
+        final byte[] payload = new byte[40000];
+        payload[39999] = 1;
+        assertTrue(table.put(KEY, payload, now + 60000, now, false));
+        final byte[] loaded = table.get(KEY, now);
+        assertEquals(40000, loaded.length);
+        assertEquals(1, loaded[39999]);
+        table.close();
+    }
+    
+    public void testWrongLayout() throws Exception {
+        new MappedFileNonceVerifier(this.file.getPath(), 64).close();
+        try {
+            new MappedFileNonceVerifier(this.file.getPath(), 128);
+            fail("should fail");
+        } catch (final ClientException e) {
+            assertEquals("Cannot open nonces file : " + this.file.getPath(), e.getMessage());
+        }
+    }
+    
+    public void testSharedAssociations() throws Exception {
+        final MappedFileAssociationStore store1 = new MappedFileAssociationStore(this.file.getPath(), 64);
+        final MappedFileAssociationStore store2 = new MappedFileAssociationStore(this.file.getPath(), 64);
+        final Association association = Association.generateHmacSha256(KEY, 60);
+        store1.save(GOOGLE_URL, association);
+        final Association loaded = store2.load(GOOGLE_URL);
+        assertEquals(KEY, loaded.getHandle());
+        assertEquals(Association.TYPE_HMAC_SHA256, loaded.getType());
+        assertEquals(association.getExpiry(), loaded.getExpiry());
+        assertEquals(association.getMacKey(), loaded.getMacKey());
+        assertEquals(KEY, store2.load(GOOGLE_URL, KEY).getHandle());
+        assertNull(store2.load(GOOGLE_URL, VALUE));
+        final Date expiry = new Date(System.currentTimeMillis() + 60000);
+        store2.save(CALLBACK_URL, Association.getFailedAssociation(expiry));
+        assertEquals(Association.FAILED_ASSOC_HANDLE, store1.load(CALLBACK_URL).getHandle());
+        store2.remove(GOOGLE_URL, KEY);
+        assertNull(store1.load(GOOGLE_URL));
+        assertNull(store1.load(GOOGLE_URL, KEY));
+        store1.close();
+        store2.close();
+    }
+}
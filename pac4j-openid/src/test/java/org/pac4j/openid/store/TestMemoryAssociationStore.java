@@ -0,0 +1,57 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.openid4java.association.Association;
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link MemoryAssociationStore} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestMemoryAssociationStore extends TestCase implements TestsConstants {
+    
+    public void testSaveLoadRemove() {
+        final MemoryAssociationStore store = new MemoryAssociationStore();
+        final Association first = Association.generateHmacSha256(KEY, 60);
+        final Association second = Association.generateHmacSha1(VALUE, 120);
+        store.save(GOOGLE_URL, first);
+        store.save(GOOGLE_URL, second);
+        assertSame(second, store.load(GOOGLE_URL));
+        assertSame(first, store.load(GOOGLE_URL, KEY));
+        assertNull(store.load(CALLBACK_URL));
+        assertNull(store.load(GOOGLE_URL, FAKE_VALUE));
+        store.remove(GOOGLE_URL, VALUE);
+        assertSame(first, store.load(GOOGLE_URL));
+        assertEquals(1, store.size());
+    }
+    
+    public void testExpiredAssociations() throws InterruptedException {
+        final MemoryAssociationStore store = new MemoryAssociationStore(1);
+        store.save(GOOGLE_URL, Association.createHmacSha1(KEY, new byte[20], new Date(System.currentTimeMillis() + 5)));
+        Thread.sleep(10);
+        assertNull(store.load(GOOGLE_URL));
+        assertNull(store.load(GOOGLE_URL, KEY));
+        store.save(CALLBACK_URL, Association.generateHmacSha1(VALUE, 60));
+        assertEquals(1, store.size());
+    }
+}
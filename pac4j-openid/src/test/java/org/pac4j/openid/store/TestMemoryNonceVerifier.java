@@ -0,0 +1,70 @@
+/*
+  Copyright 2012 - 2013 Jerome Leleu
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.pac4j.openid.store;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.openid4java.consumer.NonceVerifier;
+import org.pac4j.core.util.TestsConstants;
+
+/**
+ * This class tests the {@link MemoryNonceVerifier} class.
+ * 
+ * @author Jerome Leleu
+ * @since 1.4.0
+ */
+public final class TestMemoryNonceVerifier extends TestCase implements TestsConstants {
+    
+    static String nonce(final long time, final String unique) {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(time)) + unique;
+    }
+    
+    public void testSeen() {
+        final MemoryNonceVerifier verifier = new MemoryNonceVerifier();
+        final String nonce = nonce(System.currentTimeMillis(), VALUE);
+        assertEquals(NonceVerifier.OK, verifier.seen(GOOGLE_URL, nonce));
+        assertEquals(NonceVerifier.SEEN, verifier.seen(GOOGLE_URL, nonce));
+        assertEquals(NonceVerifier.OK, verifier.seen(CALLBACK_URL, nonce));
+        assertEquals(NonceVerifier.OK, verifier.seen(GOOGLE_URL, nonce(System.currentTimeMillis(), FAKE_VALUE)));
+    }
+    
+    public void testInvalidNonces() {
+        final MemoryNonceVerifier verifier = new MemoryNonceVerifier();
+        assertEquals(NonceVerifier.INVALID_TIMESTAMP, verifier.seen(GOOGLE_URL, null));
+        assertEquals(NonceVerifier.INVALID_TIMESTAMP, verifier.seen(GOOGLE_URL, "2013-13-45T25:00:00Zabc"));
+        assertEquals(NonceVerifier.TOO_OLD, verifier.seen(GOOGLE_URL, nonce(System.currentTimeMillis() - 61000, VALUE)));
+        assertEquals(0, verifier.size());
+    }
+    
+    public void testPurge() throws InterruptedException {
+        final MemoryNonceVerifier verifier = new MemoryNonceVerifier(1);
+        verifier.setMaxAge(1);
+        // the nonce timestamp is truncated to the second
+        final long now = System.currentTimeMillis() / 1000 * 1000;
+        assertEquals(NonceVerifier.OK, verifier.seen(GOOGLE_URL, nonce(now, VALUE)));
+        assertEquals(1, verifier.size());
+        Thread.sleep(now + 1100 - System.currentTimeMillis());
+        verifier.setMaxAge(60);
+        assertEquals(NonceVerifier.OK, verifier.seen(GOOGLE_URL, nonce(System.currentTimeMillis(), FAKE_VALUE)));
+        assertEquals(1, verifier.size());
+    }
+}